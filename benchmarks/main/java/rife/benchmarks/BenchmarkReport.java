@@ -0,0 +1,157 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares the CSV results of a JMH run to those of a baseline run.
+ * <p>The scores and the normalized allocation rates that changed for the
+ * worse by more than the threshold are reported as regressions.
+ * <p>Usage: {@code BenchmarkReport results.csv baseline.csv [threshold]},
+ * where the threshold is a percentage that defaults to {@code 10}.
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @since 1.9.0
+ */
+public class BenchmarkReport {
+    private static final String ALLOCATION_SUFFIX = "gc.alloc.rate.norm";
+
+    record Result(String name, String mode, double score, double error, String unit) {
+        boolean higherIsBetter() {
+            return "thrpt".equals(mode) && !name.endsWith(ALLOCATION_SUFFIX);
+        }
+    }
+
+    static Map<String, Result> parse(Path file)
+    throws IOException {
+        var results = new LinkedHashMap<String, Result>();
+        if (!Files.exists(file)) {
+            return results;
+        }
+
+        List<String> header = null;
+        for (var line : Files.readAllLines(file)) {
+            if (line.isBlank()) {
+                continue;
+            }
+
+            var columns = splitCsv(line);
+            if (null == header) {
+                header = columns;
+                continue;
+            }
+
+            // secondary results other than the normalized allocation rate
+            // depend on the duration of the run and aren't compared
+            var benchmark = columns.get(0);
+            if (benchmark.indexOf(':') != -1 &&
+                !benchmark.endsWith(ALLOCATION_SUFFIX)) {
+                continue;
+            }
+
+            var name = new StringBuilder(benchmark);
+            for (var i = 7; i < columns.size() && i < header.size(); i++) {
+                if (columns.get(i).isEmpty()) {
+                    continue;
+                }
+                name.append(" ").append(header.get(i).replace("Param: ", "")).append("=").append(columns.get(i));
+            }
+
+            results.put(name.toString(), new Result(benchmark, columns.get(1), parseDouble(columns.get(4)), parseDouble(columns.get(5)), columns.get(6)));
+        }
+
+        return results;
+    }
+
+    static List<String> splitCsv(String line) {
+        var columns = new ArrayList<String>();
+        var column = new StringBuilder();
+        var quoted = false;
+        for (var i = 0; i < line.length(); i++) {
+            var c = line.charAt(i);
+            if ('"' == c) {
+                if (quoted && i + 1 < line.length() && '"' == line.charAt(i + 1)) {
+                    column.append('"');
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (',' == c && !quoted) {
+                columns.add(column.toString());
+                column.setLength(0);
+            } else {
+                column.append(c);
+            }
+        }
+        columns.add(column.toString());
+        return columns;
+    }
+
+    private static double parseDouble(String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    public static void main(String[] arguments)
+    throws IOException {
+        if (arguments.length < 2) {
+            System.err.println("Usage: BenchmarkReport results.csv baseline.csv [threshold]");
+            System.exit(1);
+        }
+
+        var current = parse(Path.of(arguments[0]));
+        var baseline = parse(Path.of(arguments[1]));
+        var threshold = arguments.length > 2 ? Double.parseDouble(arguments[2]) : 10.0;
+
+        if (current.isEmpty()) {
+            System.out.println("No benchmark results found in " + arguments[0] + ".");
+            return;
+        }
+        if (baseline.isEmpty()) {
+            System.out.println("No benchmark baseline found in " + arguments[1] + ", store one with the benchmark-baseline command.");
+        }
+
+        var width = current.keySet().stream().mapToInt(String::length).max().orElse(0);
+        var regressions = 0;
+        System.out.println();
+        System.out.printf("%-" + width + "s  %12s  %12s  %9s  %s%n", "Benchmark", "Baseline", "Current", "Change", "Unit");
+        for (var entry : current.entrySet()) {
+            var result = entry.getValue();
+            var previous = baseline.get(entry.getKey());
+
+            var baseline_score = "";
+            var change = "";
+            var regression = false;
+            if (previous != null &&
+                previous.unit().equals(result.unit()) &&
+                previous.score() != 0.0) {
+                var percentage = (result.score() - previous.score()) * 100.0 / previous.score();
+                baseline_score = String.format("%.3f", previous.score());
+                change = String.format("%+.1f%%", percentage);
+                regression = result.higherIsBetter() ? percentage < -threshold : percentage > threshold;
+            }
+
+            if (regression) {
+                regressions++;
+            }
+            System.out.printf("%-" + width + "s  %12s  %12.3f  %9s  %s%s%n", entry.getKey(), baseline_score, result.score(), change, result.unit(), regression ? "  REGRESSION" : "");
+        }
+
+        System.out.println();
+        if (!baseline.isEmpty()) {
+            System.out.println(regressions + " regression(s) above " + threshold + "% compared to the baseline.");
+        }
+    }
+}
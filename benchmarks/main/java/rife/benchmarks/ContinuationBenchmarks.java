@@ -0,0 +1,107 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import rife.continuations.*;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ContinuationBenchmarks {
+    public static class Continuable implements CloneableContinuable, Serializable {
+        String value_ = "continuable";
+
+        public Continuable clone()
+        throws CloneNotSupportedException {
+            return (Continuable) super.clone();
+        }
+    }
+
+    static class BenchmarkConfigRuntime extends ContinuationConfigRuntime {
+        private final ContinuationManager manager_ = new ContinuationManager(this);
+
+        public int getContinuationMaximumCount() {
+            return 10000;
+        }
+
+        public ContinuationManager getContinuationManager(Object executingInstance) {
+            return manager_;
+        }
+
+        public boolean cloneContinuations(Object executingContinuable) {
+            return true;
+        }
+    }
+
+    BenchmarkConfigRuntime config_;
+    ContinuationContext context_;
+
+    @Setup
+    public void setup() {
+        config_ = new BenchmarkConfigRuntime();
+        ContinuationConfigRuntime.setActiveConfigRuntime(config_);
+        context_ = createPausedContext();
+        context_.registerContext();
+    }
+
+    @TearDown
+    public void tearDown() {
+        config_.manager_.shutdown();
+        ContinuationContext.clearActiveContext();
+        ContinuationConfigRuntime.clearActiveConfigRuntime();
+    }
+
+    private static ContinuationContext createPausedContext() {
+        ContinuationContext.clearActiveContext();
+        var continuable = new Continuable();
+        var context = ContinuationContext.createOrResetContext(continuable);
+        context.setLabel(3);
+        context.setPaused(true);
+        context.getLocalVars().storeInt(0, 12);
+        context.getLocalVars().storeLong(1, 34L);
+        context.getLocalVars().storeDouble(2, 5.6d);
+        context.getLocalVars().storeReference(3, continuable);
+        context.getLocalVars().storeReference(4, new ArrayList<>(List.of("one", "two")));
+        context.getLocalStack().pushReference("stack");
+        context.getLocalStack().pushInt(7);
+        return context;
+    }
+
+    @Benchmark
+    public ContinuationContext captureContext()
+    throws CloneNotSupportedException {
+        return context_.clone();
+    }
+
+    @Benchmark
+    public ContinuationContext resumeContext()
+    throws CloneNotSupportedException {
+        return config_.manager_.resumeContext(context_.getId());
+    }
+
+    @Benchmark
+    public ContinuationContext registerContext() {
+        // the maximum count bounds the manager, so this also measures
+        // the eviction of the oldest continuations
+        var context = createPausedContext();
+        context.registerContext();
+        return context;
+    }
+
+    @Benchmark
+    public byte[] serializeContext()
+    throws Exception {
+        return ContinuationSerializer.serialize(context_);
+    }
+}
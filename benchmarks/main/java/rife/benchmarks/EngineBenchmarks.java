@@ -0,0 +1,140 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import rife.config.RifeConfig;
+import rife.engine.*;
+import rife.engine.annotations.Parameter;
+import rife.engine.annotations.Reusable;
+import rife.test.MockConversation;
+import rife.test.MockRequest;
+import rife.test.MockResponse;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class EngineBenchmarks {
+    public static class AnnotatedElement implements Element {
+        @Parameter String name;
+        @Parameter int count;
+        @Parameter boolean flag;
+
+        public void process(Context c) {
+            c.print(name + count + flag);
+        }
+    }
+
+    @Reusable
+    public static class ReusableElement extends AnnotatedElement {
+    }
+
+    public static class BenchmarkSite extends Site {
+        private final int routeCount_;
+
+        public BenchmarkSite(int routeCount) {
+            routeCount_ = routeCount;
+        }
+
+        public void setup() {
+            // a route table of the requested size, the benchmarked routes
+            // are registered last
+            for (var i = 0; i < routeCount_; i++) {
+                var index = i;
+                get("/static/route" + i, c -> c.print(index));
+            }
+            for (var i = 0; i < 20; i++) {
+                group("/group" + i, new Router() {
+                    public void setup() {
+                        get("/route", c -> c.print("group"));
+                        post("/route", c -> c.print("group"));
+                    }
+                });
+            }
+
+            get("/plain", c -> c.print("plain"));
+            get("/pathinfo", PathInfoHandling.CAPTURE, c -> c.print(c.pathInfo()));
+            get("/annotated", AnnotatedElement.class);
+            get("/reusable", ReusableElement.class);
+            get("/output", c -> {
+                for (var i = 0; i < 1000; i++) {
+                    c.print("<p>Some paragraph that makes up a larger response.</p>\n");
+                }
+            });
+        }
+    }
+
+    // the route lookups themselves are compared with the lookups before
+    // the routes were compiled in rife.engine.RouteLookupBenchmarks
+    @Param({"10", "100", "1000", "10000"})
+    int routeCount;
+
+    MockConversation conversation_;
+    boolean gzipCompression_;
+
+    @Setup
+    public void setup() {
+        gzipCompression_ = RifeConfig.engine().getGzipCompression();
+        RifeConfig.engine().setGzipCompression(true);
+        conversation_ = new MockConversation(new BenchmarkSite(routeCount));
+    }
+
+    @TearDown
+    public void tearDown() {
+        RifeConfig.engine().setGzipCompression(gzipCompression_);
+    }
+
+    @Benchmark
+    public MockResponse plainRoute() {
+        return conversation_.doRequest("/plain");
+    }
+
+    @Benchmark
+    public MockResponse pathInfoRoute() {
+        return conversation_.doRequest("/pathinfo/some/deeper/path");
+    }
+
+    @Benchmark
+    public MockResponse groupRoute() {
+        return conversation_.doRequest("/group19/route");
+    }
+
+    @Benchmark
+    public MockResponse notFound() {
+        return conversation_.doRequest("/unknown/route");
+    }
+
+    @Benchmark
+    public MockResponse annotatedElement() {
+        return conversation_.doRequest("/annotated", new MockRequest()
+            .parameter("name", "value")
+            .parameter("count", "12")
+            .parameter("flag", "true"));
+    }
+
+    @Benchmark
+    public MockResponse reusableElement() {
+        return conversation_.doRequest("/reusable", new MockRequest()
+            .parameter("name", "value")
+            .parameter("count", "12")
+            .parameter("flag", "true"));
+    }
+
+    @Benchmark
+    public MockResponse largeOutput() {
+        return conversation_.doRequest("/output");
+    }
+
+    @Benchmark
+    public MockResponse largeOutputGzip() {
+        return conversation_.doRequest("/output", new MockRequest()
+            .addHeader("Accept-Encoding", "gzip"));
+    }
+}
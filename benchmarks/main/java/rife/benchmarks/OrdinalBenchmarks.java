@@ -0,0 +1,81 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import rife.cmf.dam.OrdinalManager;
+import rife.database.Datasource;
+import rife.database.DbQueryManager;
+import rife.database.queries.CreateTable;
+import rife.database.queries.DropTable;
+import rife.database.queries.Insert;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class OrdinalBenchmarks {
+    @Param({"10000", "100000"})
+    int rows;
+
+    Datasource datasource_;
+    DropTable dropTable_;
+    OrdinalManager ordinals_;
+
+    @Setup
+    public void setup() {
+        datasource_ = new Datasource("org.h2.Driver", "jdbc:h2:mem:ordinals;DB_CLOSE_DELAY=-1", "sa", "", 1);
+
+        var manager = new DbQueryManager(datasource_);
+        var create_table = new CreateTable(datasource_)
+            .table("ordered")
+            .column("id", int.class, CreateTable.NOTNULL)
+            .column("priority", int.class, CreateTable.NOTNULL)
+            .primaryKey("id");
+        dropTable_ = new DropTable(datasource_)
+            .table(create_table.getTable());
+        manager.executeUpdate(create_table);
+
+        var insert = new Insert(datasource_)
+            .into(create_table.getTable())
+            .fieldParameter("id")
+            .fieldParameter("priority");
+        manager.inTransaction(() -> {
+            for (var i = 0; i < rows; i++) {
+                final var ordinal = i;
+                manager.executeUpdate(insert, s -> s
+                    .setInt("id", ordinal)
+                    .setInt("priority", ordinal));
+            }
+            return true;
+        });
+
+        ordinals_ = new OrdinalManager(datasource_, create_table.getTable(), "priority");
+    }
+
+    @TearDown
+    public void tearDown() {
+        new DbQueryManager(datasource_).executeUpdate(dropTable_);
+        datasource_.cleanup();
+    }
+
+    @Benchmark
+    public boolean freeAndTighten() {
+        // opens a slot at the top of the list, shifting every row, and
+        // closes it again, which leaves the table in its original state
+        return ordinals_.free(0) && ordinals_.tighten();
+    }
+
+    @Benchmark
+    public boolean moveTopToBottom() {
+        // moving the first row behind the last one leaves a gap at the top
+        // that has to be closed for the entire list
+        return ordinals_.move(0, rows);
+    }
+}
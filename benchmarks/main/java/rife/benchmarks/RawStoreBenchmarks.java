@@ -0,0 +1,82 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import rife.cmf.Content;
+import rife.cmf.MimeType;
+import rife.cmf.dam.contentmanagers.DatabaseContent;
+import rife.cmf.dam.contentmanagers.DatabaseContentFactory;
+import rife.cmf.elements.ServeContent;
+import rife.database.Datasource;
+import rife.engine.PathInfoHandling;
+import rife.engine.Site;
+import rife.test.MockConversation;
+import rife.test.MockResponse;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RawStoreBenchmarks {
+    @Param({"h2", "derby"})
+    String database;
+
+    @Param({"1048576", "16777216"})
+    int size;
+
+    Datasource datasource_;
+    DatabaseContent manager_;
+    byte[] data_;
+    MockConversation conversation_;
+
+    @Setup
+    public void setup() {
+        if ("derby".equals(database)) {
+            datasource_ = new Datasource("org.apache.derby.jdbc.EmbeddedDriver", "jdbc:derby:memory:rawstore;create=true", "", "", 1);
+        } else {
+            datasource_ = new Datasource("org.h2.Driver", "jdbc:h2:mem:rawstore;DB_CLOSE_DELAY=-1", "sa", "", 1);
+        }
+
+        manager_ = DatabaseContentFactory.instance(datasource_);
+        manager_.install();
+
+        data_ = new byte[size];
+        for (var i = 0; i < size; i++) {
+            data_[i] = (byte) (i % 255);
+        }
+        manager_.storeContent("/benchmark/serve", new Content(MimeType.RAW, new ByteArrayInputStream(data_)), null);
+
+        conversation_ = new MockConversation(new Site() {
+            public void setup() {
+                get("/serve", PathInfoHandling.CAPTURE, new ServeContent(datasource_));
+            }
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        manager_.remove();
+        datasource_.cleanup();
+    }
+
+    @Benchmark
+    public boolean storeContent() {
+        // the content is deleted again to not accumulate versions,
+        // which removes all its chunks with a single statement
+        return manager_.storeContent("/benchmark/store", new Content(MimeType.RAW, new ByteArrayInputStream(data_)), null) &&
+               manager_.deleteContent("/benchmark/store");
+    }
+
+    @Benchmark
+    public MockResponse serveContent() {
+        return conversation_.doRequest("/serve/benchmark/serve");
+    }
+}
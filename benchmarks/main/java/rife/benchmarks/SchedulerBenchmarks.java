@@ -0,0 +1,39 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import rife.scheduler.Frequency;
+import rife.scheduler.Task;
+import rife.scheduler.exceptions.FrequencyException;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SchedulerBenchmarks {
+    @Param({"* * * * *", "*/5 9-17 * * 1-5", "0 0 1 */3 *", "0 0 29 2 *"})
+    String specification;
+
+    Task task_;
+    long start_;
+
+    @Setup
+    public void setup()
+    throws FrequencyException {
+        task_ = new Task().type("benchmark").frequency(new Frequency(specification));
+        start_ = 1672531200000L; // 2023-01-01T00:00:00Z
+    }
+
+    @Benchmark
+    public long nextTimestamp()
+    throws FrequencyException {
+        return task_.getNextTimestamp(start_);
+    }
+}
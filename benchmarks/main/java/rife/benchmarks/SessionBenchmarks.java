@@ -0,0 +1,65 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import rife.authentication.exceptions.SessionManagerException;
+import rife.authentication.sessionmanagers.MemorySessions;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class SessionBenchmarks {
+    private static final int SESSION_COUNT = 10000;
+
+    MemorySessions sessions_;
+    String[] authIds_;
+
+    @Setup
+    public void setup()
+    throws SessionManagerException {
+        sessions_ = new MemorySessions();
+        authIds_ = new String[SESSION_COUNT];
+        for (var i = 0; i < SESSION_COUNT; i++) {
+            authIds_[i] = sessions_.startSession(i, "127.0.0.1", false);
+        }
+    }
+
+    @TearDown
+    public void tearDown()
+    throws SessionManagerException {
+        sessions_.eraseAllSessions();
+    }
+
+    private String randomAuthId() {
+        return authIds_[ThreadLocalRandom.current().nextInt(SESSION_COUNT)];
+    }
+
+    @Benchmark
+    public boolean validateSession()
+    throws SessionManagerException {
+        return sessions_.isSessionValid(randomAuthId(), "127.0.0.1");
+    }
+
+    @Benchmark
+    public boolean continueSession()
+    throws SessionManagerException {
+        return sessions_.continueSession(randomAuthId());
+    }
+
+    @Benchmark
+    public boolean startAndEraseSession()
+    throws SessionManagerException {
+        var user_id = SESSION_COUNT + ThreadLocalRandom.current().nextInt(SESSION_COUNT);
+        return sessions_.eraseSession(sessions_.startSession(user_id, "127.0.0.1", false));
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.engine;
+
+import org.openjdk.jmh.annotations.*;
+import rife.test.MockConversation;
+import rife.test.MockRequest;
+import rife.tools.StringUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the route lookups of the compiled {@link RouteTable} with the
+ * lookups that walked the route maps of the site for every request.
+ * <p>This lives in the engine package to be able to call the
+ * package-private lookup methods directly, without the rest of the
+ * request handling.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RouteLookupBenchmarks {
+    @Param({"10", "100", "1000", "10000"})
+    int routeCount;
+
+    Site site_;
+    LegacyLookup legacy_;
+    Request get_;
+    Request post_;
+
+    @Setup
+    public void setup() {
+        var count = routeCount;
+        site_ = new Site() {
+            public void setup() {
+                for (var i = 0; i < count; i++) {
+                    var index = i;
+                    get("/static/route" + i, c -> c.print(index));
+                }
+                for (var i = 0; i < Math.max(1, count / 10); i++) {
+                    get("/capture" + i, PathInfoHandling.CAPTURE, c -> c.print(c.pathInfo()));
+                    get("/mapped" + i, PathInfoHandling.MAP(m -> m.t("id").s().p("id", "\\d+")), c -> c.print(c.pathInfo()));
+                    post("/mapped" + i, PathInfoHandling.MAP(m -> m.t("name").s().p("name")), c -> c.print(c.pathInfo()));
+                }
+                fallback(c -> c.print("fallback"));
+                group("/deep/fallback", new Router() {
+                    public void setup() {
+                        fallback(c -> c.print("deep fallback"));
+                    }
+                });
+            }
+        };
+
+        // the conversation deploys the site and compiles its routes
+        new MockConversation(site_);
+        legacy_ = new LegacyLookup(site_);
+        get_ = new MockRequest().method(RequestMethod.GET);
+        post_ = new MockRequest().method(RequestMethod.POST);
+    }
+
+    private String lastStaticRoute() {
+        return "/static/route" + (routeCount - 1);
+    }
+
+    private String lastMappedRoute() {
+        return "/mapped" + (Math.max(1, routeCount / 10) - 1);
+    }
+
+    @Benchmark
+    public RouteMatch exactRouteTable() {
+        return site_.findRouteForRequest(get_, lastStaticRoute());
+    }
+
+    @Benchmark
+    public RouteMatch exactLegacy() {
+        return legacy_.findRouteForRequest(get_, lastStaticRoute());
+    }
+
+    @Benchmark
+    public RouteMatch captureRouteTable() {
+        return site_.findRouteForRequest(get_, "/capture0/some/deeper/path");
+    }
+
+    @Benchmark
+    public RouteMatch captureLegacy() {
+        return legacy_.findRouteForRequest(get_, "/capture0/some/deeper/path");
+    }
+
+    @Benchmark
+    public RouteMatch mappedRouteTable() {
+        return site_.findRouteForRequest(post_, lastMappedRoute() + "/name/value");
+    }
+
+    @Benchmark
+    public RouteMatch mappedLegacy() {
+        return legacy_.findRouteForRequest(post_, lastMappedRoute() + "/name/value");
+    }
+
+    @Benchmark
+    public RouteMatch fallbackRouteTable() {
+        return site_.findRouteForRequest(get_, "/deep/fallback/unknown/route");
+    }
+
+    @Benchmark
+    public RouteMatch fallbackLegacy() {
+        return legacy_.findRouteForRequest(get_, "/deep/fallback/unknown/route");
+    }
+
+    /**
+     * The route lookup as it was done before the routes were compiled,
+     * it resolves every URL segment through the route maps of the site.
+     */
+    static class LegacyLookup {
+        private final Site site_;
+
+        LegacyLookup(Site site) {
+            site_ = site;
+        }
+
+        RouteMatch findRouteForRequest(Request request, String elementUrl) {
+            Route route;
+            var element_url_buffer = new StringBuilder(elementUrl);
+            var element_url_location = -1;
+            var element_path_info = "";
+            String path_info = null;
+            do {
+                if (element_url_location > -1) {
+                    path_info = elementUrl.substring(element_url_location);
+                }
+                route = resolveUrl(request, element_url_buffer.toString(), path_info);
+
+                if (route != null) {
+                    break;
+                }
+
+                element_url_location = element_url_buffer.lastIndexOf("/");
+                if (-1 == element_url_location) {
+                    break;
+                }
+                element_url_buffer.setLength(element_url_location);
+            }
+            while (true);
+
+            if (null == route) {
+                route = resolveFallback(elementUrl);
+                if (null == route) {
+                    return null;
+                }
+            } else {
+                if (route.pathInfoHandling() == PathInfoHandling.NONE &&
+                    elementUrl.length() != element_url_buffer.length()) {
+                    route = resolveFallback(elementUrl);
+                    if (null == route) {
+                        return null;
+                    }
+                } else if (route.pathInfoHandling() != PathInfoHandling.NONE) {
+                    element_path_info = elementUrl.substring(element_url_buffer.length());
+                    element_path_info = StringUtils.stripFromFront(element_path_info, "/");
+                }
+            }
+
+            return new RouteMatch(route, element_path_info);
+        }
+
+        private Route resolveUrl(Request request, String url, String pathInfo) {
+            if (url.isEmpty()) {
+                url = "/";
+            }
+
+            if (null == pathInfo) {
+                var routes = site_.routes_.get(url);
+                if (routes != null && !routes.isEmpty()) {
+                    for (var route : routes) {
+                        if (routeHandlesMethod(route, request.getMethod())) {
+                            return route;
+                        }
+                    }
+                }
+            }
+
+            return resolvePathInfoUrl(request, url, pathInfo);
+        }
+
+        private static boolean routeHandlesMethod(Route route, RequestMethod method) {
+            if (route.methods() == null) {
+                return true;
+            }
+            for (var m : route.methods()) {
+                if (m == method) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private Route resolvePathInfoUrl(Request request, String url, String pathInfo) {
+            var routes = site_.pathInfoRoutes_.get(url);
+            if (null == routes ||
+                routes.isEmpty()) {
+                return null;
+            }
+
+            if (pathInfo != null) {
+                var path_info = StringUtils.stripFromFront(pathInfo, "/");
+                for (var route : routes) {
+                    if (route.pathInfoHandling().type() == PathInfoType.MAP && routeHandlesMethod(route, request.getMethod())) {
+                        for (var mapping : route.pathInfoHandling().mappings()) {
+                            var matcher = mapping.regexp().matcher(path_info);
+                            if (matcher.matches()) {
+                                return route;
+                            }
+                        }
+                    }
+                }
+            }
+
+            for (var route : routes) {
+                if (route.pathInfoHandling().type() == PathInfoType.CAPTURE && routeHandlesMethod(route, request.getMethod())) {
+                    return route;
+                }
+            }
+
+            return null;
+        }
+
+        private Route resolveFallback(String url) {
+            String best_match = null;
+            if (url.isEmpty()) {
+                url = "/";
+            }
+
+            for (var fallback_url : site_.fallbackRoutes_.keySet()) {
+                if (url.startsWith(fallback_url) &&
+                    (null == best_match || fallback_url.length() > best_match.length())) {
+                    best_match = fallback_url;
+                }
+            }
+
+            if (best_match != null) {
+                return site_.fallbackRoutes_.get(best_match);
+            } else {
+                return null;
+            }
+        }
+    }
+}
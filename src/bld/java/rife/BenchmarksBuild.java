@@ -0,0 +1,69 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife;
+
+import rife.bld.Project;
+import rife.bld.operations.RunOperation;
+
+import java.io.File;
+
+import static rife.bld.dependencies.Scope.compile;
+
+public class BenchmarksBuild extends Project {
+    final File resultsFile;
+    final File baselineFile;
+
+    public BenchmarksBuild(Rife2Build mainBuild) {
+        pkg = "rife";
+        name = "Benchmarks";
+        mainClass = "org.openjdk.jmh.Main";
+        version = version(1,0,0);
+
+        javaRelease = 17;
+
+        var jmh_version = version(1,37);
+        scope(compile)
+            .include(dependency("org.openjdk.jmh", "jmh-core", jmh_version))
+            .include(dependency("org.openjdk.jmh", "jmh-generator-annprocess", jmh_version))
+            .include(dependency("com.h2database", "h2", version(2,2,224)))
+            .include(dependency("org.apache.derby", "derby", version("10.16.1.1")))
+            .include(dependency("org.apache.derby", "derbytools", version("10.16.1.1")));
+
+        srcDirectory = new File(workDirectory(), "benchmarks");
+        libDirectory = new File(mainBuild.libDirectory(), "benchmarks");
+        buildMainDirectory = new File(buildDirectory(), "main_benchmarks");
+        buildTestDirectory = new File(buildDirectory(), "test_benchmarks");
+
+        resultsFile = new File(new File(buildDirectory(), "benchmarks"), "results.csv");
+        baselineFile = new File(srcDirectory(), "baseline.csv");
+
+        // the engine benchmarks need the provided and test dependencies
+        // of the main build, like the servlet API
+        compileOperation()
+            .compileMainClasspath(mainBuild.testsBadgeOperation.classpath())
+            .compileMainClasspath(mainBuild.buildMainDirectory().getAbsolutePath());
+        runOperation()
+            .classpath(mainBuild.testsBadgeOperation.classpath())
+            .classpath(mainBuild.buildMainDirectory().getAbsolutePath())
+            .javaOptions().javaAgent(new File(buildDistDirectory(), mainBuild.jarAgentOperation.destinationFileName()));
+        runOperation()
+            .runOptions("-prof", "gc", "-rf", "csv", "-rff", resultsFile.getAbsolutePath());
+    }
+
+    public void run()
+    throws Exception {
+        resultsFile.getParentFile().mkdirs();
+        super.run();
+    }
+
+    public void report()
+    throws Exception {
+        new RunOperation()
+            .fromProject(this)
+            .mainClass("rife.benchmarks.BenchmarkReport")
+            .runOptions(resultsFile.getAbsolutePath(), baselineFile.getAbsolutePath())
+            .execute();
+    }
+}
@@ -14,6 +14,7 @@ import rife.tools.FileUtils;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.jar.Attributes;
@@ -82,6 +83,8 @@ public class Rife2Build extends AbstractRife2Build {
             .destinationFileName("rife2-" + version() + "-agent.jar")
             .manifestAttribute(new Attributes.Name("Premain-Class"), "rife.instrument.RifeAgent")
             .included(
+                "RIFE_VERSION",
+                "rife/Version",
                 "rife/asm/",
                 "rife/instrument/",
                 "rife/continuations/ContinuationConfigInstrument",
@@ -103,6 +106,8 @@ public class Rife2Build extends AbstractRife2Build {
             .destinationFileName("rife2-" + version() + "-agent-continuations.jar")
             .manifestAttribute(new Attributes.Name("Premain-Class"), "rife.continuations.instrument.ContinuationsAgent")
             .included(
+                "RIFE_VERSION",
+                "rife/Version",
                 "rife/asm/",
                 "rife/instrument/",
                 "rife/continuations/ContinuationConfigInstrument",
@@ -155,6 +160,7 @@ public class Rife2Build extends AbstractRife2Build {
                 new PublishArtifact(jarContinuationsOperation.destinationFile(), "agent-continuations", "jar"));
 
         examples = new ExamplesBuild(this);
+        benchmarks = new BenchmarksBuild(this);
     }
 
     @Override
@@ -269,6 +275,43 @@ public class Rife2Build extends AbstractRife2Build {
         examples.run();
     }
 
+    final BenchmarksBuild benchmarks;
+
+    @BuildCommand(value = "compile-benchmarks", summary = "Compiles the RIFE2 benchmarks")
+    public void compileBenchmarks()
+    throws Exception {
+        compile();
+        benchmarks.download();
+        benchmarks.compile();
+    }
+
+    @BuildCommand(value = "benchmark", summary = "Runs the RIFE2 benchmarks and compares them to the baseline")
+    public void benchmark()
+    throws Exception {
+        jarAgent();
+        compileBenchmarks();
+
+        // the remaining arguments are passed on to JMH, for instance
+        // to only run the benchmarks that match a regular expression
+        benchmarks.runOperation().runOptions(new ArrayList<>(arguments()));
+        arguments().clear();
+
+        benchmarks.run();
+        benchmarks.report();
+    }
+
+    @BuildCommand(value = "benchmark-baseline", summary = "Stores the last RIFE2 benchmark results as the baseline")
+    public void benchmarkBaseline()
+    throws Exception {
+        if (!benchmarks.resultsFile.exists()) {
+            System.err.println("No benchmark results found, run the benchmark command first.");
+            return;
+        }
+
+        FileUtils.copy(benchmarks.resultsFile, benchmarks.baselineFile);
+        System.out.println("Stored " + benchmarks.baselineFile + " as the benchmark baseline.");
+    }
+
     public static void main(String[] args)
     throws Exception {
         new Rife2Build().start(args);
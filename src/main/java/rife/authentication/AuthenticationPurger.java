@@ -0,0 +1,179 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.authentication;
+
+import rife.authentication.remembermanagers.DatabaseRemember;
+import rife.authentication.sessionmanagers.DatabaseSessions;
+import rife.scheduler.Executor;
+import rife.scheduler.Task;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Periodic job that purges expired authentication sessions and remember IDs
+ * in bounded batches, instead of purging them while users log in.
+ * <p>Creating the purger disables the inline purging of the provided
+ * managers. This should be run using a scheduler, for example to purge
+ * every minute:
+ *
+ * <pre>
+ * var purger = new AuthenticationPurger(sessions, remember);
+ * scheduler.addExecutor(purger);
+ * scheduler.addTask(purger.createTask().frequency(Frequency.MINUTELY));
+ * </pre>
+ *
+ * <p>There are two optional parameters.
+ * <dl>
+ * <dt><code>batchSize</code></dt>
+ * <dd>The approximate number of rows that are deleted by one statement.
+ * If not specified, the default is {@value #DEFAULT_BATCH_SIZE}.</dd>
+ * <dt><code>maximumBatches</code></dt>
+ * <dd>The maximum number of batches that are deleted in one run, the
+ * remaining rows are purged by the next runs. If not specified, the
+ * default is {@value #DEFAULT_MAXIMUM_BATCHES}.</dd>
+ * </dl>
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @since 1.9.0
+ */
+public class AuthenticationPurger extends Executor {
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    public static final int DEFAULT_MAXIMUM_BATCHES = 100;
+
+    private final DatabaseSessions sessions_;
+    private final DatabaseRemember remember_;
+
+    private final LongAdder runs_ = new LongAdder();
+    private final LongAdder totalSessionsPurged_ = new LongAdder();
+    private final LongAdder totalRememberIdsPurged_ = new LongAdder();
+    private volatile int lastSessionsPurged_ = 0;
+    private volatile int lastRememberIdsPurged_ = 0;
+
+    /**
+     * Creates a new purger for the provided managers.
+     *
+     * @param sessions the session manager to purge; or {@code null}
+     * @param remember the remember manager to purge; or {@code null}
+     * @since 1.9.0
+     */
+    public AuthenticationPurger(DatabaseSessions sessions, DatabaseRemember remember) {
+        super();
+        sessions_ = sessions;
+        remember_ = remember;
+
+        if (sessions_ != null) {
+            sessions_.setPurgeInline(false);
+        }
+        if (remember_ != null) {
+            remember_.setPurgeInline(false);
+        }
+    }
+
+    @Override
+    public boolean executeTask(Task task) {
+        var batch_size = getIntOption(task, "batchSize", DEFAULT_BATCH_SIZE);
+        var maximum_batches = getIntOption(task, "maximumBatches", DEFAULT_MAXIMUM_BATCHES);
+
+        var sessions_purged = 0;
+        if (sessions_ != null) {
+            for (var i = 0; i < maximum_batches; i++) {
+                var purged = sessions_.purgeSessions(batch_size);
+                sessions_purged += purged;
+                if (purged < batch_size) {
+                    break;
+                }
+            }
+        }
+
+        var remember_ids_purged = 0;
+        if (remember_ != null) {
+            for (var i = 0; i < maximum_batches; i++) {
+                var purged = remember_.purgeRememberIds(batch_size);
+                remember_ids_purged += purged;
+                if (purged < batch_size) {
+                    break;
+                }
+            }
+        }
+
+        runs_.increment();
+        lastSessionsPurged_ = sessions_purged;
+        lastRememberIdsPurged_ = remember_ids_purged;
+        totalSessionsPurged_.add(sessions_purged);
+        totalRememberIdsPurged_.add(remember_ids_purged);
+
+        var logger = Logger.getLogger("rife.authentication");
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("Purged " + sessions_purged + " expired sessions and " + remember_ids_purged + " expired remember IDs.");
+        }
+
+        return true;
+    }
+
+    /**
+     * Retrieves the number of purge runs that completed.
+     *
+     * @return the count of runs
+     * @since 1.9.0
+     */
+    public long getRunCount() {
+        return runs_.sum();
+    }
+
+    /**
+     * Retrieves the number of sessions that were purged by the last run.
+     *
+     * @return the count of purged sessions
+     * @since 1.9.0
+     */
+    public int getLastSessionsPurged() {
+        return lastSessionsPurged_;
+    }
+
+    /**
+     * Retrieves the number of remember IDs that were purged by the last run.
+     *
+     * @return the count of purged remember IDs
+     * @since 1.9.0
+     */
+    public int getLastRememberIdsPurged() {
+        return lastRememberIdsPurged_;
+    }
+
+    /**
+     * Retrieves the number of sessions that were purged by all the runs.
+     *
+     * @return the total count of purged sessions
+     * @since 1.9.0
+     */
+    public long getTotalSessionsPurged() {
+        return totalSessionsPurged_.sum();
+    }
+
+    /**
+     * Retrieves the number of remember IDs that were purged by all the runs.
+     *
+     * @return the total count of purged remember IDs
+     * @since 1.9.0
+     */
+    public long getTotalRememberIdsPurged() {
+        return totalRememberIdsPurged_.sum();
+    }
+
+    private static int getIntOption(Task task, String name, int defaultValue) {
+        var value = task.getTaskOptionValue(name);
+        if (null == value) {
+            return defaultValue;
+        }
+
+        try {
+            return Math.max(1, Integer.parseInt(value));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
@@ -24,6 +24,7 @@ public abstract class DatabaseRemember extends DbQueryManager implements Remembe
     private long rememberDuration_ = RifeConfig.authentication().getRememberDuration();
     private int rememberPurgeFrequency_ = RifeConfig.authentication().getRememberPurgeFrequency();
     private int rememberPurgeScale_ = RifeConfig.authentication().getRememberPurgeScale();
+    private volatile boolean purgeInline_ = true;
 
     protected DatabaseRemember(Datasource datasource) {
         super(datasource);
@@ -53,12 +54,59 @@ public abstract class DatabaseRemember extends DbQueryManager implements Remembe
         rememberPurgeScale_ = scale;
     }
 
+    /**
+     * Indicates whether expired remember IDs are purged while creating new
+     * ones, according to the purge frequency and scale.
+     *
+     * @return {@code true} if remember IDs are purged inline; or
+     * <p>{@code false} if they're purged in the background
+     * @see rife.authentication.AuthenticationPurger
+     * @since 1.9.0
+     */
+    public boolean getPurgeInline() {
+        return purgeInline_;
+    }
+
+    /**
+     * Sets whether expired remember IDs are purged while creating new ones,
+     * this is disabled by
+     * {@link rife.authentication.AuthenticationPurger}
+     * when it takes over.
+     *
+     * @param flag {@code true} to purge remember IDs inline; or
+     *             {@code false} otherwise
+     * @since 1.9.0
+     */
+    public void setPurgeInline(boolean flag) {
+        purgeInline_ = flag;
+    }
+
     public abstract boolean install()
     throws RememberManagerException;
 
     public abstract boolean remove()
     throws RememberManagerException;
 
+    /**
+     * Purges a bounded batch of the oldest expired remember IDs.
+     *
+     * <p>Drivers that don't support batched purging fall back to purging
+     * all the expired remember IDs at once, the number of purged remember
+     * IDs isn't known then and {@code 0} is returned.
+     *
+     * @param batchSize the approximate maximum number of remember IDs to
+     *                  purge, remember IDs that were created at the same
+     *                  moment as the last one of the batch are purged too
+     * @return the number of remember IDs that were purged
+     * @throws RememberManagerException when an error occurred while purging
+     * @since 1.9.0
+     */
+    public int purgeRememberIds(int batchSize)
+    throws RememberManagerException {
+        purgeRememberIds();
+        return 0;
+    }
+
     protected boolean _install(CreateTable createRemember, String createRememberMomentIndex) {
         assert createRemember != null;
         assert createRememberMomentIndex != null;
@@ -230,5 +278,29 @@ public abstract class DatabaseRemember extends DbQueryManager implements Remembe
             throw new PurgeRememberIdsErrorException(e);
         }
     }
-}
 
+    protected int _purgeRememberIds(Select purgeRememberIdsBoundary, Delete purgeRememberIds, int batchSize)
+    throws RememberManagerException {
+        assert purgeRememberIdsBoundary != null;
+        assert purgeRememberIds != null;
+
+        if (batchSize < 1) {
+            return 0;
+        }
+
+        final var expiration = System.currentTimeMillis() - getRememberDuration();
+        try {
+            // find the moment of the last remember ID in the batch and only
+            // purge up to there, this is supported by the moment index
+            var boundary_query = purgeRememberIdsBoundary.clone()
+                .limit(1)
+                .offset(batchSize - 1);
+            var boundary = executeGetFirstLong(boundary_query, s -> s.setLong("moment", expiration));
+            final var limit = boundary < 0 ? expiration : Math.min(boundary, expiration);
+
+            return executeUpdate(purgeRememberIds, s -> s.setLong(1, limit));
+        } catch (DatabaseException e) {
+            throw new PurgeRememberIdsErrorException(e);
+        }
+    }
+}
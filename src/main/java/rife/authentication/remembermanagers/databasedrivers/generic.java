@@ -23,6 +23,7 @@ public class generic extends DatabaseRemember {
     protected Delete eraseAllRememberIds_;
     protected Select getRememberedUserId_;
     protected Delete purgeRememberIds_;
+    protected Select purgeRememberIdsBoundary_;
 
     public generic(Datasource datasource) {
         super(datasource);
@@ -66,6 +67,12 @@ public class generic extends DatabaseRemember {
         purgeRememberIds_ = new Delete(getDatasource())
             .from(createRemember_.getTable())
             .whereParameter("moment", "<=");
+
+        purgeRememberIdsBoundary_ = new Select(getDatasource())
+            .from(createRemember_.getTable())
+            .field("moment")
+            .whereParameter("moment", "<=")
+            .orderBy("moment");
     }
 
     public boolean install()
@@ -80,9 +87,11 @@ public class generic extends DatabaseRemember {
 
     public String createRememberId(long userId)
     throws RememberManagerException {
-        int purge_decision = ThreadLocalRandom.current().nextInt(getRememberPurgeScale());
-        if (purge_decision <= getRememberPurgeFrequency()) {
-            purgeRememberIds();
+        if (getPurgeInline()) {
+            int purge_decision = ThreadLocalRandom.current().nextInt(getRememberPurgeScale());
+            if (purge_decision <= getRememberPurgeFrequency()) {
+                purgeRememberIds();
+            }
         }
 
         return _createRememberId(createRememberId_, userId);
@@ -112,4 +121,9 @@ public class generic extends DatabaseRemember {
     throws RememberManagerException {
         _purgeRememberIds(purgeRememberIds_);
     }
+
+    public int purgeRememberIds(int batchSize)
+    throws RememberManagerException {
+        return _purgeRememberIds(purgeRememberIdsBoundary_, purgeRememberIds_, batchSize);
+    }
 }
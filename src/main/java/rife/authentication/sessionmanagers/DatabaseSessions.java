@@ -10,17 +10,44 @@ import rife.authentication.exceptions.SessionManagerException;
 import rife.authentication.sessionmanagers.exceptions.*;
 import rife.config.RifeConfig;
 import rife.database.Datasource;
+import rife.database.DbPreparedStatement;
+import rife.database.DbPreparedStatementHandler;
 import rife.database.DbQueryManager;
 import rife.database.exceptions.DatabaseException;
 import rife.database.queries.*;
 import rife.tools.ExceptionUtils;
 import rife.tools.UniqueIDGenerator;
 
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
 public abstract class DatabaseSessions extends DbQueryManager implements SessionManager {
+    private static final ScheduledExecutorService CONTINUE_EXECUTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+        var thread = new Thread(r, "DATABASE_SESSIONS_CONTINUE");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private long sessionDuration_ = RifeConfig.authentication().getSessionDuration();
     private boolean restrictAuthData_ = RifeConfig.authentication().getSessionRestrictAuthData();
     private int sessionPurgeFrequency_ = RifeConfig.authentication().getSessionPurgeFrequency();
     private int sessionPurgeScale_ = RifeConfig.authentication().getSessionPurgeScale();
+    private long continueSessionInterval_ = 0L;
+    private volatile boolean purgeInline_ = true;
+
+    private final SessionValidationCache validationCache_ = new SessionValidationCache();
+    private final Map<String, Long> continuedSessions_ = new ConcurrentHashMap<>();
+    private final Map<String, Long> pendingContinuations_ = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushScheduled_ = new AtomicBoolean(false);
+    private volatile Update pendingContinueSession_ = null;
 
     protected DatabaseSessions(Datasource datasource) {
         super(datasource);
@@ -58,6 +85,187 @@ public abstract class DatabaseSessions extends DbQueryManager implements Session
         sessionPurgeScale_ = scale;
     }
 
+    /**
+     * Indicates whether expired sessions are purged while starting new
+     * sessions, according to the purge frequency and scale.
+     *
+     * @return {@code true} if sessions are purged inline; or
+     * <p>{@code false} if they're purged in the background
+     * @see rife.authentication.AuthenticationPurger
+     * @since 1.9.0
+     */
+    public boolean getPurgeInline() {
+        return purgeInline_;
+    }
+
+    /**
+     * Sets whether expired sessions are purged while starting new sessions,
+     * this is disabled by
+     * {@link rife.authentication.AuthenticationPurger} when it takes over.
+     *
+     * @param flag {@code true} to purge sessions inline; or
+     *             {@code false} otherwise
+     * @since 1.9.0
+     */
+    public void setPurgeInline(boolean flag) {
+        purgeInline_ = flag;
+    }
+
+    /**
+     * Retrieves the cache of session lookups that is used by this session
+     * manager and by the {@code DatabaseSessionValidator} that uses it.
+     *
+     * @return the session validation cache
+     * @since 1.9.0
+     */
+    public SessionValidationCache getValidationCache() {
+        return validationCache_;
+    }
+
+    /**
+     * Retrieves how long session validations are cached.
+     *
+     * @return the duration in milliseconds; or
+     * <p>{@code 0} if validations aren't cached
+     * @since 1.9.0
+     */
+    public long getValidationCacheDuration() {
+        return validationCache_.getDuration();
+    }
+
+    /**
+     * Sets how long session validations and remembered checks are cached,
+     * by default they're not cached.
+     * <p>Sessions that are erased through this session manager are
+     * immediately removed from the cache, changes that are made elsewhere
+     * only become visible after the cache duration.
+     *
+     * @param milliseconds the duration in milliseconds; or {@code 0} to
+     *                     disable the cache
+     * @since 1.9.0
+     */
+    public void setValidationCacheDuration(long milliseconds) {
+        validationCache_.setDuration(milliseconds);
+    }
+
+    /**
+     * Retrieves the minimum interval between the database updates that
+     * continue the same session.
+     *
+     * @return the interval in milliseconds; or
+     * <p>{@code 0} if every continuation is written immediately
+     * @since 1.9.0
+     */
+    public long getContinueSessionInterval() {
+        return continueSessionInterval_;
+    }
+
+    /**
+     * Sets the minimum interval between the database updates that continue
+     * the same session, by default every continuation is written immediately.
+     * <p>When a session was already written within the interval, the new
+     * start time is only remembered and written in the background once the
+     * interval has passed, coalescing all the continuations in between. The
+     * interval should be much shorter than the session duration.
+     *
+     * @param milliseconds the interval in milliseconds; or {@code 0} to
+     *                     write every continuation immediately
+     * @since 1.9.0
+     */
+    public void setContinueSessionInterval(long milliseconds) {
+        continueSessionInterval_ = Math.max(0L, milliseconds);
+        if (0L == continueSessionInterval_) {
+            flushContinuedSessions();
+            continuedSessions_.clear();
+        }
+    }
+
+    /**
+     * Writes the session continuations that are pending in the background
+     * to the database.
+     *
+     * @return the number of sessions that were updated
+     * @throws SessionManagerException when an error occurred while updating
+     *                                 the sessions
+     * @since 1.9.0
+     */
+    public int flushContinuedSessions()
+    throws SessionManagerException {
+        var continue_session = pendingContinueSession_;
+        if (null == continue_session) {
+            return 0;
+        }
+
+        // claim the pending continuations, the ones that are added
+        // concurrently will be written by the next flush
+        final var auth_ids = new ArrayList<String>();
+        final var sess_starts = new ArrayList<Long>();
+        for (var entry : pendingContinuations_.entrySet()) {
+            if (pendingContinuations_.remove(entry.getKey(), entry.getValue())) {
+                auth_ids.add(entry.getKey());
+                sess_starts.add(entry.getValue());
+            }
+        }
+
+        var count = 0;
+        if (!auth_ids.isEmpty()) {
+            // write all the continuations in a single batch
+            final var results = new int[auth_ids.size()][];
+            try {
+                executeUpdate(continue_session, new DbPreparedStatementHandler<>() {
+                    public int performUpdate(DbPreparedStatement statement) {
+                        for (var i = 0; i < auth_ids.size(); i++) {
+                            statement
+                                .setLong("sessStart", sess_starts.get(i))
+                                .setString("authId", auth_ids.get(i));
+                            statement.addBatch();
+                        }
+                        results[0] = statement.executeBatch();
+                        return auth_ids.size();
+                    }
+                });
+            } catch (DatabaseException e) {
+                // keep the continuations for the next flush
+                for (var i = 0; i < auth_ids.size(); i++) {
+                    pendingContinuations_.merge(auth_ids.get(i), sess_starts.get(i), Math::max);
+                }
+                throw new ContinueSessionErrorException(auth_ids.get(0), e);
+            }
+
+            for (var i = 0; i < auth_ids.size(); i++) {
+                var auth_id = auth_ids.get(i);
+                var updated = results[0][i];
+                if (updated == Statement.SUCCESS_NO_INFO ||
+                    updated > 0) {
+                    continuedSessions_.put(auth_id, sess_starts.get(i));
+                    count++;
+                } else {
+                    continuedSessions_.remove(auth_id);
+                    validationCache_.putExists(auth_id, false);
+                }
+            }
+        }
+
+        // forget the sessions that weren't continued within the interval
+        var threshold = System.currentTimeMillis() - continueSessionInterval_;
+        continuedSessions_.values().removeIf(written -> written <= threshold);
+
+        return count;
+    }
+
+    private void scheduleContinuedSessionsFlush() {
+        if (flushScheduled_.compareAndSet(false, true)) {
+            CONTINUE_EXECUTOR.schedule(() -> {
+                flushScheduled_.set(false);
+                try {
+                    flushContinuedSessions();
+                } catch (SessionManagerException e) {
+                    Logger.getLogger("rife.authentication").log(Level.WARNING, "Unable to write the continued sessions.", e);
+                }
+            }, continueSessionInterval_, TimeUnit.MILLISECONDS);
+        }
+    }
+
     public abstract boolean install()
     throws SessionManagerException;
 
@@ -67,6 +275,26 @@ public abstract class DatabaseSessions extends DbQueryManager implements Session
     public abstract long countSessions()
     throws SessionManagerException;
 
+    /**
+     * Purges a bounded batch of the oldest expired sessions.
+     *
+     * <p>Drivers that don't support batched purging fall back to purging
+     * all the expired sessions at once, the number of purged sessions isn't
+     * known then and {@code 0} is returned.
+     *
+     * @param batchSize the approximate maximum number of sessions to purge,
+     *                  sessions that expired at the same moment as the
+     *                  last one of the batch are purged too
+     * @return the number of sessions that were purged
+     * @throws SessionManagerException when an error occurred while purging
+     * @since 1.9.0
+     */
+    public int purgeSessions(int batchSize)
+    throws SessionManagerException {
+        purgeSessions();
+        return 0;
+    }
+
     protected boolean _install(CreateTable createAuthentication, String createAuthenticationSessStartIndex) {
         assert createAuthentication != null;
         assert createAuthenticationSessStartIndex != null;
@@ -95,6 +323,9 @@ public abstract class DatabaseSessions extends DbQueryManager implements Session
 
     protected void _purgeSessions(Delete purgeSession)
     throws SessionManagerException {
+        // ensure that sessions which were continued aren't purged
+        flushContinuedSessions();
+
         try {
             executeUpdate(purgeSession, s -> s.setLong(1, System.currentTimeMillis() - getSessionDuration()));
         } catch (DatabaseException e) {
@@ -102,6 +333,34 @@ public abstract class DatabaseSessions extends DbQueryManager implements Session
         }
     }
 
+    protected int _purgeSessions(Select purgeSessionsBoundary, Delete purgeSessions, int batchSize)
+    throws SessionManagerException {
+        assert purgeSessionsBoundary != null;
+        assert purgeSessions != null;
+
+        if (batchSize < 1) {
+            return 0;
+        }
+
+        // ensure that sessions which were continued aren't purged
+        flushContinuedSessions();
+
+        final var expiration = System.currentTimeMillis() - getSessionDuration();
+        try {
+            // find the start of the last session in the batch and only
+            // purge up to there, this is supported by the sessStart index
+            var boundary_query = purgeSessionsBoundary.clone()
+                .limit(1)
+                .offset(batchSize - 1);
+            var boundary = executeGetFirstLong(boundary_query, s -> s.setLong("sessStart", expiration));
+            final var limit = boundary < 0 ? expiration : Math.min(boundary, expiration);
+
+            return executeUpdate(purgeSessions, s -> s.setLong(1, limit));
+        } catch (DatabaseException e) {
+            throw new PurgeSessionsErrorException(e);
+        }
+    }
+
     protected String _startSession(Insert startSession, final long userId, final String authData, final boolean remembered)
     throws SessionManagerException {
         assert startSession != null;
@@ -168,6 +427,30 @@ public abstract class DatabaseSessions extends DbQueryManager implements Session
     }
 
     public boolean _continueSession(Update continueSession, final String authId)
+    throws SessionManagerException {
+        return _continueSession(continueSession, null, authId);
+    }
+
+    /**
+     * Continues a session, coalescing the database updates when a continue
+     * session interval is set.
+     * <p>A continuation is only coalesced when the session is known to still
+     * exist, either through the validation cache or by checking the database
+     * with the provided query. Without that query, every continuation is
+     * written immediately.
+     *
+     * @param continueSession the query that updates the start of the session
+     * @param sessionExists   the query that checks whether the session exists
+     *                        and isn't expired; or {@code null} to never
+     *                        coalesce the continuations
+     * @param authId          the authentication ID of the session
+     * @return {@code true} if the session was continued; or
+     * <p>{@code false} if the session doesn't exist anymore
+     * @throws SessionManagerException when an error occurred while
+     *                                 continuing the session
+     * @since 1.9.0
+     */
+    public boolean _continueSession(Update continueSession, Select sessionExists, final String authId)
     throws SessionManagerException {
         assert continueSession != null;
 
@@ -176,10 +459,31 @@ public abstract class DatabaseSessions extends DbQueryManager implements Session
             return false;
         }
 
+        final var now = System.currentTimeMillis();
+
+        // coalesce the continuations of a session that was written
+        // recently, they will be written in the background
+        var interval = continueSessionInterval_;
+        if (interval > 0L && sessionExists != null) {
+            var written = continuedSessions_.get(authId);
+            if (written != null && now - written < interval) {
+                if (!sessionExists(sessionExists, authId, now)) {
+                    continuedSessions_.remove(authId);
+                    pendingContinuations_.remove(authId);
+                    return false;
+                }
+
+                pendingContinueSession_ = continueSession;
+                pendingContinuations_.merge(authId, now, Math::max);
+                scheduleContinuedSessionsFlush();
+                return true;
+            }
+        }
+
         boolean result = false;
         try {
             if (0 != executeUpdate(continueSession, s ->
-                s.setLong("sessStart", System.currentTimeMillis())
+                s.setLong("sessStart", now)
                     .setString("authId", authId))) {
                 result = true;
             }
@@ -187,6 +491,36 @@ public abstract class DatabaseSessions extends DbQueryManager implements Session
             throw new ContinueSessionErrorException(authId, e);
         }
 
+        if (interval > 0L) {
+            if (result) {
+                continuedSessions_.put(authId, now);
+            } else {
+                continuedSessions_.remove(authId);
+            }
+            validationCache_.putExists(authId, result);
+        }
+
+        return result;
+    }
+
+    private boolean sessionExists(Select sessionExists, final String authId, final long now)
+    throws SessionManagerException {
+        var cached = validationCache_.getExists(authId);
+        if (cached != null) {
+            return cached;
+        }
+
+        boolean result;
+        try {
+            result = executeHasResultRows(sessionExists, s ->
+                s.setString("authId", authId)
+                    .setLong("sessStart", now - getSessionDuration()));
+        } catch (DatabaseException e) {
+            throw new ContinueSessionErrorException(authId, e);
+        }
+
+        validationCache_.putExists(authId, result);
+
         return result;
     }
 
@@ -199,6 +533,10 @@ public abstract class DatabaseSessions extends DbQueryManager implements Session
             return false;
         }
 
+        validationCache_.invalidate(authId);
+        continuedSessions_.remove(authId);
+        pendingContinuations_.remove(authId);
+
         boolean result = false;
         try {
             if (0 != executeUpdate(eraseSession, s -> s.setString("authId", authId))) {
@@ -220,6 +558,11 @@ public abstract class DatabaseSessions extends DbQueryManager implements Session
             return false;
         }
 
+        var cached = validationCache_.getRemembered(authId);
+        if (cached != null) {
+            return cached;
+        }
+
         boolean result;
 
         try {
@@ -228,6 +571,8 @@ public abstract class DatabaseSessions extends DbQueryManager implements Session
             throw new SessionRememberedCheckErrorException(authId, e);
         }
 
+        validationCache_.putRemembered(authId, result);
+
         return result;
     }
 
@@ -239,6 +584,12 @@ public abstract class DatabaseSessions extends DbQueryManager implements Session
             return false;
         }
 
+        // the cache isn't indexed by user, write the pending continuations
+        // of the other sessions and start over
+        flushContinuedSessions();
+        validationCache_.clear();
+        continuedSessions_.clear();
+
         boolean result = false;
         try {
             if (0 != executeUpdate(eraseUserSessions, s -> s.setLong("userId", userId))) {
@@ -255,6 +606,10 @@ public abstract class DatabaseSessions extends DbQueryManager implements Session
     throws SessionManagerException {
         assert eraseAllSessions != null;
 
+        validationCache_.clear();
+        continuedSessions_.clear();
+        pendingContinuations_.clear();
+
         try {
             executeUpdate(eraseAllSessions);
         } catch (DatabaseException e) {
@@ -11,10 +11,20 @@ import rife.authentication.sessionmanagers.exceptions.StartSessionErrorException
 import rife.config.RifeConfig;
 import rife.tools.UniqueIDGenerator;
 
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class MemorySessions implements SessionManager {
+    private static final long EXPIRY_BUCKET_DURATION = 1000L;
+    private static final ExecutorService PURGE_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        var thread = new Thread(r, "MEMORY_SESSIONS_PURGE");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private long sessionDuration_ = RifeConfig.authentication().getSessionDuration();
     private boolean restrictAuthData_ = RifeConfig.authentication().getSessionRestrictAuthData();
     private int sessionPurgeFrequency_ = RifeConfig.authentication().getSessionPurgeFrequency();
@@ -22,6 +32,15 @@ public class MemorySessions implements SessionManager {
 
     private final ConcurrentHashMap<String, MemorySession> sessions_ = new ConcurrentHashMap<>();
 
+    // secondary indexes, the auth IDs per user and per time bucket of the
+    // session start, the expiry buckets are cleaned up lazily by the purge
+    private final ConcurrentHashMap<Long, Set<String>> userSessions_ = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Set<String>> expiryBuckets_ = new ConcurrentHashMap<>();
+    private final AtomicLong oldestBucket_ = new AtomicLong(Long.MAX_VALUE);
+
+    private final ReentrantLock purgeLock_ = new ReentrantLock();
+    private final AtomicBoolean purgeScheduled_ = new AtomicBoolean(false);
+
     public MemorySessions() {
     }
 
@@ -58,16 +77,106 @@ public class MemorySessions implements SessionManager {
     }
 
     public void purgeSessions() {
-        new PurgeSessions().start();
+        // all the instances share a single purge thread, and a purge that
+        // is already pending for this instance covers any new request
+        if (purgeScheduled_.compareAndSet(false, true)) {
+            PURGE_EXECUTOR.execute(() -> {
+                purgeScheduled_.set(false);
+                purgeExpiredSessions();
+            });
+        }
+    }
+
+    private static long expiryBucket(long start) {
+        return Math.floorDiv(start, EXPIRY_BUCKET_DURATION);
+    }
+
+    private void indexExpiry(String authId, long start) {
+        var bucket = expiryBucket(start);
+        expiryBuckets_.compute(bucket, (k, auth_ids) -> {
+            if (null == auth_ids) {
+                auth_ids = ConcurrentHashMap.newKeySet();
+            }
+            auth_ids.add(authId);
+            return auth_ids;
+        });
+        oldestBucket_.accumulateAndGet(bucket, Math::min);
     }
 
-    private class PurgeSessions extends Thread {
-        public void run() {
+    private void unindexUser(long userId, String authId) {
+        userSessions_.computeIfPresent(userId, (k, auth_ids) -> {
+            auth_ids.remove(authId);
+            return auth_ids.isEmpty() ? null : auth_ids;
+        });
+    }
+
+    private void removeSession(MemorySession session) {
+        if (sessions_.remove(session.getAuthId(), session)) {
+            unindexUser(session.getUserId(), session.getAuthId());
+        }
+    }
+
+    /**
+     * Removes the expired sessions by only visiting the expiry buckets
+     * that contain sessions which could have expired.
+     */
+    private void purgeExpiredSessions() {
+        purgeLock_.lock();
+        try {
             var expiration = System.currentTimeMillis() - getSessionDuration();
-            sessions_.values().removeIf(session -> session.getStart() <= expiration);
+            var last_bucket = expiryBucket(expiration);
+            var first_bucket = oldestBucket_.get();
+            if (first_bucket > last_bucket) {
+                return;
+            }
+
+            // visit the buckets in order when they're densely populated,
+            // otherwise only look at the ones that exist
+            if (last_bucket - first_bucket <= expiryBuckets_.size()) {
+                for (var bucket = first_bucket; bucket <= last_bucket; bucket++) {
+                    purgeBucket(bucket, expiration);
+                }
+            } else {
+                for (var bucket : expiryBuckets_.keySet()) {
+                    if (bucket <= last_bucket) {
+                        purgeBucket(bucket, expiration);
+                    }
+                }
+            }
+
+            // the last bucket can still contain sessions that didn't expire
+            oldestBucket_.compareAndSet(first_bucket, last_bucket);
+        } finally {
+            purgeLock_.unlock();
         }
     }
 
+    private void purgeBucket(long bucket, long expiration) {
+        var auth_ids = expiryBuckets_.get(bucket);
+        if (null == auth_ids) {
+            return;
+        }
+
+        for (var auth_id : auth_ids) {
+            var session = sessions_.get(auth_id);
+            if (session != null) {
+                var start = session.getStart();
+                if (start <= expiration) {
+                    removeSession(session);
+                } else if (expiryBucket(start) == bucket) {
+                    // still active in this bucket
+                    continue;
+                }
+            }
+
+            // the session was removed, or it was continued and is now
+            // tracked in a more recent bucket
+            auth_ids.remove(auth_id);
+        }
+
+        expiryBuckets_.computeIfPresent(bucket, (k, ids) -> ids.isEmpty() ? null : ids);
+    }
+
     public String startSession(long userId, String authData, boolean remembered)
     throws SessionManagerException {
         if (userId < 0 ||
@@ -84,6 +193,14 @@ public class MemorySessions implements SessionManager {
         var auth_id_string = UniqueIDGenerator.generate().toString();
 
         var session = new MemorySession(auth_id_string, userId, authData, remembered);
+        userSessions_.compute(userId, (k, auth_ids) -> {
+            if (null == auth_ids) {
+                auth_ids = ConcurrentHashMap.newKeySet();
+            }
+            auth_ids.add(auth_id_string);
+            return auth_ids;
+        });
+        indexExpiry(auth_id_string, session.getStart());
         sessions_.put(auth_id_string, session);
 
         return auth_id_string;
@@ -126,10 +243,17 @@ public class MemorySessions implements SessionManager {
             return false;
         }
 
-        return null != sessions_.computeIfPresent(authId, (s, session) -> {
-            session.setStart(System.currentTimeMillis());
-            return session;
+        var session = sessions_.computeIfPresent(authId, (s, current) -> {
+            var start = System.currentTimeMillis();
+            var previous_bucket = expiryBucket(current.getStart());
+            current.setStart(start);
+            if (expiryBucket(start) != previous_bucket) {
+                indexExpiry(authId, start);
+            }
+            return current;
         });
+
+        return session != null;
     }
 
     public boolean eraseSession(String authId)
@@ -139,7 +263,13 @@ public class MemorySessions implements SessionManager {
             return false;
         }
 
-        return sessions_.remove(authId) != null;
+        var session = sessions_.remove(authId);
+        if (null == session) {
+            return false;
+        }
+
+        unindexUser(session.getUserId(), authId);
+        return true;
     }
 
     public boolean wasRemembered(String authId)
@@ -163,12 +293,30 @@ public class MemorySessions implements SessionManager {
             return false;
         }
 
-        return sessions_.values().removeIf(session -> userId == session.getUserId());
+        var auth_ids = userSessions_.remove(userId);
+        if (null == auth_ids) {
+            return false;
+        }
+
+        var result = false;
+        for (var auth_id : auth_ids) {
+            var session = sessions_.get(auth_id);
+            if (session != null &&
+                session.getUserId() == userId &&
+                sessions_.remove(auth_id, session)) {
+                result = true;
+            }
+        }
+
+        return result;
     }
 
     public void eraseAllSessions()
     throws SessionManagerException {
         sessions_.clear();
+        userSessions_.clear();
+        expiryBuckets_.clear();
+        oldestBucket_.set(Long.MAX_VALUE);
     }
 
     public MemorySession getSession(String authId) {
@@ -176,10 +324,29 @@ public class MemorySessions implements SessionManager {
     }
 
     public long countSessions() {
+        // purging only visits the expired buckets, after that all the
+        // remaining sessions are active
+        purgeExpiredSessions();
+
         var expiration = System.currentTimeMillis() - getSessionDuration();
-        return sessions_.reduceToLong(1,
-            (s, session) -> (session.getStart() > expiration ? 1L : 0L),
-            0, Long::sum);
+        var last_bucket = expiryBucket(expiration);
+        var count = (long) sessions_.size();
+
+        // sessions can expire while a concurrent purge is running or
+        // right after the purge, only those in the boundary bucket need
+        // to be checked
+        var boundary = expiryBuckets_.get(last_bucket);
+        if (boundary != null) {
+            for (var auth_id : boundary) {
+                var session = sessions_.get(auth_id);
+                if (session != null &&
+                    session.getStart() <= expiration) {
+                    count -= 1;
+                }
+            }
+        }
+
+        return Math.max(count, 0);
     }
 
     public boolean listSessions(ListSessions processor) {
@@ -0,0 +1,273 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.authentication.sessionmanagers;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Short-lived, size-bounded cache of authentication session lookups.
+ * <p>The results of session validations, existence and remembered checks
+ * are kept for a short duration so that consecutive requests of the same
+ * session don't each go to the database. Entries are invalidated when sessions
+ * are erased through the session manager that owns the cache, other
+ * changes to the sessions become visible when the entries expire.
+ * <p>The cache is disabled as long as its duration is {@code 0}.
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @see DatabaseSessions#setValidationCacheDuration
+ * @since 1.9.0
+ */
+public class SessionValidationCache {
+    private final Map<String, Entry> entries_ = new ConcurrentHashMap<>();
+    private volatile long duration_ = 0L;
+    private volatile int maximumSize_ = 10000;
+
+    private static class Entry {
+        private final long expiration_;
+        private final Map<String, Integer> validities_ = new ConcurrentHashMap<>();
+        private volatile Boolean remembered_ = null;
+        private volatile Boolean exists_ = null;
+
+        Entry(long expiration) {
+            expiration_ = expiration;
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiration_;
+        }
+    }
+
+    /**
+     * Retrieves how long the lookups are cached.
+     *
+     * @return the duration in milliseconds; or
+     * <p>{@code 0} if the cache is disabled
+     * @since 1.9.0
+     */
+    public long getDuration() {
+        return duration_;
+    }
+
+    /**
+     * Sets how long the lookups are cached, this should be a short duration
+     * since sessions that are erased elsewhere stay valid in the cache until
+     * their entries expire.
+     *
+     * @param milliseconds the duration in milliseconds; or {@code 0} to
+     *                     disable the cache
+     * @since 1.9.0
+     */
+    public void setDuration(long milliseconds) {
+        duration_ = Math.max(0L, milliseconds);
+        if (0L == duration_) {
+            clear();
+        }
+    }
+
+    /**
+     * Retrieves the maximum number of sessions that are cached.
+     *
+     * @return the maximum number of cached sessions
+     * @since 1.9.0
+     */
+    public int getMaximumSize() {
+        return maximumSize_;
+    }
+
+    /**
+     * Sets the maximum number of sessions that are cached.
+     *
+     * @param size the maximum number of cached sessions
+     * @since 1.9.0
+     */
+    public void setMaximumSize(int size) {
+        maximumSize_ = Math.max(0, size);
+    }
+
+    /**
+     * Indicates whether the cache is enabled.
+     *
+     * @return {@code true} if lookups are cached; or
+     * <p>{@code false} otherwise
+     * @since 1.9.0
+     */
+    public boolean isEnabled() {
+        return duration_ > 0L;
+    }
+
+    /**
+     * Retrieves a cached session validation result.
+     *
+     * @param authId   the authentication ID of the session
+     * @param authData the authentication data that was provided
+     * @param role     the role that was checked; or {@code null}
+     * @return the cached validity; or
+     * <p>{@code null} if it isn't cached
+     * @since 1.9.0
+     */
+    public Integer getValidity(String authId, String authData, String role) {
+        var entry = activeEntry(authId);
+        if (null == entry) {
+            return null;
+        }
+        return entry.validities_.get(validityKey(authData, role));
+    }
+
+    /**
+     * Caches a session validation result.
+     *
+     * @param authId   the authentication ID of the session
+     * @param authData the authentication data that was provided
+     * @param role     the role that was checked; or {@code null}
+     * @param validity the validity of the session
+     * @since 1.9.0
+     */
+    public void putValidity(String authId, String authData, String role, int validity) {
+        var entry = obtainEntry(authId);
+        if (entry != null) {
+            entry.validities_.put(validityKey(authData, role), validity);
+        }
+    }
+
+    /**
+     * Retrieves whether a session was cached as started through remembered
+     * credentials.
+     *
+     * @param authId the authentication ID of the session
+     * @return the cached remembered state; or
+     * <p>{@code null} if it isn't cached
+     * @since 1.9.0
+     */
+    public Boolean getRemembered(String authId) {
+        var entry = activeEntry(authId);
+        if (null == entry) {
+            return null;
+        }
+        return entry.remembered_;
+    }
+
+    /**
+     * Caches whether a session was started through remembered credentials.
+     *
+     * @param authId     the authentication ID of the session
+     * @param remembered the remembered state of the session
+     * @since 1.9.0
+     */
+    public void putRemembered(String authId, boolean remembered) {
+        var entry = obtainEntry(authId);
+        if (entry != null) {
+            entry.remembered_ = remembered;
+        }
+    }
+
+    /**
+     * Retrieves whether a session was cached as existing and not expired.
+     *
+     * @param authId the authentication ID of the session
+     * @return the cached existence of the session; or
+     * <p>{@code null} if it isn't cached
+     * @since 1.9.0
+     */
+    public Boolean getExists(String authId) {
+        var entry = activeEntry(authId);
+        if (null == entry) {
+            return null;
+        }
+        return entry.exists_;
+    }
+
+    /**
+     * Caches whether a session exists and isn't expired.
+     *
+     * @param authId the authentication ID of the session
+     * @param exists the existence of the session
+     * @since 1.9.0
+     */
+    public void putExists(String authId, boolean exists) {
+        var entry = obtainEntry(authId);
+        if (entry != null) {
+            entry.exists_ = exists;
+        }
+    }
+
+    /**
+     * Removes the cached lookups of a session.
+     *
+     * @param authId the authentication ID of the session
+     * @since 1.9.0
+     */
+    public void invalidate(String authId) {
+        if (authId != null) {
+            entries_.remove(authId);
+        }
+    }
+
+    /**
+     * Removes all the cached lookups.
+     *
+     * @since 1.9.0
+     */
+    public void clear() {
+        entries_.clear();
+    }
+
+    /**
+     * Retrieves the number of sessions that are currently cached, including
+     * the ones that expired but weren't evicted yet.
+     *
+     * @return the number of cached sessions
+     * @since 1.9.0
+     */
+    public int size() {
+        return entries_.size();
+    }
+
+    private Entry activeEntry(String authId) {
+        if (!isEnabled() || null == authId) {
+            return null;
+        }
+
+        var entry = entries_.get(authId);
+        if (entry != null && entry.isExpired(System.currentTimeMillis())) {
+            entries_.remove(authId, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    private Entry obtainEntry(String authId) {
+        if (!isEnabled() || null == authId) {
+            return null;
+        }
+
+        var entry = activeEntry(authId);
+        if (entry != null) {
+            return entry;
+        }
+
+        // keep the cache bounded, first by evicting the expired entries
+        // and if that's not sufficient, by starting over
+        if (entries_.size() >= maximumSize_) {
+            var now = System.currentTimeMillis();
+            entries_.values().removeIf(e -> e.isExpired(now));
+            if (entries_.size() >= maximumSize_) {
+                entries_.clear();
+                if (0 == maximumSize_) {
+                    return null;
+                }
+            }
+        }
+
+        return entries_.computeIfAbsent(authId, k -> new Entry(System.currentTimeMillis() + duration_));
+    }
+
+    private static String validityKey(String authData, String role) {
+        if (null == role) {
+            return authData;
+        }
+        return authData + '\0' + role;
+    }
+}
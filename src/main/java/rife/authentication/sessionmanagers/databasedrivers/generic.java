@@ -17,6 +17,7 @@ public class generic extends DatabaseSessions {
     protected CreateTable createAuthentication_;
     protected String createAuthenticationSessStartIndex_;
     protected Delete purgeSessions_;
+    protected Select purgeSessionsBoundary_;
     protected Insert startSession_;
     protected Select isSessionValid_;
     protected Select isSessionValidRestrictAuthData_;
@@ -51,6 +52,12 @@ public class generic extends DatabaseSessions {
             .from(createAuthentication_.getTable())
             .whereParameter("sessStart", "<=");
 
+        purgeSessionsBoundary_ = new Select(getDatasource())
+            .from(createAuthentication_.getTable())
+            .field("sessStart")
+            .whereParameter("sessStart", "<=")
+            .orderBy("sessStart");
+
         startSession_ = new Insert(getDatasource())
             .into(createAuthentication_.getTable())
             .fieldParameter("authId")
@@ -126,11 +133,18 @@ public class generic extends DatabaseSessions {
         _purgeSessions(purgeSessions_);
     }
 
+    public int purgeSessions(int batchSize)
+    throws SessionManagerException {
+        return _purgeSessions(purgeSessionsBoundary_, purgeSessions_, batchSize);
+    }
+
     public String startSession(long userId, String authData, boolean remembered)
     throws SessionManagerException {
-        int purge_decision = ThreadLocalRandom.current().nextInt(getSessionPurgeScale());
-        if (purge_decision <= getSessionPurgeFrequency()) {
-            purgeSessions();
+        if (getPurgeInline()) {
+            int purge_decision = ThreadLocalRandom.current().nextInt(getSessionPurgeScale());
+            if (purge_decision <= getSessionPurgeFrequency()) {
+                purgeSessions();
+            }
         }
 
         return _startSession(startSession_, userId, authData, remembered);
@@ -143,7 +157,7 @@ public class generic extends DatabaseSessions {
 
     public boolean continueSession(String authId)
     throws SessionManagerException {
-        return _continueSession(continueSession_, authId);
+        return _continueSession(continueSession_, isSessionValid_, authId);
     }
 
     public boolean eraseSession(String authId)
@@ -79,6 +79,14 @@ public abstract class DatabaseSessionValidator extends DbQueryManager implements
             return SESSION_INVALID;
         }
 
+        // reuse a recent validation of the same session
+        var cache = sessionManager_.getValidationCache();
+        var role = attributes.hasAttribute("role") ? attributes.getAttribute("role") : null;
+        var cached = cache.getValidity(authId, authData, role);
+        if (cached != null) {
+            return cached;
+        }
+
         int result;
 
         Select query;
@@ -119,6 +127,8 @@ public abstract class DatabaseSessionValidator extends DbQueryManager implements
             throw new SessionValidityCheckErrorException(authId, authData, e);
         }
 
+        cache.putValidity(authId, authData, role, result);
+
         return result;
     }
 }
@@ -11,6 +11,8 @@ import rife.cmf.transform.ContentTransformer;
 import rife.engine.Context;
 import rife.engine.Route;
 
+import java.util.Collection;
+
 /**
  * A {@code ContentManager} manages content that is stored in a back-end
  * data store.
@@ -141,6 +143,33 @@ public interface ContentManager {
     <ResultType> ResultType useContentDataResult(String location, ContentDataUser<ResultType> user)
     throws ContentManagerException;
 
+    /**
+     * Use the data of the content at several locations.
+     * <p>The user is called once for each location that has content. Content
+     * managers can retrieve the data of all the locations with a few queries,
+     * the default implementation uses the data of each location in turn.
+     * <p>Some content data will only be available during the call of the
+     * user due to their volatile nature (certain streams for instance).
+     * Therefore, one has to be careful when trying to move the data that is
+     * provided to the content user outside this method. The behaviour is
+     * undefined.
+     *
+     * @param locations the locations whose content will be used
+     * @param user      the content user instance that will be called to use
+     *                  the content data of each location
+     * @throws ContentManagerException if an unexpected error occurred
+     * @since 1.9.0
+     */
+    default void useContentData(Collection<String> locations, ContentDataBatchUser<String> user)
+    throws ContentManagerException {
+        if (null == locations) throw new IllegalArgumentException("locations can't be null");
+        if (null == user) throw new IllegalArgumentException("user can't be null");
+
+        for (var location : locations) {
+            useContentData(location, contentData -> user.useContentData(location, contentData));
+        }
+    }
+
     /**
      * Checks whether content data is available at a certain location.
      *
@@ -5,6 +5,7 @@
 package rife.cmf.dam;
 
 import rife.cmf.Content;
+import rife.cmf.format.ImageFormatter;
 import rife.cmf.dam.contentmanagers.DatabaseContentFactory;
 import rife.cmf.dam.exceptions.*;
 import rife.database.Datasource;
@@ -23,8 +24,11 @@ import rife.validation.Constrained;
 import rife.validation.ConstrainedProperty;
 import rife.validation.ConstrainedUtils;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 
 /**
@@ -78,6 +82,10 @@ public class ContentQueryManager<T> extends GenericQueryManagerDelegate<T> imple
     private String repository_ = null;
 
     private final ThreadLocal<T> deletedBean_ = new ThreadLocal<>();
+    private final ThreadLocal<List<T>> restoredBeans_ = new ThreadLocal<>();
+
+    private record RestoredProperty(Object bean, String propertyName) {
+    }
 
     /**
      * Creates a new {@code ContentQueryManager} instance for a specific
@@ -498,7 +506,7 @@ public class ContentQueryManager<T> extends GenericQueryManagerDelegate<T> imple
      */
     public List<T> restore()
     throws DatabaseException {
-        return super.restore();
+        return restoreBatch(super::restore);
     }
 
     /**
@@ -514,7 +522,51 @@ public class ContentQueryManager<T> extends GenericQueryManagerDelegate<T> imple
      */
     public List<T> restore(RestoreQuery query)
     throws DatabaseException {
-        return super.restore(query);
+        return restoreBatch(() -> super.restore(query));
+    }
+
+    private List<T> restoreBatch(Supplier<List<T>> restore) {
+        // collect the restored beans, so that their auto-retrieved content
+        // is retrieved for all of them at once instead of bean per bean
+        var previous = restoredBeans_.get();
+        var beans = new ArrayList<T>();
+        restoredBeans_.set(beans);
+        try {
+            var result = restore.get();
+            restoreContent(beans);
+            return result;
+        } finally {
+            restoredBeans_.set(previous);
+        }
+    }
+
+    private void restoreContent(List<T> beans) {
+        var properties = new LinkedHashMap<String, RestoredProperty>();
+        for (var bean : beans) {
+            var constrained = ConstrainedUtils.makeConstrainedInstance(bean);
+            if (constrained != null) {
+                var id = getIdentifierValue(bean);
+                for (var property : constrained.getConstrainedProperties()) {
+                    if (property.hasMimeType() &&
+                        property.isAutoRetrieved()) {
+                        properties.put(buildCmfPath(constrained, id, property.getPropertyName()), new RestoredProperty(bean, property.getPropertyName()));
+                    }
+                }
+            }
+        }
+
+        if (properties.isEmpty()) {
+            return;
+        }
+
+        contentManager_.useContentData(properties.keySet(), (location, contentData) -> {
+            var property = properties.get(location);
+            try {
+                BeanUtils.setPropertyValue(property.bean(), property.propertyName(), contentData);
+            } catch (BeanUtilsException | ContentManagerException e) {
+                throw new DatabaseException(e);
+            }
+        });
     }
 
     private void restoreContent(int objectId, final T bean) {
@@ -808,6 +860,7 @@ public class ContentQueryManager<T> extends GenericQueryManagerDelegate<T> imple
             if (properties != null) {
                 var id = getIdentifierValue(bean);
 
+                var contents = new LinkedHashMap<ConstrainedProperty, Content>();
                 for (var property : properties) {
                     if (property.hasMimeType()) {
                         try {
@@ -819,21 +872,47 @@ public class ContentQueryManager<T> extends GenericQueryManagerDelegate<T> imple
                                     .name(property.getName())
                                     .attributes(property.getContentAttributes())
                                     .cachedLoadedData(property.getCachedLoadedData());
-
-                                contentManager_.storeContent(buildCmfPath(constrained, id, property.getPropertyName()),
-                                    content,
-                                    property.getTransformer());
+                                contents.put(property, content);
                             }
-                        } catch (BeanUtilsException | ContentManagerException e) {
+                        } catch (BeanUtilsException e) {
                             throw new DatabaseException(e);
                         }
                     }
                 }
+
+                // format the image renditions of the bean in parallel, they
+                // are then stored one after the other in the transaction
+                var images = new ArrayList<Content>();
+                for (var entry : contents.entrySet()) {
+                    if (null == entry.getKey().getTransformer() &&
+                        !Convert.toBoolean(entry.getValue().getAttribute("unformatted"), false)) {
+                        images.add(entry.getValue());
+                    }
+                }
+                if (images.size() > 1) {
+                    ImageFormatter.prepareRenditions(images);
+                }
+
+                for (var entry : contents.entrySet()) {
+                    var property = entry.getKey();
+                    try {
+                        contentManager_.storeContent(buildCmfPath(constrained, id, property.getPropertyName()),
+                            entry.getValue(),
+                            property.getTransformer());
+                    } catch (ContentManagerException e) {
+                        throw new DatabaseException(e);
+                    }
+                }
             }
         }
 
         public void restored(T bean) {
-            restoreContent(getIdentifierValue(bean), bean);
+            var restored_beans = restoredBeans_.get();
+            if (restored_beans != null) {
+                restored_beans.add(bean);
+            } else {
+                restoreContent(getIdentifierValue(bean), bean);
+            }
         }
 
         public void deleted(int objectId) {
@@ -150,6 +150,33 @@ public interface ContentStore {
     <ResultType> ResultType useContentDataResult(int id, ContentDataUser<ResultType> user)
     throws ContentManagerException;
 
+    /**
+     * Use the data of several content ids.
+     * <p>The user is called once for each id. Content stores can retrieve
+     * the data of all the ids with a few queries, the default implementation
+     * uses the data of each id in turn.
+     * <p>Some content data will only be available during the call of the
+     * user due to their volatile nature (certain streams for instance).
+     * Therefore, one has to be careful when trying to move the data that is
+     * provided to the content user outside this method. The behaviour is
+     * undefined.
+     *
+     * @param ids  the ids of the contents whose data will be used
+     * @param user the content user instance that will be called to use
+     *             the content data of each id
+     * @throws ContentManagerException if an unexpected error occurred
+     * @since 1.9.0
+     */
+    default void useContentData(Collection<Integer> ids, ContentDataBatchUser<Integer> user)
+    throws ContentManagerException {
+        if (null == ids) throw new IllegalArgumentException("ids can't be null");
+        if (null == user) throw new IllegalArgumentException("user can't be null");
+
+        for (var id : ids) {
+            useContentData(id, contentData -> user.useContentData(id, contentData));
+        }
+    }
+
     /**
      * Checks whether content data is available for a certain content id.
      *
@@ -193,6 +220,25 @@ public interface ContentStore {
     void serveContentData(Context context, int id)
     throws ContentManagerException;
 
+    /**
+     * Serves content data for a certain content id through the provided
+     * element, optionally honouring the byte ranges of the request.
+     * <p>Stores that don't support partial content simply serve the
+     * complete content data.
+     *
+     * @param context      an active web engine context
+     * @param id           the id of the content whose data will be served
+     * @param rangeAllowed {@code true} if the {@code Range} header of the
+     *                     request may be used to serve partial content; or
+     *                     {@code false} if the complete content should be served
+     * @throws ContentManagerException if an unexpected error occurred
+     * @since 1.9.0
+     */
+    default void serveContentData(Context context, int id, boolean rangeAllowed)
+    throws ContentManagerException {
+        serveContentData(context, id);
+    }
+
     /**
      * Retrieves a content data representation for use in html.
      * <p>This is mainly used to integrate content data inside a html
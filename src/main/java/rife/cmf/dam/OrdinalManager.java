@@ -11,7 +11,10 @@ import rife.datastructures.EnumClass;
 import rife.tools.ExceptionUtils;
 import rife.tools.InnerClassException;
 
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.logging.Logger;
 
 /**
@@ -45,6 +48,13 @@ import java.util.logging.Logger;
  * level methods: {@link #free(int) free}, {@link #update(int, int) update},
  * {@link #tighten() tighten} and {@link #obtainInsertOrdinal()
  * obtainInsertOrdinal}.
+ * <p>All ordinal manipulations are performed as set-based updates of
+ * ranges of ordinals, regardless of the number of rows that are affected.
+ * The ranges are first moved beyond the final ordinal and then moved back
+ * into place, this ensures that two rows never have the same ordinal, even
+ * while a statement is executing, and allows the ordinal column to have a
+ * unique index. Freeing a slot thus issues two update statements and
+ * tightening one update statement for each gap in the ordinals plus one.
  *
  * @author Geert Bevin (gbevin[remove] at uwyn dot com)
  * @since 1.0
@@ -66,10 +76,12 @@ public class OrdinalManager implements Cloneable {
     private String restrictColumn_;
 
     private final Update freeMoveOrdinal_;
+    private final Update shiftOrdinals_;
     private final Select getFinalOrdinal_;
     private final Select getOrdinals_;
     private Select getFinalOrdinalRestricted_ = null;
     private Update freeMoveOrdinalRestricted_ = null;
+    private Update shiftOrdinalsRestricted_ = null;
     private Select getOrdinalsRestricted_ = null;
 
     /**
@@ -107,6 +119,12 @@ public class OrdinalManager implements Cloneable {
             .whereParameter(ordinalColumn_, "current", "=")
             .fieldParameter(ordinalColumn_, "new");
 
+        shiftOrdinals_ = new Update(datasource);
+        shiftOrdinals_
+            .table(table_)
+            .whereParameter(ordinalColumn_, "first", ">=")
+            .whereParameterAnd(ordinalColumn_, "last", "<=");
+
         getOrdinals_ = new Select(datasource);
         getOrdinals_
             .field(ordinalColumn_)
@@ -148,6 +166,13 @@ public class OrdinalManager implements Cloneable {
             .whereParameterAnd(ordinalColumn_, "current", "=")
             .fieldParameter(ordinalColumn_, "new");
 
+        shiftOrdinalsRestricted_ = new Update(datasource_);
+        shiftOrdinalsRestricted_
+            .table(table_)
+            .whereParameter(restrictColumn_, "=")
+            .whereParameterAnd(ordinalColumn_, "first", ">=")
+            .whereParameterAnd(ordinalColumn_, "last", "<=");
+
         getOrdinalsRestricted_ = new Select(datasource_);
         getOrdinalsRestricted_
             .field(ordinalColumn_)
@@ -463,19 +488,16 @@ public class OrdinalManager implements Cloneable {
      * @since 1.0
      */
     public boolean free(final int ordinal) {
-        Boolean result = dbQueryManager_.inTransaction(() -> {
-            if (ordinal < 0) {
-                return false;
-            }
-
-            int last_ordinal = dbQueryManager_.executeGetFirstInt(getFinalOrdinal_);
-
-            for (int i = last_ordinal; i >= ordinal; i--) {
-                final int current_ordinal = i;
+        if (ordinal < 0) {
+            return false;
+        }
 
-                dbQueryManager_.executeUpdate(freeMoveOrdinal_, s -> s
-                    .setInt("current", current_ordinal)
-                    .setInt("new", current_ordinal + 1));
+        Boolean result = dbQueryManager_.inTransaction(() -> {
+            var final_ordinal = dbQueryManager_.executeGetFirstInt(getFinalOrdinal_);
+            if (final_ordinal >= ordinal) {
+                var beyond = final_ordinal + 1;
+                shift(new Shift(ordinal, final_ordinal, -beyond));
+                shift(new Shift(beyond, Integer.MAX_VALUE, beyond - 1));
             }
 
             return true;
@@ -518,21 +540,17 @@ public class OrdinalManager implements Cloneable {
      * @since 1.0
      */
     public boolean free(final long restrictId, final int ordinal) {
-        Boolean result = dbQueryManager_.inTransaction(() -> {
-            if (ordinal < 0) {
-                return false;
-            }
+        if (ordinal < 0) {
+            return false;
+        }
 
-            int last_ordinal = dbQueryManager_.executeGetFirstInt(getFinalOrdinalRestricted_, s ->
+        Boolean result = dbQueryManager_.inTransaction(() -> {
+            var final_ordinal = dbQueryManager_.executeGetFirstInt(getFinalOrdinalRestricted_, s ->
                 s.setLong(restrictColumn_, restrictId));
-
-            for (int i = last_ordinal; i >= ordinal; i--) {
-                final int current_ordinal = i;
-
-                dbQueryManager_.executeUpdate(freeMoveOrdinalRestricted_, s ->
-                    s.setLong(restrictColumn_, restrictId)
-                        .setInt("current", current_ordinal)
-                        .setInt("new", current_ordinal + 1));
+            if (final_ordinal >= ordinal) {
+                var beyond = final_ordinal + 1;
+                shift(restrictId, new Shift(ordinal, final_ordinal, -beyond));
+                shift(restrictId, new Shift(beyond, Integer.MAX_VALUE, beyond - 1));
             }
 
             return true;
@@ -607,9 +625,23 @@ public class OrdinalManager implements Cloneable {
      * @since 1.0
      */
     public boolean tighten() {
-        dbQueryManager_.inTransaction(() -> dbQueryManager_.executeQuery(getOrdinals_, new TightenResultSetHandler()));
+        Boolean result = dbQueryManager_.inTransaction(() -> {
+            var gaps = new GapsProcessor();
+            dbQueryManager_.executeFetchAll(getOrdinals_, gaps);
+
+            var shifts = gaps.getShifts();
+            if (!shifts.isEmpty()) {
+                var beyond = gaps.getFinalOrdinal() + 1;
+                for (var shift : shifts) {
+                    shift(new Shift(shift.first(), shift.last(), shift.offset() - beyond));
+                }
+                shift(new Shift(beyond, Integer.MAX_VALUE, beyond));
+            }
 
-        return true;
+            return true;
+        });
+
+        return null != result && result;
     }
 
     /**
@@ -644,16 +676,24 @@ public class OrdinalManager implements Cloneable {
      * @since 1.0
      */
     public boolean tighten(final long restrictId) {
-        final TightenResultSetHandlerRestricted handler = new TightenResultSetHandlerRestricted(restrictId) {
-            public void setParameters(DbPreparedStatement statement) {
-                statement
-                    .setLong(restrictColumn_, restrictId);
+        Boolean result = dbQueryManager_.inTransaction(() -> {
+            var gaps = new GapsProcessor();
+            dbQueryManager_.executeFetchAll(getOrdinalsRestricted_, gaps, s ->
+                s.setLong(restrictColumn_, restrictId));
+
+            var shifts = gaps.getShifts();
+            if (!shifts.isEmpty()) {
+                var beyond = gaps.getFinalOrdinal() + 1;
+                for (var shift : shifts) {
+                    shift(restrictId, new Shift(shift.first(), shift.last(), shift.offset() - beyond));
+                }
+                shift(restrictId, new Shift(beyond, Integer.MAX_VALUE, beyond));
             }
-        };
 
-        dbQueryManager_.inTransaction(() -> dbQueryManager_.executeQuery(getOrdinalsRestricted_, handler));
+            return gaps.hasOrdinals();
+        });
 
-        return handler.isTightened();
+        return null != result && result;
     }
 
     /**
@@ -730,53 +770,85 @@ public class OrdinalManager implements Cloneable {
         }
     }
 
-    private class TightenResultSetHandler extends DbPreparedStatementHandler {
-        private int mCount = 0;
+    private void shift(Shift shift) {
+        dbQueryManager_.executeUpdate(shiftOrdinals_.clone()
+            .fieldCustom(ordinalColumn_, shift.getExpression(ordinalColumn_)), s ->
+            s.setInt("first", shift.first())
+                .setInt("last", shift.last()));
+    }
 
-        public TightenResultSetHandler() {
-        }
+    private void shift(long restrictId, Shift shift) {
+        dbQueryManager_.executeUpdate(shiftOrdinalsRestricted_.clone()
+            .fieldCustom(ordinalColumn_, shift.getExpression(ordinalColumn_)), s ->
+            s.setLong(restrictColumn_, restrictId)
+                .setInt("first", shift.first())
+                .setInt("last", shift.last()));
+    }
 
-        public Object concludeResults(DbResultSet resultSet)
-        throws SQLException {
-            while (resultSet.next()) {
-                int ordinal = resultSet.getInt(ordinalColumn_);
-                if (ordinal != mCount) {
-                    update(ordinal, mCount);
-                }
-                mCount++;
+    /**
+     * A range of ordinals that is moved down by an offset, a negative offset
+     * moves the range up.
+     */
+    private record Shift(int first, int last, int offset) {
+        String getExpression(String ordinalColumn) {
+            // a negative offset is added to prevent the double minus
+            // from being parsed as the start of an SQL comment
+            if (offset > 0) {
+                return ordinalColumn + " - " + offset;
             }
 
-            return null;
+            return ordinalColumn + " + " + (-offset);
         }
     }
 
-    private class TightenResultSetHandlerRestricted extends DbPreparedStatementHandler {
-        private int mCount = 0;
-        private long mRestrictId = -1;
-
-        private boolean mTightened = false;
+    /**
+     * Collects the consecutive ranges of ordinals that have to be shifted
+     * by the same offset to close the gaps in the series, only the ordinals
+     * themselves are retrieved and no updates are executed while the
+     * results are being read.
+     */
+    private class GapsProcessor extends DbRowProcessor {
+        private final List<Shift> shifts_ = new ArrayList<>();
+        private int count_ = 0;
+        private int first_ = -1;
+        private int last_ = -1;
+        private int offset_ = 0;
+
+        public boolean processRow(ResultSet resultSet)
+        throws SQLException {
+            var ordinal = resultSet.getInt(ordinalColumn_);
+            var offset = ordinal - count_;
+            if (0 == count_ || offset != offset_) {
+                addShift();
+                first_ = ordinal;
+                offset_ = offset;
+            }
+            last_ = ordinal;
+            count_++;
 
-        public TightenResultSetHandlerRestricted(long restrictId) {
-            mRestrictId = restrictId;
+            return true;
         }
 
-        public Object concludeResults(DbResultSet resultset)
-        throws SQLException {
-            while (resultset.next()) {
-                mTightened = true;
-
-                int ordinal = resultset.getInt(ordinalColumn_);
-                if (ordinal != mCount) {
-                    update(mRestrictId, ordinal, mCount);
-                }
-                mCount++;
+        private void addShift() {
+            if (count_ > 0 && offset_ != 0) {
+                shifts_.add(new Shift(first_, last_, offset_));
             }
+        }
 
-            return null;
+        boolean hasOrdinals() {
+            return count_ > 0;
         }
 
-        public boolean isTightened() {
-            return mTightened;
+        int getFinalOrdinal() {
+            return last_;
+        }
+
+        List<Shift> getShifts() {
+            var shifts = new ArrayList<>(shifts_);
+            if (count_ > 0 && offset_ != 0) {
+                shifts.add(new Shift(first_, last_, offset_));
+            }
+            return shifts;
         }
     }
 
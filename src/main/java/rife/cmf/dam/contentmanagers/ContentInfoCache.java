@@ -0,0 +1,254 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.cmf.dam.contentmanagers;
+
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Short-lived, size-bounded cache of the content info lookups of a
+ * {@link DatabaseContent} manager.
+ * <p>The latest content info of a location is kept for a short duration
+ * so that serving the same content repeatedly doesn't retrieve its info,
+ * attributes and properties from the database each time. Locations without
+ * content are cached too, this prevents requests for unknown content from
+ * reaching the database.
+ * <p>Entries are invalidated when content is stored or deleted through the
+ * content manager that owns the cache, other changes to the content become
+ * visible when the entries expire.
+ * <p>The cache is disabled as long as its duration is {@code 0}.
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @see DatabaseContent#setContentInfoCacheDuration
+ * @since 1.9.0
+ */
+public class ContentInfoCache {
+    private final Map<Key, Entry> entries_ = new ConcurrentHashMap<>();
+    private final AtomicLong generation_ = new AtomicLong();
+    private volatile long duration_ = 0L;
+    private volatile int maximumSize_ = 10000;
+
+    private record Key(String repository, String path) {
+    }
+
+    private record Entry(DatabaseContentInfo info, long expiration) {
+        boolean isExpired(long now) {
+            return now >= expiration;
+        }
+    }
+
+    /**
+     * The result of a cache lookup.
+     *
+     * @param info the cached content info; or {@code null} if it was cached
+     *             that the location has no content
+     * @since 1.9.0
+     */
+    public record Lookup(DatabaseContentInfo info) {
+    }
+
+    /**
+     * Retrieves how long the lookups are cached.
+     *
+     * @return the duration in milliseconds; or
+     * <p>{@code 0} if the cache is disabled
+     * @since 1.9.0
+     */
+    public long getDuration() {
+        return duration_;
+    }
+
+    /**
+     * Sets how long the lookups are cached, this should be a short duration
+     * when content is also changed by other applications or servers.
+     *
+     * @param milliseconds the duration in milliseconds; or {@code 0} to
+     *                     disable the cache
+     * @since 1.9.0
+     */
+    public void setDuration(long milliseconds) {
+        duration_ = Math.max(0L, milliseconds);
+        if (0L == duration_) {
+            clear();
+        }
+    }
+
+    /**
+     * Retrieves the maximum number of locations that are cached.
+     *
+     * @return the maximum number of cached locations
+     * @since 1.9.0
+     */
+    public int getMaximumSize() {
+        return maximumSize_;
+    }
+
+    /**
+     * Sets the maximum number of locations that are cached.
+     *
+     * @param size the maximum number of cached locations
+     * @since 1.9.0
+     */
+    public void setMaximumSize(int size) {
+        maximumSize_ = Math.max(0, size);
+    }
+
+    /**
+     * Indicates whether the cache is enabled.
+     *
+     * @return {@code true} if lookups are cached; or
+     * <p>{@code false} otherwise
+     * @since 1.9.0
+     */
+    public boolean isEnabled() {
+        return duration_ > 0L;
+    }
+
+    /**
+     * Retrieves the stamp that has to be provided when a lookup is cached.
+     * <p>It should be obtained before the content info is retrieved from the
+     * database, so that lookups that were running while the content was
+     * changed aren't cached.
+     *
+     * @return the current stamp
+     * @since 1.9.0
+     */
+    public long stamp() {
+        return generation_.get();
+    }
+
+    /**
+     * Retrieves a cached lookup.
+     *
+     * @param repository the name of the repository
+     * @param path       the path of the location
+     * @return the cached lookup, with a {@code null} info if it's known
+     * that the location has no content; or
+     * <p>{@code null} if the location isn't cached
+     * @since 1.9.0
+     */
+    public Lookup get(String repository, String path) {
+        if (!isEnabled()) {
+            return null;
+        }
+
+        var key = new Key(repository, path);
+        var entry = entries_.get(key);
+        if (null == entry) {
+            return null;
+        }
+        if (entry.isExpired(System.currentTimeMillis())) {
+            entries_.remove(key, entry);
+            return null;
+        }
+
+        return new Lookup(copy(entry.info()));
+    }
+
+    /**
+     * Caches the result of a lookup.
+     *
+     * @param repository the name of the repository
+     * @param path       the path of the location
+     * @param info       the content info that was retrieved; or
+     *                   {@code null} if the location has no content
+     * @param stamp      the stamp that was obtained before the content info
+     *                   was retrieved
+     * @since 1.9.0
+     */
+    public void put(String repository, String path, DatabaseContentInfo info, long stamp) {
+        if (!isEnabled() || stamp != generation_.get()) {
+            return;
+        }
+
+        // keep the cache bounded, first by evicting the expired entries
+        // and if that's not sufficient, by starting over
+        if (entries_.size() >= maximumSize_) {
+            var now = System.currentTimeMillis();
+            entries_.values().removeIf(e -> e.isExpired(now));
+            if (entries_.size() >= maximumSize_) {
+                entries_.clear();
+                if (0 == maximumSize_) {
+                    return;
+                }
+            }
+        }
+
+        entries_.put(new Key(repository, path), new Entry(copy(info), System.currentTimeMillis() + duration_));
+
+        // an invalidation could have happened while the entry was stored
+        if (stamp != generation_.get()) {
+            entries_.remove(new Key(repository, path));
+        }
+    }
+
+    /**
+     * Removes the cached lookups that could be affected by changes to the
+     * content of a path.
+     * <p>Since a location can also refer to content through its name, the
+     * lookups of all the paths below it are removed too.
+     *
+     * @param repository the name of the repository
+     * @param path       the path of the content that changed
+     * @since 1.9.0
+     */
+    public void invalidate(String repository, String path) {
+        generation_.incrementAndGet();
+
+        var prefix = path + "/";
+        entries_.keySet().removeIf(key -> key.repository().equals(repository) &&
+                                          (key.path().equals(path) || key.path().startsWith(prefix)));
+    }
+
+    /**
+     * Removes all the cached lookups.
+     *
+     * @since 1.9.0
+     */
+    public void clear() {
+        generation_.incrementAndGet();
+        entries_.clear();
+    }
+
+    /**
+     * Retrieves the number of locations that are currently cached, including
+     * the ones that expired but weren't evicted yet.
+     *
+     * @return the number of cached locations
+     * @since 1.9.0
+     */
+    public int size() {
+        return entries_.size();
+    }
+
+    private static DatabaseContentInfo copy(DatabaseContentInfo info) {
+        if (null == info) {
+            return null;
+        }
+
+        // the content info beans are mutable, every caller receives its own
+        var copy = new DatabaseContentInfo();
+        copy.setContentId(info.getContentId());
+        copy.setPath(info.getPath());
+        copy.setVersion(info.getVersion());
+        copy.setMimeType(info.getMimeType());
+        copy.setFragment(info.isFragment());
+        copy.setName(info.getName());
+        if (info.getCreated() != null) {
+            copy.setCreated((Timestamp) info.getCreated().clone());
+        }
+        if (info.getAttributes() != null) {
+            copy.setAttributes(new HashMap<>(info.getAttributes()));
+        }
+        if (info.getProperties() != null) {
+            copy.setProperties(new HashMap<>(info.getProperties()));
+        }
+        copy.setSize(info.getSize());
+        return copy;
+    }
+}
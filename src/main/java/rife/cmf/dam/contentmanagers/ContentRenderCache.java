@@ -0,0 +1,464 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.cmf.dam.contentmanagers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Cache of the html representations of content that are rendered by a
+ * {@link DatabaseContent} manager.
+ * <p>The representations are stored under the location of the content,
+ * the ID and the version of the content, and the URL of the route that
+ * serves it. A new version of content thus always results in a new entry.
+ * <p>There are two tiers: a size-bounded in-heap tier that evicts the least
+ * recently used entries, and an optional on-disk tier that keeps all the
+ * entries in a directory and that is consulted when an entry isn't
+ * available in the heap.
+ * <p>Entries are invalidated when content is stored or deleted through the
+ * content manager that owns the cache. The on-disk entries are grouped by
+ * content ID, together with an index file that records the location of the
+ * content. The directory is indexed when it's set, so that the entries of
+ * earlier runs are invalidated too and the on-disk tier never holds more
+ * than the representations of the current content.
+ * <p>The cache is disabled as long as its maximum size is {@code 0} and no
+ * directory is set.
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @see DatabaseContent#setRenderCacheMaximumSize
+ * @see DatabaseContent#setRenderCacheDirectory
+ * @since 1.9.0
+ */
+public class ContentRenderCache {
+    private static final HexFormat HEX = HexFormat.of();
+    private static final String INDEX_FILE = "content.index";
+
+    private final Object lock_ = new Object();
+    private final LinkedHashMap<Key, String> entries_ = new LinkedHashMap<>(16, 0.75f, true) {
+        protected boolean removeEldestEntry(Map.Entry<Key, String> eldest) {
+            return size() > maximumSize_;
+        }
+    };
+    private final Map<ContentKey, Set<Integer>> diskContents_ = new HashMap<>();
+    private final LongAdder hits_ = new LongAdder();
+    private final LongAdder misses_ = new LongAdder();
+    private volatile int maximumSize_ = 0;
+    private volatile Path directory_ = null;
+
+    private record ContentKey(String repository, String path) {
+    }
+
+    private record Key(String repository, String path, int contentId, int version, String route) {
+        ContentKey content() {
+            return new ContentKey(repository, path);
+        }
+    }
+
+    /**
+     * Retrieves the maximum number of representations that are kept in
+     * the heap.
+     *
+     * @return the maximum number of representations in the heap; or
+     * <p>{@code 0} if the heap tier is disabled
+     * @since 1.9.0
+     */
+    public int getMaximumSize() {
+        return maximumSize_;
+    }
+
+    /**
+     * Sets the maximum number of representations that are kept in the heap,
+     * the least recently used ones are evicted first.
+     *
+     * @param size the maximum number of representations in the heap; or
+     *             {@code 0} to disable the heap tier
+     * @since 1.9.0
+     */
+    public void setMaximumSize(int size) {
+        synchronized (lock_) {
+            maximumSize_ = Math.max(0, size);
+            if (entries_.size() > maximumSize_) {
+                var iterator = entries_.keySet().iterator();
+                while (entries_.size() > maximumSize_) {
+                    iterator.next();
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Retrieves the directory of the on-disk tier.
+     *
+     * @return the directory; or
+     * <p>{@code null} if the on-disk tier is disabled
+     * @since 1.9.0
+     */
+    public File getDirectory() {
+        var directory = directory_;
+        if (null == directory) {
+            return null;
+        }
+        return directory.toFile();
+    }
+
+    /**
+     * Sets the directory of the on-disk tier.
+     * <p>The entries that are already in the directory are indexed by the
+     * location of their content, entries without a readable index are
+     * removed. Only the content ID directories and the files that the cache
+     * writes are ever removed, anything else in the directory is left alone.
+     *
+     * @param directory the directory, it will be created if it doesn't exist
+     *                  yet; or {@code null} to disable the on-disk tier
+     * @since 1.9.0
+     */
+    public void setDirectory(File directory) {
+        Map<ContentKey, Set<Integer>> disk_contents = null;
+        if (directory != null) {
+            disk_contents = indexDirectory(directory.toPath());
+        }
+
+        synchronized (lock_) {
+            diskContents_.clear();
+            if (null == disk_contents) {
+                directory_ = null;
+            } else {
+                diskContents_.putAll(disk_contents);
+                directory_ = directory.toPath();
+            }
+        }
+    }
+
+    private static Map<ContentKey, Set<Integer>> indexDirectory(Path directory) {
+        var disk_contents = new HashMap<ContentKey, Set<Integer>>();
+        if (!Files.isDirectory(directory)) {
+            return disk_contents;
+        }
+
+        try (var entries = Files.list(directory)) {
+            for (var entry : entries.toList()) {
+                var content_id = entryContentId(entry);
+                if (-1 == content_id) {
+                    continue;
+                }
+
+                try {
+                    var index = Files.readString(entry.resolve(INDEX_FILE), StandardCharsets.UTF_8);
+                    var separator = index.indexOf('\n');
+                    if (separator != -1) {
+                        var content = new ContentKey(index.substring(0, separator), index.substring(separator + 1));
+                        disk_contents.computeIfAbsent(content, k -> new HashSet<>()).add(content_id);
+                        continue;
+                    }
+                } catch (IOException e) {
+                    // not an entry that can be invalidated
+                }
+                deleteEntry(entry);
+            }
+        } catch (IOException e) {
+            Logger.getLogger("rife.cmf").log(Level.FINE, "Unable to index the content cache " + directory + ".", e);
+        }
+
+        return disk_contents;
+    }
+
+    /**
+     * Indicates whether the cache is enabled.
+     *
+     * @return {@code true} if representations are cached; or
+     * <p>{@code false} otherwise
+     * @since 1.9.0
+     */
+    public boolean isEnabled() {
+        return maximumSize_ > 0 || directory_ != null;
+    }
+
+    /**
+     * Retrieves a cached html representation.
+     *
+     * @param repository the name of the repository of the content
+     * @param info       the info of the content
+     * @param route      the URL of the route that serves the content; or
+     *                   {@code null} if no route was provided
+     * @return the cached representation; or
+     * <p>{@code null} if it isn't cached
+     * @since 1.9.0
+     */
+    public String get(String repository, DatabaseContentInfo info, String route) {
+        if (!isEnabled()) {
+            return null;
+        }
+
+        var key = new Key(repository, info.getPath(), info.getContentId(), info.getVersion(), route);
+        synchronized (lock_) {
+            var html = entries_.get(key);
+            if (html != null) {
+                hits_.increment();
+                return html;
+            }
+        }
+
+        var file = entryFile(key);
+        if (file != null) {
+            try {
+                var html = Files.readString(file, StandardCharsets.UTF_8);
+                synchronized (lock_) {
+                    if (maximumSize_ > 0) {
+                        entries_.put(key, html);
+                    }
+                    diskContents_.computeIfAbsent(key.content(), k -> new HashSet<>()).add(key.contentId());
+                }
+                hits_.increment();
+                return html;
+            } catch (NoSuchFileException e) {
+                // not cached yet
+            } catch (IOException e) {
+                Logger.getLogger("rife.cmf").log(Level.FINE, "Unable to read the cached content " + file + ".", e);
+            }
+        }
+
+        misses_.increment();
+        return null;
+    }
+
+    /**
+     * Caches an html representation.
+     *
+     * @param repository the name of the repository of the content
+     * @param info       the info of the content
+     * @param route      the URL of the route that serves the content; or
+     *                   {@code null} if no route was provided
+     * @param html       the html representation
+     * @since 1.9.0
+     */
+    public void put(String repository, DatabaseContentInfo info, String route, String html) {
+        if (!isEnabled() || null == html) {
+            return;
+        }
+
+        var key = new Key(repository, info.getPath(), info.getContentId(), info.getVersion(), route);
+        synchronized (lock_) {
+            if (maximumSize_ > 0) {
+                entries_.put(key, html);
+            }
+        }
+
+        var file = entryFile(key);
+        if (null == file) {
+            return;
+        }
+
+        try {
+            // the index allows later runs to invalidate the entries of the
+            // content by its location
+            Files.createDirectories(file.getParent());
+            var index_file = file.resolveSibling(INDEX_FILE);
+            if (!Files.exists(index_file)) {
+                writeFile(index_file, key.repository() + "\n" + key.path());
+            }
+            writeFile(file, html);
+
+            synchronized (lock_) {
+                diskContents_.computeIfAbsent(key.content(), k -> new HashSet<>()).add(key.contentId());
+            }
+        } catch (IOException e) {
+            Logger.getLogger("rife.cmf").log(Level.FINE, "Unable to cache the content " + file + ".", e);
+        }
+    }
+
+    /**
+     * Removes the cached representations of the content of a path.
+     *
+     * @param repository the name of the repository
+     * @param path       the path of the content that changed
+     * @since 1.9.0
+     */
+    public void invalidate(String repository, String path) {
+        var prefix = path + "/";
+        var content_ids = new HashSet<Integer>();
+        synchronized (lock_) {
+            entries_.keySet().removeIf(key -> key.repository().equals(repository) &&
+                                              (key.path().equals(path) || key.path().startsWith(prefix)));
+
+            var iterator = diskContents_.entrySet().iterator();
+            while (iterator.hasNext()) {
+                var entry = iterator.next();
+                var content = entry.getKey();
+                if (content.repository().equals(repository) &&
+                    (content.path().equals(path) || content.path().startsWith(prefix))) {
+                    content_ids.addAll(entry.getValue());
+                    iterator.remove();
+                }
+            }
+        }
+
+        var directory = directory_;
+        if (directory != null) {
+            for (var content_id : content_ids) {
+                deleteEntry(directory.resolve(String.valueOf(content_id)));
+            }
+        }
+    }
+
+    /**
+     * Removes all the cached representations, including the ones of the
+     * on-disk tier. Files in the directory that weren't created by the
+     * cache are left alone.
+     *
+     * @since 1.9.0
+     */
+    public void clear() {
+        synchronized (lock_) {
+            entries_.clear();
+            diskContents_.clear();
+        }
+
+        var directory = directory_;
+        if (directory != null && Files.isDirectory(directory)) {
+            try (var entries = Files.list(directory)) {
+                for (var entry : entries.toList()) {
+                    if (entryContentId(entry) != -1) {
+                        deleteEntry(entry);
+                    }
+                }
+            } catch (IOException e) {
+                Logger.getLogger("rife.cmf").log(Level.FINE, "Unable to clear the content cache " + directory + ".", e);
+            }
+        }
+    }
+
+    /**
+     * Retrieves the number of representations that are currently kept in
+     * the heap.
+     *
+     * @return the number of representations in the heap
+     * @since 1.9.0
+     */
+    public int size() {
+        synchronized (lock_) {
+            return entries_.size();
+        }
+    }
+
+    /**
+     * Retrieves the number of representations that were found in this
+     * cache.
+     *
+     * @return the number of cache hits
+     * @since 1.9.0
+     */
+    public long getHitCount() {
+        return hits_.sum();
+    }
+
+    /**
+     * Retrieves the number of representations that were not found in this
+     * cache.
+     *
+     * @return the number of cache misses
+     * @since 1.9.0
+     */
+    public long getMissCount() {
+        return misses_.sum();
+    }
+
+    private Path entryFile(Key key) {
+        var directory = directory_;
+        if (null == directory) {
+            return null;
+        }
+
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
+
+        digest.update(key.repository().getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(key.path().getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(String.valueOf(key.version()).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        if (key.route() != null) {
+            digest.update(key.route().getBytes(StandardCharsets.UTF_8));
+        }
+
+        // group the entries by content ID so that they can be removed together
+        return directory.resolve(String.valueOf(key.contentId())).resolve(HEX.formatHex(digest.digest()) + ".html");
+    }
+
+    private static void writeFile(Path file, String content)
+    throws IOException {
+        // write to a temporary file first so that concurrent requests
+        // never read a partial file
+        var temp_file = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            Files.writeString(temp_file, content, StandardCharsets.UTF_8);
+            Files.move(temp_file, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp_file);
+        }
+    }
+
+    private static int entryContentId(Path entry) {
+        // the cache only creates a directory per content ID, anything else
+        // was put there by someone else and is left alone
+        try {
+            var content_id = Integer.parseInt(entry.getFileName().toString());
+            if (content_id >= 0 && Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+                return content_id;
+            }
+        } catch (NumberFormatException e) {
+            // not a content ID
+        }
+
+        Logger.getLogger("rife.cmf").fine("Ignoring " + entry + ", it wasn't created by the content cache.");
+        return -1;
+    }
+
+    private static boolean isEntryFile(Path file) {
+        var name = file.getFileName().toString();
+        return name.equals(INDEX_FILE) ||
+               name.endsWith(".html") ||
+               name.endsWith(".tmp");
+    }
+
+    private static void deleteEntry(Path directory) {
+        // only delete the files that the cache writes, the directory itself
+        // is kept when it contains anything else
+        try (var entries = Files.list(directory)) {
+            for (var entry : entries.toList()) {
+                if (Files.isRegularFile(entry, LinkOption.NOFOLLOW_LINKS) && isEntryFile(entry)) {
+                    Files.deleteIfExists(entry);
+                } else {
+                    Logger.getLogger("rife.cmf").fine("Ignoring " + entry + ", it wasn't created by the content cache.");
+                }
+            }
+            Files.deleteIfExists(directory);
+        } catch (NoSuchFileException e) {
+            // nothing to delete
+        } catch (DirectoryNotEmptyException e) {
+            Logger.getLogger("rife.cmf").fine("Keeping the cached content directory " + directory + ", it contains unknown files.");
+        } catch (IOException e) {
+            Logger.getLogger("rife.cmf").log(Level.FINE, "Unable to delete the cached content " + directory + ".", e);
+        }
+    }
+}
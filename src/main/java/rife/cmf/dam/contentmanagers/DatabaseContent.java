@@ -7,6 +7,7 @@ package rife.cmf.dam.contentmanagers;
 import rife.cmf.Content;
 import rife.cmf.ContentRepository;
 import rife.cmf.MimeType;
+import rife.cmf.dam.ContentDataBatchUser;
 import rife.cmf.dam.ContentDataUser;
 import rife.cmf.dam.ContentDataUserWithoutResult;
 import rife.cmf.dam.ContentManager;
@@ -20,6 +21,7 @@ import rife.cmf.dam.contentstores.DatabaseRawStoreFactory;
 import rife.cmf.dam.contentstores.DatabaseTextStoreFactory;
 import rife.cmf.dam.exceptions.ContentManagerException;
 import rife.cmf.transform.ContentTransformer;
+import rife.config.RifeConfig;
 import rife.database.Datasource;
 import rife.database.DbQueryManager;
 import rife.database.DbRowProcessor;
@@ -30,17 +32,32 @@ import rife.engine.Context;
 import rife.engine.Route;
 import rife.tools.InnerClassException;
 
+import java.io.File;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 
 public abstract class DatabaseContent extends DbQueryManager implements ContentManager {
     protected final ArrayList<ContentStore> stores_;
     protected final HashMap<MimeType, ContentStore> mimeMapping_;
 
+    private static final int IN_LIST_SIZE = 250;
+
+    /**
+     * The duration in milliseconds that content info lookups are cached
+     * when the render cache enables the content info cache.
+     *
+     * @see #setRenderCacheMaximumSize
+     * @see #setRenderCacheDirectory
+     * @since 1.9.0
+     */
+    public static final long DEFAULT_RENDER_CONTENT_INFO_CACHE_DURATION = 1000L;
+
+    private final ContentInfoCache contentInfoCache_ = new ContentInfoCache();
+    private final ContentRenderCache renderCache_ = new ContentRenderCache();
+    private boolean contentInfoCacheEnabledByRenderCache_ = false;
+
     public DatabaseContent(Datasource datasource) {
         super(datasource);
 
@@ -60,6 +77,158 @@ public abstract class DatabaseContent extends DbQueryManager implements ContentM
     public abstract DatabaseContentInfo getContentInfo(String location)
     throws ContentManagerException;
 
+    /**
+     * Retrieves the cache of content info lookups that is used by this
+     * content manager.
+     *
+     * @return the content info cache
+     * @since 1.9.0
+     */
+    public ContentInfoCache getContentInfoCache() {
+        return contentInfoCache_;
+    }
+
+    /**
+     * Retrieves how long content info lookups are cached.
+     *
+     * @return the duration in milliseconds; or
+     * <p>{@code 0} if content info lookups aren't cached
+     * @since 1.9.0
+     */
+    public long getContentInfoCacheDuration() {
+        return contentInfoCache_.getDuration();
+    }
+
+    /**
+     * Sets how long content info lookups are cached, by default they're not
+     * cached.
+     * <p>Content that is stored or deleted through this content manager is
+     * immediately removed from the cache, changes that are made elsewhere
+     * only become visible after the cache duration.
+     *
+     * @param milliseconds the duration in milliseconds; or {@code 0} to
+     *                     disable the cache
+     * @see #setRenderCacheMaximumSize
+     * @since 1.9.0
+     */
+    public void setContentInfoCacheDuration(long milliseconds) {
+        synchronized (contentInfoCache_) {
+            contentInfoCacheEnabledByRenderCache_ = false;
+            contentInfoCache_.setDuration(milliseconds);
+        }
+    }
+
+    /**
+     * Retrieves the cache of html representations that is used by this
+     * content manager.
+     *
+     * @return the render cache
+     * @since 1.9.0
+     */
+    public ContentRenderCache getRenderCache() {
+        return renderCache_;
+    }
+
+    /**
+     * Retrieves the maximum number of html representations that are kept
+     * in the heap.
+     *
+     * @return the maximum number of html representations; or
+     * <p>{@code 0} if they aren't cached in the heap
+     * @since 1.9.0
+     */
+    public int getRenderCacheMaximumSize() {
+        return renderCache_.getMaximumSize();
+    }
+
+    /**
+     * Sets the maximum number of html representations of content that are
+     * kept in the heap, by default they're not cached.
+     * <p>A cached representation is looked up by the info of its content,
+     * enabling the render cache thus also enables the content info cache
+     * for {@link #DEFAULT_RENDER_CONTENT_INFO_CACHE_DURATION} milliseconds
+     * when it isn't enabled yet. Call {@link #setContentInfoCacheDuration}
+     * afterwards to use another duration.
+     *
+     * @param size the maximum number of html representations; or
+     *             {@code 0} to not cache them in the heap
+     * @see #getContentForHtml
+     * @since 1.9.0
+     */
+    public void setRenderCacheMaximumSize(int size) {
+        renderCache_.setMaximumSize(size);
+        updateRenderContentInfoCache();
+    }
+
+    /**
+     * Retrieves the directory in which html representations are cached.
+     *
+     * @return the directory; or
+     * <p>{@code null} if they aren't cached on disk
+     * @since 1.9.0
+     */
+    public File getRenderCacheDirectory() {
+        return renderCache_.getDirectory();
+    }
+
+    /**
+     * Sets the directory in which html representations of content are
+     * cached, by default they're not cached on disk.
+     * <p>The directory should be dedicated to a single content manager, its
+     * cached representations are removed when it's installed or removed.
+     * Files that weren't created by the cache are left alone.
+     * <p>Like {@link #setRenderCacheMaximumSize}, this enables the content
+     * info cache when it isn't enabled yet.
+     *
+     * @param directory the directory; or {@code null} to not cache the
+     *                  html representations on disk
+     * @see #getContentForHtml
+     * @since 1.9.0
+     */
+    public void setRenderCacheDirectory(File directory) {
+        renderCache_.setDirectory(directory);
+        updateRenderContentInfoCache();
+    }
+
+    private void updateRenderContentInfoCache() {
+        // without the content info cache every cached representation still
+        // requires the database queries that look up the content info
+        synchronized (contentInfoCache_) {
+            if (renderCache_.isEnabled()) {
+                if (0L == contentInfoCache_.getDuration()) {
+                    contentInfoCacheEnabledByRenderCache_ = true;
+                    contentInfoCache_.setDuration(DEFAULT_RENDER_CONTENT_INFO_CACHE_DURATION);
+                }
+            } else if (contentInfoCacheEnabledByRenderCache_) {
+                contentInfoCacheEnabledByRenderCache_ = false;
+                contentInfoCache_.setDuration(0L);
+            }
+        }
+    }
+
+    /**
+     * Removes the cached content info lookups and html representations
+     * that could be affected by changes to the content of a location.
+     *
+     * @param location the location of the content that changed
+     * @since 1.9.0
+     */
+    protected void invalidateCaches(String location) {
+        var split_location = ContentLocation.split(location);
+        contentInfoCache_.invalidate(split_location.repository(), split_location.path());
+        renderCache_.invalidate(split_location.repository(), split_location.path());
+    }
+
+    /**
+     * Removes all the cached content info lookups and html representations.
+     *
+     * @since 1.9.0
+     */
+    protected void clearCaches() {
+        contentInfoCache_.clear();
+        renderCache_.clear();
+    }
+
     protected boolean _install(CreateSequence createSequenceContentRepository, CreateSequence createSequenceContentInfo,
                                CreateTable createTableContentRepository, CreateTable createTableContentInfo, CreateTable createTableContentAttribute, CreateTable createTableContentProperty)
     throws ContentManagerException {
@@ -70,6 +239,8 @@ public abstract class DatabaseContent extends DbQueryManager implements ContentM
         assert createTableContentAttribute != null;
         assert createTableContentProperty != null;
 
+        clearCaches();
+
         try {
             executeUpdate(createSequenceContentRepository);
             executeUpdate(createSequenceContentInfo);
@@ -100,6 +271,8 @@ public abstract class DatabaseContent extends DbQueryManager implements ContentM
         assert dropTableContentAttribute != null;
         assert dropTableContentProperty != null;
 
+        clearCaches();
+
         try {
             for (var store : stores_) {
                 store.remove();
@@ -253,6 +426,8 @@ public abstract class DatabaseContent extends DbQueryManager implements ContentM
             });
         } catch (InnerClassException e) {
             throw (ContentManagerException) e.getCause();
+        } finally {
+            invalidateCaches(location);
         }
 
         return result != null && result;
@@ -303,6 +478,8 @@ public abstract class DatabaseContent extends DbQueryManager implements ContentM
             });
         } catch (InnerClassException e) {
             throw (ContentManagerException) e.getCause();
+        } finally {
+            invalidateCaches(location);
         }
 
         return result != null && result;
@@ -352,6 +529,106 @@ public abstract class DatabaseContent extends DbQueryManager implements ContentM
         return store.useContentDataResult(content_info.getContentId(), user);
     }
 
+    protected void _useContentData(Select retrieveContents, Collection<String> locations, final ContentDataBatchUser<String> user)
+    throws ContentManagerException {
+        if (null == locations) throw new IllegalArgumentException("locations can't be null");
+        if (null == user) throw new IllegalArgumentException("user can't be null");
+
+        assert retrieveContents != null;
+
+        // the content info is looked up per repository, a path matches a
+        // location either completely or by its path and name parts
+        var repositories = new LinkedHashMap<String, Map<String, List<String>>>();
+        for (var location : locations) {
+            var split_location = ContentLocation.split(location);
+            repositories.computeIfAbsent(split_location.repository(), k -> new LinkedHashMap<>())
+                .computeIfAbsent(split_location.path(), k -> new ArrayList<>())
+                .add(location);
+        }
+
+        var infos = new LinkedHashMap<String, DatabaseContentInfo>();
+        for (var repository : repositories.entrySet()) {
+            var paths = new ArrayList<>(repository.getValue().keySet());
+            for (var i = 0; i < paths.size(); i += IN_LIST_SIZE) {
+                var batch = paths.subList(i, Math.min(paths.size(), i + IN_LIST_SIZE));
+                retrieveDatabaseContentInfos(retrieveContents, repository.getKey(), batch, repository.getValue(), infos);
+            }
+        }
+
+        // use the data of the contents per store, a content that's found
+        // through several locations is used again for each of the others
+        // since its data can be a stream that can only be read once
+        var stores = new LinkedHashMap<ContentStore, Map<Integer, String>>();
+        var duplicates = new ArrayList<Map.Entry<String, DatabaseContentInfo>>();
+        for (var entry : infos.entrySet()) {
+            var mime_type = MimeType.getMimeType(entry.getValue().getMimeType());
+            var store = mimeMapping_.get(mime_type);
+            if (null == store) {
+                throw new UnsupportedMimeTypeException(mime_type);
+            }
+
+            if (stores.computeIfAbsent(store, k -> new LinkedHashMap<>()).putIfAbsent(entry.getValue().getContentId(), entry.getKey()) != null) {
+                duplicates.add(entry);
+            }
+        }
+        for (var entry : stores.entrySet()) {
+            var ids = entry.getValue();
+            entry.getKey().useContentData(ids.keySet(), (id, contentData) -> user.useContentData(ids.get(id), contentData));
+        }
+        for (var duplicate : duplicates) {
+            var store = mimeMapping_.get(MimeType.getMimeType(duplicate.getValue().getMimeType()));
+            store.useContentData(duplicate.getValue().getContentId(), contentData -> user.useContentData(duplicate.getKey(), contentData));
+        }
+    }
+
+    private void retrieveDatabaseContentInfos(Select retrieveContents, String repository, List<String> paths, Map<String, List<String>> locations, Map<String, DatabaseContentInfo> infos) {
+        var query = retrieveContents.clone();
+        var group = query.startWhereAnd();
+        for (var i = 0; i < paths.size(); i++) {
+            if (0 == i) {
+                group.whereParameter("path", "path" + i, "=");
+            } else {
+                group.whereParameterOr("path", "path" + i, "=");
+            }
+            group.startWhereOr()
+                .whereParameter("path", "pathpart" + i, "=")
+                .whereParameterAnd(RifeConfig.cmf().getTableContentInfo() + ".name", "namepart" + i, "=")
+                .end();
+        }
+        group.end();
+
+        executeFetchAll(query, new DbRowProcessor() {
+            public boolean processRow(ResultSet resultSet)
+            throws SQLException {
+                var info = new DatabaseContentInfo();
+                info.setContentId(resultSet.getInt("contentId"));
+                info.setPath(resultSet.getString("path"));
+                info.setMimeType(resultSet.getString("mimeType"));
+                info.setName(resultSet.getString("name"));
+
+                // the rows are ordered by descending version, the first
+                // one of each location is thus its latest version
+                for (var location : locations.getOrDefault(info.getPath(), List.of())) {
+                    infos.putIfAbsent(location, info);
+                }
+                if (info.getName() != null) {
+                    for (var location : locations.getOrDefault(info.getPath() + "/" + info.getName(), List.of())) {
+                        infos.putIfAbsent(location, info);
+                    }
+                }
+                return true;
+            }
+        }, s -> {
+            s.setString("repository", repository);
+            for (var i = 0; i < paths.size(); i++) {
+                var path_parts = PathParts.split(paths.get(i));
+                s.setString("path" + i, paths.get(i))
+                    .setString("pathpart" + i, path_parts.pathPart())
+                    .setString("namepart" + i, path_parts.namePart());
+            }
+        });
+    }
+
     private DatabaseContentInfo retrieveDatabaseContentInfo(Select retrieveContent, String location) {
         final var split_location = ContentLocation.split(location);
         final var path_parts = PathParts.split(split_location.path());
@@ -400,6 +677,12 @@ public abstract class DatabaseContent extends DbQueryManager implements ContentM
         assert getContentAttributes != null;
         assert getContentProperties != null;
 
+        var cached = contentInfoCache_.get(split_location.repository(), split_location.path());
+        if (cached != null) {
+            return cached.info();
+        }
+        var stamp = contentInfoCache_.stamp();
+
         final var content_info = executeFetchFirstBean(getContentInfo, DatabaseContentInfo.class, s ->
             s.setString("repository", split_location.repository())
                 .setString("path", split_location.path())
@@ -430,6 +713,8 @@ public abstract class DatabaseContent extends DbQueryManager implements ContentM
             content_info.setSize(store.getSize(content_info.getContentId()));
         }
 
+        contentInfoCache_.put(split_location.repository(), split_location.path(), content_info, stamp);
+
         return content_info;
     }
 
@@ -465,13 +750,35 @@ public abstract class DatabaseContent extends DbQueryManager implements ContentM
         }
 
         // set cache headers
-        long if_modified_since = context.headerDate("If-Modified-Since");
         var last_modified = content_info.getCreated();
         var last_modified_timestamp = (last_modified.getTime() / 1000) * 1000;
-        if (if_modified_since > 0 &&
-            if_modified_since >= last_modified_timestamp) {
-            context.setStatus(Context.SC_NOT_MODIFIED);
-            return;
+        var etag = buildEntityTag(content_info, last_modified_timestamp);
+        var if_none_match = context.header("If-None-Match");
+        if (if_none_match != null) {
+            if (matchesEntityTag(if_none_match, etag)) {
+                context.addHeader("ETag", etag);
+                context.setStatus(Context.SC_NOT_MODIFIED);
+                return;
+            }
+        } else {
+            long if_modified_since = context.headerDate("If-Modified-Since");
+            if (if_modified_since > 0 &&
+                if_modified_since >= last_modified_timestamp) {
+                context.setStatus(Context.SC_NOT_MODIFIED);
+                return;
+            }
+        }
+
+        // only honour a range request when the validator of If-Range
+        // still corresponds to the stored content
+        var range_allowed = true;
+        var if_range = context.header("If-Range");
+        if (if_range != null) {
+            if (if_range.startsWith("\"") || if_range.startsWith("W/")) {
+                range_allowed = if_range.equals(etag);
+            } else {
+                range_allowed = context.headerDate("If-Range") == last_modified_timestamp;
+            }
         }
 
         // set general headers
@@ -482,8 +789,31 @@ public abstract class DatabaseContent extends DbQueryManager implements ContentM
         context.addHeader("Cache-Control", "must-revalidate");
         context.addDateHeader("Expires", System.currentTimeMillis() + 60 * 60 * 1000);
         context.addDateHeader("Last-Modified", last_modified_timestamp);
+        context.addHeader("ETag", etag);
+
+        store.serveContentData(context, content_info.getContentId(), range_allowed);
+    }
 
-        store.serveContentData(context, content_info.getContentId());
+    private static String buildEntityTag(DatabaseContentInfo contentInfo, long lastModified) {
+        // the data of a content id is never changed after it has been stored,
+        // new content always results in a new version with a new content id
+        return "\"" + Integer.toHexString(contentInfo.getContentId()) + "-" + Long.toHexString(lastModified) + "\"";
+    }
+
+    private static boolean matchesEntityTag(String header, String etag) {
+        for (var candidate : header.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*")) {
+                return true;
+            }
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     protected String _getContentForHtml(String location, Context context, Route route)
@@ -505,7 +835,25 @@ public abstract class DatabaseContent extends DbQueryManager implements ContentM
             throw new UnsupportedMimeTypeException(mime_type);
         }
 
-        return store.getContentForHtml(content_info.getContentId(), content_info, context, route);
+        if (!renderCache_.isEnabled()) {
+            return store.getContentForHtml(content_info.getContentId(), content_info, context, route);
+        }
+
+        // the representation depends on the URL that the route has in
+        // the context, not only on the route itself
+        var repository = ContentLocation.split(location).repository();
+        String route_url = null;
+        if (route != null && context != null) {
+            route_url = context.urlFor(route).toString();
+        }
+
+        var html = renderCache_.get(repository, content_info, route_url);
+        if (null == html) {
+            html = store.getContentForHtml(content_info.getContentId(), content_info, context, route);
+            renderCache_.put(repository, content_info, route_url, html);
+        }
+
+        return html;
     }
 
     private static class ContentAttributesProcessor extends DbRowProcessor {
@@ -67,6 +67,8 @@ public class com_mysql_cj_jdbc_Driver extends generic {
 
     public boolean install()
     throws ContentManagerException {
+        clearCaches();
+
         try {
             executeUpdate(createTableContentRepository_);
             executeUpdate(createTableContentInfo_);
@@ -90,6 +92,8 @@ public class com_mysql_cj_jdbc_Driver extends generic {
 
     public boolean remove()
     throws ContentManagerException {
+        clearCaches();
+
         try {
             executeUpdate(dropContentInfoPathNameIndex_);
             executeUpdate(dropContentInfoPathIndex_);
@@ -139,84 +143,88 @@ public class com_mysql_cj_jdbc_Driver extends generic {
 
         // ensure that all version number increases are handled in a serial fashion
         // relying on database locks is error-prone and doesn't offer any advantages
-        synchronized (sVersionMonitor) {
-            // get repository id
-            final var repository_id = executeGetFirstInt(getContentRepositoryId_, s ->
-                s.setString("repository", split_location.repository()));
-
-            // verify the existance of the repository
-            if (-1 == repository_id) {
-                throw new UnknownContentRepositoryException(split_location.repository());
-            }
+        try {
+            synchronized (sVersionMonitor) {
+                // get repository id
+                final var repository_id = executeGetFirstInt(getContentRepositoryId_, s ->
+                    s.setString("repository", split_location.repository()));
+
+                // verify the existance of the repository
+                if (-1 == repository_id) {
+                    throw new UnknownContentRepositoryException(split_location.repository());
+                }
 
-            // get version
-            final var version = executeGetFirstInt(getVersion_, s ->
-                s.setInt("repositoryId", repository_id)
-                    .setString("path", split_location.path()));
+                // get version
+                final var version = executeGetFirstInt(getVersion_, s ->
+                    s.setInt("repositoryId", repository_id)
+                        .setString("path", split_location.path()));
 
-            // store the content
-            final var ids_array = new int[1];
-            if (executeUpdate(storeContentInfo_, new DbPreparedStatementHandler<>() {
-                public DbPreparedStatement getPreparedStatement(Query query, DbConnection connection) {
-                    return connection.getPreparedStatement(query, Statement.RETURN_GENERATED_KEYS);
-                }
+                // store the content
+                final var ids_array = new int[1];
+                if (executeUpdate(storeContentInfo_, new DbPreparedStatementHandler<>() {
+                    public DbPreparedStatement getPreparedStatement(Query query, DbConnection connection) {
+                        return connection.getPreparedStatement(query, Statement.RETURN_GENERATED_KEYS);
+                    }
 
-                public int performUpdate(DbPreparedStatement statement) {
-                    statement
-                        .setString("path", split_location.path())
-                        .setString("mimeType", content.getMimeType().toString())
-                        .setBoolean("fragment", content.isFragment())
-                        .setDate("created", new java.sql.Date(System.currentTimeMillis()))
-                        .setInt("repositoryId", repository_id)
-                        .setInt("version", version);
-                    if (content.hasName()) {
-                        statement
-                            .setString("name", content.getName());
-                    } else {
+                    public int performUpdate(DbPreparedStatement statement) {
                         statement
-                            .setNull("name", Types.VARCHAR);
+                            .setString("path", split_location.path())
+                            .setString("mimeType", content.getMimeType().toString())
+                            .setBoolean("fragment", content.isFragment())
+                            .setDate("created", new java.sql.Date(System.currentTimeMillis()))
+                            .setInt("repositoryId", repository_id)
+                            .setInt("version", version);
+                        if (content.hasName()) {
+                            statement
+                                .setString("name", content.getName());
+                        } else {
+                            statement
+                                .setNull("name", Types.VARCHAR);
+                        }
+
+                        var query_result = statement.executeUpdate();
+                        ids_array[0] = statement.getFirstGeneratedIntKey();
+                        return query_result;
                     }
-
-                    var query_result = statement.executeUpdate();
-                    ids_array[0] = statement.getFirstGeneratedIntKey();
-                    return query_result;
-                }
-            }) > 0) {
-                // store the attributes if there are some
-                if (content.hasAttributes()) {
-                    for (var attribute : content.getAttributes().entrySet()) {
-                        final var name = attribute.getKey();
-                        final var value = attribute.getValue();
-
-                        executeUpdate(storeContentAttribute_, s ->
-                            s.setInt("contentId", ids_array[0])
-                                .setString("name", name)
-                                .setString("attVal", value));
+                }) > 0) {
+                    // store the attributes if there are some
+                    if (content.hasAttributes()) {
+                        for (var attribute : content.getAttributes().entrySet()) {
+                            final var name = attribute.getKey();
+                            final var value = attribute.getValue();
+
+                            executeUpdate(storeContentAttribute_, s ->
+                                s.setInt("contentId", ids_array[0])
+                                    .setString("name", name)
+                                    .setString("attVal", value));
+                        }
                     }
-                }
-
-                // put the actual content data in the content store
-                if (!store.storeContentData(ids_array[0], content, transformer)) {
-                    return false;
-                }
 
-                // store the content data properties if there are some
-                if (content.hasProperties()) {
-                    for (var property : content.getProperties().entrySet()) {
-                        final var name = property.getKey();
-                        final var value = property.getValue();
+                    // put the actual content data in the content store
+                    if (!store.storeContentData(ids_array[0], content, transformer)) {
+                        return false;
+                    }
 
-                        executeUpdate(storeContentProperty_, s ->
-                            s.setInt("contentId", ids_array[0])
-                                .setString("name", name)
-                                .setString("propVal", value));
+                    // store the content data properties if there are some
+                    if (content.hasProperties()) {
+                        for (var property : content.getProperties().entrySet()) {
+                            final var name = property.getKey();
+                            final var value = property.getValue();
+
+                            executeUpdate(storeContentProperty_, s ->
+                                s.setInt("contentId", ids_array[0])
+                                    .setString("name", name)
+                                    .setString("propVal", value));
+                        }
                     }
+
+                    return true;
                 }
 
-                return true;
+                return false;
             }
-
-            return false;
+        } finally {
+            invalidateCaches(location);
         }
     }
 }
@@ -6,6 +6,7 @@ package rife.cmf.dam.contentmanagers.databasedrivers;
 
 import rife.cmf.Content;
 import rife.cmf.ContentRepository;
+import rife.cmf.dam.ContentDataBatchUser;
 import rife.cmf.dam.ContentDataUser;
 import rife.cmf.dam.ContentDataUserWithoutResult;
 import rife.cmf.dam.contentmanagers.DatabaseContent;
@@ -21,6 +22,8 @@ import rife.database.queries.*;
 import rife.engine.Context;
 import rife.engine.Route;
 
+import java.util.Collection;
+
 public class generic extends DatabaseContent {
     protected CreateSequence createSequenceContentRepository_;
     protected CreateSequence createSequenceContentInfo_;
@@ -52,6 +55,7 @@ public class generic extends DatabaseContent {
     protected Delete deleteContentAttributes_;
     protected Delete deleteContentProperties_;
     protected Select getLatestContentInfo_;
+    protected Select getLatestContentInfos_;
     protected Select getContentAttributes_;
     protected Select getContentProperties_;
 
@@ -201,6 +205,14 @@ public class generic extends DatabaseContent {
             .orderBy("version", Select.DESC)
             .limit(1);
 
+        getLatestContentInfos_ = new Select(getDatasource())
+            .from(RifeConfig.cmf().getTableContentInfo())
+            .join(RifeConfig.cmf().getTableContentRepository())
+            .field(RifeConfig.cmf().getTableContentInfo() + ".*")
+            .where(RifeConfig.cmf().getTableContentInfo() + ".repositoryId = " + RifeConfig.cmf().getTableContentRepository() + ".repositoryId")
+            .whereParameterAnd(RifeConfig.cmf().getTableContentRepository() + ".name", "repository", "=")
+            .orderBy("version", Select.DESC);
+
         getContentAttributes_ = new Select(getDatasource())
             .from(RifeConfig.cmf().getTableContentAttribute())
             .field("contentId")
@@ -271,6 +283,11 @@ public class generic extends DatabaseContent {
         return _useContentDataResult(getLatestContentInfo_, location, user);
     }
 
+    public void useContentData(Collection<String> locations, ContentDataBatchUser<String> user)
+    throws ContentManagerException {
+        _useContentData(getLatestContentInfos_, locations, user);
+    }
+
     public boolean hasContentData(String location)
     throws ContentManagerException {
         return _hasContentData(getLatestContentInfo_, location);
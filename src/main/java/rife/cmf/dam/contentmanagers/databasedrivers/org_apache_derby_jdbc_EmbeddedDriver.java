@@ -98,6 +98,8 @@ public class org_apache_derby_jdbc_EmbeddedDriver extends generic {
 
     public boolean install()
     throws ContentManagerException {
+        clearCaches();
+
         try {
             executeUpdate(createTableContentRepository_);
             executeUpdate(createTableContentInfo_);
@@ -121,6 +123,8 @@ public class org_apache_derby_jdbc_EmbeddedDriver extends generic {
 
     public boolean remove()
     throws ContentManagerException {
+        clearCaches();
+
         try {
             executeUpdate(dropContentInfoPathNameIndex_);
             executeUpdate(dropContentInfoPathIndex_);
@@ -252,6 +256,8 @@ public class org_apache_derby_jdbc_EmbeddedDriver extends generic {
             });
         } catch (InnerClassException e) {
             throw (ContentManagerException) e.getCause();
+        } finally {
+            invalidateCaches(location);
         }
 
         return result != null && result;
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.cmf.dam.contentstores;
+
+/**
+ * A single inclusive byte range of an HTTP {@code Range} request header.
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @since 1.9.0
+ */
+record ByteRange(int start, int end) {
+    static final ByteRange UNSATISFIABLE = new ByteRange(-1, -1);
+
+    int length() {
+        return end - start + 1;
+    }
+
+    /**
+     * Parses the value of a {@code Range} header for content of a certain size.
+     * <p>Only single byte ranges are supported, multiple ranges and malformed
+     * headers are ignored so that the complete content will be served.
+     *
+     * @param header the value of the {@code Range} header
+     * @param size   the size of the content
+     * @return the parsed byte range; {@link #UNSATISFIABLE} if the range
+     * lies outside the content; or {@code null} if the header should be ignored
+     * @since 1.9.0
+     */
+    static ByteRange parse(String header, int size) {
+        if (null == header) {
+            return null;
+        }
+
+        header = header.trim();
+        if (!header.startsWith("bytes=")) {
+            return null;
+        }
+
+        var spec = header.substring("bytes=".length()).trim();
+        if (spec.indexOf(',') != -1) {
+            return null;
+        }
+
+        var dash = spec.indexOf('-');
+        if (dash == -1) {
+            return null;
+        }
+
+        try {
+            var first = spec.substring(0, dash).trim();
+            var last = spec.substring(dash + 1).trim();
+
+            // suffix range with the number of bytes at the end of the content
+            if (first.isEmpty()) {
+                if (last.isEmpty()) {
+                    return null;
+                }
+                var suffix = Long.parseLong(last);
+                if (suffix <= 0 || size <= 0) {
+                    return UNSATISFIABLE;
+                }
+                return new ByteRange((int) Math.max(0, size - suffix), size - 1);
+            }
+
+            var start = Long.parseLong(first);
+            var end = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+            if (start < 0 || end < start) {
+                return null;
+            }
+            if (start >= size) {
+                return UNSATISFIABLE;
+            }
+
+            return new ByteRange((int) start, (int) Math.min(end, size - 1L));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -5,11 +5,13 @@
 package rife.cmf.dam.contentstores;
 
 import rife.cmf.MimeType;
+import rife.cmf.dam.ContentDataBatchUser;
 import rife.cmf.dam.ContentStore;
 import rife.cmf.dam.contentstores.exceptions.*;
 import rife.cmf.dam.exceptions.ContentManagerException;
 import rife.database.Datasource;
 import rife.database.DbQueryManager;
+import rife.database.DbRowProcessor;
 import rife.database.exceptions.DatabaseException;
 import rife.database.queries.CreateTable;
 import rife.database.queries.Delete;
@@ -23,10 +25,14 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.logging.Logger;
 
 public abstract class DatabaseContentStore extends DbQueryManager implements ContentStore {
+    private static final int IN_LIST_SIZE = 500;
+
     private final List<MimeType> mimeTypes_ = new ArrayList<>();
 
     public DatabaseContentStore(Datasource datasource) {
@@ -138,6 +144,65 @@ public abstract class DatabaseContentStore extends DbQueryManager implements Con
         }
     }
 
+    protected void _useContentData(Select retrieveContents, Collection<Integer> ids, ContentDataBatchUser<Integer> user)
+    throws ContentManagerException {
+        if (null == ids) throw new IllegalArgumentException("ids can't be null");
+        if (null == user) throw new IllegalArgumentException("user can't be null");
+
+        assert retrieveContents != null;
+
+        // the ids are integers and can safely be part of the query, they're
+        // split up to remain below the maximum length of IN lists
+        var remaining = new LinkedHashSet<>(ids);
+        var batch = new ArrayList<Integer>(IN_LIST_SIZE);
+        for (var id : ids) {
+            if (id < 0) throw new IllegalArgumentException("id must be positive");
+
+            batch.add(id);
+            if (batch.size() == IN_LIST_SIZE) {
+                useContentDataBatch(retrieveContents, batch, remaining, user);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            useContentDataBatch(retrieveContents, batch, remaining, user);
+        }
+
+        // content without data is used like it is for a single id
+        for (var id : remaining) {
+            user.useContentData(id, null);
+        }
+    }
+
+    private void useContentDataBatch(Select retrieveContents, List<Integer> batch, Set<Integer> remaining, ContentDataBatchUser<Integer> user)
+    throws ContentManagerException {
+        var in_list = new StringBuilder();
+        for (var id : batch) {
+            if (!in_list.isEmpty()) {
+                in_list.append(",");
+            }
+            in_list.append(id);
+        }
+
+        try {
+            executeFetchAll(retrieveContents.clone().where("contentId IN (" + in_list + ")"), new DbRowProcessor() {
+                public boolean processRow(ResultSet resultSet)
+                throws SQLException {
+                    var id = resultSet.getInt("contentId");
+                    if (remaining.remove(id)) {
+                        user.useContentData(id, getContentColumn(resultSet));
+                    }
+                    return true;
+                }
+            });
+        } catch (DatabaseException e) {
+            throw new UseContentDataErrorException(batch.get(0), e);
+        }
+    }
+
+    protected abstract Object getContentColumn(ResultSet resultSet)
+    throws SQLException;
+
     protected abstract void outputContentColumn(ResultSet resultSet, OutputStream os)
     throws SQLException;
 }
@@ -224,6 +224,11 @@ public abstract class DatabaseImageStore extends DatabaseContentStore {
         }
     }
 
+    protected Object getContentColumn(ResultSet resultSet)
+    throws SQLException {
+        return resultSet.getBytes("content");
+    }
+
     protected void outputContentColumn(ResultSet resultSet, OutputStream os)
     throws SQLException {
         var is = resultSet.getBinaryStream("content");
@@ -29,14 +29,24 @@ import rife.tools.InnerClassException;
 import java.io.*;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.logging.Logger;
 
 public abstract class DatabaseRawStore extends DbQueryManager implements ContentStore {
+    public static final int DEFAULT_CHUNK_SIZE = 65535;
+    public static final int DEFAULT_BATCH_SIZE = 16;
+    public static final int DEFAULT_TRANSFER_BUFFER_SIZE = 65536;
+
     private final List<MimeType> mimeTypes_ = new ArrayList<>();
 
+    private int chunkSize_ = DEFAULT_CHUNK_SIZE;
+    private int batchSize_ = DEFAULT_BATCH_SIZE;
+    private int transferBufferSize_ = DEFAULT_TRANSFER_BUFFER_SIZE;
+
     public DatabaseRawStore(Datasource datasource) {
         super(datasource);
 
@@ -51,6 +61,88 @@ public abstract class DatabaseRawStore extends DbQueryManager implements Content
         return mimeTypes_;
     }
 
+    /**
+     * Retrieves the maximum size of the chunks that the data is split into
+     * when it's stored.
+     *
+     * @return the chunk size in bytes
+     * @see #setChunkSize
+     * @since 1.9.0
+     */
+    public int getChunkSize() {
+        return chunkSize_;
+    }
+
+    /**
+     * Sets the maximum size of the chunks that the data is split into when
+     * it's stored, this only applies to content that is stored afterwards.
+     * <p>Defaults to {@value #DEFAULT_CHUNK_SIZE}.
+     *
+     * @param size the chunk size in bytes
+     * @see #getChunkSize
+     * @since 1.9.0
+     */
+    public void setChunkSize(int size) {
+        if (size <= 0) throw new IllegalArgumentException("size must be positive");
+
+        chunkSize_ = size;
+    }
+
+    /**
+     * Retrieves the number of chunks that are sent together to the database
+     * in one JDBC batch.
+     *
+     * @return the number of chunks per batch
+     * @see #setBatchSize
+     * @since 1.9.0
+     */
+    public int getBatchSize() {
+        return batchSize_;
+    }
+
+    /**
+     * Sets the number of chunks that are sent together to the database in
+     * one JDBC batch. Each chunk of a batch is kept in memory until the batch
+     * is executed.
+     * <p>Defaults to {@value #DEFAULT_BATCH_SIZE}.
+     *
+     * @param size the number of chunks per batch
+     * @see #getBatchSize
+     * @since 1.9.0
+     */
+    public void setBatchSize(int size) {
+        if (size <= 0) throw new IllegalArgumentException("size must be positive");
+
+        batchSize_ = size;
+    }
+
+    /**
+     * Retrieves the size of the buffer that is used to transfer the chunks
+     * to the response when content is served.
+     *
+     * @return the transfer buffer size in bytes
+     * @see #setTransferBufferSize
+     * @since 1.9.0
+     */
+    public int getTransferBufferSize() {
+        return transferBufferSize_;
+    }
+
+    /**
+     * Sets the size of the buffer that is used to transfer the chunks to the
+     * response when content is served.
+     * <p>Defaults to {@value #DEFAULT_TRANSFER_BUFFER_SIZE}.
+     *
+     * @param size the transfer buffer size in bytes
+     * @see #getTransferBufferSize
+     * @since 1.9.0
+     */
+    public void setTransferBufferSize(int size) {
+        if (size <= 0) throw new IllegalArgumentException("size must be positive");
+
+        transferBufferSize_ = size;
+    }
+
     public String getContentType(ContentInfo contentInfo) {
         var mimeType = MimeType.getMimeType(contentInfo.getMimeType());
         if (!getSupportedMimeTypes().contains(mimeType)) {
@@ -229,75 +321,111 @@ public abstract class DatabaseRawStore extends DbQueryManager implements Content
 
     protected int storeChunks(Insert storeContentChunk, final int id, InputStream data)
     throws IOException {
-        class Scope {
-            int size = 0;
-            int length = -1;
-            int ordinal = 0;
-            byte[] buffer = null;
-        }
-        final var scope = new Scope();
-
-        if (data != null) {
-            scope.buffer = new byte[65535];
-            while ((scope.length = data.read(scope.buffer)) != -1) {
-                scope.size += scope.length;
-
-                if (executeUpdate(storeContentChunk, s ->
-                    s.setInt("contentId", id)
-                        .setInt("ordinal", scope.ordinal)
-                        .setBinaryStream("chunk", new ByteArrayInputStream(scope.buffer), scope.length)) <= 0) {
-                    return -1;
-                }
-
-                scope.ordinal++;
-            }
-        }
-
-        return scope.size;
+        return storeChunks(storeContentChunk, id, data, true);
     }
 
     protected int storeChunksNoStream(Insert storeContentChunk, final int id, InputStream data)
     throws IOException {
+        return storeChunks(storeContentChunk, id, data, false);
+    }
+
+    private int storeChunks(Insert storeContentChunk, final int id, final InputStream data, final boolean stream)
+    throws IOException {
+        if (null == data) {
+            return 0;
+        }
+
         class Scope {
             int size = 0;
-            int length = -1;
-            int ordinal = 0;
-            byte[] buffer = null;
-            byte[] buffer_swp = null;
+            IOException exception = null;
         }
         final var scope = new Scope();
 
-        if (data != null) {
-            scope.buffer = new byte[65535];
-            while ((scope.length = data.read(scope.buffer)) != -1) {
-                scope.size += scope.length;
+        final var chunk_size = chunkSize_;
+        final var batch_size = batchSize_;
 
-                if (scope.length < scope.buffer.length) {
-                    var new_buffer = new byte[scope.length];
-                    System.arraycopy(scope.buffer, 0, new_buffer, 0, scope.length);
-                    scope.buffer_swp = scope.buffer;
-                    scope.buffer = new_buffer;
-                }
+        var result = executeUpdate(storeContentChunk, new DbPreparedStatementHandler<>() {
+            public int performUpdate(DbPreparedStatement statement) {
+                // each chunk of a batch needs its own buffer since the
+                // driver only reads the data when the batch is executed
+                var buffers = new byte[batch_size][];
+                var ordinal = 0;
+                var pending = 0;
+                try {
+                    while (true) {
+                        if (null == buffers[pending]) {
+                            buffers[pending] = new byte[chunk_size];
+                        }
 
-                if (executeUpdate(storeContentChunk, s ->
-                    s.setInt("contentId", id)
-                        .setInt("ordinal", scope.ordinal)
-                        .setBytes("chunk", scope.buffer)) <= 0) {
-                    return -1;
-                }
+                        // fill the chunk completely so that only the last
+                        // one can be smaller, whatever the reads of the
+                        // input stream return
+                        var buffer = buffers[pending];
+                        var length = data.readNBytes(buffer, 0, chunk_size);
+                        if (0 == length) {
+                            break;
+                        }
+                        scope.size += length;
+
+                        statement
+                            .setInt("contentId", id)
+                            .setInt("ordinal", ordinal++);
+                        if (stream) {
+                            statement.setBinaryStream("chunk", new ByteArrayInputStream(buffer, 0, length), length);
+                        } else if (length < chunk_size) {
+                            statement.setBytes("chunk", Arrays.copyOf(buffer, length));
+                        } else {
+                            statement.setBytes("chunk", buffer);
+                        }
+                        statement.addBatch();
+
+                        if (++pending == batch_size) {
+                            if (!executeChunkBatch(statement)) {
+                                return -1;
+                            }
+                            pending = 0;
+                        }
+
+                        if (length < chunk_size) {
+                            break;
+                        }
+                    }
 
-                if (scope.buffer_swp != null) {
-                    scope.buffer = scope.buffer_swp;
-                    scope.buffer_swp = null;
+                    if (pending > 0 &&
+                        !executeChunkBatch(statement)) {
+                        return -1;
+                    }
+                } catch (IOException e) {
+                    scope.exception = e;
+                    return -1;
                 }
 
-                scope.ordinal++;
+                return ordinal;
             }
+        });
+
+        if (scope.exception != null) {
+            throw scope.exception;
+        }
+
+        if (result < 0) {
+            return -1;
         }
 
         return scope.size;
     }
 
+    private static boolean executeChunkBatch(DbPreparedStatement statement) {
+        for (var count : statement.executeBatch()) {
+            if (count != Statement.SUCCESS_NO_INFO &&
+                count <= 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     protected void _useContentData(Select retrieveContentChunks, final int id, ContentDataUserWithoutResult user)
     throws ContentManagerException {
         if (id < 0) throw new IllegalArgumentException("id must be positive");
@@ -356,6 +484,11 @@ public abstract class DatabaseRawStore extends DbQueryManager implements Content
     }
 
     protected void _serveContentData(final Select retrieveContentChunks, final Context context, final int id)
+    throws ContentManagerException {
+        _serveContentData(retrieveContentChunks, null, null, context, id, false);
+    }
+
+    protected void _serveContentData(final Select retrieveContentChunks, final Select retrieveContentChunkLengths, final Select retrieveContentChunksRange, final Context context, final int id, final boolean rangeAllowed)
     throws ContentManagerException {
         if (null == context) throw new IllegalArgumentException("element can't be null");
 
@@ -372,6 +505,25 @@ public abstract class DatabaseRawStore extends DbQueryManager implements Content
             context.defer();
             return;
         }
+
+        if (retrieveContentChunkLengths != null &&
+            retrieveContentChunksRange != null) {
+            context.addHeader("Accept-Ranges", "bytes");
+
+            if (rangeAllowed) {
+                var range = ByteRange.parse(context.header("Range"), size);
+                if (range == ByteRange.UNSATISFIABLE) {
+                    context.addHeader("Content-Range", "bytes */" + size);
+                    context.setStatus(Context.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                if (range != null) {
+                    serveContentRange(retrieveContentChunkLengths, retrieveContentChunksRange, context, id, size, range);
+                    return;
+                }
+            }
+        }
+
         context.setContentLength(size);
 
         try {
@@ -414,19 +566,136 @@ public abstract class DatabaseRawStore extends DbQueryManager implements Content
         }
     }
 
+    private void serveContentRange(final Select retrieveContentChunkLengths, final Select retrieveContentChunksRange, final Context context, final int id, final int size, final ByteRange range)
+    throws ContentManagerException {
+        try {
+            // determine which chunks contain the requested range without
+            // retrieving the chunk data itself
+            class Scope {
+                int offset = 0;
+                int firstOrdinal = -1;
+                int lastOrdinal = -1;
+                int skip = 0;
+            }
+            final var scope = new Scope();
+            executeFetchAll(retrieveContentChunkLengths, new DbRowProcessor() {
+                public boolean processRow(ResultSet resultSet)
+                throws SQLException {
+                    var ordinal = resultSet.getInt(1);
+                    var length = resultSet.getInt(2);
+                    if (scope.firstOrdinal == -1 &&
+                        scope.offset + length > range.start()) {
+                        scope.firstOrdinal = ordinal;
+                        scope.skip = range.start() - scope.offset;
+                    }
+                    if (scope.firstOrdinal != -1) {
+                        scope.lastOrdinal = ordinal;
+                    }
+                    scope.offset += length;
+
+                    return scope.offset <= range.end();
+                }
+            }, s -> s.setInt("contentId", id));
+
+            if (-1 == scope.firstOrdinal) {
+                context.addHeader("Content-Range", "bytes */" + size);
+                context.setStatus(Context.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+
+            context.setStatus(Context.SC_PARTIAL_CONTENT);
+            context.addHeader("Content-Range", "bytes " + range.start() + "-" + range.end() + "/" + size);
+            context.setContentLength(range.length());
+
+            executeQuery(retrieveContentChunksRange, new DbPreparedStatementHandler<>() {
+                public DbPreparedStatement getPreparedStatement(Query query, DbConnection connection) {
+                    return getStreamPreparedStatement(query, connection);
+                }
+
+                public void setParameters(DbPreparedStatement statement) {
+                    statement
+                        .setInt("contentId", id)
+                        .setInt("firstOrdinal", scope.firstOrdinal)
+                        .setInt("lastOrdinal", scope.lastOrdinal);
+                }
+
+                public Object concludeResults(DbResultSet resultSet)
+                throws SQLException {
+                    if (!resultSet.next()) {
+                        return false;
+                    }
+
+                    var os = context.outputStream();
+                    try {
+                        serveChunks(resultSet, os, scope.skip, range.length());
+
+                        os.flush();
+                    } catch (IOException e) {
+                        // don't do anything, the client has probably disconnected
+                    }
+
+                    return true;
+                }
+            });
+        } catch (DatabaseException e) {
+            Logger.getLogger("rife.cmf").severe(ExceptionUtils.getExceptionStackTrace(e));
+            context.setStatus(Context.SC_INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    protected void serveChunks(DbResultSet resultset, OutputStream os, int skip, int length)
+    throws SQLException {
+        var buffer = new byte[Math.min(transferBufferSize_, length)];
+        var remaining = length;
+        do {
+            var is = resultset.getBinaryStream("chunk");
+            try {
+                while (skip > 0) {
+                    var skipped = is.skip(skip);
+                    if (skipped <= 0) {
+                        // skip isn't required to make progress before the
+                        // end of the stream, read and discard a byte instead
+                        if (is.read() == -1) {
+                            break;
+                        }
+                        skipped = 1;
+                    }
+                    skip -= (int) skipped;
+                }
+                if (skip > 0) {
+                    continue;
+                }
+
+                var buffer_size = 0;
+                while (remaining > 0 &&
+                       (buffer_size = is.read(buffer, 0, Math.min(buffer.length, remaining))) != -1) {
+                    os.write(buffer, 0, buffer_size);
+                    remaining -= buffer_size;
+                }
+            } catch (IOException e) {
+                // don't do anything, the client has probably disconnected
+                return;
+            }
+        }
+        while (remaining > 0 && resultset.next());
+    }
+
     protected void serveChunks(DbResultSet resultset, OutputStream os, int size)
     throws SQLException {
-        var buffer = new byte[512];
+        // one buffer is used for all the chunks and reads directly from
+        // the binary stream of each row, which is already buffered by the
+        // driver
+        var buffer = new byte[Math.max(1, Math.min(transferBufferSize_, size))];
         do {
             var is = resultset.getBinaryStream("chunk");
-            var buffered_raw_is = new BufferedInputStream(is, 512);
             var buffer_size = 0;
             try {
-                while ((buffer_size = buffered_raw_is.read(buffer)) != -1) {
+                while ((buffer_size = is.read(buffer)) != -1) {
                     os.write(buffer, 0, buffer_size);
                 }
             } catch (IOException e) {
                 // don't do anything, the client has probably disconnected
+                return;
             }
         }
         while (resultset.next());
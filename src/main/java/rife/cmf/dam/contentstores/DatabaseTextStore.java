@@ -161,6 +161,11 @@ public abstract class DatabaseTextStore extends DatabaseContentStore {
         });
     }
 
+    protected Object getContentColumn(ResultSet resultSet)
+    throws SQLException {
+        return resultSet.getString("content");
+    }
+
     protected void outputContentColumn(ResultSet resultSet, OutputStream os)
     throws SQLException {
         var text_reader = resultSet.getCharacterStream("content");
@@ -59,6 +59,53 @@ public class RawContentStream extends InputStream {
         return result;
     }
 
+    public int read(byte[] b, int off, int len)
+    throws IOException {
+        if (null == resultSet_) {
+            throw new IOException("Trying to read from a closed raw content stream.");
+        }
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (0 == len) {
+            return 0;
+        }
+
+        // copy as much as possible of the current chunk at once instead of
+        // going through the single byte reads
+        var count = 0;
+        try {
+            while (count < len) {
+                if (null == buffer_) {
+                    if (!hasRow_) {
+                        break;
+                    }
+
+                    buffer_ = resultSet_.getBytes("chunk");
+                    index_ = 0;
+                }
+
+                var length = Math.min(len - count, buffer_.length - index_);
+                System.arraycopy(buffer_, index_, b, off + count, length);
+                index_ += length;
+                count += length;
+
+                if (index_ >= buffer_.length) {
+                    buffer_ = null;
+                    hasRow_ = resultSet_.next();
+                }
+            }
+        } catch (SQLException e) {
+            throw new IOException("Unexpected error while reading the next bytes.", e);
+        }
+
+        if (0 == count) {
+            return -1;
+        }
+
+        return count;
+    }
+
     public void close()
     throws IOException {
         if (null == statement_) {
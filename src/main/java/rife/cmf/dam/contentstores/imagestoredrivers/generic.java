@@ -5,6 +5,7 @@
 package rife.cmf.dam.contentstores.imagestoredrivers;
 
 import rife.cmf.Content;
+import rife.cmf.dam.ContentDataBatchUser;
 import rife.cmf.dam.ContentDataUser;
 import rife.cmf.dam.ContentDataUserWithoutResult;
 import rife.cmf.dam.contentstores.DatabaseImageStore;
@@ -16,6 +17,7 @@ import rife.database.queries.*;
 import rife.engine.Context;
 
 import java.sql.Blob;
+import java.util.Collection;
 
 public class generic extends DatabaseImageStore {
     protected CreateTable createTableContent_;
@@ -23,6 +25,7 @@ public class generic extends DatabaseImageStore {
     protected Insert storeContentData_;
     protected Delete deleteContentData_;
     protected Select retrieveContent_;
+    protected Select retrieveContents_;
     protected Select retrieveSize_;
     protected Select hasContentData_;
 
@@ -56,6 +59,11 @@ public class generic extends DatabaseImageStore {
             .field("contentSize")
             .whereParameter("contentId", "=");
 
+        retrieveContents_ = new Select(getDatasource())
+            .from(RifeConfig.cmf().getTableContentStoreImage())
+            .field("contentId")
+            .field("content");
+
         retrieveSize_ = new Select(getDatasource())
             .from(RifeConfig.cmf().getTableContentStoreImage())
             .field("contentSize")
@@ -98,6 +106,11 @@ public class generic extends DatabaseImageStore {
         return _useContentDataResult(retrieveContent_, id, user);
     }
 
+    public void useContentData(Collection<Integer> ids, ContentDataBatchUser<Integer> user)
+    throws ContentManagerException {
+        _useContentData(retrieveContents_, ids, user);
+    }
+
     public int getSize(int id)
     throws ContentManagerException {
         return _getSize(retrieveSize_, id);
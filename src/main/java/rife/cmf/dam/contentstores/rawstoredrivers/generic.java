@@ -29,6 +29,8 @@ public class generic extends DatabaseRawStore {
     protected Insert storeContentChunk_;
     protected Delete deleteContentChunk_;
     protected Select retrieveContentChunks_;
+    protected Select retrieveContentChunkLengths_;
+    protected Select retrieveContentChunksRange_;
 
     public generic(Datasource datasource) {
         super(datasource);
@@ -89,6 +91,21 @@ public class generic extends DatabaseRawStore {
             .field("chunk")
             .whereParameter("contentId", "=")
             .orderBy("ordinal");
+
+        retrieveContentChunkLengths_ = new Select(getDatasource())
+            .from(RifeConfig.cmf().getTableContentStoreRawChunk())
+            .field("ordinal")
+            .field("OCTET_LENGTH(chunk)")
+            .whereParameter("contentId", "=")
+            .orderBy("ordinal");
+
+        retrieveContentChunksRange_ = new Select(getDatasource())
+            .from(RifeConfig.cmf().getTableContentStoreRawChunk())
+            .field("chunk")
+            .whereParameter("contentId", "=")
+            .whereParameterAnd("ordinal", "firstOrdinal", ">=")
+            .whereParameterAnd("ordinal", "lastOrdinal", "<=")
+            .orderBy("ordinal");
     }
 
     public boolean install()
@@ -133,6 +150,11 @@ public class generic extends DatabaseRawStore {
 
     public void serveContentData(Context context, int id)
     throws ContentManagerException {
-        _serveContentData(retrieveContentChunks_, context, id);
+        serveContentData(context, id, true);
+    }
+
+    public void serveContentData(Context context, int id, boolean rangeAllowed)
+    throws ContentManagerException {
+        _serveContentData(retrieveContentChunks_, retrieveContentChunkLengths_, retrieveContentChunksRange_, context, id, rangeAllowed);
     }
 }
@@ -4,16 +4,25 @@
  */
 package rife.cmf.dam.contentstores.rawstoredrivers;
 
+import rife.config.RifeConfig;
 import rife.database.Datasource;
 import rife.database.DbConnection;
 import rife.database.DbPreparedStatement;
 import rife.database.queries.Query;
+import rife.database.queries.Select;
 
 import java.sql.ResultSet;
 
 public class oracle_jdbc_driver_OracleDriver extends generic {
     public oracle_jdbc_driver_OracleDriver(Datasource datasource) {
         super(datasource);
+
+        retrieveContentChunkLengths_ = new Select(getDatasource())
+            .from(RifeConfig.cmf().getTableContentStoreRawChunk())
+            .field("ordinal")
+            .field("DBMS_LOB.GETLENGTH(chunk)")
+            .whereParameter("contentId", "=")
+            .orderBy("ordinal");
     }
 
     protected DbPreparedStatement getStreamPreparedStatement(Query query, DbConnection connection) {
@@ -8,6 +8,7 @@ import rife.config.RifeConfig;
 import rife.database.Datasource;
 import rife.database.queries.CreateTable;
 import rife.database.queries.Insert;
+import rife.database.queries.Select;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -31,6 +32,13 @@ public class org_apache_derby_jdbc_EmbeddedDriver extends generic {
             .column("chunk", Blob.class)
             .primaryKey("PK_CONTENTCHUNK", new String[]{"contentId", "ordinal"})
             .foreignKey("FK_CONTENTCHUNK", RifeConfig.cmf().getTableContentInfo(), "contentId", "contentId");
+
+        retrieveContentChunkLengths_ = new Select(getDatasource())
+            .from(RifeConfig.cmf().getTableContentStoreRawChunk())
+            .field("ordinal")
+            .field("LENGTH(chunk)")
+            .whereParameter("contentId", "=")
+            .orderBy("ordinal");
     }
 
     protected int storeChunks(Insert storeContentChunk, final int id, InputStream data)
@@ -5,6 +5,7 @@
 package rife.cmf.dam.contentstores.textstoredrivers;
 
 import rife.cmf.Content;
+import rife.cmf.dam.ContentDataBatchUser;
 import rife.cmf.dam.ContentDataUser;
 import rife.cmf.dam.ContentDataUserWithoutResult;
 import rife.cmf.dam.contentstores.DatabaseTextStore;
@@ -15,12 +16,15 @@ import rife.database.Datasource;
 import rife.database.queries.*;
 import rife.engine.Context;
 
+import java.util.Collection;
+
 public class generic extends DatabaseTextStore {
     protected CreateTable createTableContent_;
     protected DropTable dropTableContent_;
     protected Insert storeContentData_;
     protected Delete deleteContentData_;
     protected Select retrieveContent_;
+    protected Select retrieveContents_;
     protected Select retrieveSize_;
     protected Select hasContentData_;
 
@@ -54,6 +58,11 @@ public class generic extends DatabaseTextStore {
             .field("contentSize")
             .whereParameter("contentId", "=");
 
+        retrieveContents_ = new Select(getDatasource())
+            .from(RifeConfig.cmf().getTableContentStoreText())
+            .field("contentId")
+            .field("content");
+
         retrieveSize_ = new Select(getDatasource())
             .from(RifeConfig.cmf().getTableContentStoreText())
             .field("contentSize")
@@ -96,6 +105,11 @@ public class generic extends DatabaseTextStore {
         return _useContentDataResult(retrieveContent_, id, user);
     }
 
+    public void useContentData(Collection<Integer> ids, ContentDataBatchUser<Integer> user)
+    throws ContentManagerException {
+        _useContentData(retrieveContents_, ids, user);
+    }
+
     public int getSize(int id)
     throws ContentManagerException {
         return _getSize(retrieveSize_, id);
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.cmf.format;
+
+import rife.cmf.MimeType;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An image that was decoded from its original bytes, together with the
+ * halved versions that progressive downscaling produced from it.
+ * <p>All the renditions of the same source share the halving steps, only
+ * the last scaling step is specific to each rendition.
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @since 1.9.0
+ */
+final class DecodedImage {
+    private final byte[] bytes_;
+    private final MimeType originalMimeType_;
+    private final Image image_;
+    private final Map<Integer, List<BufferedImage>> halvings_ = new HashMap<>();
+
+    DecodedImage(byte[] bytes, MimeType originalMimeType, Image image) {
+        bytes_ = bytes;
+        originalMimeType_ = originalMimeType;
+        image_ = image;
+    }
+
+    byte[] bytes() {
+        return bytes_;
+    }
+
+    MimeType originalMimeType() {
+        return originalMimeType_;
+    }
+
+    Image image() {
+        return image_;
+    }
+
+    long pixels() {
+        return (long) image_.getWidth(null) * image_.getHeight(null);
+    }
+
+    /**
+     * Estimates the memory size of this image, with four bytes per pixel
+     * and the halved versions of the two image types that can be created
+     * for it, each of which adds at most a third of the pixels.
+     *
+     * @return the estimated size in bytes
+     * @since 1.9.0
+     */
+    long estimatedSize() {
+        var pixel_bytes = pixels() * 4;
+        return bytes_.length + pixel_bytes + 2 * (pixel_bytes / 3);
+    }
+
+    /**
+     * Retrieves the source image halved a number of times.
+     *
+     * @param level     the number of times the image is halved, starting at {@code 1}
+     * @param imageType the type of the buffered images
+     * @return the halved image
+     * @since 1.9.0
+     */
+    synchronized BufferedImage halved(int level, int imageType) {
+        var levels = halvings_.computeIfAbsent(imageType, k -> new ArrayList<>());
+        while (levels.size() < level) {
+            var previous = levels.isEmpty() ? image_ : levels.get(levels.size() - 1);
+            levels.add(ImageFormatter.scaleImage(previous, 0.5, imageType));
+        }
+        return levels.get(level - 1);
+    }
+}
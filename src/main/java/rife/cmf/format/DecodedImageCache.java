@@ -0,0 +1,138 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.cmf.format;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+
+/**
+ * Least recently used cache of the images that {@link ImageFormatter}
+ * decoded, bounded by the estimated memory size of the images.
+ * <p>Consecutive renditions of the same original bytes, for instance
+ * several image properties of a bean that's saved in different requests,
+ * thus only decode the original once.
+ * <p>The size of an image is estimated from its original bytes, its
+ * decoded pixels and the halved versions that the renditions can add to
+ * it.
+ * <p>The cache is disabled as long as its maximum size is {@code 0}.
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @see ImageFormatter#getDecodedImageCache()
+ * @since 1.9.0
+ */
+public class DecodedImageCache {
+    private record Key(int length, int hash) {
+    }
+
+    private final LinkedHashMap<Key, DecodedImage> images_ = new LinkedHashMap<>(16, 0.75f, true);
+    private long maximumSize_ = 0L;
+    private long size_ = 0L;
+
+    /**
+     * Retrieves the maximum total size of the cached images.
+     *
+     * @return the maximum size in bytes; or
+     * <p>{@code 0} if the cache is disabled
+     * @since 1.9.0
+     */
+    public synchronized long getMaximumSize() {
+        return maximumSize_;
+    }
+
+    /**
+     * Sets the maximum total size of the cached images, images that are
+     * larger by themselves are never cached.
+     *
+     * @param bytes the maximum size in bytes; or {@code 0} to disable the
+     *              cache
+     * @since 1.9.0
+     */
+    public synchronized void setMaximumSize(long bytes) {
+        maximumSize_ = Math.max(0L, bytes);
+        evict();
+    }
+
+    /**
+     * Indicates whether the cache is enabled.
+     *
+     * @return {@code true} if decoded images are cached; or
+     * <p>{@code false} otherwise
+     * @since 1.9.0
+     */
+    public synchronized boolean isEnabled() {
+        return maximumSize_ > 0L;
+    }
+
+    /**
+     * Retrieves the number of cached images.
+     *
+     * @return the number of images
+     * @since 1.9.0
+     */
+    public synchronized int size() {
+        return images_.size();
+    }
+
+    /**
+     * Retrieves the estimated total size of the cached images.
+     *
+     * @return the size in bytes
+     * @since 1.9.0
+     */
+    public synchronized long getSize() {
+        return size_;
+    }
+
+    /**
+     * Removes all the cached images.
+     *
+     * @since 1.9.0
+     */
+    public synchronized void clear() {
+        images_.clear();
+        size_ = 0L;
+    }
+
+    DecodedImage get(byte[] bytes) {
+        var key = new Key(bytes.length, Arrays.hashCode(bytes));
+        DecodedImage image;
+        synchronized (this) {
+            if (0L == maximumSize_) {
+                return null;
+            }
+            image = images_.get(key);
+        }
+        if (image != null &&
+            (image.bytes() == bytes || Arrays.equals(image.bytes(), bytes))) {
+            return image;
+        }
+        return null;
+    }
+
+    void put(DecodedImage image) {
+        var size = image.estimatedSize();
+        var key = new Key(image.bytes().length, Arrays.hashCode(image.bytes()));
+        synchronized (this) {
+            if (size > maximumSize_) {
+                return;
+            }
+
+            var previous = images_.put(key, image);
+            if (previous != null) {
+                size_ -= previous.estimatedSize();
+            }
+            size_ += size;
+            evict();
+        }
+    }
+
+    private void evict() {
+        var iterator = images_.values().iterator();
+        while (size_ > maximumSize_ && iterator.hasNext()) {
+            size_ -= iterator.next().estimatedSize();
+            iterator.remove();
+        }
+    }
+}
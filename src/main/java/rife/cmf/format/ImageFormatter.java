@@ -6,6 +6,7 @@ package rife.cmf.format;
 
 import rife.cmf.Content;
 import rife.cmf.MimeType;
+import rife.cmf.MimeTypeFormatter;
 import rife.cmf.format.exceptions.*;
 import rife.cmf.loader.ImageContentLoader;
 import rife.cmf.loader.LoadedContent;
@@ -22,8 +23,10 @@ import java.awt.image.BufferedImage;
 import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Formats raw {@code Content} data as an image.
@@ -67,39 +70,166 @@ public class ImageFormatter implements Formatter<byte[], Image> {
         public static final String HIDPI = "cmf:hidpi";
     }
 
+    private static final DecodedImageCache DECODED_IMAGES = new DecodedImageCache();
+    private static final ExecutorService RENDITION_EXECUTOR = Executors.newFixedThreadPool(
+        Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors())), r -> {
+            var thread = new Thread(r, "IMAGE_RENDITIONS");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+    /**
+     * An image that was already formatted by {@link #prepareRenditions},
+     * it's handed to the formatter through the cached loaded data of the
+     * content.
+     */
+    private record PreparedImage(DecodedImage source, byte[] data, Map<String, String> properties) {
+    }
+
+    /**
+     * Retrieves the cache of decoded images that is shared by all the image
+     * formatters, it's disabled until a maximum size is set.
+     *
+     * @return the decoded image cache
+     * @since 1.9.0
+     */
+    public static DecodedImageCache getDecodedImageCache() {
+        return DECODED_IMAGES;
+    }
+
+    /**
+     * Formats several image contents in parallel, ahead of them being stored.
+     * <p>Contents with the same data are decoded only once and share the
+     * steps of the progressive downscaling. The formatted images are
+     * attached as the cached loaded data of each content, so that a
+     * subsequent {@link #format} call for that content simply returns them.
+     * <p>Contents that can't be formatted are left untouched, formatting
+     * them later will report the error.
+     *
+     * @param contents the contents to format, contents that aren't images
+     *                 in a byte array are ignored
+     * @since 1.9.0
+     */
+    public static void prepareRenditions(Collection<Content> contents) {
+        var formatter = new ImageFormatter();
+        var renditions = new ArrayList<Callable<Void>>();
+
+        // the images that are decoded for these contents are always shared,
+        // also when the shared decoded image cache is disabled
+        var decoded_images = new DecodedImageCache();
+        decoded_images.setMaximumSize(Long.MAX_VALUE);
+        for (var content : contents) {
+            if (!(content.getData() instanceof byte[] bytes) ||
+                !(MimeTypeFormatter.getFormatter(content.getMimeType()) instanceof ImageFormatter) ||
+                content.getCachedLoadedData() instanceof PreparedImage) {
+                continue;
+            }
+
+            try {
+                // decode on the calling thread so that the renditions of
+                // the same data share the decoded image
+                var source = formatter.decode(content, bytes, decoded_images);
+                renditions.add(() -> {
+                    // format a copy with its own properties to not
+                    // modify the content from another thread
+                    var copy = content.clone();
+                    copy.setProperties(null);
+                    var data = formatter.render(copy, null, source);
+                    content.setCachedLoadedData(new PreparedImage(source, data, copy.getProperties()));
+                    return null;
+                });
+            } catch (FormatException e) {
+                // the error will be reported when the content is formatted
+            }
+        }
+
+        if (renditions.size() < 2) {
+            for (var rendition : renditions) {
+                try {
+                    rendition.call();
+                } catch (Exception e) {
+                    // the error will be reported when the content is formatted
+                }
+            }
+            return;
+        }
+
+        try {
+            RENDITION_EXECUTOR.invokeAll(renditions);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     public byte[] format(Content content, ContentTransformer<Image> transformer)
     throws FormatException {
-        byte[] content_bytes;
         // we only support byte arrays as input
         if (!(content.getData() instanceof byte[] bytes)) {
             throw new InvalidContentDataTypeException(this, content.getMimeType(), byte[].class, content.getData().getClass());
         }
-        content_bytes = bytes;
 
-        LoadedContent<Image> loaded = null;
-        Image data = null;
+        // use the image that was prepared for this content
+        if (content.getCachedLoadedData() instanceof PreparedImage prepared) {
+            if (null == transformer && prepared.source().bytes() == bytes) {
+                if (prepared.properties() != null) {
+                    prepared.properties().forEach(content::property);
+                }
+                return prepared.data();
+            }
+            return render(content, transformer, prepared.source());
+        }
+
+        return render(content, transformer, decode(content, bytes, null));
+    }
 
+    private DecodedImage decode(Content content, byte[] contentBytes, DecodedImageCache decodedImages)
+    throws FormatException {
         // check if the content contains a cached value of the loaded data
         if (content.hasCachedLoadedData()) {
             var cached = content.getCachedLoadedData();
+            if (cached instanceof PreparedImage prepared) {
+                return prepared.source();
+            }
             if (cached instanceof LoadedContent<?> cached_loaded) {
-                loaded = (LoadedContent<Image>) cached_loaded;
-                data = loaded.data();
-            } else {
-                data = (Image)cached;
+                if (cached_loaded.data() != null) {
+                    return new DecodedImage(contentBytes, cached_loaded.originalMimeType(), (Image) cached_loaded.data());
+                }
+            } else if (cached != null) {
+                return new DecodedImage(contentBytes, null, (Image) cached);
             }
         }
 
-        if (null == data) {
-            // get an image
-            Set<String> errors = new HashSet<>();
-            loaded = new ImageContentLoader().load(content_bytes, false, errors);
-            if (null == loaded) {
-                throw new UnreadableDataFormatException(content.getMimeType(), errors);
-            }
+        // reuse an image that was recently decoded from the same bytes
+        DecodedImage decoded = null;
+        if (decodedImages != null) {
+            decoded = decodedImages.get(contentBytes);
+        }
+        if (null == decoded) {
+            decoded = DECODED_IMAGES.get(contentBytes);
+        }
+        if (decoded != null) {
+            return decoded;
+        }
+
+        // get an image
+        Set<String> errors = new HashSet<>();
+        LoadedContent<Image> loaded = new ImageContentLoader().load(contentBytes, false, errors);
+        if (null == loaded) {
+            throw new UnreadableDataFormatException(content.getMimeType(), errors);
+        }
 
-            data = loaded.data();
+        decoded = new DecodedImage(contentBytes, loaded.originalMimeType(), loaded.data());
+        if (decodedImages != null) {
+            decodedImages.put(decoded);
         }
+        DECODED_IMAGES.put(decoded);
+        return decoded;
+    }
+
+    private byte[] render(Content content, ContentTransformer<Image> transformer, DecodedImage source)
+    throws FormatException {
+        var content_bytes = source.bytes();
+        var data = source.image();
 
         boolean was_transformed = false;
 
@@ -194,7 +324,7 @@ public class ImageFormatter implements Formatter<byte[], Image> {
                 // only rescale when the dimensions are actually different
                 if ((width >= 0 && width != orig_width) ||
                     (height >= 0 && height != orig_height)) {
-                    data = progressiveScaling(data, Math.max(width, height), image_type);
+                    data = progressiveScaling(source, Math.max(width, height), image_type);
                     was_transformed = true;
                 }
             }
@@ -202,13 +332,17 @@ public class ImageFormatter implements Formatter<byte[], Image> {
 
         // transform the content, if needed
         if (transformer != null) {
+            // the source image is shared, the transformer gets its own copy
+            if (data == source.image()) {
+                data = copyImage(data);
+            }
             data = transformer.transform(data, content.getAttributes());
             was_transformed = true;
         }
 
         // if no transformation was applied to the data and the provided data already
         // has the requested mime-type, simply pass the data on
-        if (!was_transformed && loaded != null && loaded.originalMimeType() == content.getMimeType()) {
+        if (!was_transformed && source.originalMimeType() == content.getMimeType()) {
             return content_bytes;
         }
 
@@ -262,7 +396,8 @@ public class ImageFormatter implements Formatter<byte[], Image> {
         return bytes_out.toByteArray();
     }
 
-    private static BufferedImage progressiveScaling(Image before, double longestSideLength, int imageType) {
+    private static BufferedImage progressiveScaling(DecodedImage source, double longestSideLength, int imageType) {
+        Image before = source.image();
         if (before == null) {
             return null;
         }
@@ -271,8 +406,10 @@ public class ImageFormatter implements Formatter<byte[], Image> {
         var h = before.getHeight(null);
         var ratio = h > w ? longestSideLength / h : longestSideLength / w;
 
+        // the halving steps are shared by all the renditions of the source
+        var level = 0;
         while (ratio < 0.5) {
-            before = scaleImage(before, 0.5, imageType);
+            before = source.halved(++level, imageType);
             w = before.getWidth(null);
             h = before.getHeight(null);
             ratio = h > w ? longestSideLength / h : longestSideLength / w;
@@ -280,7 +417,20 @@ public class ImageFormatter implements Formatter<byte[], Image> {
         return scaleImage(before, ratio, imageType);
     }
 
-    private static BufferedImage scaleImage(Image image, double ratio, int imageType) {
+    private static BufferedImage copyImage(Image image) {
+        if (image instanceof BufferedImage buffered) {
+            return new BufferedImage(buffered.getColorModel(), buffered.copyData(null), buffered.isAlphaPremultiplied(), null);
+        }
+
+        var copy = new BufferedImage(image.getWidth(null), image.getHeight(null), BufferedImage.TYPE_INT_ARGB);
+        var g2 = copy.createGraphics();
+        g2.setComposite(AlphaComposite.Src);
+        g2.drawImage(image, 0, 0, null);
+        g2.dispose();
+        return copy;
+    }
+
+    static BufferedImage scaleImage(Image image, double ratio, int imageType) {
         var scaled_width = (int) (image.getWidth(null) * ratio + 0.5);
         var scaled_height = (int) (image.getHeight(null) * ratio + 0.5);
         var scaled_image = new BufferedImage(scaled_width, scaled_height, imageType);
@@ -27,6 +27,14 @@ import rife.continuations.exceptions.MissingActiveContinuationConfigRuntimeExcep
  * @since 1.0
  */
 public abstract class ContinuationConfigRuntime {
+    /**
+     * The default interval, in milliseconds, at which the expired
+     * continuations are purged.
+     *
+     * @since 1.9.0
+     */
+    public static final long DEFAULT_CONTINUATION_PURGE_INTERVAL = 60_000L;
+
     private static final ThreadLocal<ContinuationConfigRuntime> ACTIVE_CONFIG_RUNTIME = new ThreadLocal<>();
 
     /**
@@ -88,7 +96,10 @@ public abstract class ContinuationConfigRuntime {
      * @return the continuation purge frequency
      * @see #getContinuationPurgeScale
      * @since 1.0
+     * @deprecated continuations are purged in the background since 1.9.0,
+     * use {@link #getContinuationPurgeInterval} instead
      */
+    @Deprecated
     public int getContinuationPurgeFrequency() {
         return RifeConfig.EngineConfig.DEFAULT_CONTINUATION_PURGE_FREQUENCY;
     }
@@ -101,11 +112,60 @@ public abstract class ContinuationConfigRuntime {
      * @return the continuation purge scale
      * @see #getContinuationPurgeFrequency
      * @since 1.0
+     * @deprecated continuations are purged in the background since 1.9.0,
+     * use {@link #getContinuationPurgeInterval} instead
      */
+    @Deprecated
     public int getContinuationPurgeScale() {
         return RifeConfig.EngineConfig.DEFAULT_CONTINUATION_PURGE_SCALE;
     }
 
+    /**
+     * The interval, in milliseconds, at which the {@link ContinuationManager}
+     * purges the expired continuations in the background.
+     * <p>This is only read when the manager is created.
+     *
+     * @return the continuation purge interval in milliseconds
+     * @since 1.9.0
+     */
+    public long getContinuationPurgeInterval() {
+        return DEFAULT_CONTINUATION_PURGE_INTERVAL;
+    }
+
+    /**
+     * The maximum number of continuations that a {@link ContinuationManager}
+     * keeps around.
+     * <p>When this number is exceeded, the continuations that are the closest
+     * to expiring are evicted first. If a continuation store is provided by
+     * {@link #getContinuationStore}, the paused continuations are spilled to
+     * that store instead of being evicted, and this is the number of
+     * continuations that is kept on the heap. A negative value indicates
+     * that the number of continuations is unlimited.
+     *
+     * @return the maximum number of continuations; or
+     * <p>{@code -1} if the number is unlimited
+     * @since 1.9.0
+     */
+    public int getContinuationMaximumCount() {
+        return -1;
+    }
+
+    /**
+     * The store to which paused continuations are spilled when the
+     * {@link ContinuationManager} holds more than
+     * {@link #getContinuationMaximumCount} continuations on the heap.
+     * <p>This is only retrieved once when the manager is created, each
+     * manager should get its own store.
+     *
+     * @return the continuation store; or
+     * <p>{@code null} if continuations should only be kept on the heap
+     * @see OffHeapContinuationStore
+     * @since 1.9.0
+     */
+    public ContinuationStore getContinuationStore() {
+        return null;
+    }
+
     /**
      * Retrieves the manager that is responsible for the
      * continuable object that is currently executing.
@@ -8,6 +8,9 @@ import rife.continuations.exceptions.ContinuableLocalVariableUncloneableExceptio
 import rife.tools.ExceptionUtils;
 import rife.tools.UniqueIDGenerator;
 
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.List;
@@ -178,6 +181,10 @@ public class ContinuationContext implements Cloneable {
         localStack_ = new ContinuationStack().initialize();
     }
 
+    private ContinuationContext(ContinuationManager manager) {
+        manager_ = manager;
+    }
+
     /**
      * Retrieves the manager of this {@code ContinuationContext}.
      *
@@ -233,7 +240,7 @@ public class ContinuationContext implements Cloneable {
      * @since 1.0
      */
     public void removeContextTree() {
-        manager_.writeLock_.lock();
+        manager_.treeLock_.lock();
         try {
             manager_.removeContext(id_);
 
@@ -255,7 +262,7 @@ public class ContinuationContext implements Cloneable {
 
             deactivate();
         } finally {
-            manager_.writeLock_.unlock();
+            manager_.treeLock_.unlock();
         }
     }
 
@@ -677,4 +684,97 @@ public class ContinuationContext implements Cloneable {
 
         return new_continuationcontext;
     }
+
+    void writeTo(ObjectOutput out)
+    throws IOException {
+        readLock_.lock();
+        try {
+            out.writeUTF(id_);
+            writeNullableString(out, parentId_);
+            out.writeLong(start_);
+            out.writeInt(label_);
+            out.writeBoolean(paused_);
+
+            if (null == relatedIds_) {
+                out.writeInt(-1);
+            } else {
+                out.writeInt(relatedIds_.size());
+                for (var id : relatedIds_) {
+                    out.writeUTF(id);
+                }
+            }
+
+            out.writeObject(continuable_);
+            writeCallState(out, createdCallState_);
+            writeCallState(out, activeCallState_);
+            out.writeObject(callAnswer_);
+
+            localVars_.writeTo(out);
+            localStack_.writeTo(out);
+        } finally {
+            readLock_.unlock();
+        }
+    }
+
+    static ContinuationContext readFrom(ContinuationManager manager, ObjectInput in)
+    throws IOException, ClassNotFoundException {
+        var context = new ContinuationContext(manager);
+
+        context.id_ = in.readUTF();
+        context.parentId_ = readNullableString(in);
+        context.start_ = in.readLong();
+        context.label_ = in.readInt();
+        context.paused_ = in.readBoolean();
+
+        var related_count = in.readInt();
+        if (related_count >= 0) {
+            context.relatedIds_ = new ArrayList<>(related_count);
+            for (var i = 0; i < related_count; i++) {
+                context.relatedIds_.add(in.readUTF());
+            }
+        }
+
+        context.continuable_ = in.readObject();
+        context.createdCallState_ = readCallState(in);
+        context.activeCallState_ = readCallState(in);
+        context.callAnswer_ = in.readObject();
+
+        context.localVars_ = ContinuationStack.readFrom(in);
+        context.localStack_ = ContinuationStack.readFrom(in);
+
+        return context;
+    }
+
+    private static void writeNullableString(ObjectOutput out, String value)
+    throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullableString(ObjectInput in)
+    throws IOException {
+        if (in.readBoolean()) {
+            return in.readUTF();
+        }
+        return null;
+    }
+
+    private static void writeCallState(ObjectOutput out, CallState callState)
+    throws IOException {
+        out.writeBoolean(callState != null);
+        if (callState != null) {
+            writeNullableString(out, callState.getContinuationId());
+            out.writeObject(callState.getState());
+        }
+    }
+
+    private static CallState readCallState(ObjectInput in)
+    throws IOException, ClassNotFoundException {
+        if (in.readBoolean()) {
+            return new CallState(readNullableString(in), in.readObject());
+        }
+        return null;
+    }
 }
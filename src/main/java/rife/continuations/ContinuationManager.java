@@ -4,14 +4,13 @@
  */
 package rife.continuations;
 
-import java.util.ArrayList;
-import java.util.ConcurrentModificationException;
+import java.lang.ref.WeakReference;
 import java.util.Map;
-import java.util.WeakHashMap;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.NavigableSet;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Manages a collection of {@code ContinuationContext} instances.
@@ -27,11 +26,27 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  */
 public class ContinuationManager {
     private final Map<String, ContinuationContext> contexts_;
+    private final NavigableSet<Expiration> expirations_;
+    private final NavigableSet<Expiration> spilledExpirations_;
     private final ContinuationConfigRuntime config_;
+    private final ContinuationStore store_;
+    private final PurgeTask purgeTask_;
 
-    private final ReadWriteLock lock_ = new ReentrantReadWriteLock();
-    final Lock readLock_ = lock_.readLock();
-    final Lock writeLock_ = lock_.writeLock();
+    private final LongAdder resumedCount_ = new LongAdder();
+    private final LongAdder expiredCount_ = new LongAdder();
+    private final LongAdder evictedCount_ = new LongAdder();
+
+    final Lock treeLock_ = new ReentrantLock();
+
+    private record Expiration(long deadline, String id) implements Comparable<Expiration> {
+        public int compareTo(Expiration other) {
+            var result = Long.compare(deadline, other.deadline);
+            if (result != 0) {
+                return result;
+            }
+            return id.compareTo(other.id);
+        }
+    }
 
     /**
      * Instantiates a new continuation manager and uses the default values for
@@ -43,7 +58,11 @@ public class ContinuationManager {
      */
     public ContinuationManager(ContinuationConfigRuntime config) {
         config_ = config;
-        contexts_ = new WeakHashMap<>();
+        contexts_ = new ConcurrentHashMap<>();
+        expirations_ = new ConcurrentSkipListSet<>();
+        spilledExpirations_ = new ConcurrentSkipListSet<>();
+        store_ = config.getContinuationStore();
+        purgeTask_ = new PurgeTask(this);
     }
 
     /**
@@ -80,11 +99,13 @@ public class ContinuationManager {
             return;
         }
 
-        writeLock_.lock();
-        try {
-            contexts_.put(context.getId(), context);
-        } finally {
-            writeLock_.unlock();
+        var id = context.getId();
+        contexts_.put(id, context);
+        expirations_.add(new Expiration(context.getStart() + config_.getContinuationDuration(), id));
+
+        var maximum = config_.getContinuationMaximumCount();
+        if (maximum >= 0) {
+            evictContinuations(maximum);
         }
     }
 
@@ -102,11 +123,9 @@ public class ContinuationManager {
             return;
         }
 
-        writeLock_.lock();
-        try {
-            contexts_.remove(id);
-        } finally {
-            writeLock_.unlock();
+        contexts_.remove(id);
+        if (store_ != null) {
+            store_.remove(id);
         }
     }
 
@@ -128,25 +147,26 @@ public class ContinuationManager {
      */
     public ContinuationContext resumeContext(String id)
     throws CloneNotSupportedException {
+        if (null == id) {
+            return null;
+        }
+
         ContinuationContext result = null;
 
-        purgeContinuations();
-
-        writeLock_.lock();
-        try {
-            var context = getContext(id);
-            if (context != null &&
-                context.isPaused()) {
-                Object continuable = context.getContinuable();
-                if (continuable instanceof CloneableContinuable &&
-                    config_.cloneContinuations(continuable)) {
-                    result = cloneContext(context);
-                } else {
-                    result = reuseContext(context);
-                }
+        var context = getContext(id);
+        if (context != null &&
+            context.isPaused()) {
+            Object continuable = context.getContinuable();
+            if (continuable instanceof CloneableContinuable &&
+                config_.cloneContinuations(continuable)) {
+                result = cloneContext(context);
+            } else {
+                result = reuseContext(context);
             }
-        } finally {
-            writeLock_.unlock();
+        }
+
+        if (result != null) {
+            resumedCount_.increment();
         }
 
         return result;
@@ -166,25 +186,138 @@ public class ContinuationManager {
      * @since 1.0
      */
     public ContinuationContext getContext(String id) {
-        ContinuationContext context;
-        readLock_.lock();
-        try {
-            context = contexts_.get(id);
-        } finally {
-            readLock_.unlock();
+        if (null == id) {
+            return null;
         }
 
+        var context = contexts_.get(id);
+        if (null == context && store_ != null) {
+            context = loadContext(id);
+        }
         if (context != null) {
             if (isExpired(context)) {
                 context = null;
-                removeContext(id);
+                if (contexts_.remove(id) != null) {
+                    expiredCount_.increment();
+                }
             }
         }
         return context;
     }
 
+    /**
+     * Retrieves the number of continuation contexts that are currently
+     * registered with this manager, this includes the contexts that were
+     * spilled to the continuation store and can include expired contexts
+     * that haven't been purged yet.
+     *
+     * @return the number of live continuation contexts
+     * @since 1.9.0
+     */
+    public int getLiveCount() {
+        return contexts_.size() + getSpilledCount();
+    }
+
+    /**
+     * Retrieves the number of continuation contexts that are currently
+     * spilled to the continuation store of this manager.
+     *
+     * @return the number of spilled continuation contexts; or
+     * <p>{@code 0} if this manager has no continuation store
+     * @see ContinuationConfigRuntime#getContinuationStore
+     * @since 1.9.0
+     */
+    public int getSpilledCount() {
+        if (null == store_) {
+            return 0;
+        }
+        return store_.size();
+    }
+
+    /**
+     * Retrieves the number of continuation contexts that have been resumed
+     * through this manager.
+     *
+     * @return the number of resumed continuation contexts
+     * @since 1.9.0
+     */
+    public long getResumedCount() {
+        return resumedCount_.sum();
+    }
+
+    /**
+     * Retrieves the number of continuation contexts that have been removed
+     * from this manager because they expired.
+     *
+     * @return the number of expired continuation contexts
+     * @since 1.9.0
+     */
+    public long getExpiredCount() {
+        return expiredCount_.sum();
+    }
+
+    /**
+     * Retrieves the number of continuation contexts that have been removed
+     * from this manager before they expired, because the maximum number of
+     * continuations was reached and they couldn't be spilled to a
+     * continuation store.
+     *
+     * @return the number of evicted continuation contexts
+     * @see ContinuationConfigRuntime#getContinuationMaximumCount
+     * @since 1.9.0
+     */
+    public long getEvictedCount() {
+        return evictedCount_.sum();
+    }
+
+    /**
+     * Stops the background purging of expired continuations for this
+     * manager and removes all its continuation contexts, including the
+     * ones in its continuation store.
+     *
+     * @since 1.9.0
+     */
+    public void shutdown() {
+        purgeTask_.cancel();
+        contexts_.clear();
+        expirations_.clear();
+        spilledExpirations_.clear();
+        if (store_ != null) {
+            store_.clear();
+        }
+    }
+
+    private ContinuationContext loadContext(String id) {
+        var context = store_.load(this, id);
+        if (null == context) {
+            return null;
+        }
+
+        if (isExpired(context)) {
+            if (store_.remove(id)) {
+                expiredCount_.increment();
+            }
+            return null;
+        }
+
+        // another thread might have paged in the same context concurrently
+        var existing = contexts_.putIfAbsent(id, context);
+        if (existing != null) {
+            return existing;
+        }
+        store_.remove(id);
+        // the context is not evicted again right away, otherwise it could be
+        // spilled before it's resumed
+        expirations_.add(new Expiration(context.getStart() + config_.getContinuationDuration(), id));
+
+        return context;
+    }
+
     private ContinuationContext reuseContext(ContinuationContext context) {
-        contexts_.remove(context.getId());
+        // only one concurrent resume can take over the paused context
+        if (!contexts_.remove(context.getId(), context)) {
+            return null;
+        }
         context.resetId();
         addContext(context);
 
@@ -200,55 +333,121 @@ public class ContinuationManager {
         return new_context;
     }
 
-    private void purgeContinuations() {
-        var purge_decision = ThreadLocalRandom.current().nextInt(config_.getContinuationPurgeScale());
-        if (purge_decision <= config_.getContinuationPurgeFrequency()) {
-            new PurgeContinuations().start();
+    void purgeContinuations() {
+        var now = System.currentTimeMillis();
+        purgeHeapContinuations(now);
+        if (store_ != null) {
+            purgeSpilledContinuations(now);
         }
     }
 
-    private class PurgeContinuations extends Thread {
-        public void run() {
-            purge();
-        }
+    private void purgeHeapContinuations(long now) {
+        Expiration expiration;
+        while ((expiration = expirations_.pollFirst()) != null) {
+            if (expiration.deadline() > now) {
+                expirations_.add(expiration);
+                return;
+            }
 
-        private void purge() {
-            try {
-                var stale_continuations = new ArrayList<String>();
-                for (var context : contexts_.values()) {
-                    if (context != null &&
-                        isExpired(context)) {
-                        stale_continuations.add(context.getId());
-                    }
-                }
+            var context = contexts_.get(expiration.id());
+            if (null == context) {
+                continue;
+            }
 
-                if (!stale_continuations.isEmpty()) {
-                    writeLock_.lock();
-                    try {
-                        for (var id : stale_continuations) {
-                            contexts_.remove(id);
-                        }
-                    } finally {
-                        writeLock_.unlock();
-                    }
+            if (isExpired(context)) {
+                if (contexts_.remove(expiration.id(), context)) {
+                    expiredCount_.increment();
                 }
+            } else {
+                // the context was restarted, track its new deadline
+                expirations_.add(new Expiration(context.getStart() + config_.getContinuationDuration(), expiration.id()));
+            }
+        }
+    }
+
+    private void purgeSpilledContinuations(long now) {
+        Expiration expiration;
+        while ((expiration = spilledExpirations_.pollFirst()) != null) {
+            if (expiration.deadline() > now) {
+                spilledExpirations_.add(expiration);
+                return;
+            }
+
+            // contexts that were paged in again are tracked by the heap expirations
+            if (!contexts_.containsKey(expiration.id()) &&
+                store_.remove(expiration.id())) {
+                expiredCount_.increment();
+            }
+        }
+    }
+
+    private void evictContinuations(int maximum) {
+        while (contexts_.size() > maximum) {
+            var expiration = expirations_.pollFirst();
+            if (null == expiration) {
+                return;
+            }
+
+            var context = contexts_.get(expiration.id());
+            if (null == context) {
+                continue;
+            }
 
-            } catch (ConcurrentModificationException e) {
-                // Oops, something changed while we were looking.
-                // Lock the context and try again.
-                // Set our priority high while we have the sessions locked
-                var old_priority = Thread.currentThread().getPriority();
-                Thread.currentThread().setPriority(Thread.MAX_PRIORITY);
-                try {
-                    writeLock_.lock();
-                    try {
-                        contexts_.values().removeIf(context -> context != null && isExpired(context));
-                    } finally {
-                        writeLock_.unlock();
-                    }
-                } finally {
-                    Thread.currentThread().setPriority(old_priority);
+            if (isExpired(context)) {
+                if (contexts_.remove(expiration.id(), context)) {
+                    expiredCount_.increment();
+                }
+            } else if (store_ != null && context.isPaused() && store_.store(context)) {
+                // only keep the spilled copy if the context wasn't resumed or
+                // removed while it was being stored
+                if (contexts_.remove(expiration.id(), context)) {
+                    spilledExpirations_.add(new Expiration(context.getStart() + config_.getContinuationDuration(), expiration.id()));
+                } else {
+                    store_.remove(expiration.id());
                 }
+            } else if (contexts_.remove(expiration.id(), context)) {
+                evictedCount_.increment();
+            }
+        }
+    }
+
+    /**
+     * Purges the expired continuations of a manager at a fixed interval on
+     * a single thread that is shared by all managers. The manager is only
+     * weakly referenced so that it can be garbage collected when it's not
+     * used anymore.
+     */
+    private static class PurgeTask implements Runnable {
+        private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+            var thread = new Thread(r, "CONTINUATIONS_PURGE");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        private final WeakReference<ContinuationManager> manager_;
+        private final ScheduledFuture<?> future_;
+
+        PurgeTask(ContinuationManager manager) {
+            manager_ = new WeakReference<>(manager);
+            var interval = Math.max(1, manager.getConfigRuntime().getContinuationPurgeInterval());
+            future_ = EXECUTOR.scheduleWithFixedDelay(this, interval, interval, TimeUnit.MILLISECONDS);
+        }
+
+        public void run() {
+            var manager = manager_.get();
+            if (null == manager) {
+                cancel();
+                return;
+            }
+
+            manager.purgeContinuations();
+        }
+
+        void cancel() {
+            // the future is assigned before the first run, which only happens
+            // after the interval has passed
+            if (future_ != null) {
+                future_.cancel(false);
             }
         }
     }
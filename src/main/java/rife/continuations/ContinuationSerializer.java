@@ -0,0 +1,101 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.continuations;
+
+import java.io.*;
+
+/**
+ * Converts {@link ContinuationContext} instances to a compact binary form
+ * and back, for use by {@link ContinuationStore} implementations.
+ * <p>The bookkeeping of the context and its {@link ContinuationStack}s is
+ * written as raw primitives, only the continuable instance and the objects
+ * that it references go through standard Java serialization. These all
+ * share the same stream, which preserves their identities when they're
+ * restored.
+ * <p>Contexts can only be serialized when their continuable object and all
+ * the references on their stacks are {@link Serializable}.
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @since 1.9.0
+ */
+public final class ContinuationSerializer {
+    private static final int MAGIC = 0x52434e54;
+    private static final int VERSION = 1;
+
+    private ContinuationSerializer() {
+    }
+
+    /**
+     * Serializes a continuation context.
+     *
+     * @param context the continuation context to serialize
+     * @return the serialized bytes
+     * @throws IOException when the context couldn't be serialized, for
+     *                     instance because it references objects that aren't
+     *                     serializable
+     * @since 1.9.0
+     */
+    public static byte[] serialize(ContinuationContext context)
+    throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new ObjectOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            context.writeTo(out);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Restores a continuation context from its serialized bytes.
+     *
+     * @param manager     the manager that the restored context will belong to
+     * @param bytes       the serialized bytes
+     * @param classLoader the class loader that will be used to resolve the
+     *                    classes of the serialized objects; or
+     *                    {@code null} if the default resolution should be used
+     * @return the restored continuation context
+     * @throws IOException            when the bytes couldn't be read or don't
+     *                                contain a serialized continuation context
+     * @throws ClassNotFoundException when a class of the serialized objects
+     *                                couldn't be found
+     * @since 1.9.0
+     */
+    public static ContinuationContext deserialize(ContinuationManager manager, byte[] bytes, ClassLoader classLoader)
+    throws IOException, ClassNotFoundException {
+        try (var in = new ContinuationInputStream(new ByteArrayInputStream(bytes), classLoader)) {
+            if (in.readInt() != MAGIC) {
+                throw new StreamCorruptedException("Not a serialized continuation context.");
+            }
+            var version = in.readInt();
+            if (version != VERSION) {
+                throw new StreamCorruptedException("Unsupported continuation context version " + version + ".");
+            }
+            return ContinuationContext.readFrom(manager, in);
+        }
+    }
+
+    private static class ContinuationInputStream extends ObjectInputStream {
+        private final ClassLoader classLoader_;
+
+        ContinuationInputStream(InputStream in, ClassLoader classLoader)
+        throws IOException {
+            super(in);
+            classLoader_ = classLoader;
+        }
+
+        protected Class<?> resolveClass(ObjectStreamClass desc)
+        throws IOException, ClassNotFoundException {
+            if (classLoader_ != null) {
+                try {
+                    return Class.forName(desc.getName(), false, classLoader_);
+                } catch (ClassNotFoundException e) {
+                    // fall back to the default resolution
+                }
+            }
+            return super.resolveClass(desc);
+        }
+    }
+}
@@ -7,6 +7,9 @@ package rife.continuations;
 import rife.continuations.instrument.ContinuationDebug;
 import rife.tools.ObjectUtils;
 
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.lang.reflect.Array;
 import java.util.Arrays;
 import java.util.logging.Level;
@@ -348,4 +351,87 @@ public class ContinuationStack {
 
         return new_stack;
     }
+
+    synchronized void writeTo(ObjectOutput out)
+    throws IOException {
+        writeInts(out, positionMapping_);
+        writeInts(out, typeMapping_);
+        out.writeInt(stackHeight_);
+
+        writeInts(out, intStack_);
+        out.writeInt(longStack_.length);
+        for (var value : longStack_) {
+            out.writeLong(value);
+        }
+        out.writeInt(floatStack_.length);
+        for (var value : floatStack_) {
+            out.writeFloat(value);
+        }
+        out.writeInt(doubleStack_.length);
+        for (var value : doubleStack_) {
+            out.writeDouble(value);
+        }
+        out.writeInt(referenceStack_.length);
+        for (var value : referenceStack_) {
+            out.writeObject(value);
+        }
+
+        out.writeInt(intTop_);
+        out.writeInt(longTop_);
+        out.writeInt(doubleTop_);
+        out.writeInt(floatTop_);
+        out.writeInt(referenceTop_);
+    }
+
+    static ContinuationStack readFrom(ObjectInput in)
+    throws IOException, ClassNotFoundException {
+        var stack = new ContinuationStack();
+
+        stack.positionMapping_ = readInts(in);
+        stack.typeMapping_ = readInts(in);
+        stack.stackHeight_ = in.readInt();
+
+        stack.intStack_ = readInts(in);
+        stack.longStack_ = new long[in.readInt()];
+        for (var i = 0; i < stack.longStack_.length; i++) {
+            stack.longStack_[i] = in.readLong();
+        }
+        stack.floatStack_ = new float[in.readInt()];
+        for (var i = 0; i < stack.floatStack_.length; i++) {
+            stack.floatStack_[i] = in.readFloat();
+        }
+        stack.doubleStack_ = new double[in.readInt()];
+        for (var i = 0; i < stack.doubleStack_.length; i++) {
+            stack.doubleStack_[i] = in.readDouble();
+        }
+        stack.referenceStack_ = new Object[in.readInt()];
+        for (var i = 0; i < stack.referenceStack_.length; i++) {
+            stack.referenceStack_[i] = in.readObject();
+        }
+
+        stack.intTop_ = in.readInt();
+        stack.longTop_ = in.readInt();
+        stack.doubleTop_ = in.readInt();
+        stack.floatTop_ = in.readInt();
+        stack.referenceTop_ = in.readInt();
+
+        return stack;
+    }
+
+    private static void writeInts(ObjectOutput out, int[] values)
+    throws IOException {
+        out.writeInt(values.length);
+        for (var value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static int[] readInts(ObjectInput in)
+    throws IOException {
+        var values = new int[in.readInt()];
+        for (var i = 0; i < values.length; i++) {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
 }
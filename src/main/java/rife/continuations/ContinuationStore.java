@@ -0,0 +1,71 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.continuations;
+
+/**
+ * Stores paused continuation contexts outside the heap of a
+ * {@link ContinuationManager}.
+ * <p>When a continuation store is provided by
+ * {@link ContinuationConfigRuntime#getContinuationStore}, the manager only
+ * keeps the most recent continuations on the heap, up to
+ * {@link ContinuationConfigRuntime#getContinuationMaximumCount}. The others
+ * are spilled to the store and paged back in when they're retrieved or
+ * resumed.
+ * <p>Implementations typically rely on {@link ContinuationSerializer} and
+ * have to be thread-safe.
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @see OffHeapContinuationStore
+ * @since 1.9.0
+ */
+public interface ContinuationStore {
+    /**
+     * Stores a paused continuation context.
+     *
+     * @param context the continuation context to store
+     * @return {@code true} if the context was stored; or
+     * <p>{@code false} if it couldn't be stored, for instance because it's
+     * not serializable
+     * @since 1.9.0
+     */
+    boolean store(ContinuationContext context);
+
+    /**
+     * Loads a continuation context from this store, the context stays in
+     * the store until it's explicitly removed.
+     *
+     * @param manager the manager that the loaded context will belong to
+     * @param id      the ID of the continuation context
+     * @return the loaded continuation context; or
+     * <p>{@code null} if no context with this ID could be loaded
+     * @since 1.9.0
+     */
+    ContinuationContext load(ContinuationManager manager, String id);
+
+    /**
+     * Removes a continuation context from this store.
+     *
+     * @param id the ID of the continuation context
+     * @return {@code true} if the context was removed; or
+     * <p>{@code false} if the store didn't contain it
+     * @since 1.9.0
+     */
+    boolean remove(String id);
+
+    /**
+     * Retrieves the number of continuation contexts in this store.
+     *
+     * @return the number of stored continuation contexts
+     * @since 1.9.0
+     */
+    int size();
+
+    /**
+     * Removes all continuation contexts from this store.
+     *
+     * @since 1.9.0
+     */
+    void clear();
+}
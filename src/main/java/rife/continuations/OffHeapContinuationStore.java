@@ -0,0 +1,107 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.continuations;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Continuation store that keeps serialized continuation contexts in direct
+ * byte buffers, outside the garbage collected heap.
+ * <p>Only a small index entry per continuation remains on the heap, which
+ * keeps large numbers of long-lived paused continuations from filling up
+ * the old generation.
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @since 1.9.0
+ */
+public class OffHeapContinuationStore implements ContinuationStore {
+    private final Map<String, Entry> entries_ = new ConcurrentHashMap<>();
+    private final AtomicLong storedBytes_ = new AtomicLong();
+
+    private record Entry(ByteBuffer data, ClassLoader classLoader) {
+    }
+
+    public boolean store(ContinuationContext context) {
+        byte[] bytes;
+        try {
+            bytes = ContinuationSerializer.serialize(context);
+        } catch (IOException e) {
+            Logger.getLogger("rife.continuations").log(Level.FINE, "Unable to store continuation " + context.getId() + ".", e);
+            return false;
+        }
+
+        var data = ByteBuffer.allocateDirect(bytes.length);
+        data.put(bytes).flip();
+
+        var previous = entries_.put(context.getId(), new Entry(data, context.getContinuable().getClass().getClassLoader()));
+        storedBytes_.addAndGet(bytes.length);
+        if (previous != null) {
+            storedBytes_.addAndGet(-previous.data().capacity());
+        }
+        return true;
+    }
+
+    public ContinuationContext load(ContinuationManager manager, String id) {
+        if (null == id) {
+            return null;
+        }
+
+        var entry = entries_.get(id);
+        if (null == entry) {
+            return null;
+        }
+
+        var data = entry.data().duplicate();
+        var bytes = new byte[data.remaining()];
+        data.get(bytes);
+        try {
+            return ContinuationSerializer.deserialize(manager, bytes, entry.classLoader());
+        } catch (IOException | ClassNotFoundException e) {
+            Logger.getLogger("rife.continuations").log(Level.WARNING, "Unable to load continuation " + id + ".", e);
+            remove(id);
+            return null;
+        }
+    }
+
+    public boolean remove(String id) {
+        if (null == id) {
+            return false;
+        }
+
+        var entry = entries_.remove(id);
+        if (null == entry) {
+            return false;
+        }
+
+        storedBytes_.addAndGet(-entry.data().capacity());
+        return true;
+    }
+
+    public int size() {
+        return entries_.size();
+    }
+
+    /**
+     * Retrieves the number of bytes that are used by the serialized
+     * continuation contexts in this store.
+     *
+     * @return the number of stored bytes
+     * @since 1.9.0
+     */
+    public long getStoredBytes() {
+        return storedBytes_.get();
+    }
+
+    public void clear() {
+        entries_.clear();
+        storedBytes_.set(0);
+    }
+}
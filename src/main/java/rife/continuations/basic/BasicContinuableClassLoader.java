@@ -9,8 +9,11 @@ import rife.continuations.instrument.ContinuableDetector;
 import rife.continuations.instrument.ContinuationsAgent;
 import rife.continuations.instrument.ContinuationsBytecodeTransformer;
 import rife.instrument.ClassBytesProvider;
+import rife.instrument.TransformedClassCache;
 import rife.tools.ClassBytesLoader;
 
+import java.util.LinkedHashMap;
+
 /**
  * Classloader implementation that will transform bytecode for classes that
  * should receive the continuations functionalities.
@@ -77,7 +80,21 @@ public class BasicContinuableClassLoader extends ClassLoader implements ClassByt
                 }
 
                 if (continuableDetector_.detect(bytes, false)) {
-                    var resume_bytes = ContinuationsBytecodeTransformer.transformIntoResumableBytes(config_, bytes, name);
+                    byte[] resume_bytes;
+
+                    // reuse the bytes that were instrumented by an earlier JVM run
+                    var cache = TransformedClassCache.getDefault();
+                    var cache_name = "continuations:" + config_.getClass().getName();
+                    var cached_bytes = null == cache ? null : cache.get(cache_name, bytes, ContinuationsBytecodeTransformer::resolveCommonSuperClass);
+                    if (cached_bytes != null) {
+                        resume_bytes = cached_bytes;
+                    } else if (null == cache) {
+                        resume_bytes = ContinuationsBytecodeTransformer.transformIntoResumableBytes(config_, bytes, name);
+                    } else {
+                        var dependencies = new LinkedHashMap<String, String>();
+                        resume_bytes = ContinuationsBytecodeTransformer.transformIntoResumableBytes(config_, bytes, name, dependencies);
+                        cache.put(cache_name, bytes, resume_bytes, dependencies);
+                    }
 
                     if (resume_bytes != null) {
                         bytes = resume_bytes;
@@ -9,6 +9,7 @@ import rife.asm.ClassVisitor;
 import rife.asm.ClassWriter;
 import rife.continuations.ContinuationConfigInstrument;
 
+import java.util.Map;
 import java.util.logging.Level;
 
 /**
@@ -35,6 +36,31 @@ public abstract class ContinuationsBytecodeTransformer {
      * @since 1.0
      */
     public static byte[] transformIntoResumableBytes(ContinuationConfigInstrument configInstrument, byte[] rawBytes, String classname)
+    throws ClassNotFoundException {
+        return transformIntoResumableBytes(configInstrument, rawBytes, classname, null);
+    }
+
+    /**
+     * Perform the class transformation and collect the common super
+     * classes that were resolved to compute the stack map frames.
+     * <p>The transformed bytes depend on the hierarchy of these classes,
+     * they can only be reused as long as each collected dependency still
+     * resolves to the same value with {@link #resolveCommonSuperClass}.
+     *
+     * @param configInstrument   the configuration for the instrumentation
+     * @param rawBytes           the raw bytes of the class to instrument
+     * @param classname          the name of the class to instrument
+     * @param commonSuperClasses the map that the resolved common super
+     *                           classes will be added to; or {@code null}
+     *                           if they shouldn't be collected
+     * @return a byte array with the instrumented bytecode; or
+     * <p>the original raw byte array if the class didn't need to be
+     * instrumented
+     * @throws ClassNotFoundException when an error occurs during the
+     *                                inspection or transformation
+     * @since 1.9.0
+     */
+    public static byte[] transformIntoResumableBytes(ContinuationConfigInstrument configInstrument, byte[] rawBytes, String classname, Map<String, String> commonSuperClasses)
     throws ClassNotFoundException {
         // adapts the class on the fly
         byte[] resumable_bytes = null;
@@ -55,7 +81,7 @@ public abstract class ContinuationsBytecodeTransformer {
 
                 ContinuationDebug.LOGGER.finest("SOURCE:");
                 var resumable_reader = new ClassReader(rawBytes);
-                var resumable_writer = new ClassWriter(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES);
+                var resumable_writer = new ResumableClassWriter(commonSuperClasses);
                 ClassVisitor resumable_visitor = new ResumableClassAdapter(configInstrument, metrics_visitor, types_visitor, classname, resumable_writer);
                 resumable_reader.accept(resumable_visitor, reader_flags);
                 resumable_bytes = resumable_writer.toByteArray();
@@ -74,4 +100,42 @@ public abstract class ContinuationsBytecodeTransformer {
 
         return resumable_bytes;
     }
+
+    /**
+     * Resolves a dependency that was collected by
+     * {@link #transformIntoResumableBytes(ContinuationConfigInstrument, byte[], String, Map)}.
+     *
+     * @param dependency the name of the dependency
+     * @return the current common super class of the types of the dependency
+     * @throws TypeNotPresentException when one of the types can't be found
+     * @since 1.9.0
+     */
+    public static String resolveCommonSuperClass(String dependency) {
+        var separator = dependency.indexOf(' ');
+        if (-1 == separator) {
+            return null;
+        }
+        return new ResumableClassWriter(null).resolve(dependency.substring(0, separator), dependency.substring(separator + 1));
+    }
+
+    private static class ResumableClassWriter extends ClassWriter {
+        private final Map<String, String> commonSuperClasses_;
+
+        ResumableClassWriter(Map<String, String> commonSuperClasses) {
+            super(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES);
+            commonSuperClasses_ = commonSuperClasses;
+        }
+
+        protected String getCommonSuperClass(String type1, String type2) {
+            var common = super.getCommonSuperClass(type1, type2);
+            if (commonSuperClasses_ != null) {
+                commonSuperClasses_.put(type1 + ' ' + type2, common);
+            }
+            return common;
+        }
+
+        String resolve(String type1, String type2) {
+            return super.getCommonSuperClass(type1, type2);
+        }
+    }
 }
@@ -8,6 +8,7 @@ import rife.continuations.ContinuationConfigInstrument;
 import rife.instrument.RifeTransformer;
 
 import java.security.ProtectionDomain;
+import java.util.Map;
 
 /**
  * A bytecode transformer that will modify classes so that they
@@ -32,13 +33,27 @@ public class ContinuationsTransformer extends RifeTransformer {
     public ContinuationsTransformer(ContinuationConfigInstrument configInstrument, String property) {
         configInstrument_ = configInstrument;
         property_ = property;
+
+        // the transformer is active as soon as it's created by an agent,
+        // cached classes never reach transformRife
+        System.getProperties().setProperty(property_, Boolean.TRUE.toString());
+    }
+
+    protected String getCacheName() {
+        return "continuations:" + configInstrument_.getClass().getName();
+    }
+
+    protected String resolveCacheDependency(String dependency) {
+        return ContinuationsBytecodeTransformer.resolveCommonSuperClass(dependency);
     }
 
     protected byte[] transformRife(ClassLoader loader, String classNameInternal, Class<?> classBeingRedefined, ProtectionDomain protectionDomain, byte[] classfileBuffer) {
-        System.getProperties().setProperty(property_, Boolean.TRUE.toString());
+        return transformRife(loader, classNameInternal, classBeingRedefined, protectionDomain, classfileBuffer, null);
+    }
 
+    protected byte[] transformRife(ClassLoader loader, String classNameInternal, Class<?> classBeingRedefined, ProtectionDomain protectionDomain, byte[] classfileBuffer, Map<String, String> cacheDependencies) {
         try {
-            var result = ContinuationsBytecodeTransformer.transformIntoResumableBytes(configInstrument_, classfileBuffer, classNameInternal.replace('/', '.'));
+            var result = ContinuationsBytecodeTransformer.transformIntoResumableBytes(configInstrument_, classfileBuffer, classNameInternal.replace('/', '.'), cacheDependencies);
             if (result != null) {
                 return result;
             }
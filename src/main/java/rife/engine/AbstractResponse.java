@@ -11,12 +11,10 @@ import rife.template.InternalString;
 import rife.template.Template;
 import rife.tools.HttpUtils;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.zip.GZIPOutputStream;
 
 /**
  * This abstract class implements parts of the {@link Response} interface to
@@ -35,8 +33,7 @@ public abstract class AbstractResponse implements Response {
     protected boolean textBufferEnabled_ = true;
     protected ArrayList<CharSequence> textBuffer_ = null;
     protected OutputStream responseOutputStream_ = null;
-    protected ByteArrayOutputStream gzipByteOutputStream_ = null;
-    protected GZIPOutputStream gzipOutputStream_ = null;
+    protected GzipResponseOutputStream gzipOutputStream_ = null;
     protected OutputStream outputStream_ = null;
 
     /**
@@ -62,6 +59,34 @@ public abstract class AbstractResponse implements Response {
     protected abstract OutputStream _getOutputStream()
     throws IOException;
 
+    /**
+     * Retrieves the size in bytes that a response body needs to exceed
+     * before it will be gzip compressed, smaller bodies are sent as-is.
+     * <p>
+     * Extending back-end classes can override this to tune the cutoff.
+     *
+     * @return the minimum body size for compression
+     * @since 1.9.0
+     */
+    protected int getGzipCompressionMinimumSize() {
+        return 860;
+    }
+
+    /**
+     * Retrieves the amount of compressed bytes that will be buffered before
+     * they are streamed out to the client. Responses that compress to
+     * fewer bytes are sent with a content length, larger responses are
+     * streamed with chunked transfer encoding.
+     * <p>
+     * Extending back-end classes can override this to tune the threshold.
+     *
+     * @return the compressed buffer size before streaming starts
+     * @since 1.9.0
+     */
+    protected int getGzipCompressionFlushThreshold() {
+        return 32 * 1024;
+    }
+
     /**
      * Constructor that needs to be called by all the constructors of the
      * extending classes.
@@ -261,18 +286,13 @@ public abstract class AbstractResponse implements Response {
         if (outputStream_ != null) {
             try {
                 if (gzipOutputStream_ != null) {
-                    gzipOutputStream_.flush();
-                    gzipOutputStream_.finish();
-
-                    byte[] bytes = gzipByteOutputStream_.toByteArray();
-
-                    gzipOutputStream_ = null;
-                    gzipByteOutputStream_ = null;
-
-                    setContentLength(bytes.length);
-                    addHeader("Content-Encoding", "gzip");
-                    responseOutputStream_.write(bytes);
-                    outputStream_ = responseOutputStream_;
+                    try {
+                        gzipOutputStream_.finish();
+                    } finally {
+                        gzipOutputStream_.abort();
+                        gzipOutputStream_ = null;
+                        outputStream_ = responseOutputStream_;
+                    }
                 }
 
                 try {
@@ -291,6 +311,22 @@ public abstract class AbstractResponse implements Response {
         }
     }
 
+    /**
+     * Abandons the compression of the response body, this releases the
+     * resources of the compression when the response isn't closed.
+     *
+     * @since 1.9.0
+     */
+    void abortCompression() {
+        if (gzipOutputStream_ != null) {
+            gzipOutputStream_.abort();
+            gzipOutputStream_ = null;
+            if (outputStream_ != null) {
+                outputStream_ = responseOutputStream_;
+            }
+        }
+    }
+
     public OutputStream getOutputStream()
     throws EngineException {
         ensureOutputStream();
@@ -314,8 +350,8 @@ public abstract class AbstractResponse implements Response {
                             String accept_encoding = request_.getHeader("Accept-Encoding");
                             if (accept_encoding != null &&
                                 accept_encoding.contains("gzip")) {
-                                gzipByteOutputStream_ = new ByteArrayOutputStream();
-                                gzipOutputStream_ = new GZIPOutputStream(gzipByteOutputStream_);
+                                gzipOutputStream_ = new GzipResponseOutputStream(this, responseOutputStream_,
+                                    getGzipCompressionMinimumSize(), getGzipCompressionFlushThreshold());
                             }
                         }
                     }
@@ -25,6 +25,10 @@ import java.io.OutputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Modifier;
 import java.util.*;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * This class provides the context for the current HTTP request.
@@ -39,29 +43,71 @@ public class Context {
     public static final double DEFAULT_DOUBLE = 0.0d;
     public static final float DEFAULT_FLOAT = 0.0f;
 
+    /**
+     * Status code (206) indicating that the server has fulfilled the partial GET request for the resource.
+     */
+    public static final int SC_PARTIAL_CONTENT = 206;
+
     /**
      * Status code (304) indicating that a conditional GET operation found that the resource was available and not modified.
      */
     public static final int SC_NOT_MODIFIED = 304;
 
+    /**
+     * Status code (416) indicating that the server cannot serve the requested byte range.
+     */
+    public static final int SC_REQUESTED_RANGE_NOT_SATISFIABLE = 416;
+
 
     /**
      * Status code (500) indicating an error inside the HTTP server which prevented it from fulfilling the request.
      */
     public static final int SC_INTERNAL_SERVER_ERROR = 500;
 
+    // the template fields of the element classes that are resumed
+    // from continuations, they're only looked up once per class
+    private static final ClassValue<FieldAccessor[]> TEMPLATE_FIELDS = new ClassValue<>() {
+        protected FieldAccessor[] computeValue(Class<?> type) {
+            try {
+                var accessors = new ArrayList<FieldAccessor>();
+                Class klass = type;
+                while (klass != null && klass != Element.class) {
+                    for (var field : klass.getDeclaredFields()) {
+                        if (Modifier.isStatic(field.getModifiers()) ||
+                            Modifier.isFinal(field.getModifiers()) ||
+                            Modifier.isTransient(field.getModifiers())) {
+                            continue;
+                        }
+
+                        if (Template.class.isAssignableFrom(field.getType())) {
+                            accessors.add(new FieldAccessor(field));
+                        }
+                    }
+
+                    klass = klass.getSuperclass();
+                }
+                return accessors.toArray(new FieldAccessor[0]);
+            } catch (IllegalAccessException e) {
+                throw new EngineException(e);
+            }
+        }
+    };
+
     private final String gateUrl_;
     private final Site site_;
     private final Request request_;
     private final Response response_;
     private final RouteMatch routeMatch_;
-    private final Map<String, String[]> parametersIn_;
+    private Map<String, String[]> parametersIn_;
     private Map<String, String[]> parametersOut_;
     private Throwable engineException_;
 
     private Route processedRoute_ = null;
     private Element processedElement_ = null;
 
+    private long timeout_ = 0L;
+    private long deadline_ = 0L;
+
     Context(String gateUrl, Site site, Request request, Response response, RouteMatch routeMatch) {
         gateUrl_ = gateUrl;
         site_ = site;
@@ -69,23 +115,45 @@ public class Context {
         response_ = response;
         routeMatch_ = routeMatch;
 
-        var params = new LinkedHashMap<>(request_.getParameters());
+        // the parameters are only set up when they're used, this
+        // prevents the request body from being parsed when it's not needed
+        parametersIn_ = null;
+        parametersOut_ = null;
+    }
+
+    private Map<String, String[]> setupParameters() {
+        var params = request_.getParameters();
+        if (null == params) {
+            params = Collections.emptyMap();
+        }
+
+        // the parameters of the request are shared, they're only copied
+        // when path info mapping parameters have to be added or when
+        // they're modified
         if (routeMatch_ != null) {
             if (routeMatch_.route().pathInfoHandling().type() == PathInfoType.MAP) {
                 for (var mapping : routeMatch_.route().pathInfoHandling().mappings()) {
                     var matcher = mapping.regexp().matcher(pathInfo());
                     if (matcher.matches()) {
+                        var mapped_params = new LinkedHashMap<>(params);
                         var i = 1;
                         for (var param : mapping.parameters()) {
-                            params.put(param, new String[]{matcher.group(i++)});
+                            mapped_params.put(param, new String[]{matcher.group(i++)});
                         }
-                        break;
+                        return mapped_params;
                     }
                 }
             }
         }
-        parametersIn_ = params;
-        parametersOut_ = null;
+
+        return new CopyOnWriteParameters(params);
+    }
+
+    void setupTimeout(long timeout) {
+        if (timeout > 0) {
+            timeout_ = timeout;
+            deadline_ = System.currentTimeMillis() + timeout;
+        }
     }
 
     void process() {
@@ -98,16 +166,29 @@ public class Context {
         }
 
         var route = routeMatch_.route();
+        var metrics = site_.metrics();
 
         try {
-            for (var before_route : route.router().before_) {
-                processElement(before_route);
-            }
+            // phases can end by throwing when the element responds, redirects
+            // or pauses, the phase that was active is then recorded as well
+            var phase = EnginePhase.BEFORE;
+            var start = metrics.isEnabled() ? System.nanoTime() : 0L;
+            try {
+                for (var before_route : route.router().before_) {
+                    processElement(before_route);
+                }
+                start = recordPhase(metrics, route, phase, start);
+                phase = EnginePhase.ELEMENT;
 
-            processElement(route);
+                processElement(route);
+                start = recordPhase(metrics, route, phase, start);
+                phase = EnginePhase.AFTER;
 
-            for (var after_route : route.router().after_) {
-                processElement(after_route);
+                for (var after_route : route.router().after_) {
+                    processElement(after_route);
+                }
+            } finally {
+                recordPhase(metrics, route, phase, start);
             }
         } catch (RespondException ignored) {
             // processing is over, just send the current response
@@ -118,6 +199,16 @@ public class Context {
         }
     }
 
+    private static long recordPhase(EngineMetrics metrics, Route route, EnginePhase phase, long start) {
+        if (!metrics.isEnabled()) {
+            return 0L;
+        }
+
+        var now = System.nanoTime();
+        metrics.recordPhase(route, phase, now - start);
+        return now;
+    }
+
     void processElement(Route route)
     throws Exception {
         parametersOut_ = null;
@@ -159,23 +250,40 @@ public class Context {
         }
 
         Element element = null;
-        ContinuationContext continuation_context = null;
 
-        // resume a continuation context if it can be found
-        var resume_id = parameter(SpecialParameters.CONT_ID);
-        continuation_context = site_.continuationManager_.resumeContext(resume_id);
+        // only look for a continuation context when a continuation ID was
+        // provided, plain requests don't touch the continuation manager,
+        // the request is only peeked at so that a multipart body is still
+        // available to the element in the way it chooses to read it
+        String resume_id;
+        if (parametersIn_ != null) {
+            resume_id = parameter(SpecialParameters.CONT_ID);
+        } else {
+            resume_id = request_.peekParameter(SpecialParameters.CONT_ID);
+        }
+        if (resume_id != null) {
+            // resume a continuation context if it can be found
+            var metrics = site_.metrics();
+            var start = metrics.isEnabled() ? System.nanoTime() : 0L;
+            ContinuationContext continuation_context;
+            try {
+                continuation_context = site_.continuationManager_.resumeContext(resume_id);
+            } finally {
+                recordPhase(metrics, route(), EnginePhase.CONTINUATION_RESUME, start);
+            }
 
-        // if a continuation context can be resumed, activate it
-        // when its continuable is the same type as the element that should be processed,
-        // process that continuable instead
-        if (continuation_context != null) {
-            ContinuationContext.setActiveContext(continuation_context);
+            // if a continuation context can be resumed, activate it
+            // when its continuable is the same type as the element that should be processed,
+            // process that continuable instead
+            if (continuation_context != null) {
+                ContinuationContext.setActiveContext(continuation_context);
 
-            if (continuation_context.getContinuable() != null &&
-                route.getElementClass() == continuation_context.getContinuable().getClass()) {
-                updatedTemplatesInContinuation(continuation_context);
+                if (continuation_context.getContinuable() != null &&
+                    route.getElementClass() == continuation_context.getContinuable().getClass()) {
+                    updatedTemplatesInContinuation(continuation_context);
 
-                element = (Element) continuation_context.getContinuable();
+                    element = (Element) continuation_context.getContinuable();
+                }
             }
         }
 
@@ -204,25 +312,12 @@ public class Context {
         }
 
         var continuable = continuationContext.getContinuable();
-        Class klass = continuable.getClass();
-        while (klass != null && klass != Element.class) {
-            for (var field : klass.getDeclaredFields()) {
-                field.setAccessible(true);
-
-                if (Modifier.isStatic(field.getModifiers()) ||
-                    Modifier.isFinal(field.getModifiers()) ||
-                    Modifier.isTransient(field.getModifiers())) {
-                    continue;
-                }
-
-                if (Template.class.isAssignableFrom(field.getType())) {
-                    var t = (Template) field.get(continuable);
-                    t.removeGeneratedValues();
-                    t.setAttribute(Context.class.getName(), this);
-                }
+        for (var accessor : TEMPLATE_FIELDS.get(continuable.getClass())) {
+            var t = (Template) accessor.get(continuable);
+            if (t != null) {
+                t.removeGeneratedValues();
+                t.setAttribute(Context.class.getName(), this);
             }
-
-            klass = klass.getSuperclass();
         }
     }
 
@@ -456,20 +551,26 @@ public class Context {
             template.setAttribute(Context.class.getName(), this);
         }
 
-        new EngineTemplateProcessor(this, template).processTemplate();
+        var metrics = site_.metrics();
+        var start = metrics.isEnabled() ? System.nanoTime() : 0L;
+        try {
+            new EngineTemplateProcessor(this, template).processTemplate();
 
-        // set the content type
-        if (!response_.isContentTypeSet()) {
-            var content_type = template.getDefaultContentType();
-            if (null == content_type) {
-                content_type = RifeConfig.engine().getDefaultContentType();
+            // set the content type
+            if (!response_.isContentTypeSet()) {
+                var content_type = template.getDefaultContentType();
+                if (null == content_type) {
+                    content_type = RifeConfig.engine().getDefaultContentType();
+                }
+
+                response_.setContentType(content_type);
             }
 
-            response_.setContentType(content_type);
+            // print the element contents with the auto-generated values
+            response_.print(template);
+        } finally {
+            recordPhase(metrics, route(), EnginePhase.TEMPLATE_RENDERING, start);
         }
-
-        // print the element contents with the auto-generated values
-        response_.print(template);
     }
 
     /**
@@ -838,6 +939,19 @@ public class Context {
         return new UrlBuilder(this, route);
     }
 
+    /**
+     * Start generating many URLs that share this context.
+     * <p>The result is a {@link UrlBatch} instance that retrieves the state
+     * of this context once for all the URLs it generates, which makes it
+     * well suited for pages with many links.
+     *
+     * @return an instance of {@link UrlBatch}
+     * @since 1.9.0
+     */
+    public UrlBatch urlBatch() {
+        return new UrlBatch(this);
+    }
+
     /**
      * Retrieves the exception that was triggered during the RIFE2 web
      * engine execution.
@@ -1104,6 +1218,51 @@ public class Context {
         throw new NextException();
     }
 
+    /**
+     * Waits for an asynchronous operation to complete and returns its
+     * result.
+     * <p>When the site runs with asynchronous execution in a virtual thread,
+     * waiting only parks that virtual thread and doesn't hold on to a
+     * platform thread of the servlet container. The wait is bounded by the
+     * timeout of the request, if one was configured.
+     *
+     * @param stage the asynchronous operation to wait for
+     * @param <T>   the type of the result
+     * @return the result of the operation
+     * @throws RequestTimeoutException when the request timed out before the
+     *                                 operation completed
+     * @throws EngineException         when the operation failed or the wait
+     *                                 was interrupted
+     * @since 1.9.0
+     */
+    public <T> T await(CompletionStage<T> stage)
+    throws EngineException {
+        if (null == stage) throw new IllegalArgumentException("stage can't be null");
+
+        var future = stage.toCompletableFuture();
+        try {
+            if (deadline_ > 0) {
+                var remaining = deadline_ - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    throw new TimeoutException();
+                }
+                return future.get(remaining, TimeUnit.MILLISECONDS);
+            }
+
+            return future.get();
+        } catch (TimeoutException e) {
+            throw new RequestTimeoutException(timeout_, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (deadline_ > 0 && System.currentTimeMillis() >= deadline_) {
+                throw new RequestTimeoutException(timeout_, e);
+            }
+            throw new EngineException(e);
+        } catch (ExecutionException e) {
+            throw new EngineException(e.getCause());
+        }
+    }
+
     /**
      * Sets up the current response to prevent all caching of the response by
      * the client.
@@ -1126,11 +1285,16 @@ public class Context {
 
     /**
      * Retrieves the parameters that were sent to this context.
+     * <p>The parameters are only retrieved from the request when they're
+     * first used.
      *
      * @return a {@code Map} with all the parameter names and values
      * @since 1.0
      */
     public Map<String, String[]> parameters() {
+        if (null == parametersIn_) {
+            parametersIn_ = setupParameters();
+        }
         return parametersIn_;
     }
 
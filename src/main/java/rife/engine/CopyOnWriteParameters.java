@@ -0,0 +1,147 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.engine;
+
+import java.util.*;
+
+/**
+ * Parameters map that shares the parameters of a request until it's
+ * modified.
+ * <p>Reading the parameters never copies them, the first modification
+ * copies the shared map and all the following operations use that copy.
+ * The shared map itself is never changed.
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @since 1.9.0
+ */
+final class CopyOnWriteParameters extends AbstractMap<String, String[]> {
+    private Map<String, String[]> parameters_;
+    private boolean copied_ = false;
+    private EntrySet entrySet_ = null;
+
+    CopyOnWriteParameters(Map<String, String[]> parameters) {
+        parameters_ = parameters;
+    }
+
+    /**
+     * Indicates whether the shared parameters have been copied.
+     *
+     * @return {@code true} if this map was modified; or
+     * <p>{@code false} if it still shares the parameters of the request
+     * @since 1.9.0
+     */
+    boolean isCopied() {
+        return copied_;
+    }
+
+    private Map<String, String[]> writable() {
+        if (!copied_) {
+            parameters_ = new LinkedHashMap<>(parameters_);
+            copied_ = true;
+        }
+        return parameters_;
+    }
+
+    public int size() {
+        return parameters_.size();
+    }
+
+    public boolean isEmpty() {
+        return parameters_.isEmpty();
+    }
+
+    public boolean containsKey(Object key) {
+        return parameters_.containsKey(key);
+    }
+
+    public boolean containsValue(Object value) {
+        return parameters_.containsValue(value);
+    }
+
+    public String[] get(Object key) {
+        return parameters_.get(key);
+    }
+
+    public String[] put(String key, String[] value) {
+        return writable().put(key, value);
+    }
+
+    public String[] remove(Object key) {
+        if (!copied_ && !parameters_.containsKey(key)) {
+            return null;
+        }
+        return writable().remove(key);
+    }
+
+    public void putAll(Map<? extends String, ? extends String[]> map) {
+        if (!map.isEmpty()) {
+            writable().putAll(map);
+        }
+    }
+
+    public void clear() {
+        if (copied_) {
+            parameters_.clear();
+        } else if (!parameters_.isEmpty()) {
+            parameters_ = new LinkedHashMap<>();
+            copied_ = true;
+        }
+    }
+
+    public Set<Entry<String, String[]>> entrySet() {
+        if (null == entrySet_) {
+            entrySet_ = new EntrySet();
+        }
+        return entrySet_;
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<String, String[]>> {
+        public int size() {
+            return parameters_.size();
+        }
+
+        public void clear() {
+            CopyOnWriteParameters.this.clear();
+        }
+
+        public Iterator<Entry<String, String[]>> iterator() {
+            if (copied_) {
+                return parameters_.entrySet().iterator();
+            }
+
+            // iterate over the shared parameters, modifications are made to
+            // the copy which leaves this iteration unaffected
+            var iterator = parameters_.entrySet().iterator();
+            return new Iterator<>() {
+                private String last_ = null;
+                private boolean removable_ = false;
+
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                public Entry<String, String[]> next() {
+                    var entry = iterator.next();
+                    last_ = entry.getKey();
+                    removable_ = true;
+                    return new SimpleEntry<>(entry) {
+                        public String[] setValue(String[] value) {
+                            super.setValue(value);
+                            return writable().put(getKey(), value);
+                        }
+                    };
+                }
+
+                public void remove() {
+                    if (!removable_) {
+                        throw new IllegalStateException();
+                    }
+                    removable_ = false;
+                    writable().remove(last_);
+                }
+            };
+        }
+    }
+}
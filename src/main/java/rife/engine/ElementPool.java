@@ -0,0 +1,45 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.engine;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free striped pool of reusable element instances.
+ * <p>Each thread draws from and returns to a slot that is selected by its
+ * ID, when the slot is empty or already occupied, a new instance is
+ * created or the returned instance is dropped.
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @since 1.9.0
+ */
+final class ElementPool {
+    private final AtomicReferenceArray<Element> slots_;
+    private final int mask_;
+
+    ElementPool() {
+        // use a power of two to select the slots with a mask
+        var size = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)) << 1;
+        slots_ = new AtomicReferenceArray<>(size);
+        mask_ = size - 1;
+    }
+
+    private int slot() {
+        var id = Thread.currentThread().getId();
+        return (int) (id ^ (id >>> 16)) & mask_;
+    }
+
+    Element poll() {
+        var slot = slot();
+        if (null == slots_.get(slot)) {
+            return null;
+        }
+        return slots_.getAndSet(slot, null);
+    }
+
+    void offer(Element element) {
+        slots_.compareAndSet(slot(), null, element);
+    }
+}
@@ -27,11 +27,12 @@ class EngineContinuationConfigRuntime extends ContinuationConfigRuntime {
         return RifeConfig.engine().getContinuationDuration();
     }
 
-    public int getContinuationPurgeFrequency() {
-        return RifeConfig.engine().getContinuationPurgeFrequency();
+    public int getContinuationMaximumCount() {
+        return site_.continuationMaximumCount();
     }
 
-    public int getContinuationPurgeScale() {
-        return RifeConfig.engine().getContinuationPurgeScale();
+    public long getContinuationPurgeInterval() {
+        // purge at least once during the lifetime of a continuation
+        return Math.max(1L, Math.min(DEFAULT_CONTINUATION_PURGE_INTERVAL, getContinuationDuration()));
     }
 }
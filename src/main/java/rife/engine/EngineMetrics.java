@@ -0,0 +1,82 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.engine;
+
+/**
+ * Receives the timings and the outcomes of the requests that are handled
+ * by a {@link Site}.
+ * <p>All the methods have empty default implementations, so that
+ * implementations only need to override what they're interested in.
+ * The engine only measures timings when {@link #isEnabled()} returns
+ * {@code true}, the default {@link #NONE} metrics thus add no
+ * overhead to the request pipeline.
+ * <p>Implementations are called concurrently from all the request threads
+ * and should never block.
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @see Site#metrics(EngineMetrics)
+ * @see HistogramEngineMetrics
+ * @since 1.9.0
+ */
+public interface EngineMetrics {
+    /**
+     * Metrics that don't record anything, this is the default of a site.
+     *
+     * @since 1.9.0
+     */
+    EngineMetrics NONE = new EngineMetrics() {
+    };
+
+    /**
+     * Indicates whether the engine should measure and report timings.
+     *
+     * @return {@code true} if timings should be reported; or
+     * <p>{@code false} otherwise
+     * @since 1.9.0
+     */
+    default boolean isEnabled() {
+        return false;
+    }
+
+    /**
+     * Records the duration of a phase of the request pipeline.
+     *
+     * @param route the route that matched the request
+     * @param phase the phase that was executed
+     * @param nanos the duration of the phase in nanoseconds
+     * @since 1.9.0
+     */
+    default void recordPhase(Route route, EnginePhase phase, long nanos) {
+    }
+
+    /**
+     * Records that a request was deferred to the next handler, for instance
+     * the next filter of the servlet container.
+     *
+     * @param route the route that matched the request
+     * @since 1.9.0
+     */
+    default void requestDeferred(Route route) {
+    }
+
+    /**
+     * Records that no route matched a request.
+     *
+     * @since 1.9.0
+     */
+    default void requestNotFound() {
+    }
+
+    /**
+     * Records that an exception occurred while processing a request.
+     *
+     * @param route     the route that matched the request; or
+     *                  {@code null} if the site failed to initialize
+     * @param exception the exception that occurred
+     * @since 1.9.0
+     */
+    default void requestException(Route route, Throwable exception) {
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.engine;
+
+/**
+ * The phases of the request pipeline that are reported to
+ * {@link EngineMetrics}.
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @since 1.9.0
+ */
+public enum EnginePhase {
+    /**
+     * Looking up the route that matches the request URL.
+     */
+    ROUTE_RESOLUTION,
+    /**
+     * Resuming the continuation context of a request.
+     */
+    CONTINUATION_RESUME,
+    /**
+     * Processing the {@code before} elements of the route's router.
+     */
+    BEFORE,
+    /**
+     * Processing the element of the route.
+     */
+    ELEMENT,
+    /**
+     * Processing the {@code after} elements of the route's router.
+     */
+    AFTER,
+    /**
+     * Processing and printing a template to the response.
+     */
+    TEMPLATE_RENDERING,
+    /**
+     * Flushing and closing the response.
+     */
+    RESPONSE_FLUSH
+}
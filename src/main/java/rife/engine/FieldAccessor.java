@@ -0,0 +1,68 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.engine;
+
+import rife.engine.exceptions.EngineException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+
+/**
+ * Reads and writes an instance field through method handles that are
+ * resolved once, instead of going through reflection on every access.
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @since 1.9.0
+ */
+final class FieldAccessor {
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final Field field_;
+    private final MethodHandle getter_;
+    private final MethodHandle setter_;
+
+    FieldAccessor(Field field)
+    throws IllegalAccessException {
+        field.setAccessible(true);
+
+        var lookup = MethodHandles.lookup();
+        field_ = field;
+        getter_ = lookup.unreflectGetter(field).asType(GETTER_TYPE);
+        setter_ = lookup.unreflectSetter(field).asType(SETTER_TYPE);
+    }
+
+    Field field() {
+        return field_;
+    }
+
+    Object get(Object instance)
+    throws Exception {
+        try {
+            return (Object) getter_.invokeExact(instance);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new EngineException(e);
+        }
+    }
+
+    void set(Object instance, Object value)
+    throws Exception {
+        if (null == value && field_.getType().isPrimitive()) {
+            throw new IllegalArgumentException("Can not set " + field_.getType().getName() + " field " + field_.getDeclaringClass().getName() + "." + field_.getName() + " to null value");
+        }
+
+        try {
+            setter_.invokeExact(instance, value);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new EngineException(e);
+        }
+    }
+}
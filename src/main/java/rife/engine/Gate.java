@@ -8,6 +8,8 @@ import rife.Version;
 import rife.config.RifeConfig;
 import rife.engine.exceptions.DeferException;
 import rife.engine.exceptions.RedirectException;
+import rife.engine.exceptions.RequestTimeoutException;
+import rife.instrument.RifeAgent;
 import rife.ioc.HierarchicalProperties;
 import rife.template.TemplateFactory;
 import rife.tools.ExceptionFormattingUtils;
@@ -41,9 +43,12 @@ public class Gate {
             try {
                 site_.setup();
                 site_.deploy();
+                site_.compileRoutes();
             } catch (Throwable e) {
                 handleSiteInitException(e);
             }
+
+            RifeAgent.logTransformerTimings();
         }
     }
 
@@ -54,6 +59,7 @@ public class Gate {
      */
     public void destroy() {
         site_.destroy();
+        site_.continuationManager_.shutdown();
     }
 
     /**
@@ -77,6 +83,31 @@ public class Gate {
      * @since 1.0
      */
     public boolean handleRequest(String gateUrl, String elementUrl, Request request, Response response) {
+        var context = setupContext(gateUrl, elementUrl, request, response);
+        if (null == context) {
+            return false;
+        }
+
+        return processContext(context, 0);
+    }
+
+    /**
+     * Resolves the route of a web request and sets up the context that will
+     * process it, without processing it yet.
+     * <p>This allows the request to be handled in two steps, for instance
+     * to process the context on another thread than the one that received
+     * the request.
+     *
+     * @param gateUrl    the part of the URL that corresponds to the root of the gate, typically the webapp context URL
+     * @param elementUrl the part of the URL after the gateUrl that will be resolved to find the execution element
+     * @param request    the request instance of this web request
+     * @param response   the response instance of this web request
+     * @return the context for the request; or
+     * <p>{@code null} if no route matches the request
+     * @see #processContext
+     * @since 1.9.0
+     */
+    public Context setupContext(String gateUrl, String elementUrl, Request request, Response response) {
         // check if the gateUrl hasn't been overridden by a webapp context path configuration parameter
         final var webapp_context_path = RifeConfig.engine().getWebappContextPath();
         if (webapp_context_path != null) {
@@ -95,30 +126,84 @@ public class Gate {
             elementUrl = elementUrl.substring(0, path_parameters_index);
         }
 
-        // Handle the request
-        // check if an exception occurred during the initialization
+        // check if an exception occurred during the initialization,
+        // the context will then report it
         if (initException_ != null) {
-            handleRequestException(initException_, new Context(gateUrl, site_, request, response, null));
-            return true;
+            return new Context(gateUrl, site_, request, response, null);
         }
 
-        // Set up the element request and process it.
+        // Set up the element request.
+        var metrics = site_.metrics();
+        var start = metrics.isEnabled() ? System.nanoTime() : 0L;
         var match = site_.findRouteForRequest(request, elementUrl);
         // If no element was found, don't continue executing the gate logic.
         // This could allow a next filter in the chain to be executed.
         if (null == match) {
-            return false;
+            metrics.requestNotFound();
+            return null;
+        }
+        if (metrics.isEnabled()) {
+            metrics.recordPhase(match.route(), EnginePhase.ROUTE_RESOLUTION, System.nanoTime() - start);
         }
 
-        var context = new Context(gateUrl, site_, request, response, match);
+        return new Context(gateUrl, site_, request, response, match);
+    }
+
+    /**
+     * Processes a context that was set up by {@link #setupContext}.
+     *
+     * @param context the context to process
+     * @param timeout the timeout in milliseconds that bounds
+     *                {@link Context#await} calls during the processing; or
+     *                {@code 0} if there's no timeout
+     * @return {@code true} if the request was successfully handled; or
+     * {@code false} if the request was deferred
+     * @throws RequestTimeoutException when the processing didn't finish
+     *                                 within the timeout
+     * @since 1.9.0
+     */
+    public boolean processContext(Context context, long timeout) {
+        var response = context.response();
+        var metrics = site_.metrics();
+
+        // Handle the request
+        // check if an exception occurred during the initialization
+        if (initException_ != null) {
+            metrics.requestException(null, initException_);
+            handleRequestException(initException_, context);
+            return true;
+        }
+
+        // Process the element request.
+        context.setupTimeout(timeout);
         try {
             context.process();
-            response.close();
+
+            if (metrics.isEnabled()) {
+                var start = System.nanoTime();
+                response.close();
+                metrics.recordPhase(context.route(), EnginePhase.RESPONSE_FLUSH, System.nanoTime() - start);
+            } else {
+                response.close();
+            }
         } catch (RedirectException e) {
+            abortCompression(response);
             response.sendRedirect(e.getUrl());
         } catch (DeferException e) {
+            abortCompression(response);
+            metrics.requestDeferred(context.route());
             return false;
         } catch (Throwable e) {
+            metrics.requestException(context.route(), e);
+
+            // timed out requests are answered by the caller that set the
+            // timeout, the response might not be usable anymore
+            var timeout_exception = findRequestTimeout(e);
+            if (timeout_exception != null) {
+                abortCompression(response);
+                throw timeout_exception;
+            }
+
             handleRequestException(e, context);
             response.close();
         }
@@ -126,6 +211,23 @@ public class Gate {
         return true;
     }
 
+    private static void abortCompression(Response response) {
+        // release the compression of responses that aren't closed
+        if (response instanceof AbstractResponse abstract_response) {
+            abstract_response.abortCompression();
+        }
+    }
+
+    private static RequestTimeoutException findRequestTimeout(Throwable exception) {
+        while (exception != null) {
+            if (exception instanceof RequestTimeoutException e) {
+                return e;
+            }
+            exception = exception.getCause();
+        }
+        return null;
+    }
+
     private void handleSiteInitException(Throwable exception) {
         // ensure the later init exceptions don't overwrite earlier ones
         if (null == initException_) {
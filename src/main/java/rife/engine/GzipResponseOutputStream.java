@@ -0,0 +1,261 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.engine;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Output stream that gzip compresses a response body while it's
+ * being written.
+ * <p>
+ * Bodies that stay below the minimum size are sent uncompressed with
+ * an explicit content length. Compressed output is buffered up to the
+ * flush threshold so that small bodies still get a content length,
+ * beyond that the compressed bytes are streamed straight to the
+ * response and the container switches to chunked transfer encoding.
+ * <p>
+ * The {@code Deflater} instances are kept in a bounded pool that's shared
+ * by all threads, so that they're also reused when every request runs in
+ * its own virtual thread. Instances that don't fit in the pool are ended
+ * right away instead of waiting for the garbage collector to release
+ * their native memory.
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @since 1.9.0
+ */
+class GzipResponseOutputStream extends OutputStream {
+    private static final byte[] GZIP_HEADER = {(byte) 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+    static final int DEFLATER_POOL_SIZE = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+    private static final ArrayBlockingQueue<Deflater> DEFLATERS = new ArrayBlockingQueue<>(DEFLATER_POOL_SIZE);
+
+    private final AbstractResponse response_;
+    private final OutputStream target_;
+    private final int flushThreshold_;
+
+    private byte[] pending_;
+    private int pendingCount_ = 0;
+
+    private Deflater deflater_ = null;
+    private final CRC32 crc_ = new CRC32();
+    private final byte[] deflateBuffer_ = new byte[8192];
+    private byte[] compressed_ = null;
+    private int compressedCount_ = 0;
+    private boolean streaming_ = false;
+    private boolean closed_ = false;
+
+    GzipResponseOutputStream(AbstractResponse response, OutputStream target, int minimumSize, int flushThreshold) {
+        response_ = response;
+        target_ = target;
+        flushThreshold_ = Math.max(flushThreshold, 0);
+        pending_ = new byte[Math.max(minimumSize, 0)];
+    }
+
+    private static Deflater obtainDeflater() {
+        var deflater = DEFLATERS.poll();
+        if (deflater != null) {
+            return deflater;
+        }
+        return new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    }
+
+    private static void releaseDeflater(Deflater deflater) {
+        deflater.reset();
+        if (!DEFLATERS.offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    static int getPooledDeflaterCount() {
+        return DEFLATERS.size();
+    }
+
+    public void write(int b)
+    throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    public void write(byte[] bytes, int offset, int length)
+    throws IOException {
+        if (closed_) {
+            throw new IOException("Stream closed");
+        }
+        if (0 == length) {
+            return;
+        }
+
+        if (pending_ != null) {
+            if (pendingCount_ + length <= pending_.length) {
+                System.arraycopy(bytes, offset, pending_, pendingCount_, length);
+                pendingCount_ += length;
+                return;
+            }
+
+            // the minimum size has been exceeded, start compressing
+            try {
+                startCompression();
+            } catch (IOException e) {
+                abort();
+                throw e;
+            }
+        }
+
+        try {
+            deflate(bytes, offset, length);
+        } catch (IOException e) {
+            abort();
+            throw e;
+        }
+    }
+
+    private void startCompression()
+    throws IOException {
+        var pending = pending_;
+        var pending_count = pendingCount_;
+        pending_ = null;
+        pendingCount_ = 0;
+
+        response_.addHeader("Content-Encoding", "gzip");
+        deflater_ = obtainDeflater();
+        crc_.reset();
+        compressed_ = new byte[Math.min(flushThreshold_, 1024)];
+        output(GZIP_HEADER, 0, GZIP_HEADER.length);
+
+        if (pending_count > 0) {
+            deflate(pending, 0, pending_count);
+        }
+    }
+
+    private void deflate(byte[] bytes, int offset, int length)
+    throws IOException {
+        crc_.update(bytes, offset, length);
+        deflater_.setInput(bytes, offset, length);
+        while (!deflater_.needsInput()) {
+            var count = deflater_.deflate(deflateBuffer_, 0, deflateBuffer_.length, Deflater.NO_FLUSH);
+            if (count > 0) {
+                output(deflateBuffer_, 0, count);
+            }
+        }
+    }
+
+    private void output(byte[] bytes, int offset, int length)
+    throws IOException {
+        if (!streaming_) {
+            var required = compressedCount_ + length;
+            if (required <= flushThreshold_) {
+                if (required > compressed_.length) {
+                    compressed_ = Arrays.copyOf(compressed_, Math.min(Math.max(required, compressed_.length * 2), flushThreshold_));
+                }
+                System.arraycopy(bytes, offset, compressed_, compressedCount_, length);
+                compressedCount_ += length;
+                return;
+            }
+
+            // the flush threshold has been exceeded, switch to streaming
+            // without content length
+            streaming_ = true;
+            if (compressedCount_ > 0) {
+                target_.write(compressed_, 0, compressedCount_);
+            }
+            compressed_ = null;
+            compressedCount_ = 0;
+        }
+
+        target_.write(bytes, offset, length);
+    }
+
+    public void flush()
+    throws IOException {
+        // only flush what has been committed to the response already,
+        // flushing the deflater would degrade the compression ratio
+        if (streaming_) {
+            target_.flush();
+        }
+    }
+
+    /**
+     * Finishes the response body, without closing the target stream.
+     *
+     * @throws IOException when an error occurred while writing the data
+     * @since 1.9.0
+     */
+    void finish()
+    throws IOException {
+        if (closed_) {
+            return;
+        }
+        closed_ = true;
+
+        if (pending_ != null) {
+            response_.setContentLength(pendingCount_);
+            if (pendingCount_ > 0) {
+                target_.write(pending_, 0, pendingCount_);
+            }
+            pending_ = null;
+            return;
+        }
+
+        try {
+            deflater_.finish();
+            while (!deflater_.finished()) {
+                var count = deflater_.deflate(deflateBuffer_, 0, deflateBuffer_.length, Deflater.NO_FLUSH);
+                if (count > 0) {
+                    output(deflateBuffer_, 0, count);
+                }
+            }
+
+            var trailer = new byte[8];
+            writeInt((int) crc_.getValue(), trailer, 0);
+            writeInt((int) deflater_.getBytesRead(), trailer, 4);
+            output(trailer, 0, trailer.length);
+        } finally {
+            releaseDeflater(deflater_);
+            deflater_ = null;
+        }
+
+        if (!streaming_) {
+            response_.setContentLength(compressedCount_);
+            target_.write(compressed_, 0, compressedCount_);
+            compressed_ = null;
+        }
+    }
+
+    /**
+     * Abandons the response body and releases the {@code Deflater}, this
+     * is used when the response is aborted before it was finished.
+     *
+     * @since 1.9.0
+     */
+    void abort() {
+        closed_ = true;
+        pending_ = null;
+        compressed_ = null;
+        if (deflater_ != null) {
+            releaseDeflater(deflater_);
+            deflater_ = null;
+        }
+    }
+
+    private static void writeInt(int value, byte[] bytes, int offset) {
+        bytes[offset] = (byte) (value & 0xff);
+        bytes[offset + 1] = (byte) ((value >> 8) & 0xff);
+        bytes[offset + 2] = (byte) ((value >> 16) & 0xff);
+        bytes[offset + 3] = (byte) ((value >> 24) & 0xff);
+    }
+
+    public void close()
+    throws IOException {
+        try {
+            finish();
+        } finally {
+            abort();
+        }
+        target_.close();
+    }
+}
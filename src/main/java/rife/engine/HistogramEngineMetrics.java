@@ -0,0 +1,250 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.engine;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Engine metrics that keep a {@link LatencyHistogram} for every phase of
+ * every route, together with counters of the request outcomes.
+ * <p>The collected metrics can be exported in the Prometheus text format
+ * with {@link #writePrometheus(StringBuilder)}, for instance through the
+ * {@link rife.engine.elements.PrometheusMetrics} element:
+ * <pre>public class MySite extends Site {
+ *     public void setup() {
+ *         var metrics = new HistogramEngineMetrics();
+ *         metrics(metrics);
+ *         get("/metrics", new PrometheusMetrics(metrics));
+ *     }
+ * }</pre>
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @since 1.9.0
+ */
+public class HistogramEngineMetrics implements EngineMetrics {
+    private static final EnginePhase[] PHASES = EnginePhase.values();
+
+    private final Map<Route, RouteMetrics> routes_ = new ConcurrentHashMap<>();
+    private final LongAdder notFound_ = new LongAdder();
+    private final LongAdder unroutedExceptions_ = new LongAdder();
+
+    /**
+     * The metrics of a single route.
+     *
+     * @since 1.9.0
+     */
+    public static class RouteMetrics {
+        private final LatencyHistogram[] phases_ = new LatencyHistogram[PHASES.length];
+        private final LongAdder deferred_ = new LongAdder();
+        private final LongAdder exceptions_ = new LongAdder();
+
+        RouteMetrics() {
+            for (var i = 0; i < phases_.length; ++i) {
+                phases_[i] = new LatencyHistogram();
+            }
+        }
+
+        /**
+         * Retrieves the histogram of a phase.
+         *
+         * @param phase the phase to retrieve the histogram for
+         * @return the histogram of the phase
+         * @since 1.9.0
+         */
+        public LatencyHistogram getPhase(EnginePhase phase) {
+            return phases_[phase.ordinal()];
+        }
+
+        /**
+         * Retrieves the number of deferred requests.
+         *
+         * @return the count of deferred requests
+         * @since 1.9.0
+         */
+        public long getDeferredCount() {
+            return deferred_.sum();
+        }
+
+        /**
+         * Retrieves the number of requests that caused an exception.
+         *
+         * @return the count of exceptions
+         * @since 1.9.0
+         */
+        public long getExceptionCount() {
+            return exceptions_.sum();
+        }
+    }
+
+    public boolean isEnabled() {
+        return true;
+    }
+
+    public void recordPhase(Route route, EnginePhase phase, long nanos) {
+        if (route != null) {
+            routeMetrics(route).phases_[phase.ordinal()].record(nanos);
+        }
+    }
+
+    public void requestDeferred(Route route) {
+        if (route != null) {
+            routeMetrics(route).deferred_.increment();
+        }
+    }
+
+    public void requestNotFound() {
+        notFound_.increment();
+    }
+
+    public void requestException(Route route, Throwable exception) {
+        if (route != null) {
+            routeMetrics(route).exceptions_.increment();
+        } else {
+            unroutedExceptions_.increment();
+        }
+    }
+
+    private RouteMetrics routeMetrics(Route route) {
+        var metrics = routes_.get(route);
+        if (null == metrics) {
+            metrics = routes_.computeIfAbsent(route, r -> new RouteMetrics());
+        }
+        return metrics;
+    }
+
+    /**
+     * Retrieves the metrics of all the routes that handled requests.
+     *
+     * @return an unmodifiable map of the metrics by route
+     * @since 1.9.0
+     */
+    public Map<Route, RouteMetrics> getRoutes() {
+        return Collections.unmodifiableMap(routes_);
+    }
+
+    /**
+     * Retrieves the number of requests that didn't match any route.
+     *
+     * @return the count of not found requests
+     * @since 1.9.0
+     */
+    public long getNotFoundCount() {
+        return notFound_.sum();
+    }
+
+    /**
+     * Retrieves the total number of requests that caused an exception,
+     * including the requests that failed before a route was resolved.
+     *
+     * @return the count of exceptions
+     * @since 1.9.0
+     */
+    public long getExceptionCount() {
+        var total = unroutedExceptions_.sum();
+        for (var metrics : routes_.values()) {
+            total += metrics.getExceptionCount();
+        }
+        return total;
+    }
+
+    /**
+     * Writes all the metrics in the Prometheus text exposition format.
+     *
+     * @param out the builder to write the metrics to
+     * @since 1.9.0
+     */
+    public void writePrometheus(StringBuilder out) {
+        var bounds = LatencyHistogram.getBucketBounds();
+
+        out.append("# HELP rife_engine_phase_seconds Duration of the request pipeline phases.\n");
+        out.append("# TYPE rife_engine_phase_seconds histogram\n");
+        for (var entry : routes_.entrySet()) {
+            var route_labels = routeLabels(entry.getKey());
+            for (var phase : PHASES) {
+                var histogram = entry.getValue().getPhase(phase);
+                var count = histogram.getCount();
+                if (0 == count) {
+                    continue;
+                }
+
+                var labels = route_labels + ",phase=\"" + phase.name().toLowerCase(Locale.ROOT) + "\"";
+                var counts = histogram.getBucketCounts();
+                var cumulative = 0L;
+                for (var i = 0; i < bounds.length; ++i) {
+                    cumulative += counts[i];
+                    // only export the bounds of the powers of two, this keeps
+                    // the number of series reasonable
+                    if ((i + 1) % LatencyHistogram.SUB_BUCKET_COUNT != 0) {
+                        continue;
+                    }
+                    out.append("rife_engine_phase_seconds_bucket{").append(labels)
+                        .append(",le=\"").append(seconds(bounds[i])).append("\"} ").append(cumulative).append('\n');
+                }
+                cumulative += counts[bounds.length];
+                out.append("rife_engine_phase_seconds_bucket{").append(labels)
+                    .append(",le=\"+Inf\"} ").append(cumulative).append('\n');
+                out.append("rife_engine_phase_seconds_sum{").append(labels).append("} ")
+                    .append(seconds(histogram.getSumNanos())).append('\n');
+                out.append("rife_engine_phase_seconds_count{").append(labels).append("} ")
+                    .append(cumulative).append('\n');
+            }
+        }
+
+        out.append("# HELP rife_engine_deferred_total Requests that were deferred.\n");
+        out.append("# TYPE rife_engine_deferred_total counter\n");
+        for (var entry : routes_.entrySet()) {
+            out.append("rife_engine_deferred_total{").append(routeLabels(entry.getKey())).append("} ")
+                .append(entry.getValue().getDeferredCount()).append('\n');
+        }
+
+        out.append("# HELP rife_engine_exceptions_total Requests that caused an exception.\n");
+        out.append("# TYPE rife_engine_exceptions_total counter\n");
+        for (var entry : routes_.entrySet()) {
+            out.append("rife_engine_exceptions_total{").append(routeLabels(entry.getKey())).append("} ")
+                .append(entry.getValue().getExceptionCount()).append('\n');
+        }
+        out.append("rife_engine_exceptions_total{route=\"\",method=\"\"} ").append(unroutedExceptions_.sum()).append('\n');
+
+        out.append("# HELP rife_engine_not_found_total Requests that didn't match any route.\n");
+        out.append("# TYPE rife_engine_not_found_total counter\n");
+        out.append("rife_engine_not_found_total ").append(getNotFoundCount()).append('\n');
+    }
+
+    private static String seconds(long nanos) {
+        return Double.toString(nanos / 1_000_000_000.0);
+    }
+
+    private static String routeLabels(Route route) {
+        var path = route.path();
+        if (null == path || path.isEmpty()) {
+            path = "/";
+        }
+
+        // routes with the same path but different methods are separate
+        // series, routes that handle all the methods are labeled as such
+        var method = "ANY";
+        var methods = route.methods();
+        if (methods != null && methods.length > 0) {
+            var builder = new StringBuilder();
+            for (var m : methods) {
+                if (!builder.isEmpty()) {
+                    builder.append(',');
+                }
+                builder.append(m.name());
+            }
+            method = builder.toString();
+        }
+
+        return "route=\"" + escapeLabel(path) + "\",method=\"" + method + "\"";
+    }
+
+    private static String escapeLabel(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
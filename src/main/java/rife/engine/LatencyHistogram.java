@@ -0,0 +1,148 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.engine;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations with log-linear buckets, in the style of
+ * HdrHistogram.
+ * <p>Every power of two is split in {@value #SUB_BUCKET_COUNT} linear
+ * sub-buckets, the durations are thus recorded with a relative precision
+ * of 12.5% from single nanoseconds up to about 18 minutes. Longer
+ * durations are counted in a final overflow bucket.
+ * <p>Recording a duration only increments atomic counters, the histogram
+ * can thus be updated from any number of threads without contention.
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @since 1.9.0
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    /**
+     * The number of linear sub-buckets in every power of two.
+     *
+     * @since 1.9.0
+     */
+    public static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int MAXIMUM_BITS = 40;
+    private static final long[] BOUNDS = createBounds();
+
+    private static long[] createBounds() {
+        var bounds = new long[(MAXIMUM_BITS - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT];
+        for (var i = 0; i < bounds.length; ++i) {
+            var shift = Math.max(0, i / SUB_BUCKET_COUNT - 1);
+            var sub_bucket = i < SUB_BUCKET_COUNT ? i : SUB_BUCKET_COUNT + i % SUB_BUCKET_COUNT;
+            bounds[i] = ((long) (sub_bucket + 1) << shift) - 1;
+        }
+        return bounds;
+    }
+
+    private static int bucketIndex(long nanos) {
+        if (nanos < SUB_BUCKET_COUNT) {
+            return (int) Math.max(0, nanos);
+        }
+
+        // the highest bit selects the power of two, the bits below it
+        // select the linear sub-bucket
+        var shift = 63 - Long.numberOfLeadingZeros(nanos) - SUB_BUCKET_BITS;
+        var index = (shift + 1) * SUB_BUCKET_COUNT + (int) ((nanos >>> shift) & (SUB_BUCKET_COUNT - 1));
+        return Math.min(index, BOUNDS.length);
+    }
+
+    private final AtomicLongArray buckets_ = new AtomicLongArray(BOUNDS.length + 1);
+    private final LongAdder count_ = new LongAdder();
+    private final LongAdder sum_ = new LongAdder();
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos the duration in nanoseconds
+     * @since 1.9.0
+     */
+    public void record(long nanos) {
+        buckets_.incrementAndGet(bucketIndex(nanos));
+        count_.increment();
+        sum_.add(nanos);
+    }
+
+    /**
+     * Retrieves the number of recorded durations.
+     *
+     * @return the count of durations
+     * @since 1.9.0
+     */
+    public long getCount() {
+        return count_.sum();
+    }
+
+    /**
+     * Retrieves the sum of all the recorded durations.
+     *
+     * @return the total duration in nanoseconds
+     * @since 1.9.0
+     */
+    public long getSumNanos() {
+        return sum_.sum();
+    }
+
+    /**
+     * Retrieves the inclusive upper bounds of the buckets, the last bucket
+     * has no upper bound and isn't included.
+     *
+     * @return the upper bounds in nanoseconds
+     * @since 1.9.0
+     */
+    public static long[] getBucketBounds() {
+        return BOUNDS.clone();
+    }
+
+    /**
+     * Retrieves the number of durations in each bucket, the last entry
+     * counts the durations that exceed all the bucket bounds.
+     *
+     * @return the counts of the buckets, these are not cumulative
+     * @since 1.9.0
+     */
+    public long[] getBucketCounts() {
+        var counts = new long[buckets_.length()];
+        for (var i = 0; i < counts.length; ++i) {
+            counts[i] = buckets_.get(i);
+        }
+        return counts;
+    }
+
+    /**
+     * Estimates a percentile of the recorded durations, this is the upper
+     * bound of the bucket that contains the percentile.
+     *
+     * @param percentile the percentile, between {@code 0} and {@code 100}
+     * @return the estimated duration in nanoseconds; or
+     * <p>{@code 0} if nothing was recorded; or
+     * <p>{@code Long.MAX_VALUE} if the percentile exceeds the last bucket bound
+     * @since 1.9.0
+     */
+    public long getPercentileNanos(double percentile) {
+        var counts = getBucketCounts();
+        var total = 0L;
+        for (var count : counts) {
+            total += count;
+        }
+        if (0 == total) {
+            return 0L;
+        }
+
+        var threshold = (long) Math.ceil(total * Math.min(100.0, Math.max(0.0, percentile)) / 100.0);
+        var cumulative = 0L;
+        for (var i = 0; i < BOUNDS.length; ++i) {
+            cumulative += counts[i];
+            if (cumulative >= threshold) {
+                return BOUNDS[i];
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+}
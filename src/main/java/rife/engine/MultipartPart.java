@@ -0,0 +1,73 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.engine;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A single part of a multipart request that is being streamed.
+ * <p>The content of a part can only be read while it's the current part,
+ * moving to the next part skips whatever content wasn't read yet.
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @see Request#getMultipartParts()
+ * @since 1.9.0
+ */
+public interface MultipartPart {
+    /**
+     * Retrieves the name of the form field of this part.
+     *
+     * @return the name of the form field
+     * @since 1.9.0
+     */
+    String getName();
+
+    /**
+     * Retrieves the name of the uploaded file, without any path.
+     *
+     * @return the name of the uploaded file; or
+     * <p>{@code null} if this part is not a file or no file was selected
+     * @since 1.9.0
+     */
+    String getFileName();
+
+    /**
+     * Indicates whether this part is a file upload.
+     *
+     * @return {@code true} if this part is a file upload; or
+     * <p>{@code false} if it's a regular parameter
+     * @since 1.9.0
+     */
+    boolean isFile();
+
+    /**
+     * Retrieves the content type of this part.
+     *
+     * @return the content type of this part
+     * @since 1.9.0
+     */
+    String getContentType();
+
+    /**
+     * Retrieves a stream that reads the content of this part straight from
+     * the request.
+     *
+     * @return the content stream of this part
+     * @since 1.9.0
+     */
+    InputStream getInputStream();
+
+    /**
+     * Reads the complete content of this part as a string in the request
+     * encoding.
+     *
+     * @return the content of this part
+     * @throws IOException when an error occurred while reading the content
+     * @since 1.9.0
+     */
+    String getString()
+    throws IOException;
+}
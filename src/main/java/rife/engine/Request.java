@@ -9,6 +9,7 @@ import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpSession;
 
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.Locale;
 import java.util.Map;
@@ -36,6 +37,32 @@ public interface Request {
      */
     Map<String, String[]> getParameters();
 
+    /**
+     * Retrieves the first value of a parameter without processing the body
+     * of a multipart request.
+     * <p>Multipart request bodies are only parsed when the element asks
+     * for its parameters or files, or streams the parts. This method only
+     * looks at the parameters that were sent in the URL of such requests,
+     * for all other requests it's the same as looking up the parameter in
+     * {@link #getParameters()}.
+     *
+     * @param name the name of the parameter
+     * @return the first value of the parameter; or
+     * <p>{@code null} if the parameter wasn't sent
+     * @since 1.9.0
+     */
+    default String peekParameter(String name) {
+        var parameters = getParameters();
+        if (null == parameters) {
+            return null;
+        }
+        var values = parameters.get(name);
+        if (null == values || 0 == values.length) {
+            return null;
+        }
+        return values[0];
+    }
+
     /**
      * Retrieves the body of this request as a string.
      *
@@ -65,6 +92,24 @@ public interface Request {
      */
     Map<String, UploadedFile[]> getFiles();
 
+    /**
+     * Streams the parts of a multipart request without storing the
+     * uploaded files.
+     * <p>This can only be used as long as the parameters and files of this
+     * request haven't been retrieved. Once the parts are streamed, only the
+     * parameters that were sent in the URL remain available and the files
+     * will be empty.
+     *
+     * @return the parts of this request, in the order they were sent; or
+     * <p>no parts if this is not a multipart request
+     * @throws IllegalStateException when the request body has already been
+     *                               processed
+     * @since 1.9.0
+     */
+    default Iterable<MultipartPart> getMultipartParts() {
+        return Collections.emptyList();
+    }
+
     /**
      * Checks if a particular file has been uploaded in this request.
      *
@@ -4,6 +4,7 @@
  */
 package rife.engine;
 
+import rife.continuations.ContinuationContext;
 import rife.engine.annotations.*;
 import rife.engine.exceptions.EngineException;
 import rife.tools.*;
@@ -13,6 +14,8 @@ import java.io.File;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.*;
 
 abstract class RouteAnnotated implements Route {
@@ -21,7 +24,48 @@ abstract class RouteAnnotated implements Route {
     protected String path_;
     protected final PathInfoHandling pathInfoHandling_;
     protected final Class<? extends Element> elementClass_;
-    protected List<Field> fields_ = null;
+    protected final List<Field> fields_;
+
+    // all the annotation processing is resolved once into these
+    // flat arrays, so that requests don't have to reflect anymore
+    private final FieldInjector[] injectors_;
+    private final Outjection[] outjections_;
+    private final OutParameter[] outParameters_;
+
+    // reusable elements are pooled and their annotated fields are reset
+    // to the values of a new instance before returning them to the pool,
+    // these values are shared by all the pooled instances and pooling is
+    // thus only done when they are all immutable
+    private final ElementPool pool_;
+    private final FieldAccessor[] accessors_;
+    private volatile Object[] initialValues_ = null;
+    private volatile boolean pooling_ = true;
+    private Set<String> inParameters_ = null;
+    private UrlTemplate urlTemplate_ = null;
+
+    @FunctionalInterface
+    private interface FieldInjector {
+        void inject(Element element, Context context)
+        throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface FieldOutjector {
+        void outject(Context context, Object value)
+        throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface ParameterCollector {
+        void collect(Map<String, String[]> parameters, Object value)
+        throws Exception;
+    }
+
+    private record Outjection(FieldAccessor accessor, FieldOutjector outjector) {
+    }
+
+    private record OutParameter(FieldAccessor accessor, ParameterCollector collector) {
+    }
 
     RouteAnnotated(Router router, RequestMethod[] methods, String path, PathInfoHandling pathInfoHandling, Class<? extends Element> elementClass) {
         router_ = router;
@@ -35,6 +79,121 @@ abstract class RouteAnnotated implements Route {
             pathInfoHandling = PathInfoHandling.NONE;
         }
         pathInfoHandling_ = pathInfoHandling;
+
+        fields_ = Collections.unmodifiableList(findAnnotatedFields());
+
+        var injectors = new ArrayList<FieldInjector>();
+        var outjections = new ArrayList<Outjection>();
+        var out_parameters = new ArrayList<OutParameter>();
+        var accessors = new ArrayList<FieldAccessor>();
+        try {
+            for (var field : fields_) {
+                var accessor = new FieldAccessor(field);
+                accessors.add(accessor);
+
+                var injector = createInjector(accessor);
+                if (injector != null) {
+                    injectors.add(injector);
+                }
+
+                var outjector = createOutjector(field);
+                if (outjector != null) {
+                    outjections.add(new Outjection(accessor, outjector));
+                }
+
+                var collector = createParameterCollector(field);
+                if (collector != null) {
+                    out_parameters.add(new OutParameter(accessor, collector));
+                }
+            }
+        } catch (IllegalAccessException e) {
+            throw new EngineException(e);
+        }
+        injectors_ = injectors.toArray(new FieldInjector[0]);
+        outjections_ = outjections.toArray(new Outjection[0]);
+        outParameters_ = out_parameters.toArray(new OutParameter[0]);
+        accessors_ = accessors.toArray(new FieldAccessor[0]);
+
+        if (elementClass_.isAnnotationPresent(Reusable.class)) {
+            pool_ = new ElementPool();
+        } else {
+            pool_ = null;
+        }
+    }
+
+    /**
+     * Creates a new instance of the element of this route.
+     *
+     * @return the new element instance
+     * @since 1.9.0
+     */
+    abstract Element createElementInstance();
+
+    @Override
+    public Element obtainElementInstance(Context context) {
+        if (null == pool_ || !pooling_) {
+            return createElementInstance();
+        }
+
+        var element = pool_.poll();
+        if (element != null) {
+            return element;
+        }
+
+        element = createElementInstance();
+        if (null == initialValues_) {
+            // a new instance holds the values that the fields are reset to
+            try {
+                var initial_values = new Object[accessors_.length];
+                for (var i = 0; i < accessors_.length; i++) {
+                    initial_values[i] = accessors_[i].get(element);
+                    if (!isImmutable(initial_values[i])) {
+                        // resetting the fields of other instances to this
+                        // value would share its state across requests
+                        pooling_ = false;
+                        return element;
+                    }
+                }
+                initialValues_ = initial_values;
+            } catch (Exception e) {
+                throw new EngineException(e);
+            }
+        }
+        return element;
+    }
+
+    private void releaseElementInstance(Element element)
+    throws Exception {
+        // elements that take part in continuations are still referenced
+        // by their continuation context
+        var initial_values = initialValues_;
+        if (null == initial_values ||
+            !pooling_ ||
+            ContinuationContext.getActiveContext() != null) {
+            return;
+        }
+
+        for (var i = 0; i < accessors_.length; i++) {
+            accessors_[i].set(element, initial_values[i]);
+        }
+        pool_.offer(element);
+    }
+
+    private static boolean isImmutable(Object value) {
+        return null == value ||
+               value instanceof String ||
+               value instanceof Boolean ||
+               value instanceof Character ||
+               value instanceof Byte ||
+               value instanceof Short ||
+               value instanceof Integer ||
+               value instanceof Long ||
+               value instanceof Float ||
+               value instanceof Double ||
+               value instanceof BigInteger ||
+               value instanceof BigDecimal ||
+               value instanceof Enum ||
+               value instanceof Class;
     }
 
     @Override
@@ -65,18 +224,27 @@ abstract class RouteAnnotated implements Route {
         return flow == FlowDirection.OUT || flow == FlowDirection.IN_OUT;
     }
 
-    private List<Field> getAnnotatedFields() {
-        if (fields_ != null) {
-            return fields_;
+    private static String annotatedName(Field field, String annotationName) {
+        if (annotationName != null && !annotationName.isEmpty()) {
+            return annotationName;
         }
+        return field.getName();
+    }
 
+    private static Object convert(Object value, Class<?> type, Object defaultValue) {
+        try {
+            return Convert.toType(value, type);
+        } catch (ConversionException e) {
+            return defaultValue;
+        }
+    }
+
+    private List<Field> findAnnotatedFields() {
         List<Field> fields = new ArrayList<>();
         try {
             Class klass = elementClass_;
             while (klass != null && klass != Element.class) {
                 for (var field : klass.getDeclaredFields()) {
-                    field.setAccessible(true);
-
                     if (Modifier.isStatic(field.getModifiers()) ||
                         Modifier.isFinal(field.getModifiers()) ||
                         Modifier.isTransient(field.getModifiers())) {
@@ -95,6 +263,7 @@ abstract class RouteAnnotated implements Route {
                         field.isAnnotationPresent(Property.class) ||
                         field.isAnnotationPresent(RequestAttribute.class) ||
                         field.isAnnotationPresent(SessionAttribute.class)) {
+                        field.setAccessible(true);
                         fields.add(field);
                     }
                 }
@@ -105,46 +274,236 @@ abstract class RouteAnnotated implements Route {
             throw new EngineException(e);
         }
 
-        fields_ = fields;
         return fields;
     }
 
-    static Map<String, String[]> getAnnotatedOutParameters(Context context) {
-        try {
-            var parameters = new LinkedHashMap<String, String[]>();
+    private FieldInjector createInjector(FieldAccessor accessor) {
+        var field = accessor.field();
+        var type = field.getType();
+        var default_value = Convert.getDefaultValue(type);
 
-            if (context.processedRoute() instanceof RouteAnnotated route) {
-                for (var field : route.getAnnotatedFields()) {
-                    field.setAccessible(true);
+        if (field.isAnnotationPresent(ActiveSite.class)) {
+            return (element, context) -> {
+                if (type.isAssignableFrom(context.site().getClass())) {
+                    accessor.set(element, context.site());
+                }
+            };
+        }
 
-                    if (Modifier.isStatic(field.getModifiers()) ||
-                        Modifier.isFinal(field.getModifiers()) ||
-                        Modifier.isTransient(field.getModifiers())) {
-                        continue;
+        var parameter = field.getAnnotation(Parameter.class);
+        if (parameter != null && shouldProcessInFlow(parameter.flow())) {
+            var name = annotatedName(field, parameter.value());
+            return (element, context) -> {
+                var values = context.parameters().get(name);
+                if (values != null && values.length > 0) {
+                    accessor.set(element, convert(values[0], type, default_value));
+                }
+            };
+        }
+
+        var parameters_bean = field.getAnnotation(ParametersBean.class);
+        if (parameters_bean != null && shouldProcessInFlow(parameters_bean.flow())) {
+            var prefix = parameters_bean.prefix();
+            return (element, context) -> {
+                var bean = accessor.get(element);
+                if (bean == null) {
+                    accessor.set(element, context.parametersBean(type, prefix));
+                } else {
+                    context.parametersBean(bean, prefix);
+                }
+            };
+        }
+
+        var property = field.getAnnotation(Property.class);
+        if (property != null) {
+            var name = annotatedName(field, property.value());
+            return (element, context) -> {
+                var prop_value = context.properties().getValue(name);
+                if (prop_value != null) {
+                    accessor.set(element, convert(prop_value, type, default_value));
+                }
+            };
+        }
+
+        var config = field.getAnnotation(Config.class);
+        if (config != null) {
+            var name = annotatedName(field, config.value());
+            if (List.class.isAssignableFrom(type)) {
+                Class<?> item_class = null;
+                if (field.getGenericType() instanceof ParameterizedType param_type &&
+                    param_type.getActualTypeArguments().length == 1 &&
+                    param_type.getActualTypeArguments()[0] instanceof Class<?> param_class) {
+                    item_class = param_class;
+                }
+                var list_item_class = item_class;
+                return (element, context) -> {
+                    var list_items = context.site().config().getStringItems(name);
+                    if (list_items != null) {
+                        if (list_item_class != null) {
+                            var converted_list = new ArrayList<>();
+                            for (var item : list_items) {
+                                converted_list.add(Convert.fromString(item, list_item_class));
+                            }
+                            accessor.set(element, converted_list);
+                        } else {
+                            accessor.set(element, list_items);
+                        }
                     }
+                };
+            }
+            return (element, context) -> {
+                var param_value = context.site().config().getString(name);
+                if (param_value != null) {
+                    accessor.set(element, convert(param_value, type, default_value));
+                }
+            };
+        }
+
+        var header = field.getAnnotation(Header.class);
+        if (header != null && shouldProcessInFlow(header.flow())) {
+            var name = annotatedName(field, header.value());
+            return (element, context) -> {
+                var header_value = context.header(name);
+                if (header_value != null) {
+                    accessor.set(element, convert(header_value, type, default_value));
+                }
+            };
+        }
+
+        var body = field.getAnnotation(Body.class);
+        if (body != null && shouldProcessInFlow(body.flow())) {
+            return (element, context) -> accessor.set(element, convert(context.body(), type, default_value));
+        }
 
-                    var name = field.getName();
-                    var value = field.get(context.processedElement());
+        if (field.isAnnotationPresent(PathInfo.class) &&
+            pathInfoHandling_.type() != PathInfoType.NONE) {
+            return (element, context) -> accessor.set(element, convert(context.pathInfo(), type, default_value));
+        }
 
+        var file_upload = field.getAnnotation(FileUpload.class);
+        if (file_upload != null) {
+            var name = annotatedName(field, file_upload.value());
+            return (element, context) -> {
+                var uploaded_file = context.file(name);
+                if (uploaded_file != null) {
+                    Object value;
+                    if (UploadedFile.class.isAssignableFrom(type)) {
+                        value = uploaded_file;
+                    } else if (File.class.isAssignableFrom(type)) {
+                        value = uploaded_file.getFile();
+                    } else {
+                        value = convert(uploaded_file.getFile().getAbsolutePath(), type, default_value);
+                    }
+                    accessor.set(element, value);
+                }
+            };
+        }
+
+        var cookie = field.getAnnotation(Cookie.class);
+        if (cookie != null && shouldProcessInFlow(cookie.flow())) {
+            var name = annotatedName(field, cookie.value());
+            return (element, context) -> {
+                if (context.hasCookie(name)) {
+                    String cookie_value = context.cookieValue(name);
+                    if (cookie_value != null) {
+                        accessor.set(element, convert(cookie_value, type, default_value));
+                    }
+                }
+            };
+        }
+
+        var request_attribute = field.getAnnotation(RequestAttribute.class);
+        if (request_attribute != null && shouldProcessInFlow(request_attribute.flow())) {
+            var name = annotatedName(field, request_attribute.value());
+            return (element, context) -> {
+                var value = context.attribute(name);
+                if (value != null) {
+                    accessor.set(element, convert(value, type, default_value));
+                }
+            };
+        }
+
+        var session_attribute = field.getAnnotation(SessionAttribute.class);
+        if (session_attribute != null && shouldProcessInFlow(session_attribute.flow())) {
+            var name = annotatedName(field, session_attribute.value());
+            return (element, context) -> {
+                var session = context.session(false);
+                if (session != null) {
+                    var value = session.attribute(name);
                     if (value != null) {
-                        if (field.isAnnotationPresent(Parameter.class) &&
-                            shouldProcessOutFlow(field.getAnnotation(Parameter.class).flow())) {
-                            var annotation_name = field.getAnnotation(Parameter.class).value();
-                            if (annotation_name != null && !annotation_name.isEmpty()) {
-                                name = annotation_name;
-                            }
+                        accessor.set(element, convert(value, type, default_value));
+                    }
+                }
+            };
+        }
+
+        return null;
+    }
 
-                            parameters.put(name, ArrayUtils.createStringArray(value, null));
-                        } else if (field.isAnnotationPresent(ParametersBean.class) &&
-                                   shouldProcessOutFlow(field.getAnnotation(ParametersBean.class).flow())) {
-                            var annotation_prefix = field.getAnnotation(ParametersBean.class).prefix();
+    private static FieldOutjector createOutjector(Field field) {
+        var header = field.getAnnotation(Header.class);
+        if (header != null && shouldProcessOutFlow(header.flow())) {
+            var name = annotatedName(field, header.value());
+            return (context, value) -> context.addHeader(name, Convert.toString(value));
+        }
 
-                            BeanUtils.processPropertyValues(value, null, null, annotation_prefix, (propertyName, descriptor, propertyValue, constrainedProperty) -> {
-                                if (propertyValue != null) {
-                                    parameters.put(propertyName, ArrayUtils.createStringArray(propertyValue, constrainedProperty));
-                                }
-                            });
-                        }
+        var body = field.getAnnotation(Body.class);
+        if (body != null && shouldProcessOutFlow(body.flow())) {
+            return (context, value) -> context.print(value);
+        }
+
+        var cookie = field.getAnnotation(Cookie.class);
+        if (cookie != null && shouldProcessOutFlow(cookie.flow())) {
+            var name = annotatedName(field, cookie.value());
+            return (context, value) -> context.addCookie(new CookieBuilder(name, Convert.toString(value)));
+        }
+
+        var request_attribute = field.getAnnotation(RequestAttribute.class);
+        if (request_attribute != null && shouldProcessOutFlow(request_attribute.flow())) {
+            var name = annotatedName(field, request_attribute.value());
+            return (context, value) -> context.setAttribute(name, value);
+        }
+
+        var session_attribute = field.getAnnotation(SessionAttribute.class);
+        if (session_attribute != null && shouldProcessOutFlow(session_attribute.flow())) {
+            var name = annotatedName(field, session_attribute.value());
+            return (context, value) -> context.request().getSession().setAttribute(name, value);
+        }
+
+        return null;
+    }
+
+    private static ParameterCollector createParameterCollector(Field field) {
+        var parameter = field.getAnnotation(Parameter.class);
+        if (parameter != null && shouldProcessOutFlow(parameter.flow())) {
+            var name = annotatedName(field, parameter.value());
+            return (parameters, value) -> parameters.put(name, ArrayUtils.createStringArray(value, null));
+        }
+
+        var parameters_bean = field.getAnnotation(ParametersBean.class);
+        if (parameters_bean != null && shouldProcessOutFlow(parameters_bean.flow())) {
+            var prefix = parameters_bean.prefix();
+            return (parameters, value) ->
+                BeanUtils.processPropertyValues(value, null, null, prefix, (propertyName, descriptor, propertyValue, constrainedProperty) -> {
+                    if (propertyValue != null) {
+                        parameters.put(propertyName, ArrayUtils.createStringArray(propertyValue, constrainedProperty));
+                    }
+                });
+        }
+
+        return null;
+    }
+
+    static Map<String, String[]> getAnnotatedOutParameters(Context context) {
+        try {
+            var parameters = new LinkedHashMap<String, String[]>();
+
+            if (context.processedRoute() instanceof RouteAnnotated route) {
+                var element = context.processedElement();
+                for (var out_parameter : route.outParameters_) {
+                    var value = out_parameter.accessor().get(element);
+                    if (value != null) {
+                        out_parameter.collector().collect(parameters, value);
                     }
                 }
             }
@@ -156,240 +515,51 @@ abstract class RouteAnnotated implements Route {
     }
 
     Set<String> getAnnotatedInParameters() {
+        // the parameter names only depend on the element class, compute
+        // them once, racing threads will simply compute the same result
+        var in_parameters = inParameters_;
+        if (in_parameters != null) {
+            return in_parameters;
+        }
+
         try {
             var parameters = new HashSet<String>();
 
-            for (var field : getAnnotatedFields()) {
-                field.setAccessible(true);
-
-                if (Modifier.isStatic(field.getModifiers()) ||
-                    Modifier.isFinal(field.getModifiers()) ||
-                    Modifier.isTransient(field.getModifiers())) {
-                    continue;
-                }
-
-                var name = field.getName();
-
-                if (field.isAnnotationPresent(Parameter.class) &&
-                    shouldProcessInFlow(field.getAnnotation(Parameter.class).flow())) {
-                    var annotation_name = field.getAnnotation(Parameter.class).value();
-                    if (annotation_name != null && !annotation_name.isEmpty()) {
-                        name = annotation_name;
-                    }
-
-                    parameters.add(name);
-                } else if (field.isAnnotationPresent(ParametersBean.class) &&
-                           shouldProcessInFlow(field.getAnnotation(ParametersBean.class).flow())) {
-                    var type = field.getType();
-                    var annotation_prefix = field.getAnnotation(ParametersBean.class).prefix();
-
-                    parameters.addAll(BeanUtils.getPropertyNames(type, null, null, annotation_prefix));
+            for (var field : fields_) {
+                var parameter = field.getAnnotation(Parameter.class);
+                var parameters_bean = field.getAnnotation(ParametersBean.class);
+                if (parameter != null &&
+                    shouldProcessInFlow(parameter.flow())) {
+                    parameters.add(annotatedName(field, parameter.value()));
+                } else if (parameters_bean != null &&
+                           shouldProcessInFlow(parameters_bean.flow())) {
+                    parameters.addAll(BeanUtils.getPropertyNames(field.getType(), null, null, parameters_bean.prefix()));
                 }
             }
 
-            return parameters;
+            in_parameters = Collections.unmodifiableSet(parameters);
+            inParameters_ = in_parameters;
+            return in_parameters;
         } catch (Exception e) {
             throw new EngineException(e);
         }
     }
 
+    UrlTemplate urlTemplate() {
+        // racing threads will simply compile the same template
+        var template = urlTemplate_;
+        if (null == template) {
+            template = new UrlTemplate(this);
+            urlTemplate_ = template;
+        }
+        return template;
+    }
+
     @Override
     public void prepareElementInstance(Element element, Context context) {
         try {
-            for (var field : getAnnotatedFields()) {
-                var name = field.getName();
-                var type = field.getType();
-
-                if (field.isAnnotationPresent(ActiveSite.class)) {
-                    if (type.isAssignableFrom(context.site().getClass())) {
-                        field.set(element, context.site());
-                    }
-                } else if (field.isAnnotationPresent(Parameter.class) &&
-                           shouldProcessInFlow(field.getAnnotation(Parameter.class).flow())) {
-                    var params = context.parameters();
-                    var annotation_name = field.getAnnotation(Parameter.class).value();
-                    if (annotation_name != null && !annotation_name.isEmpty()) {
-                        name = annotation_name;
-                    }
-                    var values = params.get(name);
-                    if (values != null && values.length > 0) {
-                        Object value;
-                        try {
-                            value = Convert.toType(values[0], type);
-                        } catch (ConversionException e) {
-                            value = Convert.getDefaultValue(type);
-                        }
-                        field.set(element, value);
-                    }
-                } else if (field.isAnnotationPresent(ParametersBean.class) &&
-                           shouldProcessInFlow(field.getAnnotation(ParametersBean.class).flow())) {
-                    var annotation_prefix = field.getAnnotation(ParametersBean.class).prefix();
-                    Object bean = field.get(element);
-                    if (bean == null) {
-                        field.set(element, context.parametersBean(type, annotation_prefix));
-                    } else {
-                        context.parametersBean(bean, annotation_prefix);
-                    }
-                } else if (field.isAnnotationPresent(Property.class)) {
-                    var properties = context.properties();
-                    var annotation_name = field.getAnnotation(Property.class).value();
-                    if (annotation_name != null && !annotation_name.isEmpty()) {
-                        name = annotation_name;
-                    }
-                    var prop_value = properties.getValue(name);
-                    if (prop_value != null) {
-                        Object value;
-                        try {
-                            value = Convert.toType(prop_value, type);
-                        } catch (ConversionException e) {
-                            value = Convert.getDefaultValue(type);
-                        }
-                        field.set(element, value);
-                    }
-                } else if (field.isAnnotationPresent(Config.class)) {
-                    var config = context.site().config();
-                    var annotation_name = field.getAnnotation(Config.class).value();
-                    if (annotation_name != null && !annotation_name.isEmpty()) {
-                        name = annotation_name;
-                    }
-                    if (List.class.isAssignableFrom(type)) {
-                        var list_items = config.getStringItems(name);
-                        if (list_items != null) {
-                            var generic_type = field.getGenericType();
-                            if (generic_type instanceof ParameterizedType param_type &&
-                                param_type.getActualTypeArguments().length == 1 &&
-                                param_type.getActualTypeArguments()[0] instanceof Class<?> param_class) {
-                                var converted_list = new ArrayList<>();
-                                for (var item : list_items) {
-                                    converted_list.add(Convert.fromString(item, param_class));
-                                }
-                                field.set(element, converted_list);
-                            } else {
-                                field.set(element, list_items);
-                            }
-                        }
-                    } else {
-                        var param_value = config.getString(name);
-                        if (param_value != null) {
-                            Object value;
-                            try {
-                                value = Convert.toType(param_value, type);
-                            } catch (ConversionException e) {
-                                value = Convert.getDefaultValue(type);
-                            }
-                            field.set(element, value);
-                        }
-                    }
-                } else if (field.isAnnotationPresent(Header.class) &&
-                           shouldProcessInFlow(field.getAnnotation(Header.class).flow())) {
-                    var annotation_name = field.getAnnotation(Header.class).value();
-                    if (annotation_name != null && !annotation_name.isEmpty()) {
-                        name = annotation_name;
-                    }
-                    var header = context.header(name);
-                    if (header != null) {
-                        Object value;
-                        try {
-                            value = Convert.toType(header, type);
-                        } catch (ConversionException e) {
-                            value = Convert.getDefaultValue(type);
-                        }
-                        field.set(element, value);
-                    }
-                } else if (field.isAnnotationPresent(Body.class) &&
-                           shouldProcessInFlow(field.getAnnotation(Body.class).flow())) {
-                    var body = context.body();
-                    Object value;
-                    try {
-                        value = Convert.toType(body, type);
-                    } catch (ConversionException e) {
-                        value = Convert.getDefaultValue(type);
-                    }
-                    field.set(element, value);
-                } else if (field.isAnnotationPresent(PathInfo.class) &&
-                           pathInfoHandling_.type() != PathInfoType.NONE) {
-                    var path_info = context.pathInfo();
-                    Object value;
-                    try {
-                        value = Convert.toType(path_info, type);
-                    } catch (ConversionException e) {
-                        value = Convert.getDefaultValue(type);
-                    }
-                    field.set(element, value);
-                } else if (field.isAnnotationPresent(FileUpload.class)) {
-                    var annotation_name = field.getAnnotation(FileUpload.class).value();
-                    if (annotation_name != null && !annotation_name.isEmpty()) {
-                        name = annotation_name;
-                    }
-
-                    var uploaded_file = context.file(name);
-                    if (uploaded_file != null) {
-                        Object value;
-                        if (UploadedFile.class.isAssignableFrom(type)) {
-                            value = uploaded_file;
-                        } else if (File.class.isAssignableFrom(type)) {
-                            value = uploaded_file.getFile();
-                        } else {
-                            try {
-                                value = Convert.toType(uploaded_file.getFile().getAbsolutePath(), type);
-                            } catch (ConversionException e) {
-                                value = Convert.getDefaultValue(type);
-                            }
-                        }
-                        field.set(element, value);
-                    }
-                } else if (field.isAnnotationPresent(Cookie.class) &&
-                           shouldProcessInFlow(field.getAnnotation(Cookie.class).flow())) {
-                    var annotation_name = field.getAnnotation(Cookie.class).value();
-                    if (annotation_name != null && !annotation_name.isEmpty()) {
-                        name = annotation_name;
-                    }
-                    if (context.hasCookie(name)) {
-                        String cookie_value = context.cookieValue(name);
-                        if (cookie_value != null) {
-                            Object value;
-                            try {
-                                value = Convert.toType(cookie_value, type);
-                            } catch (ConversionException e) {
-                                value = Convert.getDefaultValue(type);
-                            }
-                            field.set(element, value);
-                        }
-                    }
-                } else if (field.isAnnotationPresent(RequestAttribute.class) &&
-                           shouldProcessInFlow(field.getAnnotation(RequestAttribute.class).flow())) {
-                    var annotation_name = field.getAnnotation(RequestAttribute.class).value();
-                    if (annotation_name != null && !annotation_name.isEmpty()) {
-                        name = annotation_name;
-                    }
-                    var value = context.attribute(name);
-                    if (value != null) {
-                        try {
-                            value = Convert.toType(value, type);
-                        } catch (ConversionException e) {
-                            value = Convert.getDefaultValue(type);
-                        }
-                        field.set(element, value);
-                    }
-                } else if (field.isAnnotationPresent(SessionAttribute.class) &&
-                           shouldProcessInFlow(field.getAnnotation(SessionAttribute.class).flow())) {
-                    var annotation_name = field.getAnnotation(SessionAttribute.class).value();
-                    if (annotation_name != null && !annotation_name.isEmpty()) {
-                        name = annotation_name;
-                    }
-                    var session = context.session(false);
-                    if (session != null) {
-                        var value = session.attribute(name);
-                        if (value != null) {
-                            try {
-                                value = Convert.toType(value, type);
-                            } catch (ConversionException e) {
-                                value = Convert.getDefaultValue(type);
-                            }
-                            field.set(element, value);
-                        }
-                    }
-                }
+            for (var injector : injectors_) {
+                injector.inject(element, context);
             }
         } catch (Exception e) {
             throw new EngineException(e);
@@ -399,52 +569,12 @@ abstract class RouteAnnotated implements Route {
     @Override
     public void finalizeElementInstance(Element element, Context context) {
         try {
-            for (var field : getAnnotatedFields()) {
-                field.setAccessible(true);
-
-                if (Modifier.isStatic(field.getModifiers()) ||
-                    Modifier.isFinal(field.getModifiers()) ||
-                    Modifier.isTransient(field.getModifiers())) {
-                    continue;
-                }
-
-                var name = field.getName();
-                var value = field.get(element);
+            for (var outjection : outjections_) {
+                outjection.outjector().outject(context, outjection.accessor().get(element));
+            }
 
-                if (field.isAnnotationPresent(Header.class) &&
-                    shouldProcessOutFlow(field.getAnnotation(Header.class).flow())) {
-                    var annotation_name = field.getAnnotation(Header.class).value();
-                    if (annotation_name != null && !annotation_name.isEmpty()) {
-                        name = annotation_name;
-                    }
-                    context.addHeader(name, Convert.toString(value));
-                } else if (field.isAnnotationPresent(Body.class) &&
-                           shouldProcessOutFlow(field.getAnnotation(Body.class).flow())) {
-                    context.print(value);
-                } else if (field.isAnnotationPresent(Cookie.class) &&
-                           shouldProcessOutFlow(field.getAnnotation(Cookie.class).flow())) {
-                    var annotation_name = field.getAnnotation(Cookie.class).value();
-                    if (annotation_name != null && !annotation_name.isEmpty()) {
-                        name = annotation_name;
-                    }
-                    var builder = new CookieBuilder(name, Convert.toString(value));
-                    context.addCookie(builder);
-                } else if (field.isAnnotationPresent(RequestAttribute.class) &&
-                           shouldProcessOutFlow(field.getAnnotation(RequestAttribute.class).flow())) {
-                    var annotation_name = field.getAnnotation(RequestAttribute.class).value();
-                    if (annotation_name != null && !annotation_name.isEmpty()) {
-                        name = annotation_name;
-                    }
-                    context.setAttribute(name, value);
-                } else if (field.isAnnotationPresent(SessionAttribute.class) &&
-                           shouldProcessOutFlow(field.getAnnotation(SessionAttribute.class).flow())) {
-                    var annotation_name = field.getAnnotation(SessionAttribute.class).value();
-                    if (annotation_name != null && !annotation_name.isEmpty()) {
-                        name = annotation_name;
-                    }
-                    var session = context.request().getSession();
-                    session.setAttribute(name, value);
-                }
+            if (pool_ != null) {
+                releaseElementInstance(element);
             }
         } catch (Exception e) {
             throw new EngineException(e);
@@ -467,5 +597,6 @@ abstract class RouteAnnotated implements Route {
 
     void prefixPathWith(String prefix) {
         path_ = prefix + path_;
+        urlTemplate_ = null;
     }
 }
@@ -6,7 +6,16 @@ package rife.engine;
 
 import rife.engine.exceptions.EngineException;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
 class RouteClass extends RouteAnnotated {
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Element.class);
+
+    // resolved on first use, racing threads will simply resolve the same constructor
+    private MethodHandle constructor_ = null;
+
     RouteClass(Router router, Class<? extends Element> elementClass) {
         this(router, null, null, null, elementClass);
     }
@@ -28,10 +37,20 @@ class RouteClass extends RouteAnnotated {
     }
 
     @Override
-    public Element obtainElementInstance(Context context) {
+    Element createElementInstance() {
         try {
-            return elementClass_.getDeclaredConstructor().newInstance();
-        } catch (Exception e) {
+            var constructor = constructor_;
+            if (null == constructor) {
+                var declared_constructor = elementClass_.getDeclaredConstructor();
+                declared_constructor.setAccessible(true);
+                constructor = MethodHandles.lookup().unreflectConstructor(declared_constructor).asType(CONSTRUCTOR_TYPE);
+                constructor_ = constructor;
+            }
+
+            return (Element) constructor.invokeExact();
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
             throw new EngineException(e);
         }
     }
@@ -17,6 +17,7 @@ class RouteInstance implements Route {
     private String path_;
     private final PathInfoHandling pathInfoHandling_;
     private final Element element_;
+    private UrlTemplate urlTemplate_ = null;
 
     RouteInstance(Router router, Element element) {
         this(router, null, null, element);
@@ -115,7 +116,18 @@ class RouteInstance implements Route {
         // no-op
     }
 
+    UrlTemplate urlTemplate() {
+        // racing threads will simply compile the same template
+        var template = urlTemplate_;
+        if (null == template) {
+            template = new UrlTemplate(this);
+            urlTemplate_ = template;
+        }
+        return template;
+    }
+
     void prefixPathWith(String prefix) {
         path_ = prefix + path_;
+        urlTemplate_ = null;
     }
 }
@@ -33,7 +33,7 @@ class RouteSupplier extends RouteAnnotated {
     }
 
     @Override
-    public Element obtainElementInstance(Context context) {
+    Element createElementInstance() {
         try {
             return elementSupplier_.get();
         } catch (Exception e) {
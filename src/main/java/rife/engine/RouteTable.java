@@ -0,0 +1,275 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.engine;
+
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Immutable lookup table that is compiled from the routes of a
+ * {@link Site} when it's deployed.
+ * <p>
+ * All the method matching is resolved up-front into dispatch arrays
+ * that are indexed by the ordinal of the {@link RequestMethod}, the
+ * path info mappings of each URL are merged into a single regular
+ * expression per method, and the fallback paths are sorted so that
+ * the longest prefix is always found first.
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @since 1.9.0
+ */
+final class RouteTable {
+    private static final RequestMethod[] METHODS = RequestMethod.values();
+    private static final int METHOD_SLOTS = METHODS.length + 1;
+
+    private final Map<String, Route[]> routes_;
+    private final Map<String, PathInfoDispatch[]> pathInfoRoutes_;
+    private final String[] fallbackPaths_;
+    private final Route[] fallbackRoutes_;
+
+    RouteTable(Router router) {
+        routes_ = new HashMap<>();
+        for (var e : router.routes_.entrySet()) {
+            if (e.getValue().isEmpty()) {
+                continue;
+            }
+
+            var dispatch = new Route[METHOD_SLOTS];
+            for (var slot = 0; slot < METHOD_SLOTS; slot++) {
+                var method = slotMethod(slot);
+                for (var route : e.getValue()) {
+                    if (routeHandlesMethod(route, method)) {
+                        dispatch[slot] = route;
+                        break;
+                    }
+                }
+            }
+            routes_.put(e.getKey(), dispatch);
+        }
+
+        pathInfoRoutes_ = new HashMap<>();
+        for (var e : router.pathInfoRoutes_.entrySet()) {
+            if (e.getValue().isEmpty()) {
+                continue;
+            }
+
+            var dispatch = new PathInfoDispatch[METHOD_SLOTS];
+            for (var slot = 0; slot < METHOD_SLOTS; slot++) {
+                dispatch[slot] = PathInfoDispatch.compile(e.getValue(), slotMethod(slot));
+            }
+            pathInfoRoutes_.put(e.getKey(), dispatch);
+        }
+
+        var fallbacks = new ArrayList<>(router.fallbackRoutes_.entrySet());
+        fallbacks.sort((a, b) -> b.getKey().length() - a.getKey().length());
+        fallbackPaths_ = new String[fallbacks.size()];
+        fallbackRoutes_ = new Route[fallbacks.size()];
+        for (var i = 0; i < fallbacks.size(); i++) {
+            fallbackPaths_[i] = fallbacks.get(i).getKey();
+            fallbackRoutes_[i] = fallbacks.get(i).getValue();
+        }
+    }
+
+    private static RequestMethod slotMethod(int slot) {
+        if (slot == METHODS.length) {
+            return null;
+        }
+        return METHODS[slot];
+    }
+
+    private static int methodSlot(RequestMethod method) {
+        if (null == method) {
+            return METHODS.length;
+        }
+        return method.ordinal();
+    }
+
+    static boolean routeHandlesMethod(Route route, RequestMethod method) {
+        if (route.methods() == null) {
+            return true;
+        }
+        for (var m : route.methods()) {
+            if (m == method) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Looks up the route that handles an exact URL without path info.
+     *
+     * @param url    the URL to look up
+     * @param method the request method
+     * @return the matching route; or {@code null} if none could be found
+     * @since 1.9.0
+     */
+    Route resolveExact(String url, RequestMethod method) {
+        var dispatch = routes_.get(url);
+        if (null == dispatch) {
+            return null;
+        }
+        return dispatch[methodSlot(method)];
+    }
+
+    /**
+     * Indicates whether any path info routes are registered for a URL.
+     *
+     * @param url the URL to check
+     * @return {@code true} if path info routes exist; or
+     * {@code false} otherwise
+     * @since 1.9.0
+     */
+    boolean hasPathInfoRoutes(String url) {
+        return pathInfoRoutes_.containsKey(url);
+    }
+
+    /**
+     * Looks up the route that handles a URL with a particular path info.
+     *
+     * @param url      the URL to look up
+     * @param method   the request method
+     * @param pathInfo the path info without leading slash; or
+     *                 {@code null} if only capturing routes should be considered
+     * @return the matching route; or {@code null} if none could be found
+     * @since 1.9.0
+     */
+    Route resolvePathInfo(String url, RequestMethod method, String pathInfo) {
+        var dispatch = pathInfoRoutes_.get(url);
+        if (null == dispatch) {
+            return null;
+        }
+        var slot = dispatch[methodSlot(method)];
+        if (null == slot) {
+            return null;
+        }
+        return slot.resolve(pathInfo);
+    }
+
+    /**
+     * Looks up the fallback route with the longest path that prefixes the URL.
+     *
+     * @param url the URL to look up
+     * @return the matching fallback route; or {@code null} if none could be found
+     * @since 1.9.0
+     */
+    Route resolveFallback(String url) {
+        if (url.isEmpty()) {
+            url = "/";
+        }
+
+        for (var i = 0; i < fallbackPaths_.length; i++) {
+            if (url.startsWith(fallbackPaths_[i])) {
+                return fallbackRoutes_[i];
+            }
+        }
+
+        return null;
+    }
+
+    private static final class PathInfoDispatch {
+        private final Pattern merged_;
+        private final int[] mergedGroups_;
+        private final Route[] mappedRoutes_;
+        private final Pattern[] mappedPatterns_;
+        private final Route captureRoute_;
+
+        private PathInfoDispatch(Pattern merged, int[] mergedGroups, Route[] mappedRoutes, Pattern[] mappedPatterns, Route captureRoute) {
+            merged_ = merged;
+            mergedGroups_ = mergedGroups;
+            mappedRoutes_ = mappedRoutes;
+            mappedPatterns_ = mappedPatterns;
+            captureRoute_ = captureRoute;
+        }
+
+        static PathInfoDispatch compile(List<Route> routes, RequestMethod method) {
+            var mapped_routes = new ArrayList<Route>();
+            var mapped_patterns = new ArrayList<Pattern>();
+            Route capture_route = null;
+            for (var route : routes) {
+                if (!routeHandlesMethod(route, method)) {
+                    continue;
+                }
+
+                var type = route.pathInfoHandling().type();
+                if (type == PathInfoType.MAP) {
+                    for (var mapping : route.pathInfoHandling().mappings()) {
+                        mapped_routes.add(route);
+                        mapped_patterns.add(mapping.regexp());
+                    }
+                } else if (type == PathInfoType.CAPTURE && null == capture_route) {
+                    capture_route = route;
+                }
+            }
+
+            if (mapped_routes.isEmpty() && null == capture_route) {
+                return null;
+            }
+
+            // merge all the mappings into one alternation, the regex engine tries
+            // the alternatives in order which preserves the registration priority
+            Pattern merged = null;
+            int[] merged_groups = null;
+            if (mapped_patterns.size() > 1) {
+                var regexp = new StringBuilder();
+                var groups = new int[mapped_patterns.size()];
+                var group = 1;
+                var mergeable = true;
+                for (var i = 0; i < mapped_patterns.size(); i++) {
+                    var pattern = mapped_patterns.get(i);
+                    // back references are numbered and can't survive being merged
+                    if (pattern.pattern().matches("(?s).*\\\\(\\d|k<).*")) {
+                        mergeable = false;
+                        break;
+                    }
+                    if (i > 0) {
+                        regexp.append('|');
+                    }
+                    regexp.append('(').append(pattern.pattern()).append(')');
+                    groups[i] = group;
+                    group += 1 + pattern.matcher("").groupCount();
+                }
+
+                if (mergeable) {
+                    try {
+                        merged = Pattern.compile(regexp.toString());
+                        merged_groups = groups;
+                    } catch (PatternSyntaxException e) {
+                        merged = null;
+                    }
+                }
+            }
+
+            return new PathInfoDispatch(merged, merged_groups,
+                mapped_routes.toArray(new Route[0]),
+                mapped_patterns.toArray(new Pattern[0]),
+                capture_route);
+        }
+
+        Route resolve(String pathInfo) {
+            if (pathInfo != null && mappedRoutes_.length > 0) {
+                if (merged_ != null) {
+                    var matcher = merged_.matcher(pathInfo);
+                    if (matcher.matches()) {
+                        for (var i = 0; i < mergedGroups_.length; i++) {
+                            if (matcher.start(mergedGroups_[i]) != -1) {
+                                return mappedRoutes_[i];
+                            }
+                        }
+                    }
+                } else {
+                    for (var i = 0; i < mappedPatterns_.length; i++) {
+                        if (mappedPatterns_[i].matcher(pathInfo).matches()) {
+                            return mappedRoutes_[i];
+                        }
+                    }
+                }
+            }
+
+            return captureRoute_;
+        }
+    }
+}
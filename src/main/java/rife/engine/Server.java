@@ -31,6 +31,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.logging.Logger;
@@ -57,6 +58,9 @@ public class Server {
     protected boolean sslNeedClientAuth_ = false;
     protected boolean sslWantClientAuth_ = false;
     protected boolean enableVirtualThreads_ = false;
+    protected boolean asyncExecution_ = false;
+    protected long asyncTimeout_ = 0L;
+    protected Executor asyncExecutor_ = null;
     private int port_ = DEFAULT_PORT;
     private String host_ = DEFAULT_HOST;
     private String staticResourceBase_ = DEFAULT_STATIC_RESOURCE_BASE;
@@ -295,6 +299,51 @@ public class Server {
         return this;
     }
 
+    /**
+     * Sets whether requests are processed asynchronously, outside the
+     * container thread that received them.
+     * <p>Requests are then processed by a virtual thread when they're
+     * available, or by the executor provided with {@link #asyncExecutor}.
+     * <p>Defaults to {@code false}.
+     *
+     * @param enable {@code true} if requests should be processed asynchronously; or
+     *               {@code false} otherwise
+     * @return the instance of the server that's being configured
+     * @see RifeFilter#asyncExecution
+     * @since 1.9.0
+     */
+    public Server asyncExecution(boolean enable) {
+        asyncExecution_ = enable;
+        return this;
+    }
+
+    /**
+     * Sets the timeout of asynchronous requests in milliseconds.
+     * <p>Defaults to {@code 0}, which uses the server's timeout.
+     *
+     * @param timeout the timeout in milliseconds
+     * @return the instance of the server that's being configured
+     * @see RifeFilter#asyncTimeout
+     * @since 1.9.0
+     */
+    public Server asyncTimeout(long timeout) {
+        asyncTimeout_ = timeout;
+        return this;
+    }
+
+    /**
+     * Sets the executor that processes asynchronous requests.
+     *
+     * @param executor the executor for asynchronous requests
+     * @return the instance of the server that's being configured
+     * @see RifeFilter#asyncExecutor
+     * @since 1.9.0
+     */
+    public Server asyncExecutor(Executor executor) {
+        asyncExecutor_ = executor;
+        return this;
+    }
+
     /**
      * Retrieves the hierarchical properties for this server instance.
      *
@@ -350,9 +399,13 @@ public class Server {
 
         // create the RIFE2 filter
 
-        var rife_filter = new RifeFilter();
+        var rife_filter = new RifeFilter()
+            .asyncExecution(asyncExecution_)
+            .asyncTimeout(asyncTimeout_)
+            .asyncExecutor(asyncExecutor_);
         rife_filter.init(properties_, site);
         var filter_holder = new FilterHolder(rife_filter);
+        filter_holder.setAsyncSupported(asyncExecution_);
 
         var ctx = new ServletContextHandler();
         ctx.setContextPath("/");
@@ -360,6 +413,7 @@ public class Server {
         // setup default servlet
 
         var servlet_holder = new ServletHolder("default", DefaultServlet.class);
+        servlet_holder.setAsyncSupported(asyncExecution_);
 
         // setup resource bases
 
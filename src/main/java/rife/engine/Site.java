@@ -33,6 +33,10 @@ public class Site extends Router {
     final ContinuationManager continuationManager_ = new ContinuationManager(new EngineContinuationConfigRuntime(this));
 
     private Config config_ = new Config();
+    private volatile RouteTable routeTable_ = null;
+    private volatile EngineMetrics metrics_ = EngineMetrics.NONE;
+    private volatile int continuationMaximumCount_ = -1;
+    private volatile long multipartRequestSizeLimit_ = -1L;
 
     /**
      * The {@code destroy()} method will be called by RIFE2 when the
@@ -50,118 +54,6 @@ public class Site extends Router {
     public void destroy() {
     }
 
-    /**
-     * Looks up the information of the element that is responsible for handling
-     * a certain URL and path info.
-     *
-     * @param url      the URL that should be looked up
-     * @param pathInfo the path info that should be taken into account
-     * @return the corresponding element information; or
-     * <p>{@code null} if the URL and path info aren't registered in this site
-     * @since 1.0
-     */
-    private Route resolveUrl(Request request, String url, String pathInfo)
-    throws EngineException {
-        if (null == url) throw new IllegalArgumentException("url can't be null;");
-
-        if (url.isEmpty()) {
-            url = "/";
-        }
-
-        if (null == pathInfo) {
-            var routes = routes_.get(url);
-            if (routes != null && !routes.isEmpty()) {
-                for (var route : routes) {
-                    if (routeHandlesMethod(route, request.getMethod())) {
-                        return route;
-                    }
-                }
-            }
-
-            if ('/' == url.charAt(url.length() - 1)) {
-                var stripped_url = url.substring(0, url.length() - 1);
-                // if the url contains a dot in the last part, it shouldn't be
-                // seen as simulating a directory
-                if (stripped_url.lastIndexOf('.') <= stripped_url.lastIndexOf('/')) {
-                    if (routes != null && !routes.isEmpty()) {
-                        for (var route : routes) {
-                            if (routeHandlesMethod(route, request.getMethod())) {
-                                return route;
-                            }
-                        }
-                    }
-                }
-            }
-        }
-
-        return resolvePathInfoUrl(request, url, pathInfo);
-    }
-
-    private static boolean routeHandlesMethod(Route route, RequestMethod method) {
-        if (route.methods() == null) {
-            return true;
-        }
-        for (var m : route.methods()) {
-            if (m == method) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private Route resolvePathInfoUrl(Request request, String url, String pathInfo)
-    throws EngineException {
-        var routes = pathInfoRoutes_.get(url);
-        if (null == routes ||
-            routes.isEmpty()) {
-            return null;
-        }
-
-        // if a path info was provided, check the path info mappings for the first that matches
-        if (pathInfo != null) {
-            var path_info = StringUtils.stripFromFront(pathInfo, "/");
-            for (var route : routes) {
-                if (route.pathInfoHandling().type() == PathInfoType.MAP && routeHandlesMethod(route, request.getMethod())) {
-                    for (var mapping : route.pathInfoHandling().mappings()) {
-                        var matcher = mapping.regexp().matcher(path_info);
-                        if (matcher.matches()) {
-                            return route;
-                        }
-                    }
-                }
-            }
-        }
-
-        // return the first route that handles the url and doesn't have  any path info mappings
-        for (var route : routes) {
-            if (route.pathInfoHandling().type() == PathInfoType.CAPTURE && routeHandlesMethod(route, request.getMethod())) {
-                return route;
-            }
-        }
-
-        return null;
-    }
-
-    private Route resolveFallback(String url) {
-        String best_match = null;
-        if (url.isEmpty()) {
-            url = "/";
-        }
-
-        for (var fallback_url : fallbackRoutes_.keySet()) {
-            if (url.startsWith(fallback_url) &&
-                (null == best_match || fallback_url.length() > best_match.length())) {
-                best_match = fallback_url;
-            }
-        }
-
-        if (best_match != null) {
-            return fallbackRoutes_.get(best_match);
-        } else {
-            return null;
-        }
-    }
-
     /**
      * Looks for an element that corresponds to a particular request URL.
      * <p>
@@ -170,6 +62,7 @@ public class Site extends Router {
      * slashes, and figure out the correct path info.
      * <p>
      *
+     * @param request    the request that is being handled
      * @param elementUrl the URL that will be used to search for the element
      * @return an instance of {@code Route} when an element match
      * was found; or
@@ -177,36 +70,49 @@ public class Site extends Router {
      * @since 1.0
      */
     RouteMatch findRouteForRequest(Request request, String elementUrl) {
-        // obtain the element info that mapped to the requested path info
-        Route route;
-        var element_url_buffer = new StringBuilder(elementUrl);
-        var element_url_location = -1;
-        var element_path_info = "";
-        String path_info = null;
+        var route_table = routeTable_;
+        if (null == route_table) {
+            route_table = routeTable_ = new RouteTable(this);
+        }
+
+        var method = request.getMethod();
+
+        // obtain the element info that mapped to the requested path info,
+        // stepping back one segment at a time
+        Route route = null;
+        var element_url_length = elementUrl.length();
         do {
+            var url = element_url_length == elementUrl.length() ? elementUrl : elementUrl.substring(0, element_url_length);
+            if (url.isEmpty()) {
+                url = "/";
+            }
+
             // if a slash was found in the url, it was stripped away
             // and thus the only urls that should match then are path info
             // urls
-            if (element_url_location > -1) {
-                path_info = elementUrl.substring(element_url_location);
+            if (element_url_length == elementUrl.length()) {
+                route = route_table.resolveExact(url, method);
+                if (null == route) {
+                    route = route_table.resolvePathInfo(url, method, null);
+                }
+            } else if (route_table.hasPathInfoRoutes(url)) {
+                var path_info = StringUtils.stripFromFront(elementUrl.substring(element_url_length), "/");
+                route = route_table.resolvePathInfo(url, method, path_info);
             }
-            route = resolveUrl(request, element_url_buffer.toString(), path_info);
 
             if (route != null) {
                 break;
             }
 
-            element_url_location = element_url_buffer.lastIndexOf("/");
-            if (-1 == element_url_location) {
-                break;
-            }
-            element_url_buffer.setLength(element_url_location);
+            element_url_length = elementUrl.lastIndexOf('/', element_url_length - 1);
         }
-        while (true);
+        while (element_url_length != -1);
+
+        var element_path_info = "";
 
         // no target element, get the fallback element
         if (null == route) {
-            route = resolveFallback(elementUrl);
+            route = route_table.resolveFallback(elementUrl);
             if (null == route) {
                 return null;
             }
@@ -215,15 +121,15 @@ public class Site extends Router {
         else {
             // only accept path info if the element accepts it
             if (route.pathInfoHandling() == PathInfoHandling.NONE &&
-                elementUrl.length() != element_url_buffer.length()) {
+                elementUrl.length() != element_url_length) {
                 // check for a fallback element
-                route = resolveFallback(elementUrl);
+                route = route_table.resolveFallback(elementUrl);
                 if (null == route) {
                     return null;
                 }
             } else if (route.pathInfoHandling() != PathInfoHandling.NONE) {
                 // construct the element path info
-                element_path_info = elementUrl.substring(element_url_buffer.length());
+                element_path_info = elementUrl.substring(element_url_length);
                 element_path_info = StringUtils.stripFromFront(element_path_info, "/");
             }
         }
@@ -231,6 +137,26 @@ public class Site extends Router {
         return new RouteMatch(route, element_path_info);
     }
 
+    /**
+     * Compiles the registered routes into an immutable lookup table and
+     * precompiles their URL templates, this is called when the site is
+     * deployed.
+     *
+     * @since 1.9.0
+     */
+    void compileRoutes() {
+        routeTable_ = new RouteTable(this);
+
+        // precompile the URL templates of all the routes
+        for (var routes : routes_.values()) {
+            routes.forEach(UrlTemplate::of);
+        }
+        for (var routes : pathInfoRoutes_.values()) {
+            routes.forEach(UrlTemplate::of);
+        }
+        fallbackRoutes_.values().forEach(UrlTemplate::of);
+    }
+
     /**
      * Creates a new workflow instance with a default executor.
      * <p>Note that the site doesn't keep a reference to it, so make sure it's
@@ -300,4 +226,94 @@ public class Site extends Router {
             throw new EngineException(e);
         }
     }
+
+    /**
+     * Sets the metrics that receive the timings and outcomes of the
+     * requests that are handled by this site.
+     *
+     * @param metrics the metrics to use; or {@code null} to stop
+     *                collecting metrics
+     * @return this site instance
+     * @see HistogramEngineMetrics
+     * @since 1.9.0
+     */
+    public Site metrics(EngineMetrics metrics) {
+        if (null == metrics) {
+            metrics = EngineMetrics.NONE;
+        }
+        metrics_ = metrics;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of continuations that this site keeps on the
+     * heap.
+     * <p>When this number is exceeded, the continuations that are the
+     * closest to expiring are evicted. The continuations of the engine
+     * reference their context and element instances, they can thus not be
+     * spilled to a continuation store. Resuming an evicted continuation
+     * behaves like resuming an expired one, the element starts anew.
+     *
+     * @param maximumCount the maximum number of continuations on the heap; or
+     *                     {@code -1} if the number is unlimited
+     * @return this site instance
+     * @since 1.9.0
+     */
+    public Site continuationMaximumCount(int maximumCount) {
+        continuationMaximumCount_ = Math.max(-1, maximumCount);
+        return this;
+    }
+
+    /**
+     * Retrieves the maximum number of continuations that this site keeps on
+     * the heap.
+     *
+     * @return the maximum number of continuations on the heap; or
+     * <p>{@code -1} if the number is unlimited
+     * @since 1.9.0
+     */
+    public int continuationMaximumCount() {
+        return continuationMaximumCount_;
+    }
+
+    /**
+     * Sets the maximum size of the body of the multipart requests that
+     * this site handles.
+     * <p>Requests that announce a larger content length are rejected before
+     * their body is read, others are aborted as soon as the limit is
+     * exceeded while they're being parsed. This is independent of the
+     * size limit of the individual uploaded files.
+     *
+     * @param sizeLimit the maximum size in bytes; or {@code -1} if the size
+     *                  is unlimited
+     * @return this site instance
+     * @since 1.9.0
+     */
+    public Site multipartRequestSizeLimit(long sizeLimit) {
+        multipartRequestSizeLimit_ = Math.max(-1L, sizeLimit);
+        return this;
+    }
+
+    /**
+     * Retrieves the maximum size of the body of the multipart requests that
+     * this site handles.
+     *
+     * @return the maximum size in bytes; or
+     * <p>{@code -1} if the size is unlimited
+     * @since 1.9.0
+     */
+    public long multipartRequestSizeLimit() {
+        return multipartRequestSizeLimit_;
+    }
+
+    /**
+     * Retrieves the metrics of this site.
+     *
+     * @return this site's metrics; or
+     * <p>{@link EngineMetrics#NONE} if no metrics are collected
+     * @since 1.9.0
+     */
+    public EngineMetrics metrics() {
+        return metrics_;
+    }
 }
@@ -21,6 +21,8 @@ public final class SpecialParameters {
 
     /**
      * The unique ID of a continuation to resume.
+     * <p>The body of multipart requests isn't processed to look for this
+     * parameter, multipart forms should provide it in their action URL.
      *
      * @since 1.0
      */
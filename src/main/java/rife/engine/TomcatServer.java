@@ -19,6 +19,7 @@ import rife.tools.exceptions.FileUtilsErrorException;
 import java.io.File;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * Embedded Tomcat server that can directly start from a RIFE2 site.
@@ -37,6 +38,9 @@ public class TomcatServer {
     private boolean isScanManifest_ = false;
     private boolean isContext_ = false;
     private int port_ = 8080;
+    private boolean asyncExecution_ = false;
+    private long asyncTimeout_ = 0L;
+    private Executor asyncExecutor_ = null;
 
     /**
      * Instantiates a new embedded Tomcat server.
@@ -153,6 +157,51 @@ public class TomcatServer {
         return this;
     }
 
+    /**
+     * Sets whether requests are processed asynchronously, outside the
+     * container thread that received them.
+     * <p>Requests are then processed by a virtual thread when they're
+     * available, or by the executor provided with {@link #asyncExecutor}.
+     * <p>Defaults to {@code false}.
+     *
+     * @param enable {@code true} if requests should be processed asynchronously; or
+     *               {@code false} otherwise
+     * @return the instance of the server that's being configured
+     * @see RifeFilter#asyncExecution
+     * @since 1.9.0
+     */
+    public TomcatServer asyncExecution(boolean enable) {
+        asyncExecution_ = enable;
+        return this;
+    }
+
+    /**
+     * Sets the timeout of asynchronous requests in milliseconds.
+     * <p>Defaults to {@code 0}, which uses the server's timeout.
+     *
+     * @param timeout the timeout in milliseconds
+     * @return the instance of the server that's being configured
+     * @see RifeFilter#asyncTimeout
+     * @since 1.9.0
+     */
+    public TomcatServer asyncTimeout(long timeout) {
+        asyncTimeout_ = timeout;
+        return this;
+    }
+
+    /**
+     * Sets the executor that processes asynchronous requests.
+     *
+     * @param executor the executor for asynchronous requests
+     * @return the instance of the server that's being configured
+     * @see RifeFilter#asyncExecutor
+     * @since 1.9.0
+     */
+    public TomcatServer asyncExecutor(Executor executor) {
+        asyncExecutor_ = executor;
+        return this;
+    }
+
     /**
      * Retrieves the hierarchical properties for this server instance.
      *
@@ -196,16 +245,21 @@ public class TomcatServer {
 
         var servletName = "default-servlet";
         var defaultServlet = new DefaultServlet();
-        Tomcat.addServlet(ctx, servletName, defaultServlet);
+        var servletWrapper = Tomcat.addServlet(ctx, servletName, defaultServlet);
+        servletWrapper.setAsyncSupported(asyncExecution_);
         ctx.addServletMappingDecoded("/*", servletName);
 
         var filterName = "RIFE2";
-        var rifeFilter = new RifeFilter();
+        var rifeFilter = new RifeFilter()
+            .asyncExecution(asyncExecution_)
+            .asyncTimeout(asyncTimeout_)
+            .asyncExecutor(asyncExecutor_);
         rifeFilter.init(properties_, site);
 
         var filerDef = new FilterDef();
         filerDef.setFilter(rifeFilter);
         filerDef.setFilterName(filterName);
+        filerDef.setAsyncSupported(String.valueOf(asyncExecution_));
         ctx.addFilterDef(filerDef);
 
         var filterMap = new FilterMap();
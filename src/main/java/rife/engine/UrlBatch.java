@@ -0,0 +1,78 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.engine;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Generates many URLs that share the same {@code Context}, for instance
+ * for all the links of a listing page.
+ * <p>The root URL of the web application and the annotated outgoing
+ * parameters of the processed element are only retrieved once, when the
+ * batch is created, and the URLs are generated in a single reused
+ * {@code StringBuilder}. Changes to the element's outgoing parameters after
+ * the batch was created are thus not taken into account.
+ * <p>{@code UrlBatch} is not intended to be instantiated directly, but
+ * rather through {@link Context#urlBatch()}. It's not thread-safe.
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @since 1.9.0
+ */
+public class UrlBatch {
+    private final Context context_;
+    private final String rootUrl_;
+    private final Map<String, String[]> annotatedOutParameters_;
+    private final StringBuilder builder_ = new StringBuilder();
+
+    UrlBatch(Context context) {
+        context_ = context;
+        rootUrl_ = context.webappRootUrl();
+        if (context.route() instanceof RouteAnnotated) {
+            annotatedOutParameters_ = Collections.unmodifiableMap(RouteAnnotated.getAnnotatedOutParameters(context));
+        } else {
+            annotatedOutParameters_ = Collections.emptyMap();
+        }
+    }
+
+    /**
+     * Start building a URL towards a particular route within this batch.
+     *
+     * @param route the target route
+     * @return an instance of {@link UrlBuilder}
+     * @since 1.9.0
+     */
+    public UrlBuilder urlFor(Route route) {
+        return new UrlBuilder(this, route);
+    }
+
+    /**
+     * Generates the URL towards a particular route within this batch.
+     *
+     * @param route the target route
+     * @return the generated URL
+     * @since 1.9.0
+     */
+    public String url(Route route) {
+        return urlFor(route).toString();
+    }
+
+    Context context() {
+        return context_;
+    }
+
+    String rootUrl() {
+        return rootUrl_;
+    }
+
+    Map<String, String[]> annotatedOutParameters() {
+        return annotatedOutParameters_;
+    }
+
+    StringBuilder builder() {
+        builder_.setLength(0);
+        return builder_;
+    }
+}
@@ -7,10 +7,8 @@ package rife.engine;
 import rife.tools.Convert;
 import rife.tools.StringUtils;
 
-import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * {@code UrlBuilder} helps creating valid URLs that automatically
@@ -34,61 +32,30 @@ public class UrlBuilder {
      */
     public record Segments(String path, Map<String, String[]> parameters, String fragment) {
         public void appendQueryParameters(StringBuilder url) {
-            // generate the query parameters that are available
-            if (!parameters.isEmpty()) {
-                var query_parameters = new StringBuilder("?");
-
-                for (var parameter_entry : parameters.entrySet()) {
-                    var parameter_name = parameter_entry.getKey();
-                    var parameter_values = parameter_entry.getValue();
-                    if (null == parameter_values) {
-                        continue;
-                    }
-
-                    if (query_parameters.length() > 1) {
-                        query_parameters.append("&");
-                    }
-
-                    for (var i = 0; i < parameter_values.length; i++) {
-                        query_parameters.append(StringUtils.encodeUrl(parameter_name));
-                        query_parameters.append("=");
-                        query_parameters.append(StringUtils.encodeUrl(parameter_values[i]));
-                        if (i + 1 < parameter_values.length) {
-                            query_parameters.append("&");
-                        }
-                    }
-                }
-
-                url.append(query_parameters);
-            }
+            UrlBuilder.appendQueryParameters(url, parameters);
         }
 
         public void appendFormInputParameters(StringBuilder url) {
             // generate the query parameters that are available
-            if (!parameters.isEmpty()) {
-                var input_parameters = new StringBuilder();
-
-                for (var parameter_entry : parameters.entrySet()) {
-                    var parameter_name = parameter_entry.getKey();
-                    var parameter_values = parameter_entry.getValue();
-                    if (null == parameter_values) {
-                        continue;
-                    }
-                    for (var parameterValue : parameter_values) {
-                        input_parameters.append("<input type=\"hidden\" name=\"");
-                        input_parameters.append(StringUtils.encodeHtml(parameter_name));
-                        input_parameters.append("\" value=\"");
-                        input_parameters.append(StringUtils.encodeHtml(parameterValue));
-                        input_parameters.append("\" />");
-                    }
+            for (var parameter_entry : parameters.entrySet()) {
+                var parameter_name = parameter_entry.getKey();
+                var parameter_values = parameter_entry.getValue();
+                if (null == parameter_values) {
+                    continue;
+                }
+                for (var parameterValue : parameter_values) {
+                    url.append("<input type=\"hidden\" name=\"");
+                    url.append(StringUtils.encodeHtml(parameter_name));
+                    url.append("\" value=\"");
+                    url.append(StringUtils.encodeHtml(parameterValue));
+                    url.append("\" />");
                 }
-
-                url.append(input_parameters);
             }
         }
     }
 
     private final Context context_;
+    private final UrlBatch batch_;
     private final String rootUrl_;
     private final Route route_;
     private String pathInfo_;
@@ -97,16 +64,25 @@ public class UrlBuilder {
 
     public UrlBuilder(Context context, Route route) {
         context_ = context;
+        batch_ = null;
         rootUrl_ = context.webappRootUrl();
         route_ = route;
     }
 
     public UrlBuilder(String rootUrl, Route route) {
         context_ = null;
+        batch_ = null;
         rootUrl_ = rootUrl;
         route_ = route;
     }
 
+    UrlBuilder(UrlBatch batch, Route route) {
+        context_ = batch.context();
+        batch_ = batch;
+        rootUrl_ = batch.rootUrl();
+        route_ = route;
+    }
+
     /**
      * Sets a particular pathinfo for this URL, it will automatically be encoded.
      * <p>If no pathinfo is manually set, the destination route has pathinfo
@@ -190,122 +166,81 @@ public class UrlBuilder {
         return this;
     }
 
-    /**
-     * Generates the segments for the current state of the {@code UrlBuilder}.
-     *
-     * @return the segments of the URL that's being built
-     * @since 1.0
-     */
-    public Segments generateSegments() {
-        final var path = new StringBuilder(rootUrl_);
-
-        path.append(StringUtils.stripFromFront(route_.path(), "/"));
-
+    private Map<String, String[]> collectParameters(UrlTemplate template) {
         var parameters = new LinkedHashMap<String, String[]>();
 
-        // detect which parameters are annotation for output and input and retrieve those that correspond
-        if (context_.route() instanceof RouteAnnotated) {
-            var out_params = RouteAnnotated.getAnnotatedOutParameters(context_);
-            if (context_.hasContinuationId()) {
-                // only add the continuation ID if the route is going to the same element class
-                if (context_.processedElement() != null &&
-                    context_.processedElement().getClass() == route_.getElementClass()) {
-                    out_params.put(SpecialParameters.CONT_ID, new String[]{context_.continuationId()});
+        if (context_ != null) {
+            // detect which parameters are annotation for output and input and retrieve those that correspond
+            if (context_.route() instanceof RouteAnnotated) {
+                var in_params = template.inParameters();
+                var out_params = batch_ != null ? batch_.annotatedOutParameters() : RouteAnnotated.getAnnotatedOutParameters(context_);
+                for (var out_param : out_params.entrySet()) {
+                    if (in_params.contains(out_param.getKey())) {
+                        parameters.put(out_param.getKey(), out_param.getValue());
+                    }
                 }
-            }
-
-            Set<String> in_params = new HashSet<>();
-            in_params.add(SpecialParameters.CONT_ID);
-
-            // input parameters
-            if (route_ instanceof RouteAnnotated route) {
-                in_params.addAll(route.getAnnotatedInParameters());
-            }
 
-            // path info parameters
-            if (route_.pathInfoHandling().type() == PathInfoType.MAP) {
-                for (var mapping : route_.pathInfoHandling().mappings()) {
-                    in_params.addAll(mapping.parameters());
+                if (context_.hasContinuationId()) {
+                    // only add the continuation ID if the route is going to the same element class
+                    if (context_.processedElement() != null &&
+                        context_.processedElement().getClass() == route_.getElementClass()) {
+                        parameters.put(SpecialParameters.CONT_ID, new String[]{context_.continuationId()});
+                    }
                 }
             }
-            // retain the appropriate output parameters
-            out_params.keySet().retainAll(in_params);
 
-            parameters.putAll(out_params);
+            // use all the context out parameters
+            parameters.putAll(context_.parametersOut());
         }
 
-        // use all the context out parameters
-        parameters.putAll(context_.parametersOut());
-
         // use all the explicitly provided parameters
         parameters.putAll(parameters_);
 
-        // handle an explicit path info
-        if (pathInfo_ != null) {
-            if (path.charAt(path.length() - 1) != '/') {
-                path.append('/');
-            }
-            path.append(StringUtils.encodeUrl(pathInfo_, "/~"));
-        }
-        // handle path info mapping
-        else if (route_.pathInfoHandling().type() == PathInfoType.MAP) {
-            for (var mapping : route_.pathInfoHandling().mappings()) {
-                if (parameters.keySet().containsAll(mapping.parameters())) {
-                    var parameters_it = mapping.parameters().iterator();
-
-                    var builder = new StringBuilder();
-                    String parameter_name;
-                    String[] parameter_value;
-                    for (var segment : mapping.segments()) {
-                        if (segment.isRegexp()) {
-                            if (!parameters_it.hasNext()) {
-                                continue;
-                            }
-
-                            parameter_name = parameters_it.next();
-
-                            // ensure that the parameter has at least one value
-                            parameter_value = parameters.get(parameter_name);
-                            if (null == parameter_value ||
-                                parameter_value.length < 1) {
-                                continue;
-                            }
-
-                            // ensure that the parameter value corresponds to the
-                            // regexp pattern for it
-                            var matcher = segment.pattern().matcher(parameter_value[0]);
-                            if (!matcher.matches()) {
-                                continue;
-                            }
-
-                            // add the url-encoded parameter value to the path info
-                            builder.append(StringUtils.encodeUrl(parameter_value[0]));
-                            parameters.remove(parameter_name);
-                        } else {
-                            builder.append(segment.text());
-                        }
-                    }
+        return parameters;
+    }
 
-                    // append the new path info
-                    var path_info = builder.toString();
-                    if (!path_info.isEmpty()) {
-                        if (path_info.charAt(0) != '/' && path.charAt(path.length() - 1) != '/') {
-                            path.append('/');
-                        }
-                        path.append(path_info);
-                    }
+    /**
+     * Generates the segments for the current state of the {@code UrlBuilder}.
+     *
+     * @return the segments of the URL that's being built
+     * @since 1.0
+     */
+    public Segments generateSegments() {
+        var template = UrlTemplate.of(route_);
+        var parameters = collectParameters(template);
 
-                    break;
-                }
-            }
-        }
+        final var path = new StringBuilder(rootUrl_);
+        template.appendPath(path, pathInfo_, parameters);
+
+        return new Segments(path.toString(), parameters, generateFragment());
+    }
 
-        var fragment = "";
+    private String generateFragment() {
         if (fragment_ != null) {
-            fragment = "#" + StringUtils.encodeUrl(fragment_);
+            return "#" + StringUtils.encodeUrl(fragment_);
         }
 
-        return new Segments(path.toString(), parameters, fragment);
+        return "";
+    }
+
+    /**
+     * Appends the URL for the current state of the {@code UrlBuilder} to a
+     * {@code StringBuilder}.
+     *
+     * @param url the {@code StringBuilder} to append the URL to
+     * @return the provided {@code StringBuilder}
+     * @since 1.9.0
+     */
+    public StringBuilder appendTo(StringBuilder url) {
+        var template = UrlTemplate.of(route_);
+        var parameters = collectParameters(template);
+
+        url.append(rootUrl_);
+        template.appendPath(url, pathInfo_, parameters);
+        appendQueryParameters(url, parameters);
+        url.append(generateFragment());
+
+        return url;
     }
 
     /**
@@ -315,12 +250,40 @@ public class UrlBuilder {
      * @since 1.0
      */
     public String toString() {
-        var segments = generateSegments();
+        // URLs of a batch reuse the same builder
+        if (batch_ != null) {
+            return appendTo(batch_.builder()).toString();
+        }
 
-        final var url = new StringBuilder(segments.path);
-        segments.appendQueryParameters(url);
-        url.append(segments.fragment);
+        return appendTo(new StringBuilder()).toString();
+    }
 
-        return url.toString();
+    static void appendQueryParameters(StringBuilder url, Map<String, String[]> parameters) {
+        // generate the query parameters that are available
+        if (!parameters.isEmpty()) {
+            url.append('?');
+            var start = url.length();
+
+            for (var parameter_entry : parameters.entrySet()) {
+                var parameter_name = parameter_entry.getKey();
+                var parameter_values = parameter_entry.getValue();
+                if (null == parameter_values) {
+                    continue;
+                }
+
+                if (url.length() > start) {
+                    url.append("&");
+                }
+
+                for (var i = 0; i < parameter_values.length; i++) {
+                    url.append(StringUtils.encodeUrl(parameter_name));
+                    url.append("=");
+                    url.append(StringUtils.encodeUrl(parameter_values[i]));
+                    if (i + 1 < parameter_values.length) {
+                        url.append("&");
+                    }
+                }
+            }
+        }
     }
 }
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.engine;
+
+import rife.tools.StringUtils;
+
+import java.util.*;
+
+/**
+ * Precompiled description of the URLs towards a {@link Route}.
+ * <p>The parameters that the route accepts and its path info mappings are
+ * resolved once, so that {@link UrlBuilder} can append URLs straight into
+ * a {@code StringBuilder} without reflecting on the route's element.
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @since 1.9.0
+ */
+final class UrlTemplate {
+    private final String path_;
+    private final Set<String> inParameters_;
+    private final MappingTemplate[] mappings_;
+
+    private record MappingTemplate(String[] parameters, PathInfoSegment[] segments) {
+        boolean isProvidedBy(Map<String, String[]> values) {
+            for (var parameter : parameters) {
+                if (!values.containsKey(parameter)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    UrlTemplate(Route route) {
+        path_ = StringUtils.stripFromFront(route.path(), "/");
+
+        var in_parameters = new HashSet<String>();
+        in_parameters.add(SpecialParameters.CONT_ID);
+
+        // input parameters
+        if (route instanceof RouteAnnotated route_annotated) {
+            in_parameters.addAll(route_annotated.getAnnotatedInParameters());
+        }
+
+        // path info parameters
+        var mappings = new ArrayList<MappingTemplate>();
+        if (route.pathInfoHandling().type() == PathInfoType.MAP) {
+            for (var mapping : route.pathInfoHandling().mappings()) {
+                in_parameters.addAll(mapping.parameters());
+                mappings.add(new MappingTemplate(
+                    mapping.parameters().toArray(new String[0]),
+                    mapping.segments().toArray(new PathInfoSegment[0])));
+            }
+        }
+
+        inParameters_ = Collections.unmodifiableSet(in_parameters);
+        mappings_ = mappings.toArray(new MappingTemplate[0]);
+    }
+
+    /**
+     * Retrieves the URL template of a route, the template is cached by the
+     * routes that are provided by RIFE2 itself.
+     *
+     * @param route the route to retrieve the template for
+     * @return the URL template of the route
+     * @since 1.9.0
+     */
+    static UrlTemplate of(Route route) {
+        if (route instanceof RouteAnnotated route_annotated) {
+            return route_annotated.urlTemplate();
+        }
+        if (route instanceof RouteInstance route_instance) {
+            return route_instance.urlTemplate();
+        }
+        return new UrlTemplate(route);
+    }
+
+    Set<String> inParameters() {
+        return inParameters_;
+    }
+
+    /**
+     * Appends the path of the route and its path info to a URL.
+     * <p>The parameters that are used to generate the path info are removed
+     * from the provided parameters.
+     *
+     * @param url        the URL to append to, this should at least contain the root URL
+     * @param pathInfo   an explicit path info; or {@code null} if the path
+     *                   info mappings should be used
+     * @param parameters the parameters of the URL
+     * @since 1.9.0
+     */
+    void appendPath(StringBuilder url, String pathInfo, Map<String, String[]> parameters) {
+        url.append(path_);
+
+        // handle an explicit path info
+        if (pathInfo != null) {
+            if (url.charAt(url.length() - 1) != '/') {
+                url.append('/');
+            }
+            url.append(StringUtils.encodeUrl(pathInfo, "/~"));
+        }
+        // handle path info mapping
+        else {
+            for (var mapping : mappings_) {
+                if (mapping.isProvidedBy(parameters)) {
+                    appendPathInfo(url, mapping, parameters);
+                    break;
+                }
+            }
+        }
+    }
+
+    private static void appendPathInfo(StringBuilder url, MappingTemplate mapping, Map<String, String[]> parameters) {
+        var start = url.length();
+        var parameter_index = 0;
+        for (var segment : mapping.segments()) {
+            if (segment.isRegexp()) {
+                if (parameter_index >= mapping.parameters().length) {
+                    continue;
+                }
+
+                var parameter_name = mapping.parameters()[parameter_index++];
+
+                // ensure that the parameter has at least one value
+                var parameter_value = parameters.get(parameter_name);
+                if (null == parameter_value ||
+                    parameter_value.length < 1) {
+                    continue;
+                }
+
+                // ensure that the parameter value corresponds to the
+                // regexp pattern for it
+                var matcher = segment.pattern().matcher(parameter_value[0]);
+                if (!matcher.matches()) {
+                    continue;
+                }
+
+                // add the url-encoded parameter value to the path info
+                url.append(StringUtils.encodeUrl(parameter_value[0]));
+                parameters.remove(parameter_name);
+            } else {
+                url.append(segment.text());
+            }
+        }
+
+        // separate the new path info from the path
+        if (url.length() > start &&
+            url.charAt(start) != '/' &&
+            url.charAt(start - 1) != '/') {
+            url.insert(start, '/');
+        }
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.engine.annotations;
+
+import java.lang.annotation.*;
+
+/**
+ * Declares that the instances of an element class can be reused across
+ * requests.
+ * <p>Instead of creating a new element instance for each request, the
+ * instances are drawn from a pool and returned to it after the request.
+ * The annotated fields of the element are reset to the values they had
+ * in a new instance before it's returned to the pool.
+ * <p>A reusable element should thus only keep request state in its
+ * annotated fields. Elements that are paused or resumed as continuations
+ * are never pooled, neither are elements that initialize their annotated
+ * fields with mutable values, like beans or collections, since these
+ * values would be shared by all the instances.
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @since 1.9.0
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE})
+@Documented
+public @interface Reusable {
+}
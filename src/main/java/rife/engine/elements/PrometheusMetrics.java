@@ -0,0 +1,43 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.engine.elements;
+
+import rife.engine.Context;
+import rife.engine.Element;
+import rife.engine.HistogramEngineMetrics;
+
+/**
+ * Standard element that exports {@link HistogramEngineMetrics} in the
+ * Prometheus text exposition format.
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @see rife.engine.Site#metrics(rife.engine.EngineMetrics)
+ * @since 1.9.0
+ */
+public class PrometheusMetrics implements Element {
+    private final HistogramEngineMetrics metrics_;
+
+    /**
+     * Creates a new element that exports the provided metrics.
+     *
+     * @param metrics the metrics to export
+     * @since 1.9.0
+     */
+    public PrometheusMetrics(HistogramEngineMetrics metrics) {
+        if (null == metrics) throw new IllegalArgumentException("metrics can't be null");
+
+        metrics_ = metrics;
+    }
+
+    public void process(Context c)
+    throws Exception {
+        var out = new StringBuilder();
+        metrics_.writePrometheus(out);
+
+        c.preventCaching();
+        c.setContentType("text/plain; version=0.0.4; charset=utf-8");
+        c.print(out.toString());
+    }
+}
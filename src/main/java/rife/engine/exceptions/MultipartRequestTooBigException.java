@@ -0,0 +1,24 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.engine.exceptions;
+
+import java.io.Serial;
+
+public class MultipartRequestTooBigException extends MultipartRequestException {
+    @Serial
+    private static final long serialVersionUID = 3125736519264078291L;
+
+    private final long sizeLimit_;
+
+    public MultipartRequestTooBigException(long sizeLimit) {
+        super("The size of the multipart request exceeds " + sizeLimit + " which is the maximum.");
+
+        sizeLimit_ = sizeLimit;
+    }
+
+    public long getSizeLimit() {
+        return sizeLimit_;
+    }
+}
@@ -0,0 +1,24 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.engine.exceptions;
+
+import java.io.Serial;
+
+public class RequestTimeoutException extends EngineException {
+    @Serial
+    private static final long serialVersionUID = -2180461557204869337L;
+
+    private final long timeout_;
+
+    public RequestTimeoutException(long timeout, Throwable cause) {
+        super("The request didn't finish processing within " + timeout + "ms.", cause);
+
+        timeout_ = timeout;
+    }
+
+    public long getTimeout() {
+        return timeout_;
+    }
+}
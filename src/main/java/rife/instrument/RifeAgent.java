@@ -5,6 +5,11 @@
 package rife.instrument;
 
 import java.lang.instrument.Instrumentation;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * The RIFE2 instrumentation agent will modify the bytecode of the classes
@@ -15,6 +20,10 @@ import java.lang.instrument.Instrumentation;
  * <pre>java -javaagent:/path/to/rife2-agent-[version].jar com.your.mainClass</pre>
  * <p>The agent is packaged in its own jar file which should correspond to the
  * RIFE2 version that you are using in your application.
+ * <p>The continuations instrumentation can be cached across JVM runs with a
+ * {@link TransformedClassCache}, and the time that is spent in each
+ * transformer is logged at the {@code FINE} level of the
+ * {@code rife.instrument} logger when a site is set up.
  *
  * @author Geert Bevin (gbevin[remove] at uwyn dot com)
  * @since 1.0
@@ -22,14 +31,69 @@ import java.lang.instrument.Instrumentation;
 public class RifeAgent {
     public static final String AGENT_ACTIVE_PROPERTY = "rife.agent.active";
 
+    private static final List<RifeTransformer> TRANSFORMERS = new CopyOnWriteArrayList<>();
+
     public static void premain(String agentArguments, Instrumentation instrumentation) {
         System.getProperties().setProperty(AGENT_ACTIVE_PROPERTY, String.valueOf(true));
 
-        instrumentation.addTransformer(new InitialTransformer());
-        instrumentation.addTransformer(new EngineContinuationsTransformer());
-        instrumentation.addTransformer(new WorkflowContinuationsTransformer());
-        instrumentation.addTransformer(new MetaDataTransformer());
-        instrumentation.addTransformer(new LazyLoadTransformer());
-        instrumentation.addTransformer(new FinalTransformer());
+        addTransformer(instrumentation, new InitialTransformer());
+        addTransformer(instrumentation, new EngineContinuationsTransformer());
+        addTransformer(instrumentation, new WorkflowContinuationsTransformer());
+        addTransformer(instrumentation, new MetaDataTransformer());
+        addTransformer(instrumentation, new LazyLoadTransformer());
+        addTransformer(instrumentation, new FinalTransformer());
+    }
+
+    private static void addTransformer(Instrumentation instrumentation, RifeTransformer transformer) {
+        TRANSFORMERS.add(transformer);
+        instrumentation.addTransformer(transformer);
+    }
+
+    /**
+     * Retrieves the transformers that were installed by the agent.
+     *
+     * @return the list of transformers; or
+     * <p>an empty list if the agent isn't active
+     * @since 1.9.0
+     */
+    public static List<RifeTransformer> getTransformers() {
+        return Collections.unmodifiableList(TRANSFORMERS);
+    }
+
+    /**
+     * Logs the number of classes and the time that was spent in each
+     * transformer of the agent.
+     *
+     * @since 1.9.0
+     */
+    public static void logTransformerTimings() {
+        var logger = Logger.getLogger("rife.instrument");
+        if (TRANSFORMERS.isEmpty() || !logger.isLoggable(Level.FINE)) {
+            return;
+        }
+
+        var report = new StringBuilder("Instrumentation timings:");
+        for (var transformer : TRANSFORMERS) {
+            report.append("\n  ")
+                .append(transformer.getClass().getSimpleName())
+                .append(": ")
+                .append(transformer.getTransformedCount())
+                .append(" classes (")
+                .append(transformer.getCachedCount())
+                .append(" cached) in ")
+                .append(transformer.getTransformNanos() / 1_000_000L)
+                .append("ms");
+        }
+
+        var cache = TransformedClassCache.getDefault();
+        if (cache != null) {
+            report.append("\n  cache: ")
+                .append(cache.getHitCount())
+                .append(" hits, ")
+                .append(cache.getMissCount())
+                .append(" misses");
+        }
+
+        logger.fine(report.toString());
     }
 }
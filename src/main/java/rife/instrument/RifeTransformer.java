@@ -7,6 +7,9 @@ package rife.instrument;
 import java.lang.instrument.ClassFileTransformer;
 import java.lang.instrument.IllegalClassFormatException;
 import java.security.ProtectionDomain;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * An abstract base class that will only execute the bytecode transformation
@@ -17,6 +20,10 @@ import java.security.ProtectionDomain;
  * @since 1.0
  */
 public abstract class RifeTransformer implements ClassFileTransformer {
+    private final LongAdder transformedCount_ = new LongAdder();
+    private final LongAdder transformNanos_ = new LongAdder();
+    private final LongAdder cachedCount_ = new LongAdder();
+
     public final byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined, ProtectionDomain protectionDomain, byte[] classfileBuffer)
     throws IllegalClassFormatException {
         if (className.startsWith("apple/security/") ||
@@ -56,7 +63,98 @@ public abstract class RifeTransformer implements ClassFileTransformer {
             return classfileBuffer;
         }
 
-        return transformRife(loader, className, classBeingRedefined, protectionDomain, classfileBuffer);
+        var start = System.nanoTime();
+        try {
+            // only classes that are being loaded for the first time can
+            // be looked up in the cache
+            var cache_name = getCacheName();
+            var cache = null == cache_name || classBeingRedefined != null ? null : TransformedClassCache.getDefault();
+            if (cache != null) {
+                var cached = cache.get(cache_name, classfileBuffer, this::resolveCacheDependency);
+                if (cached != null) {
+                    cachedCount_.increment();
+                    return cached;
+                }
+            }
+
+            if (null == cache) {
+                return transformRife(loader, className, classBeingRedefined, protectionDomain, classfileBuffer);
+            }
+
+            var dependencies = new LinkedHashMap<String, String>();
+            var result = transformRife(loader, className, classBeingRedefined, protectionDomain, classfileBuffer, dependencies);
+            cache.put(cache_name, classfileBuffer, result, dependencies);
+            return result;
+        } finally {
+            transformedCount_.increment();
+            transformNanos_.add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Provides the name under which the results of this transformer are
+     * stored in the {@link TransformedClassCache}.
+     * <p>Transformers whose results also depend on other classes have to
+     * collect these dependencies in
+     * {@link #transformRife(ClassLoader, String, Class, ProtectionDomain, byte[], Map)}
+     * and resolve them again in {@link #resolveCacheDependency}.
+     * <p>By default, this method returns {@code null} and the results of
+     * the transformer are not cached.
+     *
+     * @return the name of the cached transformation; or
+     * <p>{@code null} if the results shouldn't be cached
+     * @since 1.9.0
+     */
+    protected String getCacheName() {
+        return null;
+    }
+
+    /**
+     * Resolves the current value of a dependency that was collected
+     * while transforming a class, to verify that a cached result can
+     * still be used.
+     * <p>By default, this method returns {@code null} and cached results
+     * with dependencies are never used.
+     *
+     * @param dependency the name of the dependency
+     * @return the current value of the dependency
+     * @since 1.9.0
+     */
+    protected String resolveCacheDependency(String dependency) {
+        return null;
+    }
+
+    /**
+     * Retrieves the number of classes that were handled by this
+     * transformer, excluding those of the core packages.
+     *
+     * @return the number of handled classes
+     * @since 1.9.0
+     */
+    public long getTransformedCount() {
+        return transformedCount_.sum();
+    }
+
+    /**
+     * Retrieves the number of classes that this transformer retrieved
+     * from the {@link TransformedClassCache}.
+     *
+     * @return the number of cached classes
+     * @since 1.9.0
+     */
+    public long getCachedCount() {
+        return cachedCount_.sum();
+    }
+
+    /**
+     * Retrieves the total time that this transformer spent on handling
+     * classes.
+     *
+     * @return the transformation time in nanoseconds
+     * @since 1.9.0
+     */
+    public long getTransformNanos() {
+        return transformNanos_.sum();
     }
 
     /**
@@ -70,4 +168,24 @@ public abstract class RifeTransformer implements ClassFileTransformer {
      */
     protected abstract byte[] transformRife(ClassLoader loader, String classNameInternal, Class<?> classBeingRedefined, ProtectionDomain protectionDomain, byte[] classfileBuffer)
     throws IllegalClassFormatException;
+
+    /**
+     * Transforms a class whose result will be stored in the
+     * {@link TransformedClassCache}.
+     * <p>Transformers whose results depend on other classes than the one
+     * that's being transformed, should override this method and add the
+     * values these results depend on to the provided map.
+     * <p>By default, this method calls the regular {@code transformRife}
+     * method without collecting any dependencies.
+     *
+     * @param cacheDependencies the map that the dependencies of the result
+     *                          should be added to; or {@code null} if they
+     *                          don't need to be collected
+     * @see #transformRife(ClassLoader, String, Class, ProtectionDomain, byte[])
+     * @since 1.9.0
+     */
+    protected byte[] transformRife(ClassLoader loader, String classNameInternal, Class<?> classBeingRedefined, ProtectionDomain protectionDomain, byte[] classfileBuffer, Map<String, String> cacheDependencies)
+    throws IllegalClassFormatException {
+        return transformRife(loader, classNameInternal, classBeingRedefined, protectionDomain, classfileBuffer);
+    }
 }
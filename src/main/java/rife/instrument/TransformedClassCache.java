@@ -0,0 +1,276 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.instrument;
+
+import rife.Version;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persistent on-disk cache of transformed class bytes.
+ * <p>The transformed bytes are stored under a hash of the original class
+ * bytes, the name of the transformation and the RIFE2 version. Classes that
+ * didn't change during an earlier JVM run are thus not instrumented again,
+ * classes whose bytecode changed simply get a new entry.
+ * <p>The default cache is enabled by setting the
+ * {@value #PROPERTY_INSTRUMENTATION_CACHE} system property to the path of
+ * a directory, for example:
+ * <pre>java -Drife.instrumentation.cache=/var/cache/myapp -javaagent:/path/to/rife2-agent-[version].jar com.your.mainClass</pre>
+ * <p>Transformations that also depend on other classes, for instance to
+ * compute the common super class of two types, store these dependencies
+ * with the transformed bytes. They are resolved again when the entry is
+ * retrieved and the entry is ignored when any of them changed.
+ * When the instrumentation configuration changes without the RIFE2 version
+ * changing, the cache directory should be cleared.
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @since 1.9.0
+ */
+public class TransformedClassCache {
+    public static final String PROPERTY_INSTRUMENTATION_CACHE = "rife.instrumentation.cache";
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private static volatile TransformedClassCache defaultCache_ = null;
+    private static volatile boolean defaultResolved_ = false;
+
+    private final Path directory_;
+    private final LongAdder hits_ = new LongAdder();
+    private final LongAdder misses_ = new LongAdder();
+
+    /**
+     * Creates a new cache that stores its entries in a directory.
+     *
+     * @param directory the directory of the cache, it will be created if
+     *                  it doesn't exist yet
+     * @since 1.9.0
+     */
+    public TransformedClassCache(File directory) {
+        if (null == directory) throw new IllegalArgumentException("directory can't be null");
+
+        directory_ = directory.toPath();
+    }
+
+    /**
+     * Retrieves the cache that is configured through the
+     * {@value #PROPERTY_INSTRUMENTATION_CACHE} system property.
+     *
+     * @return the default cache; or
+     * <p>{@code null} if no cache directory was configured
+     * @since 1.9.0
+     */
+    public static TransformedClassCache getDefault() {
+        if (!defaultResolved_) {
+            synchronized (TransformedClassCache.class) {
+                if (!defaultResolved_) {
+                    var directory = System.getProperty(PROPERTY_INSTRUMENTATION_CACHE);
+                    if (directory != null && !directory.isBlank()) {
+                        defaultCache_ = new TransformedClassCache(new File(directory));
+                    }
+                    defaultResolved_ = true;
+                }
+            }
+        }
+
+        return defaultCache_;
+    }
+
+    /**
+     * Retrieves the transformed bytes of a class.
+     *
+     * @param transformation the name of the transformation
+     * @param original       the original bytes of the class
+     * @return the transformed bytes; or
+     * <p>the original bytes if the transformation didn't change the class; or
+     * <p>{@code null} if the class isn't in the cache
+     * @since 1.9.0
+     */
+    public byte[] get(String transformation, byte[] original) {
+        return get(transformation, original, null);
+    }
+
+    /**
+     * Retrieves the transformed bytes of a class, provided that the
+     * dependencies that were stored with them still resolve to the same
+     * values.
+     *
+     * @param transformation the name of the transformation
+     * @param original       the original bytes of the class
+     * @param resolver       resolves the current value of a dependency; or
+     *                       {@code null} if only entries without
+     *                       dependencies should be retrieved
+     * @return the transformed bytes; or
+     * <p>the original bytes if the transformation didn't change the class; or
+     * <p>{@code null} if the class isn't in the cache or if its
+     * dependencies changed
+     * @since 1.9.0
+     */
+    public byte[] get(String transformation, byte[] original, UnaryOperator<String> resolver) {
+        var file = entryFile(transformation, original);
+        if (file != null) {
+            try {
+                var bytes = readEntry(file, resolver);
+                if (bytes != null) {
+                    hits_.increment();
+                    if (0 == bytes.length) {
+                        return original;
+                    }
+                    return bytes;
+                }
+            } catch (NoSuchFileException e) {
+                // not cached yet
+            } catch (IOException e) {
+                Logger.getLogger("rife.instrument").log(Level.FINE, "Unable to read the cached class " + file + ".", e);
+            }
+        }
+
+        misses_.increment();
+        return null;
+    }
+
+    private static byte[] readEntry(Path file, UnaryOperator<String> resolver)
+    throws IOException {
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            var count = in.readInt();
+            if (count < 0) {
+                return null;
+            }
+            if (count > 0 && null == resolver) {
+                return null;
+            }
+
+            for (var i = 0; i < count; i++) {
+                var dependency = in.readUTF();
+                var value = in.readUTF();
+                try {
+                    if (!value.equals(resolver.apply(dependency))) {
+                        return null;
+                    }
+                } catch (RuntimeException e) {
+                    // dependencies that can't be resolved anymore changed
+                    return null;
+                }
+            }
+
+            return in.readAllBytes();
+        } catch (EOFException e) {
+            // truncated or written in another format
+            return null;
+        }
+    }
+
+    /**
+     * Stores the transformed bytes of a class.
+     *
+     * @param transformation the name of the transformation
+     * @param original       the original bytes of the class
+     * @param transformed    the transformed bytes; or {@code null} if
+     *                       the transformation didn't change the class
+     * @since 1.9.0
+     */
+    public void put(String transformation, byte[] original, byte[] transformed) {
+        put(transformation, original, transformed, null);
+    }
+
+    /**
+     * Stores the transformed bytes of a class together with the
+     * dependencies that the transformation relied on.
+     *
+     * @param transformation the name of the transformation
+     * @param original       the original bytes of the class
+     * @param transformed    the transformed bytes; or {@code null} if
+     *                       the transformation didn't change the class
+     * @param dependencies   the values of the dependencies by name; or
+     *                       {@code null} if there are none
+     * @see #get(String, byte[], UnaryOperator)
+     * @since 1.9.0
+     */
+    public void put(String transformation, byte[] original, byte[] transformed, Map<String, String> dependencies) {
+        var file = entryFile(transformation, original);
+        if (null == file) {
+            return;
+        }
+
+        try {
+            // write to a temporary file first so that concurrent JVMs
+            // never read a partial entry
+            Files.createDirectories(file.getParent());
+            var temp_file = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try {
+                try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp_file)))) {
+                    if (null == dependencies) {
+                        out.writeInt(0);
+                    } else {
+                        out.writeInt(dependencies.size());
+                        for (var dependency : dependencies.entrySet()) {
+                            out.writeUTF(dependency.getKey());
+                            out.writeUTF(dependency.getValue());
+                        }
+                    }
+                    if (transformed != null && transformed != original) {
+                        out.write(transformed);
+                    }
+                }
+                Files.move(temp_file, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp_file);
+            }
+        } catch (IOException e) {
+            Logger.getLogger("rife.instrument").log(Level.FINE, "Unable to cache the class " + file + ".", e);
+        }
+    }
+
+    /**
+     * Retrieves the number of classes that were found in this cache.
+     *
+     * @return the number of cache hits
+     * @since 1.9.0
+     */
+    public long getHitCount() {
+        return hits_.sum();
+    }
+
+    /**
+     * Retrieves the number of classes that were not found in this cache.
+     *
+     * @return the number of cache misses
+     * @since 1.9.0
+     */
+    public long getMissCount() {
+        return misses_.sum();
+    }
+
+    private Path entryFile(String transformation, byte[] original) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
+
+        digest.update(Version.getVersion().getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(transformation.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(original);
+
+        // spread the entries over sub-directories to keep them small
+        var hash = HEX.formatHex(digest.digest());
+        return directory_.resolve(hash.substring(0, 2)).resolve(hash.substring(2) + ".class");
+    }
+}
@@ -5,6 +5,11 @@
 package rife.scheduler;
 
 import rife.scheduler.exceptions.SchedulerExecutionException;
+import rife.scheduler.exceptions.TaskManagerException;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Executor is an abstract class that can be extended to implement the logic
@@ -21,6 +26,8 @@ public abstract class Executor {
     public static final int DEFAULT_RESCHEDULE_DELAY = 1000;
 
     private Scheduler scheduler_ = null;
+    private final AtomicInteger activeTasks_ = new AtomicInteger();
+    private final AtomicBoolean heldBack_ = new AtomicBoolean(false);
 
     /**
      * Needs to be implemented with the logic that should happen when
@@ -94,12 +101,85 @@ public abstract class Executor {
         scheduler_ = scheduler;
     }
 
-    final void startTaskExecution(Task task)
+    /**
+     * Provides the maximum number of tasks of this executor that are
+     * allowed to run concurrently.
+     * <p>
+     * By default, this is {@code 0}, meaning that there's no limit. When
+     * the limit is reached, tasks that are due stay planned and will be
+     * executed as soon as a running task finishes.
+     *
+     * @return the maximum number of concurrent tasks; or
+     * {@code 0} if the number of concurrent tasks is unlimited
+     * @since 1.9.0
+     */
+    public int getMaximumConcurrentTasks() {
+        return 0;
+    }
+
+    /**
+     * Retrieves the number of tasks of this executor that are currently
+     * running.
+     *
+     * @return the number of running tasks
+     * @since 1.9.0
+     */
+    public int getActiveTaskCount() {
+        return activeTasks_.get();
+    }
+
+    final boolean startTaskExecution(Task task)
     throws SchedulerExecutionException {
         assert task != null;
 
-        var executor_thread = new ExecutorThread(this, task);
-        var thread = new Thread(executor_thread, getHandledTaskType());
-        thread.start();
+        var maximum = getMaximumConcurrentTasks();
+        if (activeTasks_.incrementAndGet() > maximum && maximum > 0) {
+            activeTasks_.decrementAndGet();
+            heldBack_.set(true);
+            return false;
+        }
+
+        // activate the task before handing it off, this prevents a next
+        // scheduling step from picking it up again while it's queued
+        var activated = false;
+        try {
+            scheduler_.getTaskManager().activateTask(task.getId());
+            activated = true;
+        } catch (TaskManagerException ignored) {
+        }
+
+        var executor_thread = new ExecutorThread(this, task, activated);
+        var executor_service = scheduler_.getExecutorService();
+        try {
+            if (null == executor_service) {
+                var thread = new Thread(executor_thread, getHandledTaskType());
+                thread.start();
+            } else {
+                executor_service.execute(executor_thread);
+            }
+        } catch (RejectedExecutionException e) {
+            activeTasks_.decrementAndGet();
+            if (activated) {
+                try {
+                    scheduler_.getTaskManager().deactivateTask(task.getId());
+                } catch (TaskManagerException ignored) {
+                }
+            }
+            return false;
+        }
+
+        return true;
+    }
+
+    final void finishTaskExecution() {
+        activeTasks_.decrementAndGet();
+
+        // let the scheduler pick up tasks that were held back by
+        // the concurrency limit, only when that actually happened
+        var scheduler = scheduler_;
+        if (scheduler != null &&
+            heldBack_.compareAndSet(true, false)) {
+            scheduler.wakeup(System.currentTimeMillis() - 1);
+        }
     }
 }
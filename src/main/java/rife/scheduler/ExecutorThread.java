@@ -10,10 +10,12 @@ import rife.scheduler.exceptions.TaskManagerException;
 class ExecutorThread implements Runnable {
     private final Executor executor_;
     private final Task task_;
+    private final boolean activated_;
 
-    public ExecutorThread(Executor executor, Task task) {
+    public ExecutorThread(Executor executor, Task task, boolean activated) {
         executor_ = executor;
         task_ = task;
+        activated_ = activated;
     }
 
     public void run() {
@@ -23,9 +25,9 @@ class ExecutorThread implements Runnable {
         var manager = executor_.getScheduler().getTaskManager();
 
         try {
-            manager.activateTask(task_.getId());
-            successful_execution = executor_.executeTask(task_);
-        } catch (TaskManagerException ignored) {
+            if (activated_) {
+                successful_execution = executor_.executeTask(task_);
+            }
         } finally {
             try {
                 if (!successful_execution) {
@@ -34,6 +36,8 @@ class ExecutorThread implements Runnable {
                 manager.concludeTask(task_);
             } catch (TaskManagerException e) {
                 throw new FatalTaskExecutionException(task_, e);
+            } finally {
+                executor_.finishTaskExecution();
             }
         }
     }
@@ -10,6 +10,7 @@ import rife.scheduler.schedulermanagers.DatabaseScheduling;
 import rife.scheduler.schedulermanagers.MemoryScheduling;
 
 import java.util.*;
+import java.util.concurrent.ExecutorService;
 
 /**
  * The {@code Scheduler} class performs the actual task scheduling and dispatch to
@@ -31,6 +32,9 @@ public class Scheduler implements Runnable {
     private TaskManager taskManager_ = null;
     private TaskOptionManager taskOptionManager_ = null;
     private int sleepTime_ = DEFAULT_SLEEP_TIME;
+    private long nextWakeup_ = Long.MAX_VALUE;
+    private boolean wakeupPending_ = false;
+    private ExecutorService executorService_ = null;
     private final HashMap<Object, Executor> executors_;
 
     /**
@@ -208,6 +212,68 @@ public class Scheduler implements Runnable {
         sleepTime_ = sleepTime;
     }
 
+    /**
+     * Sets the executor service that will run the tasks.
+     * <p>
+     * By default, no executor service is set and each task execution is
+     * started in a dedicated thread. Providing a bounded thread pool or a
+     * virtual thread executor prevents thread storms when many tasks are
+     * due at the same time. When the executor service rejects a task, it
+     * will simply be retried during a later scheduling step.
+     *
+     * @param executorService the executor service to use; or
+     *                        {@code null} to start a new thread for each task
+     * @since 1.9.0
+     */
+    public void setExecutorService(ExecutorService executorService) {
+        executorService_ = executorService;
+    }
+
+    /**
+     * Retrieves the executor service that runs the tasks.
+     *
+     * @return this scheduler's executor service; or
+     * {@code null} if a new thread is started for each task
+     * @see #setExecutorService
+     * @since 1.9.0
+     */
+    public ExecutorService getExecutorService() {
+        return executorService_;
+    }
+
+    /**
+     * Notifies the scheduler that a task has been planned at a certain
+     * moment.
+     * <p>
+     * If that moment lies before the next scheduling step, the scheduler
+     * will wake up earlier instead of waiting for its full sleep time. This
+     * is called by the task managers when tasks are added or updated, so
+     * that tasks don't have to wait up to the sleep time to be executed.
+     * <p>
+     * Notifications are coalesced, only those that move the next
+     * scheduling step earlier have an effect and all the notifications
+     * that arrive before the scheduler wakes up or while it processes
+     * the tasks result in a single additional scheduling step.
+     *
+     * @param planned the timestamp in milliseconds at which a task is planned
+     * @since 1.9.0
+     */
+    public void wakeup(long planned) {
+        // tasks are only processed once their planned moment has passed
+        var wakeup = planned + 1;
+        synchronized (this) {
+            if (wakeup < nextWakeup_) {
+                nextWakeup_ = wakeup;
+                // a pending wakeup already makes the scheduler recheck
+                // its deadline, there's no need to notify it again
+                if (!wakeupPending_) {
+                    wakeupPending_ = true;
+                    notifyAll();
+                }
+            }
+        }
+    }
+
     /**
      * Starts this scheduler.
      *
@@ -266,15 +332,26 @@ public class Scheduler implements Runnable {
             while (true) {
                 try {
                     if (!Thread.interrupted()) {
+                        synchronized (this) {
+                            nextWakeup_ = Long.MAX_VALUE;
+                            wakeupPending_ = false;
+                        }
+
                         scheduleStep();
                         // Ensure that the wakeup is always on an even multiplier of the
                         // sleep time, this to ensure that no drift occurs.
                         var now = RifeConfig.tools().getCalendarInstance().getTimeInMillis();
                         var projected = ((now + sleepTime_) / sleepTime_) * sleepTime_;
-                        var difference = projected - now;
 
                         synchronized (this) {
-                            wait(difference);
+                            // tasks that were planned during the step can
+                            // already have requested an earlier wakeup
+                            nextWakeup_ = Math.min(nextWakeup_, projected);
+                            while (now < nextWakeup_) {
+                                wakeupPending_ = false;
+                                wait(nextWakeup_ - now);
+                                now = RifeConfig.tools().getCalendarInstance().getTimeInMillis();
+                            }
                         }
                     } else {
                         break;
@@ -310,6 +387,8 @@ public class Scheduler implements Runnable {
                 else {
                     executor = executors_.get(task.getType());
                     if (null != executor) {
+                        // executors that reached their concurrency limit leave
+                        // the task planned, it will be picked up in a later step
                         executor.startTaskExecution(task);
                     } else {
                         throw new NoExecutorForTasktypeException(task.getType());
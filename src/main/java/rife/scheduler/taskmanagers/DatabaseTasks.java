@@ -45,14 +45,16 @@ public abstract class DatabaseTasks extends DbQueryManager implements TaskManage
     public abstract boolean remove()
     throws TaskManagerException;
 
-    protected boolean install_(final CreateSequence createSequenceTask, final CreateTable createTableTask)
+    protected boolean install_(final CreateSequence createSequenceTask, final CreateTable createTableTask, final String createTaskPlannedIndex)
     throws TaskManagerException {
         assert createSequenceTask != null;
         assert createTableTask != null;
+        assert createTaskPlannedIndex != null;
 
         try {
             executeUpdate(createSequenceTask);
             executeUpdate(createTableTask);
+            executeUpdate(createTaskPlannedIndex);
         } catch (DatabaseException e) {
             throw new InstallTasksErrorException(e);
         }
@@ -60,12 +62,14 @@ public abstract class DatabaseTasks extends DbQueryManager implements TaskManage
         return true;
     }
 
-    protected boolean remove_(final DropSequence dropSequenceTask, final DropTable dropTableTask)
+    protected boolean remove_(final DropSequence dropSequenceTask, final DropTable dropTableTask, final String removeTaskPlannedIndex)
     throws TaskManagerException {
         assert dropSequenceTask != null;
         assert dropTableTask != null;
+        assert removeTaskPlannedIndex != null;
 
         try {
+            executeUpdate(removeTaskPlannedIndex);
             executeUpdate(dropTableTask);
             executeUpdate(dropSequenceTask);
         } catch (DatabaseException e) {
@@ -105,6 +109,10 @@ public abstract class DatabaseTasks extends DbQueryManager implements TaskManage
             } catch (DatabaseException e) {
                 throw new AddTaskErrorException(task, e);
             }
+
+            if (scheduler_ != null) {
+                scheduler_.wakeup(task.getPlanned());
+            }
         }
 
         assert result >= 0;
@@ -130,6 +138,10 @@ public abstract class DatabaseTasks extends DbQueryManager implements TaskManage
             throw new UpdateTaskErrorException(task, e);
         }
 
+        if (scheduler_ != null) {
+            scheduler_.wakeup(task.getPlanned());
+        }
+
         return result;
     }
 
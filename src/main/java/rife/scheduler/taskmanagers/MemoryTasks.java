@@ -17,11 +17,42 @@ import java.util.*;
 
 public class MemoryTasks implements TaskManager {
     private final Map<Integer, Task> taskMapping_;
+    // index of the task IDs ordered by their planned time, this allows
+    // each scheduler step to only visit the tasks that are due
+    private final NavigableSet<PlannedTask> plannedIndex_;
+    private final Map<Integer, PlannedTask> plannedMapping_;
     private Scheduler scheduler_ = null;
     private int taskIdSequence_ = 0;
 
+    private record PlannedTask(long planned, int id)
+    implements Comparable<PlannedTask> {
+        public int compareTo(PlannedTask other) {
+            var result = Long.compare(planned, other.planned);
+            if (result != 0) {
+                return result;
+            }
+            return Integer.compare(id, other.id);
+        }
+    }
+
     public MemoryTasks() {
         taskMapping_ = new HashMap<>();
+        plannedIndex_ = new TreeSet<>();
+        plannedMapping_ = new HashMap<>();
+    }
+
+    private void indexTask(int id, Task task) {
+        // the planned time is remembered separately since the stored
+        // task instance might have been modified before being updated
+        var previous = plannedMapping_.remove(id);
+        if (previous != null) {
+            plannedIndex_.remove(previous);
+        }
+        if (task != null) {
+            var planned = new PlannedTask(task.getPlanned(), id);
+            plannedMapping_.put(id, planned);
+            plannedIndex_.add(planned);
+        }
     }
 
     public void setScheduler(Scheduler scheduler) {
@@ -45,10 +76,15 @@ public class MemoryTasks implements TaskManager {
 
             task.setId(task_id);
             taskMapping_.put(task_id, task);
+            indexTask(task_id, task);
             task.setTaskManager(this);
+        }
 
-            return task_id;
+        if (scheduler_ != null) {
+            scheduler_.wakeup(task.getPlanned());
         }
+
+        return task.getId();
     }
 
     public boolean updateTask(Task task)
@@ -64,10 +100,15 @@ public class MemoryTasks implements TaskManager {
             }
 
             taskMapping_.put(task_id, task);
+            indexTask(task_id, task);
             task.setTaskManager(this);
+        }
 
-            return true;
+        if (scheduler_ != null) {
+            scheduler_.wakeup(task.getPlanned());
         }
+
+        return true;
     }
 
     public Task getTask(int id)
@@ -91,9 +132,10 @@ public class MemoryTasks implements TaskManager {
         var tasks_to_process = new ArrayList<Task>();
 
         synchronized (this) {
-            for (var task : taskMapping_.values()) {
-                if (!task.isBusy() &&
-                    task.getPlanned() < System.currentTimeMillis()) {
+            var due = new PlannedTask(System.currentTimeMillis(), Integer.MIN_VALUE);
+            for (var planned : plannedIndex_.headSet(due, false)) {
+                var task = taskMapping_.get(planned.id());
+                if (!task.isBusy()) {
                     tasks_to_process.add(task);
                 }
             }
@@ -107,9 +149,10 @@ public class MemoryTasks implements TaskManager {
         var scheduled_tasks = new ArrayList<Task>();
 
         synchronized (this) {
-            for (var task : taskMapping_.values()) {
-                if (!task.isBusy() &&
-                    task.getPlanned() >= System.currentTimeMillis()) {
+            var due = new PlannedTask(System.currentTimeMillis(), Integer.MIN_VALUE);
+            for (var planned : plannedIndex_.tailSet(due, true)) {
+                var task = taskMapping_.get(planned.id());
+                if (!task.isBusy()) {
                     scheduled_tasks.add(task);
                 }
             }
@@ -123,7 +166,11 @@ public class MemoryTasks implements TaskManager {
         if (id < 0) throw new IllegalArgumentException("the task id can't be negative.");
 
         synchronized (this) {
-            return null != taskMapping_.remove(id);
+            if (null == taskMapping_.remove(id)) {
+                return false;
+            }
+            indexTask(id, null);
+            return true;
         }
     }
 
@@ -35,6 +35,8 @@ public class com_mysql_cj_jdbc_Driver extends generic {
             .defaultValue("busy", false)
             .primaryKey(RifeConfig.scheduler().getTableTask().toUpperCase() + "_PK", "id");
 
+        removeTaskPlannedIndex_ = "DROP INDEX " + RifeConfig.scheduler().getTableTask() + "_planned_IDX ON " + RifeConfig.scheduler().getTableTask();
+
         getInsertedTaskId_ = new Select(getDatasource())
             .field("LAST_INSERT_ID()");
     }
@@ -44,6 +46,7 @@ public class com_mysql_cj_jdbc_Driver extends generic {
     throws TaskManagerException {
         try {
             executeUpdate(createTableTask_);
+            executeUpdate(createTaskPlannedIndex_);
         } catch (DatabaseException e) {
             throw new InstallTasksErrorException(e);
         }
@@ -54,6 +57,7 @@ public class com_mysql_cj_jdbc_Driver extends generic {
     public boolean remove()
     throws TaskManagerException {
         try {
+            executeUpdate(removeTaskPlannedIndex_);
             executeUpdate(dropTableTask_);
         } catch (DatabaseException e) {
             throw new RemoveTasksErrorException(e);
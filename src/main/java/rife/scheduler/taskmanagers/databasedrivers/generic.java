@@ -19,8 +19,10 @@ import java.util.Collection;
 public class generic extends DatabaseTasks {
     protected CreateSequence createSequenceTask_ = null;
     protected CreateTable createTableTask_ = null;
+    protected String createTaskPlannedIndex_ = null;
     protected DropSequence dropSequenceTask_ = null;
     protected DropTable dropTableTask_ = null;
+    protected String removeTaskPlannedIndex_ = null;
     protected SequenceValue getTaskId_ = null;
     protected Insert addTask_ = null;
     protected Select getTask_ = null;
@@ -48,12 +50,17 @@ public class generic extends DatabaseTasks {
             .defaultValue("busy", false)
             .primaryKey(RifeConfig.scheduler().getTableTask().toUpperCase() + "_PK", "id");
 
+        // the scheduler looks up the tasks that are due with every step
+        createTaskPlannedIndex_ = "CREATE INDEX " + RifeConfig.scheduler().getTableTask() + "_planned_IDX ON " + RifeConfig.scheduler().getTableTask() + " (planned)";
+
         dropSequenceTask_ = new DropSequence(getDatasource())
             .name(createSequenceTask_.getName());
 
         dropTableTask_ = new DropTable(getDatasource())
             .table(createTableTask_.getTable());
 
+        removeTaskPlannedIndex_ = "DROP INDEX " + RifeConfig.scheduler().getTableTask() + "_planned_IDX";
+
         getTaskId_ = new SequenceValue(getDatasource())
             .name(createSequenceTask_.getName())
             .next();
@@ -108,12 +115,12 @@ public class generic extends DatabaseTasks {
 
     public boolean install()
     throws TaskManagerException {
-        return install_(createSequenceTask_, createTableTask_);
+        return install_(createSequenceTask_, createTableTask_, createTaskPlannedIndex_);
     }
 
     public boolean remove()
     throws TaskManagerException {
-        return remove_(dropSequenceTask_, dropTableTask_);
+        return remove_(dropSequenceTask_, dropTableTask_, removeTaskPlannedIndex_);
     }
 
     public int addTask(final Task task)
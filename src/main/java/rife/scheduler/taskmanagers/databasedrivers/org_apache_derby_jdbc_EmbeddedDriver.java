@@ -50,6 +50,7 @@ public class org_apache_derby_jdbc_EmbeddedDriver extends generic {
     throws TaskManagerException {
         try {
             executeUpdate(createTableTask_);
+            executeUpdate(createTaskPlannedIndex_);
         } catch (DatabaseException e) {
             throw new InstallTasksErrorException(e);
         }
@@ -60,6 +61,7 @@ public class org_apache_derby_jdbc_EmbeddedDriver extends generic {
     public boolean remove()
     throws TaskManagerException {
         try {
+            executeUpdate(removeTaskPlannedIndex_);
             executeUpdate(dropTableTask_);
         } catch (DatabaseException e) {
             throw new RemoveTasksErrorException(e);
@@ -9,6 +9,7 @@ import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpSession;
 import rife.config.RifeConfig;
+import rife.engine.MultipartPart;
 import rife.engine.Request;
 import rife.engine.RequestMethod;
 import rife.engine.UploadedFile;
@@ -18,48 +19,89 @@ import rife.tools.StringUtils;
 
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.util.Collections;
 import java.util.Enumeration;
-import java.util.LinkedHashMap;
 import java.util.Locale;
 import java.util.Map;
 
 public class HttpRequest implements Request {
     private final HttpServletRequest request_;
+    private final long multipartRequestSizeLimit_;
 
+    private MultipartRequest multipartRequest_ = null;
     private Map<String, String[]> parameters_ = null;
     private Map<String, UploadedFile[]> files_ = null;
     private String body_ = null;
     private byte[] bodyAsBytes_ = null;
 
     public HttpRequest(HttpServletRequest request)
+    throws EngineException {
+        this(request, -1L);
+    }
+
+    /**
+     * Creates a new request that limits the size of the body of multipart
+     * requests.
+     *
+     * @param request                   the servlet request
+     * @param multipartRequestSizeLimit the maximum size of the body of a
+     *                                  multipart request in bytes; or {@code -1}
+     *                                  if the size is unlimited
+     * @throws EngineException when the request couldn't be created
+     * @see rife.engine.Site#multipartRequestSizeLimit(long)
+     * @since 1.9.0
+     */
+    public HttpRequest(HttpServletRequest request, long multipartRequestSizeLimit)
     throws EngineException {
         assert request != null;
         request_ = request;
+        multipartRequestSizeLimit_ = multipartRequestSizeLimit;
     }
 
     public void init() {
+        // the parameters, files and body are only read when they're first
+        // retrieved, requests that aren't handled or don't use them are
+        // never parsed
         if (MultipartRequest.isValidContentType(request_.getContentType())) {
-            var multipart_request = new MultipartRequest(request_);
-            parameters_ = multipart_request.getParameterMap();
-            files_ = multipart_request.getFileMap();
+            // the body is parsed when the parameters or files are
+            // retrieved, or it's streamed through getMultipartParts()
+            multipartRequest_ = new MultipartRequest(request_, getMultipartRequestSizeLimit());
         } else {
-            parameters_ = new LinkedHashMap<>();
-
             try {
                 request_.setCharacterEncoding(RifeConfig.engine().getRequestEncoding().toString());
             } catch (UnsupportedEncodingException e) {
                 // should never happen
             }
+        }
+    }
 
-            var parameter_names = request_.getParameterNames();
-            String parameter_name = null;
-            String[] parameter_values = null;
-            while (parameter_names.hasMoreElements()) {
-                parameter_name = parameter_names.nextElement();
-                parameter_values = request_.getParameterValues(parameter_name);
+    /**
+     * Retrieves the maximum size of the body of a multipart request.
+     * <p>Requests that announce a larger content length are rejected before
+     * their body is read, others are aborted as soon as the limit is
+     * exceeded while they're being parsed.
+     * <p>By default, this is the limit that the request was created with.
+     *
+     * @return the maximum size in bytes; or
+     * <p>{@code -1} if the size is unlimited
+     * @since 1.9.0
+     */
+    protected long getMultipartRequestSizeLimit() {
+        return multipartRequestSizeLimit_;
+    }
+
+    private void readParameters() {
+        if (parameters_ != null) {
+            return;
+        }
 
-                parameters_.put(parameter_name, parameter_values);
-            }
+        if (multipartRequest_ != null) {
+            parameters_ = multipartRequest_.getParameterMap();
+            files_ = multipartRequest_.getFileMap();
+        } else {
+            // the servlet container's parameter map is immutable and
+            // can be shared as-is
+            parameters_ = request_.getParameterMap();
         }
     }
 
@@ -70,9 +112,20 @@ public class HttpRequest implements Request {
 
     @Override
     public Map<String, String[]> getParameters() {
+        readParameters();
         return parameters_;
     }
 
+    @Override
+    public String peekParameter(String name) {
+        // a multipart body that hasn't been parsed yet is left untouched,
+        // the servlet container only provides the URL parameters then
+        if (multipartRequest_ != null && null == parameters_) {
+            return request_.getParameter(name);
+        }
+        return Request.super.peekParameter(name);
+    }
+
     @Override
     public String getBody() {
         if (body_== null) {
@@ -85,6 +138,12 @@ public class HttpRequest implements Request {
     @Override
     public byte[] getBodyAsBytes() {
         if (bodyAsBytes_ == null) {
+            // form parameters are read from the body, always read them
+            // first so that they're not lost by consuming the body
+            if (null == multipartRequest_) {
+                readParameters();
+            }
+
             try {
                 bodyAsBytes_ = FileUtils.readBytes(request_.getInputStream());
             } catch (IOException e) {
@@ -97,9 +156,18 @@ public class HttpRequest implements Request {
 
     @Override
     public Map<String, UploadedFile[]> getFiles() {
+        readParameters();
         return files_;
     }
 
+    @Override
+    public Iterable<MultipartPart> getMultipartParts() {
+        if (null == multipartRequest_) {
+            return Collections.emptyList();
+        }
+        return multipartRequest_.getParts();
+    }
+
     @Override
     public boolean hasFile(String name) {
         assert name != null;
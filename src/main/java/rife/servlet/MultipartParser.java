@@ -0,0 +1,539 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.servlet;
+
+import rife.engine.MultipartPart;
+import rife.engine.exceptions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Streaming parser for {@code multipart/form-data} request bodies.
+ * <p>The body is read through a single buffer that is pooled per thread.
+ * The part boundaries are located with a Boyer-Moore-Horspool scan over
+ * that buffer, so the content of the parts is never split into lines and
+ * can be handed to the consumer without copying it first.
+ * <p>The line breaks before the boundaries are expected to be
+ * {@code \r\n}, but bodies that only use {@code \n} are supported too.
+ *
+ * @author Geert Bevin (gbevin[remove] at uwyn dot com)
+ * @since 1.9.0
+ */
+class MultipartParser {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final ThreadLocal<byte[]> BUFFERS = new ThreadLocal<>();
+
+    private static final String CONTENT_TYPE_HEADER = "content-type";
+    private static final String CONTENT_DISPOSITION_PREFIX = "content-disposition: ";
+    private static final int CONTENT_DISPOSITION_PREFIX_LENGTH = CONTENT_DISPOSITION_PREFIX.length();
+    private static final String FIELD_NAME_PREFIX = "name=\"";
+    private static final int FIELD_NAME_PREFIX_LENGTH = FIELD_NAME_PREFIX.length();
+    private static final String FILENAME_PREFIX = "filename=\"";
+    private static final int FILENAME_PREFIX_LENGTH = FILENAME_PREFIX.length();
+    private static final String QUOTE = "\"";
+    private static final String FORM_DATA_DISPOSITION = "form-data";
+
+    private final InputStream input_;
+    private final String boundary_;
+    private final Charset charset_;
+    private final long sizeLimit_;
+
+    private final byte[] delimiter_;
+    private final int[] skipTable_;
+
+    private byte[] buffer_;
+    private int position_ = 0;
+    private int limit_ = 0;
+    private int delimiterIndex_ = -1;
+    private int contentEnd_ = -1;
+    private long totalRead_ = 0;
+    private boolean endOfInput_ = false;
+
+    private boolean started_ = false;
+    private boolean finished_ = false;
+    private Part currentPart_ = null;
+
+    /**
+     * Creates a new parser.
+     *
+     * @param input     the stream of the request body
+     * @param boundary  the boundary that separates the parts, including
+     *                  the leading {@code --}
+     * @param encoding  the encoding of the part headers and parameter values
+     * @param sizeLimit the maximum number of bytes that can be read from the
+     *                  request body; or {@code -1} if it's unlimited
+     * @since 1.9.0
+     */
+    MultipartParser(InputStream input, String boundary, String encoding, long sizeLimit) {
+        input_ = input;
+        boundary_ = boundary;
+        charset_ = Charset.forName(encoding);
+        sizeLimit_ = sizeLimit;
+
+        // the content of a part always ends with a line break before the
+        // boundary, a carriage return before it is checked separately
+        delimiter_ = ("\n" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        skipTable_ = new int[256];
+        Arrays.fill(skipTable_, delimiter_.length);
+        for (var i = 0; i < delimiter_.length - 1; i++) {
+            skipTable_[delimiter_[i] & 0xff] = delimiter_.length - 1 - i;
+        }
+
+        buffer_ = obtainBuffer();
+    }
+
+    private static byte[] obtainBuffer() {
+        var buffer = BUFFERS.get();
+        if (buffer != null) {
+            BUFFERS.set(null);
+            return buffer;
+        }
+        return new byte[BUFFER_SIZE];
+    }
+
+    private static void releaseBuffer(byte[] buffer) {
+        if (null == BUFFERS.get()) {
+            BUFFERS.set(buffer);
+        }
+    }
+
+    /**
+     * Moves to the next part of the request body, skipping the content of
+     * the current part that wasn't read.
+     *
+     * @return the next part; or
+     * <p>{@code null} if all the parts have been read
+     * @throws MultipartRequestException when the request body couldn't be
+     *                                   parsed
+     * @since 1.9.0
+     */
+    MultipartPart nextPart()
+    throws MultipartRequestException {
+        if (!started_) {
+            started_ = true;
+
+            // the first line should be the first boundary
+            var line = readLine();
+            if (null == line) {
+                throw new MultipartUnexpectedEndingException();
+            }
+            if (!line.startsWith(boundary_)) {
+                throw new MultipartInvalidBoundaryException(boundary_, line);
+            }
+            if (line.startsWith(boundary_ + "--")) {
+                finish();
+            }
+        } else if (currentPart_ != null) {
+            currentPart_.skipRemaining();
+            currentPart_ = null;
+        }
+
+        if (finished_) {
+            return null;
+        }
+
+        // Read the headers; they look like this (not all may be present):
+        // Content-Disposition: form-data; name="field1"; filename="file1.txt"
+        // Content-Type: type/subtype
+        // Content-Transfer-Encoding: binary
+        var headers = new ArrayList<String>();
+
+        var line = readLine();
+        // IE4 on Mac sends an empty line at the end; treat that as the ending too.
+        if (null == line ||
+            line.isEmpty()) {
+            finish();
+            return null;
+        }
+
+        // A line starting with whitespace is considered a continuation
+        while (line != null &&
+               !line.isEmpty()) {
+            var next_line = readLine();
+            while (next_line != null &&
+                   (next_line.startsWith(" ") ||
+                    next_line.startsWith("\t"))) {
+                line = line + next_line;
+                next_line = readLine();
+            }
+            headers.add(line);
+            line = next_line;
+        }
+
+        if (null == line) {
+            throw new MultipartUnexpectedEndingException();
+        }
+
+        String field_name = null;
+        String file_name = null;
+        var content_type = "text/plain";  // rfc1867 says this is the default
+
+        for (var header_line : headers) {
+            var lower_case_line = header_line.toLowerCase();
+            if (lower_case_line.startsWith(CONTENT_DISPOSITION_PREFIX)) {
+                var disposition_info = extractDispositionInfo(header_line);
+                field_name = disposition_info[0];
+                file_name = disposition_info[1];
+            } else if (lower_case_line.startsWith(CONTENT_TYPE_HEADER)) {
+                var type = extractContentType(header_line);
+                if (type != null) {
+                    content_type = type;
+                }
+            }
+        }
+
+        currentPart_ = new Part(field_name, file_name, content_type);
+        return currentPart_;
+    }
+
+    private void finish() {
+        finished_ = true;
+        if (buffer_ != null) {
+            releaseBuffer(buffer_);
+            buffer_ = null;
+        }
+    }
+
+    private boolean fill()
+    throws MultipartRequestException {
+        if (endOfInput_) {
+            return false;
+        }
+
+        // compact the unread bytes to the start of the buffer
+        if (position_ > 0) {
+            System.arraycopy(buffer_, position_, buffer_, 0, limit_ - position_);
+            limit_ -= position_;
+            if (delimiterIndex_ != -1) {
+                delimiterIndex_ -= position_;
+                contentEnd_ -= position_;
+            }
+            position_ = 0;
+        }
+
+        try {
+            var count = input_.read(buffer_, limit_, buffer_.length - limit_);
+            if (-1 == count) {
+                endOfInput_ = true;
+                return false;
+            }
+
+            limit_ += count;
+            totalRead_ += count;
+            if (sizeLimit_ >= 0 &&
+                totalRead_ > sizeLimit_) {
+                throw new MultipartRequestTooBigException(sizeLimit_);
+            }
+            return true;
+        } catch (IOException e) {
+            throw new MultipartInputErrorException(e);
+        }
+    }
+
+    private String readLine()
+    throws MultipartRequestException {
+        ByteArrayOutputStream accumulated = null;
+        while (true) {
+            for (var i = position_; i < limit_; i++) {
+                if ('\n' == buffer_[i]) {
+                    String line;
+                    if (null == accumulated) {
+                        line = decodeLine(buffer_, position_, i - position_);
+                    } else {
+                        accumulated.write(buffer_, position_, i - position_);
+                        var bytes = accumulated.toByteArray();
+                        line = decodeLine(bytes, 0, bytes.length);
+                    }
+                    position_ = i + 1;
+                    return line;
+                }
+            }
+
+            // the line continues beyond the buffered data
+            if (position_ < limit_) {
+                if (null == accumulated) {
+                    accumulated = new ByteArrayOutputStream();
+                }
+                accumulated.write(buffer_, position_, limit_ - position_);
+                position_ = limit_;
+            }
+
+            if (!fill()) {
+                if (null == accumulated) {
+                    return null;
+                }
+                var bytes = accumulated.toByteArray();
+                return decodeLine(bytes, 0, bytes.length);
+            }
+        }
+    }
+
+    private String decodeLine(byte[] bytes, int offset, int length) {
+        // It should always be \r\n but IE5 sometimes does just \n
+        if (length > 0 &&
+            '\r' == bytes[offset + length - 1]) {
+            length -= 1;
+        }
+        return new String(bytes, offset, length, charset_);
+    }
+
+    private int indexOfDelimiter() {
+        var last = delimiter_.length - 1;
+        var i = position_;
+        while (i + last < limit_) {
+            var j = last;
+            while (buffer_[i + j] == delimiter_[j]) {
+                if (0 == j) {
+                    return i;
+                }
+                j -= 1;
+            }
+            i += skipTable_[buffer_[i + last] & 0xff];
+        }
+        return -1;
+    }
+
+    /**
+     * Determines how many bytes of the current part's content can be
+     * consumed from the buffer without reaching into the delimiter.
+     *
+     * @return the number of consumable bytes; or
+     * <p>{@code -1} if the end of the content was reached
+     */
+    private int consumableContent()
+    throws MultipartRequestException {
+        while (true) {
+            if (delimiterIndex_ == -1) {
+                delimiterIndex_ = indexOfDelimiter();
+                if (delimiterIndex_ != -1) {
+                    contentEnd_ = delimiterIndex_;
+                    // the carriage return of a CRLF line break isn't content
+                    if (contentEnd_ > position_ &&
+                        '\r' == buffer_[contentEnd_ - 1]) {
+                        contentEnd_ -= 1;
+                    }
+                }
+            }
+
+            if (delimiterIndex_ != -1) {
+                if (contentEnd_ == position_) {
+                    endContent();
+                    return -1;
+                }
+                return contentEnd_ - position_;
+            }
+
+            // keep enough bytes around to detect a delimiter that is split
+            // across reads, together with the carriage return before it
+            var consumable = limit_ - position_ - delimiter_.length;
+            if (consumable > 0) {
+                return consumable;
+            }
+
+            if (!fill()) {
+                throw new MultipartUnexpectedEndingException();
+            }
+        }
+    }
+
+    private void endContent()
+    throws MultipartRequestException {
+        position_ = delimiterIndex_ + delimiter_.length;
+        delimiterIndex_ = -1;
+        contentEnd_ = -1;
+
+        // the last boundary is immediately followed by two dashes
+        while (limit_ - position_ < 2) {
+            if (!fill()) {
+                break;
+            }
+        }
+        if (limit_ - position_ >= 2 &&
+            '-' == buffer_[position_] &&
+            '-' == buffer_[position_ + 1]) {
+            finish();
+        } else {
+            // consume the line break that ends the boundary
+            readLine();
+        }
+    }
+
+    private static String[] extractDispositionInfo(String dispositionLine)
+    throws MultipartRequestException {
+        var lowcase_line = dispositionLine.toLowerCase();
+
+        // Get the content disposition, should be "form-data"
+        var start = lowcase_line.indexOf(CONTENT_DISPOSITION_PREFIX);
+        var end = lowcase_line.indexOf(";");
+        if (-1 == start ||
+            -1 == end) {
+            throw new MultipartCorruptContentDispositionException(dispositionLine);
+        }
+        var disposition = lowcase_line.substring(start + CONTENT_DISPOSITION_PREFIX_LENGTH, end);
+        if (!disposition.equals(FORM_DATA_DISPOSITION)) {
+            throw new MultipartInvalidContentDispositionException(dispositionLine);
+        }
+
+        // Get the field name, start at last semicolon
+        start = lowcase_line.indexOf(FIELD_NAME_PREFIX, end);
+        end = lowcase_line.indexOf(QUOTE, start + FIELD_NAME_PREFIX_LENGTH);
+        if (-1 == start ||
+            -1 == end) {
+            throw new MultipartCorruptContentDispositionException(dispositionLine);
+        }
+        var fieldname = dispositionLine.substring(start + FIELD_NAME_PREFIX_LENGTH, end);
+
+        // Get the filename, if given
+        String filename = null;
+        start = lowcase_line.indexOf(FILENAME_PREFIX, end + 2); // after quote and space
+        end = lowcase_line.indexOf(QUOTE, start + FILENAME_PREFIX_LENGTH);
+        if (start != -1 &&
+            end != -1) {
+            filename = dispositionLine.substring(start + FILENAME_PREFIX_LENGTH, end);
+
+            // The filename may contain a full path.  Cut to just the filename.
+            var last_slash = Math.max(filename.lastIndexOf('/'), filename.lastIndexOf('\\'));
+            if (last_slash > -1) {
+                filename = filename.substring(last_slash + 1);
+            }
+        }
+
+        // empty filename denotes no file posted!
+        return new String[]{fieldname, filename};
+    }
+
+    private static String extractContentType(String contentTypeLine)
+    throws MultipartRequestException {
+        var lower_case_line = contentTypeLine.toLowerCase();
+        var separator_location = lower_case_line.indexOf(' ');
+        if (-1 == separator_location) {
+            throw new MultipartCorruptContentTypeException(contentTypeLine);
+        }
+        return lower_case_line.substring(separator_location + 1);
+    }
+
+    class Part extends InputStream implements MultipartPart {
+        private final String name_;
+        private final String fileName_;
+        private final boolean file_;
+        private final String contentType_;
+        private boolean ended_ = false;
+
+        private Part(String name, String fileName, String contentType) {
+            name_ = name;
+            file_ = fileName != null;
+            // an empty filename means that no file was selected
+            fileName_ = (null == fileName || fileName.isEmpty()) ? null : fileName;
+            contentType_ = contentType;
+        }
+
+        public String getName() {
+            return name_;
+        }
+
+        public String getFileName() {
+            return fileName_;
+        }
+
+        public boolean isFile() {
+            return file_;
+        }
+
+        public String getContentType() {
+            return contentType_;
+        }
+
+        public InputStream getInputStream() {
+            return this;
+        }
+
+        public String getString()
+        throws IOException {
+            return new String(readAllBytes(), charset_);
+        }
+
+        public int read()
+        throws IOException {
+            var single = new byte[1];
+            if (-1 == read(single, 0, 1)) {
+                return -1;
+            }
+            return single[0] & 0xff;
+        }
+
+        public int read(byte[] bytes, int offset, int length)
+        throws IOException {
+            if (0 == length) {
+                return 0;
+            }
+            if (ended_ || currentPart_ != this) {
+                return -1;
+            }
+
+            var consumable = consumableContent();
+            if (-1 == consumable) {
+                ended_ = true;
+                return -1;
+            }
+
+            var count = Math.min(length, consumable);
+            System.arraycopy(buffer_, position_, bytes, offset, count);
+            position_ += count;
+            return count;
+        }
+
+        /**
+         * Writes the content of this part straight from the parser's buffer.
+         *
+         * @param output the stream to write to
+         * @param limit  the maximum number of bytes to write; or {@code -1}
+         *               if it's unlimited
+         * @return the number of bytes that were written; or
+         * <p>{@code -1} if the content exceeded the limit, in which case
+         * writing stops at the limit
+         * @throws IOException when an error occurred while writing the content
+         */
+        long transferTo(OutputStream output, long limit)
+        throws IOException {
+            long written = 0;
+            while (!ended_) {
+                var consumable = consumableContent();
+                if (-1 == consumable) {
+                    ended_ = true;
+                    break;
+                }
+
+                if (limit >= 0 &&
+                    written + consumable > limit) {
+                    return -1;
+                }
+
+                output.write(buffer_, position_, consumable);
+                position_ += consumable;
+                written += consumable;
+            }
+            return written;
+        }
+
+        private void skipRemaining()
+        throws MultipartRequestException {
+            while (!ended_) {
+                var consumable = consumableContent();
+                if (-1 == consumable) {
+                    ended_ = true;
+                    break;
+                }
+                position_ += consumable;
+            }
+        }
+    }
+}
@@ -4,58 +4,48 @@
  */
 package rife.servlet;
 
-import jakarta.servlet.ServletInputStream;
 import jakarta.servlet.http.HttpServletRequest;
 import rife.config.RifeConfig;
+import rife.engine.MultipartPart;
 import rife.engine.UploadedFile;
 import rife.engine.exceptions.*;
 
 import java.io.*;
 import java.nio.file.Files;
-import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 class MultipartRequest {
     private static final String CONTENT_TYPE_HEADER = "content-type";
     private static final String MULTIPART_CONTENT_TYPE = "multipart/form-data";
     private static final String BOUNDARY_PREFIX = "boundary=";
     private static final int BOUNDARY_PREFIX_LENGTH = BOUNDARY_PREFIX.length();
-    private static final String CONTENT_DISPOSITION_PREFIX = "content-disposition: ";
-    private static final int CONTENT_DISPOSITION_PREFIX_LENGTH = CONTENT_DISPOSITION_PREFIX.length();
-    private static final String FIELD_NAME_PREFIX = "name=\"";
-    private static final int FIELD_NAME_PREFIX_LENGTH = FIELD_NAME_PREFIX.length();
-    private static final String FILENAME_PREFIX = "filename=\"";
-    private static final int FILENAME_PREFIX_LENGTH = FILENAME_PREFIX.length();
-    private static final String QUOTE = "\"";
-    private static final String FORM_DATA_DISPOSITION = "form-data";
     private static final String DEFAULT_ENCODING = "UTF-8";
 
     private File uploadDirectory_ = null;
 
     private final HttpServletRequest request_;
-    private final byte[] parameterBuffer_;
-    private final byte[] fileBuffer_;
+    private final long sizeLimit_;
     private String boundary_ = null;
-    private ServletInputStream input_ = null;
     private String encoding_ = DEFAULT_ENCODING;
+    private boolean consumed_ = false;
 
-    private final Map<String, String[]> parameters_;
-    private final Map<String, UploadedFile[]> files_;
+    private Map<String, String[]> parameters_ = null;
+    private Map<String, UploadedFile[]> files_ = null;
 
     MultipartRequest(HttpServletRequest request) throws MultipartRequestException {
+        this(request, -1);
+    }
+
+    MultipartRequest(HttpServletRequest request, long sizeLimit) throws MultipartRequestException {
         if (null == request) throw new IllegalArgumentException("request can't be null");
 
         request_ = request;
-        parameters_ = new LinkedHashMap<>(request.getParameterMap());
-        files_ = new LinkedHashMap<>();
-        parameterBuffer_ = new byte[8 * 1024];
-        fileBuffer_ = new byte[100 * 1024];
+        sizeLimit_ = sizeLimit;
 
-        checkUploadDirectory();
         initialize();
-        checkInputStart();
-        readParts();
     }
 
     static boolean isValidContentType(String type) {
@@ -64,10 +54,12 @@ class MultipartRequest {
     }
 
     Map<String, String[]> getParameterMap() {
+        readParts();
         return parameters_;
     }
 
     Map<String, UploadedFile[]> getFileMap() {
+        readParts();
         return files_;
     }
 
@@ -77,15 +69,42 @@ class MultipartRequest {
         encoding_ = encoding;
     }
 
-    private void checkUploadDirectory() throws MultipartRequestException {
-        uploadDirectory_ = new File(RifeConfig.engine().getFileUploadPath());
-        uploadDirectory_.mkdirs();
-
-        if (!uploadDirectory_.exists() ||
-            !uploadDirectory_.isDirectory() ||
-            !uploadDirectory_.canWrite()) {
-            throw new MultipartInvalidUploadDirectoryException(uploadDirectory_);
+    /**
+     * Streams the parts of the request body, without storing them.
+     * <p>This can only be done once, and only if the parameters and files
+     * haven't been retrieved before.
+     *
+     * @return the parts of the request body
+     * @throws IllegalStateException when the request body was already consumed
+     * @since 1.9.0
+     */
+    Iterable<MultipartPart> getParts() {
+        if (consumed_) {
+            throw new IllegalStateException("The multipart request body has already been processed.");
         }
+        consumed_ = true;
+
+        var parser = createParser();
+        return () -> new Iterator<>() {
+            private MultipartPart next_ = null;
+            private boolean fetched_ = false;
+
+            public boolean hasNext() {
+                if (!fetched_) {
+                    next_ = parser.nextPart();
+                    fetched_ = true;
+                }
+                return next_ != null;
+            }
+
+            public MultipartPart next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                fetched_ = false;
+                return next_;
+            }
+        };
     }
 
     private void initialize() throws MultipartRequestException {
@@ -120,32 +139,93 @@ class MultipartRequest {
             throw new MultipartMissingBoundaryException();
         }
 
-        // obtain the input stream
+        // abort early when the announced body is already too big
+        if (sizeLimit_ >= 0 &&
+            request_.getContentLengthLong() > sizeLimit_) {
+            throw new MultipartRequestTooBigException(sizeLimit_);
+        }
+    }
+
+    private MultipartParser createParser() throws MultipartRequestException {
         try {
-            input_ = request_.getInputStream();
+            return new MultipartParser(request_.getInputStream(), boundary_, encoding_, sizeLimit_);
         } catch (IOException e) {
             throw new MultipartInputErrorException(e);
         }
     }
 
-    private void checkInputStart() throws MultipartRequestException {
-        // Read the first line, should be the first boundary
-        var line = readLine();
-        if (null == line) {
-            throw new MultipartUnexpectedEndingException();
+    private void checkUploadDirectory() throws MultipartRequestException {
+        if (uploadDirectory_ != null) {
+            return;
         }
 
-        // Verify that the line is the boundary
-        if (!line.startsWith(boundary_)) {
-            throw new MultipartInvalidBoundaryException(boundary_, line);
+        var upload_directory = new File(RifeConfig.engine().getFileUploadPath());
+        upload_directory.mkdirs();
+
+        if (!upload_directory.exists() ||
+            !upload_directory.isDirectory() ||
+            !upload_directory.canWrite()) {
+            throw new MultipartInvalidUploadDirectoryException(upload_directory);
         }
+
+        uploadDirectory_ = upload_directory;
     }
 
     private void readParts() throws MultipartRequestException {
-        var more_parts = true;
+        if (parameters_ != null) {
+            return;
+        }
+
+        parameters_ = new LinkedHashMap<>(request_.getParameterMap());
+        files_ = new LinkedHashMap<>();
+
+        // when the parts were streamed, only the URL parameters remain
+        if (consumed_) {
+            return;
+        }
+        consumed_ = true;
+
+        var parser = createParser();
+        MultipartPart part;
+        while ((part = parser.nextPart()) != null) {
+            var field_name = part.getName();
+            if (!part.isFile()) {
+                // This is a parameter
+                String new_value;
+                try {
+                    new_value = part.getString();
+                } catch (IOException e) {
+                    throw new MultipartInputErrorException(e);
+                }
+                if (new_value.isEmpty()) {
+                    new_value = null;
+                }
 
-        while (more_parts) {
-            more_parts = readNextPart();
+                var values = parameters_.get(field_name);
+                String[] new_values = null;
+                if (null == values) {
+                    new_values = new String[1];
+                } else {
+                    new_values = new String[values.length + 1];
+                    System.arraycopy(values, 0, new_values, 0, values.length);
+                }
+                new_values[new_values.length - 1] = new_value;
+                parameters_.put(field_name, new_values);
+            } else {
+                // This is a file
+                var new_file = new UploadedFile(part.getFileName(), part.getContentType());
+                readAndSaveFile((MultipartParser.Part) part, new_file, field_name);
+                var files = files_.get(field_name);
+                UploadedFile[] new_files = null;
+                if (null == files) {
+                    new_files = new UploadedFile[1];
+                } else {
+                    new_files = new UploadedFile[files.length + 1];
+                    System.arraycopy(files, 0, new_files, 0, files.length);
+                }
+                new_files[new_files.length - 1] = new_file;
+                files_.put(field_name, new_files);
+            }
         }
     }
 
@@ -172,349 +252,42 @@ class MultipartRequest {
         return boundary;
     }
 
-    private String readLine() throws MultipartRequestException {
-        var line_buffer = new StringBuilder();
-
-        var result = 0;
-        do {
-            try {
-                result = input_.readLine(parameterBuffer_, 0, parameterBuffer_.length);
-            } catch (IOException e) {
-                throw new MultipartInputErrorException(e);
-            }
-
-            if (result != -1) {
-                try {
-                    line_buffer.append(new String(parameterBuffer_, 0, result, encoding_));
-                } catch (UnsupportedEncodingException e) {
-                    throw new MultipartInputErrorException(e);
-                }
-            }
-        }
-        // if the buffer wasn't completely filled, the end of the input has been reached
-        while (result == parameterBuffer_.length);
-
-        // if nothing was read, the end of the stream must have been reached
-        if (line_buffer.isEmpty()) {
-            return null;
-        }
-
-        // Cut off the trailing \n or \r\n
-        // It should always be \r\n but IE5 sometimes does just \n
-        var line_length = line_buffer.length();
-        if (line_length >= 2 &&
-            '\r' == line_buffer.charAt(line_length - 2)) {
-            // remove the trailing \r\n
-            line_buffer.setLength(line_length - 2);
-        } else if (line_length >= 1 &&
-            '\n' == line_buffer.charAt(line_length - 1)) {
-            // remove the trailing \n
-            line_buffer.setLength(line_length - 1);
-        }
-
-        return line_buffer.toString();
-    }
-
-    private boolean readNextPart() throws MultipartRequestException {
-        // Read the headers; they look like this (not all may be present):
-        // Content-Disposition: form-data; name="field1"; filename="file1.txt"
-        // Content-Type: type/subtype
-        // Content-Transfer-Encoding: binary
-        var headers = new ArrayList<String>();
-
-        var line = readLine();
-        // When no next line could be read, the end was reached.
-        // IE4 on Mac sends an empty line at the end; treat that as the ending too.
-        if (null == line ||
-            (line.isEmpty())) {
-            // No parts left, we're done
-            return false;
-        }
-
-        // Read the following header lines we hit an empty line
-        // A line starting with whitespace is considered a continuation;
-        // that requires a little special logic.
-        while (null != line &&
-            (!line.isEmpty())) {
-            String next_line = null;
-            var obtain_next_line = true;
-            while (obtain_next_line) {
-                next_line = readLine();
-
-                if (next_line != null &&
-                    (next_line.startsWith(" ") ||
-                        next_line.startsWith("\t"))) {
-                    line = line + next_line;
-                } else {
-                    obtain_next_line = false;
-                }
-            }
-            // Add the line to the header list
-            headers.add(line);
-            line = next_line;
-        }
-
-        // If we got a null above, it's the end
-        if (line == null) {
-            return false;
-        }
-
-        String field_name = null;
-        String file_name = null;
-        var content_type = "text/plain";  // rfc1867 says this is the default
-
-        String[] disposition_info = null;
-
-        for (var headerline : headers) {
-            if (headerline.toLowerCase().startsWith(CONTENT_DISPOSITION_PREFIX)) {
-                // Parse the content-disposition line
-                disposition_info = extractDispositionInfo(headerline);
-
-                field_name = disposition_info[0];
-                file_name = disposition_info[1];
-            } else if (headerline.toLowerCase().startsWith(CONTENT_TYPE_HEADER)) {
-                // Get the content type, or null if none specified
-                var type = extractContentType(headerline);
-                if (type != null) {
-                    content_type = type;
-                }
-            }
-        }
-
-        if (null == file_name) {
-            // This is a parameter
-            var new_value = readParameter();
-            var values = parameters_.get(field_name);
-            String[] new_values = null;
-            if (null == values) {
-                new_values = new String[1];
-            } else {
-                new_values = new String[values.length + 1];
-                System.arraycopy(values, 0, new_values, 0, values.length);
-            }
-            new_values[new_values.length - 1] = new_value;
-            parameters_.put(field_name, new_values);
-        } else {
-            // This is a file
-            if (file_name.isEmpty()) {
-                // empty filename, probably an "empty" file param
-                file_name = null;
-            }
-
-            var new_file = new UploadedFile(file_name, content_type);
-            readAndSaveFile(new_file, field_name);
-            var files = files_.get(field_name);
-            UploadedFile[] new_files = null;
-            if (null == files) {
-                new_files = new UploadedFile[1];
-            } else {
-                new_files = new UploadedFile[files.length + 1];
-                System.arraycopy(files, 0, new_files, 0, files.length);
-            }
-            new_files[new_files.length - 1] = new_file;
-            files_.put(field_name, new_files);
-        }
-
-        return true;
-    }
-
-    private String[] extractDispositionInfo(String dispositionLine) throws MultipartRequestException {
-        // Return the line's data as an array: disposition, name, filename, full filename
-        var result = new String[3];
-        var lowcase_line = dispositionLine.toLowerCase();
-        String fieldname = null;
-        String filename = null;
-        String filename_full = null;
-
-        // Get the content disposition, should be "form-data"
-        var start = lowcase_line.indexOf(CONTENT_DISPOSITION_PREFIX);
-        var end = lowcase_line.indexOf(";");
-        if (-1 == start ||
-            -1 == end) {
-            throw new MultipartCorruptContentDispositionException(dispositionLine);
-        }
-        var disposition = lowcase_line.substring(start + CONTENT_DISPOSITION_PREFIX_LENGTH, end);
-        if (!disposition.equals(FORM_DATA_DISPOSITION)) {
-            throw new MultipartInvalidContentDispositionException(dispositionLine);
-        }
-
-        // Get the field name, start at last semicolon
-        start = lowcase_line.indexOf(FIELD_NAME_PREFIX, end);
-        end = lowcase_line.indexOf(QUOTE, start + FIELD_NAME_PREFIX_LENGTH);
-        if (-1 == start ||
-            -1 == end) {
-            throw new MultipartCorruptContentDispositionException(dispositionLine);
-        }
-        fieldname = dispositionLine.substring(start + FIELD_NAME_PREFIX_LENGTH, end);
-
-        // Get the filename, if given
-        start = lowcase_line.indexOf(FILENAME_PREFIX, end + 2); // after quote and space
-        end = lowcase_line.indexOf(QUOTE, start + FILENAME_PREFIX_LENGTH);
-        if (start != -1 &&
-            end != -1) {
-            filename_full = dispositionLine.substring(start + FILENAME_PREFIX_LENGTH, end);
-            filename = filename_full;
-
-            // The filename may contain a full path.  Cut to just the filename.
-            var last_slash = Math.max(filename.lastIndexOf('/'), filename.lastIndexOf('\\'));
-            if (last_slash > -1) {
-                // only take the filename (after the last slash)
-                filename = filename.substring(last_slash + 1);
-            }
-        }
-
-        // Return a String array: name, filename, full filename
-        // empty filename denotes no file posted!
-        result[0] = fieldname;
-        result[1] = filename;
-        result[2] = filename_full;
-
-        return result;
-    }
-
-    private String extractContentType(String contentTypeLine) throws MultipartRequestException {
-        String result = null;
-        var lower_case_line = contentTypeLine.toLowerCase();
-
-        // Get the content type, if any
-        if (lower_case_line.startsWith(CONTENT_TYPE_HEADER)) {
-            var separator_location = lower_case_line.indexOf(' ');
-            if (-1 == separator_location) {
-                throw new MultipartCorruptContentTypeException(contentTypeLine);
-            }
-            result = lower_case_line.substring(separator_location + 1);
-        } else if (!lower_case_line.isEmpty()) {
-            // no content type, so should be empty
-            throw new MultipartCorruptContentTypeException(contentTypeLine);
-        }
-
-        return result;
-    }
-
-    private String readParameter() throws MultipartRequestException {
-        var result = new StringBuilder();
-        String line = null;
-        while ((line = readLine()) != null) {
-            if (line.startsWith(boundary_)) {
-                break;
-            }
-            // add the \r\n in case there are many lines
-            result.append(line).append("\r\n");
-        }
-
-        // nothing read
-        if (result.isEmpty()) {
-            return null;
-        }
-
-        // cut off the last line's \r\n
-        result.setLength(result.length() - 2);
-
-        return result.toString();
-    }
-
-    private void readAndSaveFile(UploadedFile file, String name) throws MultipartRequestException {
+    private void readAndSaveFile(MultipartParser.Part part, UploadedFile file, String name) throws MultipartRequestException {
         assert file != null;
 
-        File tmp_file = null;
-        OutputStream output_stream = null;
-        BufferedOutputStream output = null;
+        checkUploadDirectory();
 
+        File tmp_file = null;
         try {
             tmp_file = File.createTempFile("upl", ".tmp", uploadDirectory_);
         } catch (IOException e) {
             throw new MultipartFileErrorException(name, e);
         }
-        try {
-            output_stream = Files.newOutputStream(tmp_file.toPath());
-        } catch (IOException e) {
-            throw new MultipartFileErrorException(name, e);
-        }
-        output = new BufferedOutputStream(output_stream, 8 * 1024); // 8K
-
-        long downloaded_size = 0;
-        var result = -1;
-        String line = null;
-        var line_length = 0;
 
-        // ServletInputStream.readLine() has the annoying habit of
-        // adding a \r\n to the end of the last line.
-        // Since we want a byte-for-byte transfer, we have to cut those chars.
-        var rnflag = false;
-        try {
-            while ((result = input_.readLine(fileBuffer_, 0, fileBuffer_.length)) != -1) {
-                // Check for boundary
-                if (result > 2 &&
-                    '-' == fileBuffer_[0] &&
-                    '-' == fileBuffer_[1]) {
-                    // quick pre-check
-                    try {
-                        line = new String(fileBuffer_, 0, result, encoding_);
-                    } catch (UnsupportedEncodingException e) {
-                        throw new MultipartFileErrorException(name, e);
-                    }
-
-                    if (line.startsWith(boundary_)) {
-                        break;
-                    }
-                }
-
-                // Are we supposed to write \r\n for the last iteration?
-                if (rnflag &&
-                    output != null) {
-                    output.write('\r');
-                    output.write('\n');
-                    rnflag = false;
-                }
-
-                // postpone any ending \r\n
-                if (result >= 2 &&
-                    '\r' == fileBuffer_[result - 2] &&
-                    '\n' == fileBuffer_[result - 1]) {
-                    line_length = result - 2; // skip the last 2 chars
-                    rnflag = true;  // make a note to write them on the next iteration
-                } else {
-                    line_length = result;
-                }
-
-                // increase size count
-                if (output != null &&
-                    RifeConfig.engine().getFileUploadSizeCheck()) {
-                    downloaded_size += line_length;
-
-                    if (downloaded_size > RifeConfig.engine().getFileUploadSizeLimit()) {
-                        file.setSizeExceeded(true);
-                        output.close();
-                        output = null;
-                        tmp_file.delete();
-                        tmp_file = null;
-                        if (RifeConfig.engine().getFileUploadSizeException()) {
-                            throw new MultipartFileTooBigException(name, RifeConfig.engine().getFileUploadSizeLimit());
-                        }
-                    }
-                }
+        long size_limit = -1;
+        if (RifeConfig.engine().getFileUploadSizeCheck()) {
+            size_limit = RifeConfig.engine().getFileUploadSizeLimit();
+        }
 
-                // write the content
-                if (output != null) {
-                    output.write(fileBuffer_, 0, line_length);
-                }
-            }
+        // the content is written straight from the parser's buffer, a size
+        // check failure stops writing and the rest of the part is skipped
+        long written;
+        try (var output = Files.newOutputStream(tmp_file.toPath())) {
+            written = part.transferTo(output, size_limit);
         } catch (IOException e) {
+            tmp_file.delete();
             throw new MultipartFileErrorException(name, e);
-        } finally {
-            try {
-                if (output != null) {
-                    output.flush();
-                    output.close();
-                    output_stream.close();
-                }
-            } catch (IOException e) {
-                throw new MultipartFileErrorException(name, e);
-            }
         }
 
-        if (tmp_file != null) {
-            file.setTempFile(tmp_file);
+        if (-1 == written) {
+            file.setSizeExceeded(true);
+            tmp_file.delete();
+            if (RifeConfig.engine().getFileUploadSizeException()) {
+                throw new MultipartFileTooBigException(name, RifeConfig.engine().getFileUploadSizeLimit());
+            }
+            return;
         }
+
+        file.setTempFile(tmp_file);
     }
 }
@@ -9,27 +9,117 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import rife.config.RifeConfig;
 import rife.database.Datasource;
+import rife.engine.Context;
 import rife.engine.Gate;
 import rife.engine.Site;
+import rife.engine.exceptions.RequestTimeoutException;
 import rife.ioc.HierarchicalProperties;
 import rife.scheduler.Scheduler;
+import rife.tools.ExceptionUtils;
 import rife.tools.FileUtils;
 
 import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
 
 /**
  * Servlet filter implementation that initializes a RIFE2 site and handles
  * servlet requests and responses.
+ * <p>With asynchronous execution, the filter only resolves the route on the
+ * container thread and processes the request on an executor, by default
+ * with a virtual thread per request when they're available. This releases
+ * the container thread while elements wait for slow operations through
+ * {@link Context#await}.
  *
  * @author Geert Bevin (gbevin[remove] at uwyn dot com)
  * @since 1.0
  */
 public class RifeFilter implements Filter {
     public static String RIFE_SITE_CLASS_NAME = "rifeSiteClass";
+    public static String RIFE_ASYNC_EXECUTION = "rifeAsyncExecution";
+    public static String RIFE_ASYNC_TIMEOUT = "rifeAsyncTimeout";
+
+    private static final String ASYNC_DISPATCHED_ATTRIBUTE = RifeFilter.class.getName() + ".asyncDispatched";
+    private static final long ASYNC_TIMEOUT_GRACE_PERIOD = 1000L;
 
     private final Gate gate_ = new Gate();
     private String gateUrl_ = null;
 
+    private boolean asyncExecution_ = false;
+    private long asyncTimeout_ = 0L;
+    private Executor asyncExecutor_ = null;
+    private ExecutorService ownedAsyncExecutor_ = null;
+
+    /**
+     * Sets whether requests are processed asynchronously, outside the
+     * container thread that received them.
+     * <p>This requires the filter and the servlet it's mapped to to
+     * support asynchronous requests, otherwise requests are processed
+     * synchronously.
+     * <p>Defaults to {@code false}.
+     *
+     * @param enable {@code true} if requests should be processed
+     *               asynchronously; or {@code false} otherwise
+     * @return this filter instance
+     * @since 1.9.0
+     */
+    public RifeFilter asyncExecution(boolean enable) {
+        asyncExecution_ = enable;
+        return this;
+    }
+
+    /**
+     * Sets the timeout of asynchronous requests in milliseconds.
+     * <p>When a request times out, the thread that processes it is
+     * interrupted, and as soon as it stopped processing, the request is
+     * answered with a {@code 503 Service Unavailable} status. Threads that
+     * ignore the interruption are given a grace period of one second, after
+     * which the request is completed without writing to its response.
+     * <p>Defaults to {@code 0}, which uses the container's timeout.
+     *
+     * @param timeout the timeout in milliseconds
+     * @return this filter instance
+     * @since 1.9.0
+     */
+    public RifeFilter asyncTimeout(long timeout) {
+        asyncTimeout_ = timeout;
+        return this;
+    }
+
+    /**
+     * Sets the executor that processes asynchronous requests.
+     * <p>Defaults to a virtual thread per request when virtual threads are
+     * available, otherwise the container's thread pool is used.
+     *
+     * @param executor the executor for asynchronous requests
+     * @return this filter instance
+     * @since 1.9.0
+     */
+    public RifeFilter asyncExecutor(Executor executor) {
+        asyncExecutor_ = executor;
+        return this;
+    }
+
+    private void setupAsyncExecutor() {
+        if (!asyncExecution_ || asyncExecutor_ != null) {
+            return;
+        }
+
+        try {
+            var klass = Executors.class;
+            var method = klass.getDeclaredMethod("newVirtualThreadPerTaskExecutor");
+            ownedAsyncExecutor_ = (ExecutorService) method.invoke(klass);
+            asyncExecutor_ = ownedAsyncExecutor_;
+        } catch (Throwable e) {
+            // virtual threads are not available, the container's
+            // threads will be used
+        }
+    }
+
     /**
      * This method can be overridden to set up hierarchical properties
      * for your RIFE2 filter implementation without being limited by
@@ -54,6 +144,7 @@ public class RifeFilter implements Filter {
      */
     public final void init(HierarchicalProperties properties, Site site) {
         setupProperties(properties);
+        setupAsyncExecutor();
         gate_.setup(properties, site);
     }
 
@@ -79,6 +170,21 @@ public class RifeFilter implements Filter {
             properties.put(name, config.getInitParameter(name));
         }
 
+        // set up the asynchronous execution
+        var async_execution = config.getInitParameter(RIFE_ASYNC_EXECUTION);
+        if (async_execution != null) {
+            asyncExecution_ = Boolean.parseBoolean(async_execution);
+        }
+        var async_timeout = config.getInitParameter(RIFE_ASYNC_TIMEOUT);
+        if (async_timeout != null) {
+            try {
+                asyncTimeout_ = Long.parseLong(async_timeout);
+            } catch (NumberFormatException e) {
+                throw new ServletException(e);
+            }
+        }
+        setupAsyncExecutor();
+
         // create the site instance
         var site_classname = config.getInitParameter(RIFE_SITE_CLASS_NAME);
         if (site_classname != null) {
@@ -96,7 +202,8 @@ public class RifeFilter implements Filter {
     public final void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
     throws IOException, ServletException {
         if (request instanceof HttpServletRequest http_servlet_request &&
-            response instanceof HttpServletResponse http_servlet_response) {
+            response instanceof HttpServletResponse http_servlet_response &&
+            !isOwnAsyncDispatch(request)) {
             try {
                 var request_uri = http_servlet_request.getRequestURI();
                 var extension = FileUtils.getExtension(request_uri);
@@ -122,10 +229,16 @@ public class RifeFilter implements Filter {
                     }
 
                     final var element_url = request_uri.substring(gateUrl_.length());
-                    final var http_request = new HttpRequest(http_servlet_request);
+                    final var http_request = new HttpRequest(http_servlet_request, gate_.getSite().multipartRequestSizeLimit());
                     final var http_response = new HttpResponse(http_request, http_servlet_response);
                     http_request.init();
-                    if (gate_.handleRequest(gateUrl_, element_url, http_request, http_response)) {
+                    if (asyncExecution_ && http_servlet_request.isAsyncSupported()) {
+                        var context = gate_.setupContext(gateUrl_, element_url, http_request, http_response);
+                        if (context != null) {
+                            new AsyncProcessing(http_servlet_request.startAsync(), context).start();
+                            return;
+                        }
+                    } else if (gate_.handleRequest(gateUrl_, element_url, http_request, http_response)) {
                         return;
                     }
                 }
@@ -137,11 +250,156 @@ public class RifeFilter implements Filter {
         chain.doFilter(request, response);
     }
 
+    private static boolean isOwnAsyncDispatch(ServletRequest request) {
+        // only the requests that this filter deferred to the container are
+        // passed on, other asynchronous dispatches are handled as usual
+        if (request.getDispatcherType() != DispatcherType.ASYNC ||
+            null == request.getAttribute(ASYNC_DISPATCHED_ATTRIBUTE)) {
+            return false;
+        }
+
+        request.removeAttribute(ASYNC_DISPATCHED_ATTRIBUTE);
+        return true;
+    }
+
     @Override
     public final void destroy() {
         Scheduler.stopAllActiveSchedulers();
         Datasource.closeAllActiveDatasources();
 
         gate_.destroy();
+
+        if (ownedAsyncExecutor_ != null) {
+            ownedAsyncExecutor_.shutdown();
+        }
+    }
+
+    private class AsyncProcessing implements Runnable, AsyncListener {
+        private final AsyncContext asyncContext_;
+        private final Context context_;
+        private final AtomicBoolean finished_ = new AtomicBoolean(false);
+        private Thread worker_ = null;
+
+        AsyncProcessing(AsyncContext asyncContext, Context context) {
+            asyncContext_ = asyncContext;
+            context_ = context;
+        }
+
+        void start() {
+            if (asyncTimeout_ > 0) {
+                asyncContext_.setTimeout(asyncTimeout_);
+            }
+            asyncContext_.addListener(this);
+
+            if (asyncExecutor_ != null) {
+                try {
+                    asyncExecutor_.execute(this);
+                    return;
+                } catch (RejectedExecutionException e) {
+                    // fall back to the container's threads
+                }
+            }
+            asyncContext_.start(this);
+        }
+
+        private boolean finish() {
+            return finished_.compareAndSet(false, true);
+        }
+
+        public void run() {
+            synchronized (this) {
+                // the request already timed out before it could be processed
+                if (finished_.get()) {
+                    return;
+                }
+                worker_ = Thread.currentThread();
+            }
+
+            try {
+                var handled = gate_.processContext(context_, asyncTimeout_);
+                if (finish()) {
+                    // deferred requests are dispatched to the container,
+                    // which will skip this filter
+                    if (handled) {
+                        asyncContext_.complete();
+                    } else {
+                        asyncContext_.getRequest().setAttribute(ASYNC_DISPATCHED_ATTRIBUTE, Boolean.TRUE);
+                        asyncContext_.dispatch();
+                    }
+                }
+            } catch (RequestTimeoutException e) {
+                if (finish()) {
+                    sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                    asyncContext_.complete();
+                }
+            } catch (Throwable e) {
+                Logger.getLogger("rife.servlet").severe(ExceptionUtils.getExceptionStackTrace(e));
+                if (finish()) {
+                    sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                    asyncContext_.complete();
+                }
+            } finally {
+                synchronized (this) {
+                    worker_ = null;
+                    notifyAll();
+                }
+                // don't leak an interrupt from a timeout into a pooled thread
+                Thread.interrupted();
+            }
+        }
+
+        private void sendError(int status) {
+            try {
+                var response = (HttpServletResponse) asyncContext_.getResponse();
+                if (!response.isCommitted()) {
+                    response.sendError(status);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // the client won't get the error status
+            }
+        }
+
+        public void onTimeout(AsyncEvent event) {
+            if (finish()) {
+                // the response can only be used once the worker stopped
+                // writing to it, workers that ignore the interrupt can't
+                // be allowed to block the container's timeout thread
+                boolean stopped;
+                synchronized (this) {
+                    if (worker_ != null) {
+                        worker_.interrupt();
+                    }
+                    try {
+                        var deadline = System.currentTimeMillis() + ASYNC_TIMEOUT_GRACE_PERIOD;
+                        var remaining = ASYNC_TIMEOUT_GRACE_PERIOD;
+                        while (worker_ != null && remaining > 0) {
+                            wait(remaining);
+                            remaining = deadline - System.currentTimeMillis();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    stopped = (null == worker_);
+                }
+                if (stopped) {
+                    sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                }
+                asyncContext_.complete();
+            }
+        }
+
+        public void onError(AsyncEvent event) {
+            if (finish()) {
+                asyncContext_.complete();
+            }
+        }
+
+        public void onComplete(AsyncEvent event) {
+            // no-op
+        }
+
+        public void onStartAsync(AsyncEvent event) {
+            // no-op
+        }
     }
 }
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.authentication;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ArgumentsSource;
+import rife.authentication.remembermanagers.DatabaseRemember;
+import rife.authentication.remembermanagers.DatabaseRememberFactory;
+import rife.authentication.sessionmanagers.DatabaseSessions;
+import rife.authentication.sessionmanagers.DatabaseSessionsFactory;
+import rife.config.RifeConfig;
+import rife.database.Datasource;
+import rife.database.TestDatasources;
+import rife.scheduler.TaskOption;
+import rife.scheduler.schedulermanagers.MemoryScheduling;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestAuthenticationPurger {
+    private static final int USER_ID = 9479;
+    private static final String AUTH_DATA = "98.232.12.457";
+
+    private static void setup(DatabaseSessions sessions, DatabaseRemember remember)
+    throws Exception {
+        sessions.setSessionDuration(1000);
+        remember.setRememberDuration(1000);
+        sessions.install();
+        remember.install();
+        sessions.eraseAllSessions();
+        remember.eraseAllRememberIds();
+    }
+
+    private static void tearDown(DatabaseSessions sessions, DatabaseRemember remember) {
+        sessions.setSessionDuration(RifeConfig.authentication().getSessionDuration());
+        remember.setRememberDuration(RifeConfig.authentication().getRememberDuration());
+        sessions.setPurgeInline(true);
+        remember.setPurgeInline(true);
+        sessions.remove();
+        remember.remove();
+    }
+
+    private static void createExpired(DatabaseSessions sessions, DatabaseRemember remember, int count)
+    throws Exception {
+        for (var i = 0; i < count; i++) {
+            sessions.startSession(USER_ID, AUTH_DATA, false);
+            remember.createRememberId(USER_ID);
+            Thread.sleep(5);
+        }
+        Thread.sleep(1010);
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(TestDatasources.class)
+    void testDisableInlinePurging(Datasource datasource) {
+        var sessions = DatabaseSessionsFactory.instance(datasource);
+        var remember = DatabaseRememberFactory.instance(datasource);
+        try {
+            assertTrue(sessions.getPurgeInline());
+            assertTrue(remember.getPurgeInline());
+
+            new AuthenticationPurger(sessions, remember);
+            assertFalse(sessions.getPurgeInline());
+            assertFalse(remember.getPurgeInline());
+        } finally {
+            sessions.setPurgeInline(true);
+            remember.setPurgeInline(true);
+        }
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(TestDatasources.class)
+    void testExecuteTask(Datasource datasource)
+    throws Exception {
+        var sessions = DatabaseSessionsFactory.instance(datasource);
+        var remember = DatabaseRememberFactory.instance(datasource);
+        setup(sessions, remember);
+        try {
+            var purger = new AuthenticationPurger(sessions, remember);
+            createExpired(sessions, remember, 3);
+            var remember_id = remember.createRememberId(USER_ID);
+
+            // without task options all the expired entries are purged
+            assertTrue(purger.executeTask(purger.createTask()));
+            assertEquals(1, purger.getRunCount());
+            assertEquals(3, purger.getLastSessionsPurged());
+            assertEquals(3, purger.getLastRememberIdsPurged());
+            assertEquals(USER_ID, remember.getRememberedUserId(remember_id));
+
+            assertTrue(purger.executeTask(purger.createTask()));
+            assertEquals(2, purger.getRunCount());
+            assertEquals(0, purger.getLastSessionsPurged());
+            assertEquals(0, purger.getLastRememberIdsPurged());
+            assertEquals(3, purger.getTotalSessionsPurged());
+            assertEquals(3, purger.getTotalRememberIdsPurged());
+        } finally {
+            tearDown(sessions, remember);
+        }
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(TestDatasources.class)
+    void testScheduledPurge(Datasource datasource)
+    throws Exception {
+        var sessions = DatabaseSessionsFactory.instance(datasource);
+        var remember = DatabaseRememberFactory.instance(datasource);
+        setup(sessions, remember);
+        var scheduler = new MemoryScheduling().createScheduler();
+        try {
+            var purger = new AuthenticationPurger(sessions, remember);
+            createExpired(sessions, remember, 3);
+
+            scheduler.addExecutor(purger);
+            var task_id = scheduler.getTaskManager().addTask(purger.createTask().planned(System.currentTimeMillis()));
+            scheduler.addTaskOption(new TaskOption().taskId(task_id).name("batchSize").value("1"));
+            scheduler.addTaskOption(new TaskOption().taskId(task_id).name("maximumBatches").value("2"));
+            scheduler.start();
+
+            var deadline = System.currentTimeMillis() + 10000;
+            while (purger.getRunCount() < 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+
+            // the task options bound the number of entries that one run purges
+            assertEquals(1, purger.getRunCount());
+            assertEquals(2, purger.getLastSessionsPurged());
+            assertEquals(2, purger.getLastRememberIdsPurged());
+
+            // the remaining entries are purged by the next run
+            assertTrue(purger.executeTask(purger.createTask()));
+            assertEquals(1, purger.getLastSessionsPurged());
+            assertEquals(1, purger.getLastRememberIdsPurged());
+            assertEquals(3, purger.getTotalSessionsPurged());
+            assertEquals(3, purger.getTotalRememberIdsPurged());
+        } finally {
+            synchronized (scheduler) {
+                if (scheduler.isRunning()) {
+                    scheduler.stop();
+                    scheduler.wait();
+                }
+            }
+            tearDown(sessions, remember);
+        }
+    }
+}
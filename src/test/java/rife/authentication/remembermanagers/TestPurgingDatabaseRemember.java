@@ -7,6 +7,7 @@ package rife.authentication.remembermanagers;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ArgumentsSource;
 import rife.authentication.exceptions.RememberManagerException;
+import rife.config.RifeConfig;
 import rife.database.Datasource;
 import rife.database.TestDatasources;
 import rife.tools.ExceptionUtils;
@@ -85,4 +86,140 @@ public class TestPurgingDatabaseRemember {
             }
         }
     }
+
+    @ParameterizedTest
+    @ArgumentsSource(TestDatasources.class)
+    void testPurgeRememberIdsInBatches(Datasource datasource) {
+        var remember = DatabaseRememberFactory.instance(datasource);
+        remember.setRememberDuration(1000);
+        remember.setPurgeInline(false);
+
+        var user_id = 143;
+
+        try {
+            remember.install();
+
+            remember.eraseAllRememberIds();
+            var expired_ids = new String[3];
+            for (var i = 0; i < expired_ids.length; i++) {
+                expired_ids[i] = remember.createRememberId(user_id);
+                Thread.sleep(5);
+            }
+
+            Thread.sleep(1010);
+
+            var remember_id = remember.createRememberId(user_id);
+
+            // the oldest expired remember IDs are purged first
+            assertEquals(2, remember.purgeRememberIds(2));
+            assertEquals(-1, remember.getRememberedUserId(expired_ids[0]));
+            assertEquals(-1, remember.getRememberedUserId(expired_ids[1]));
+            assertEquals(user_id, remember.getRememberedUserId(expired_ids[2]));
+            assertEquals(1, remember.purgeRememberIds(2));
+            assertEquals(-1, remember.getRememberedUserId(expired_ids[2]));
+            assertEquals(0, remember.purgeRememberIds(2));
+
+            // remember IDs that didn't expire are never purged
+            assertEquals(user_id, remember.getRememberedUserId(remember_id));
+        } catch (InterruptedException | RememberManagerException e) {
+            fail(ExceptionUtils.getExceptionStackTrace(e));
+        } finally {
+            remember.setRememberDuration(RifeConfig.authentication().getRememberDuration());
+            remember.setPurgeInline(true);
+            try {
+                remember.remove();
+            } catch (RememberManagerException e) {
+                fail(ExceptionUtils.getExceptionStackTrace(e));
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(TestDatasources.class)
+    void testPurgeRememberIdsBatchBoundary(Datasource datasource) {
+        var remember = DatabaseRememberFactory.instance(datasource);
+        remember.setRememberDuration(1000);
+        remember.setPurgeInline(false);
+
+        var user_id = 143;
+
+        try {
+            remember.install();
+
+            remember.eraseAllRememberIds();
+            for (var i = 0; i < 4; i++) {
+                remember.createRememberId(user_id);
+                Thread.sleep(5);
+            }
+
+            Thread.sleep(1010);
+
+            // the boundary is the last row of the batch, at offset batchSize - 1
+            assertEquals(0, remember.purgeRememberIds(0));
+            assertEquals(1, remember.purgeRememberIds(1));
+            // a batch that's exactly as large as the expired remember IDs
+            assertEquals(2, remember.purgeRememberIds(2));
+            // a batch that's larger than the expired remember IDs has no
+            // boundary row and purges all the expired ones
+            assertEquals(1, remember.purgeRememberIds(5));
+            assertEquals(0, remember.purgeRememberIds(5));
+        } catch (InterruptedException | RememberManagerException e) {
+            fail(ExceptionUtils.getExceptionStackTrace(e));
+        } finally {
+            remember.setRememberDuration(RifeConfig.authentication().getRememberDuration());
+            remember.setPurgeInline(true);
+            try {
+                remember.remove();
+            } catch (RememberManagerException e) {
+                fail(ExceptionUtils.getExceptionStackTrace(e));
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(TestDatasources.class)
+    void testPurgeInlineDisabled(Datasource datasource) {
+        var remember = DatabaseRememberFactory.instance(datasource);
+        remember.setRememberDuration(1000);
+        remember.setRememberPurgeFrequency(1);
+        remember.setRememberPurgeScale(1);
+        assertTrue(remember.getPurgeInline());
+        remember.setPurgeInline(false);
+        assertFalse(remember.getPurgeInline());
+
+        var user_id = 143;
+
+        try {
+            remember.install();
+
+            remember.eraseAllRememberIds();
+            var remember_id1 = remember.createRememberId(user_id);
+
+            Thread.sleep(1010);
+
+            // creating a remember ID doesn't purge the expired ones anymore
+            var remember_id2 = remember.createRememberId(user_id);
+            assertEquals(user_id, remember.getRememberedUserId(remember_id1));
+            assertEquals(user_id, remember.getRememberedUserId(remember_id2));
+
+            // until inline purging is enabled again
+            remember.setPurgeInline(true);
+            var remember_id3 = remember.createRememberId(user_id);
+            assertEquals(-1, remember.getRememberedUserId(remember_id1));
+            assertEquals(user_id, remember.getRememberedUserId(remember_id2));
+            assertEquals(user_id, remember.getRememberedUserId(remember_id3));
+        } catch (InterruptedException | RememberManagerException e) {
+            fail(ExceptionUtils.getExceptionStackTrace(e));
+        } finally {
+            remember.setRememberDuration(RifeConfig.authentication().getRememberDuration());
+            remember.setRememberPurgeFrequency(RifeConfig.authentication().getRememberPurgeFrequency());
+            remember.setRememberPurgeScale(RifeConfig.authentication().getRememberPurgeScale());
+            remember.setPurgeInline(true);
+            try {
+                remember.remove();
+            } catch (RememberManagerException e) {
+                fail(ExceptionUtils.getExceptionStackTrace(e));
+            }
+        }
+    }
 }
@@ -9,7 +9,9 @@ import org.junit.jupiter.params.provider.ArgumentsSource;
 import rife.authentication.exceptions.SessionManagerException;
 import rife.config.RifeConfig;
 import rife.database.Datasource;
+import rife.database.DbQueryManager;
 import rife.database.TestDatasources;
+import rife.database.queries.Delete;
 import rife.tools.ExceptionUtils;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -182,6 +184,122 @@ public class TestDatabaseSessions {
         }
     }
 
+    @ParameterizedTest
+    @ArgumentsSource(TestDatasources.class)
+    void testCoalescedContinueSession(Datasource datasource) {
+        var sessions = DatabaseSessionsFactory.instance(datasource);
+        // the interval is long enough for the background flush never to
+        // run during the test, the continuations are flushed explicitly
+        sessions.setContinueSessionInterval(60000);
+
+        var user_id = 42;
+        var auth_data = "113.98.46.141";
+
+        try {
+            sessions.install();
+
+            var auth_id1 = sessions.startSession(user_id, auth_data, false);
+            var auth_id2 = sessions.startSession(user_id, auth_data, false);
+            assertTrue(sessions.continueSession(auth_id1));
+            assertTrue(sessions.continueSession(auth_id2));
+            assertEquals(0, sessions.flushContinuedSessions());
+
+            // the next continuations are coalesced and written as one batch
+            assertTrue(sessions.continueSession(auth_id1));
+            assertTrue(sessions.continueSession(auth_id1));
+            assertTrue(sessions.continueSession(auth_id2));
+            assertEquals(2, sessions.flushContinuedSessions());
+            assertEquals(0, sessions.flushContinuedSessions());
+            assertTrue(sessions.isSessionValid(auth_id1, auth_data));
+            assertTrue(sessions.isSessionValid(auth_id2, auth_data));
+
+            assertTrue(sessions.eraseSession(auth_id1));
+            assertFalse(sessions.continueSession(auth_id1));
+            assertEquals(0, sessions.flushContinuedSessions());
+        } catch (SessionManagerException e) {
+            fail(ExceptionUtils.getExceptionStackTrace(e));
+        } finally {
+            sessions.setContinueSessionInterval(0);
+            try {
+                sessions.remove();
+            } catch (SessionManagerException e) {
+                fail(ExceptionUtils.getExceptionStackTrace(e));
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(TestDatasources.class)
+    void testCoalescedContinueMissingSession(Datasource datasource) {
+        var sessions = DatabaseSessionsFactory.instance(datasource);
+        sessions.setContinueSessionInterval(60000);
+
+        var user_id = 44;
+        var auth_data = "113.98.46.143";
+
+        try {
+            sessions.install();
+
+            // a session that's erased without going through the manager
+            var auth_id1 = sessions.startSession(user_id, auth_data, false);
+            assertTrue(sessions.continueSession(auth_id1));
+            new DbQueryManager(datasource).executeUpdate(new Delete(datasource)
+                .from(RifeConfig.authentication().getTableAuthentication())
+                .where("authId", "=", auth_id1));
+            assertFalse(sessions.continueSession(auth_id1));
+
+            // a session that expired since it was last continued
+            var auth_id2 = sessions.startSession(user_id, auth_data, false);
+            assertTrue(sessions.continueSession(auth_id2));
+            Thread.sleep(20);
+            sessions.setSessionDuration(10);
+            assertFalse(sessions.continueSession(auth_id2));
+
+            assertEquals(0, sessions.flushContinuedSessions());
+        } catch (InterruptedException | SessionManagerException e) {
+            fail(ExceptionUtils.getExceptionStackTrace(e));
+        } finally {
+            sessions.setSessionDuration(RifeConfig.authentication().getSessionDuration());
+            sessions.setContinueSessionInterval(0);
+            try {
+                sessions.remove();
+            } catch (SessionManagerException e) {
+                fail(ExceptionUtils.getExceptionStackTrace(e));
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(TestDatasources.class)
+    void testValidationCache(Datasource datasource) {
+        var sessions = DatabaseSessionsFactory.instance(datasource);
+        sessions.setValidationCacheDuration(60000);
+
+        var user_id = 43;
+        var auth_data = "113.98.46.142";
+
+        try {
+            sessions.install();
+
+            var auth_id = sessions.startSession(user_id, auth_data, true);
+            assertTrue(sessions.wasRemembered(auth_id));
+            assertEquals(Boolean.TRUE, sessions.getValidationCache().getRemembered(auth_id));
+
+            sessions.eraseSession(auth_id);
+            assertNull(sessions.getValidationCache().getRemembered(auth_id));
+            assertFalse(sessions.wasRemembered(auth_id));
+        } catch (SessionManagerException e) {
+            fail(ExceptionUtils.getExceptionStackTrace(e));
+        } finally {
+            sessions.setValidationCacheDuration(0);
+            try {
+                sessions.remove();
+            } catch (SessionManagerException e) {
+                fail(ExceptionUtils.getExceptionStackTrace(e));
+            }
+        }
+    }
+
     @ParameterizedTest
     @ArgumentsSource(TestDatasources.class)
     void testContinueUnknownSession(Datasource datasource) {
@@ -87,4 +87,42 @@ public class TestPurgingDatabaseSessions {
             }
         }
     }
+
+    @ParameterizedTest
+    @ArgumentsSource(TestDatasources.class)
+    void testPurgeSessionsInBatches(Datasource datasource) {
+        var sessions = DatabaseSessionsFactory.instance(datasource);
+        sessions.setSessionDuration(1000);
+        sessions.setPurgeInline(false);
+
+        var user_id = 9479;
+        var auth_data = "98.232.12.457";
+
+        try {
+            sessions.install();
+
+            sessions.eraseAllSessions();
+            for (var i = 0; i < 3; i++) {
+                sessions.startSession(user_id, auth_data, false);
+                Thread.sleep(5);
+            }
+            assertEquals(3, sessions.countSessions());
+
+            Thread.sleep(1010);
+
+            assertEquals(2, sessions.purgeSessions(2));
+            assertEquals(1, sessions.purgeSessions(2));
+            assertEquals(0, sessions.purgeSessions(2));
+        } catch (InterruptedException | SessionManagerException e) {
+            fail(ExceptionUtils.getExceptionStackTrace(e));
+        } finally {
+            sessions.setSessionDuration(RifeConfig.authentication().getSessionDuration());
+            sessions.setPurgeInline(true);
+            try {
+                sessions.remove();
+            } catch (SessionManagerException e) {
+                fail(ExceptionUtils.getExceptionStackTrace(e));
+            }
+        }
+    }
 }
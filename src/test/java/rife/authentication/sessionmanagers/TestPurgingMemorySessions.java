@@ -64,4 +64,36 @@ public class TestPurgingMemorySessions {
             fail(ExceptionUtils.getExceptionStackTrace(e));
         }
     }
+
+    @Test
+    void testPurgeContinuedSessions() {
+        var sessions = new MemorySessions();
+        sessions.setSessionDuration(2000);
+        sessions.setSessionPurgeFrequency(0);
+
+        var user_id = 9479;
+        var auth_data = "98.232.12.457";
+
+        try {
+            sessions.eraseAllSessions();
+
+            var auth_id1 = sessions.startSession(user_id, auth_data, false);
+            var auth_id2 = sessions.startSession(user_id, auth_data, false);
+            assertEquals(2, sessions.countSessions());
+
+            Thread.sleep(1200);
+            assertTrue(sessions.continueSession(auth_id2));
+
+            Thread.sleep(1000);
+            assertEquals(1, sessions.countSessions());
+            assertNull(sessions.getSession(auth_id1));
+            assertNotNull(sessions.getSession(auth_id2));
+
+            assertTrue(sessions.eraseUserSessions(user_id));
+            assertEquals(0, sessions.countSessions());
+            assertFalse(sessions.eraseUserSessions(user_id));
+        } catch (InterruptedException | SessionManagerException e) {
+            fail(ExceptionUtils.getExceptionStackTrace(e));
+        }
+    }
 }
@@ -10,6 +10,7 @@ import org.junit.jupiter.params.provider.ArgumentsSource;
 import rife.cmf.Content;
 import rife.cmf.ContentRepository;
 import rife.cmf.MimeType;
+import rife.cmf.dam.contentmanagers.DatabaseContent;
 import rife.cmf.dam.contentmanagers.DatabaseContentFactory;
 import rife.cmf.dam.contentmanagers.exceptions.InstallContentErrorException;
 import rife.cmf.dam.contentmanagers.exceptions.UnknownContentRepositoryException;
@@ -26,6 +27,9 @@ import rife.tools.exceptions.FileUtilsErrorException;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -469,6 +473,49 @@ public class TestContentManager {
         }
     }
 
+    @ParameterizedTest
+    @ArgumentsSource(TestDatasources.class)
+    void testUseContentBatch(Datasource datasource)
+    throws Exception {
+        setup(datasource);
+        try {
+            var manager = DatabaseContentFactory.instance(datasource);
+
+            var image_resource_gif = ResourceFinderClasspath.instance().getResource("uwyn.gif");
+            var image_resource_png = ResourceFinderClasspath.instance().getResource("uwyn.png");
+            var data_image_gif = FileUtils.readBytes(image_resource_gif);
+            final var data_image_png = FileUtils.readBytes(image_resource_png);
+            final var raw = new byte[]{1, 2, 3, 4, 5};
+
+            manager.storeContent("/the/logo/of", new Content(MimeType.IMAGE_PNG, data_image_gif).name("uwyn.png"), null);
+            manager.storeContent("/the/text", new Content(MimeType.TEXT_PLAIN, "first version"), null);
+            manager.storeContent("/the/text", new Content(MimeType.TEXT_PLAIN, "second version"), null);
+            manager.storeContent("/the/raw", new Content(MimeType.RAW, new ByteArrayInputStream(raw)), null);
+
+            var used = new HashMap<String, Object>();
+            manager.useContentData(List.of("/the/logo/of", "/the/logo/of/uwyn.png", "/the/text", "/the/raw", "/the/unknown"), (location, contentData) -> {
+                try {
+                    if (contentData instanceof InputStream stream) {
+                        used.put(location, FileUtils.readBytes(stream));
+                    } else {
+                        used.put(location, contentData);
+                    }
+                } catch (FileUtilsErrorException e) {
+                    throw new InnerClassException(e);
+                }
+            });
+
+            assertEquals(4, used.size());
+            assertArrayEquals(data_image_png, (byte[]) used.get("/the/logo/of"));
+            assertArrayEquals(data_image_png, (byte[]) used.get("/the/logo/of/uwyn.png"));
+            assertEquals("second version", used.get("/the/text"));
+            assertArrayEquals(raw, (byte[]) used.get("/the/raw"));
+            assertFalse(used.containsKey("/the/unknown"));
+        } finally {
+            tearDown(datasource);
+        }
+    }
+
     @ParameterizedTest
     @ArgumentsSource(TestDatasources.class)
     void testUseContentDataIllegalArguments(Datasource datasource) {
@@ -812,6 +859,64 @@ public class TestContentManager {
         }
     }
 
+    @ParameterizedTest
+    @ArgumentsSource(TestDatasources.class)
+    void testGetContentInfoCached(Datasource datasource) {
+        setup(datasource);
+        var manager = DatabaseContentFactory.instance(datasource);
+        try {
+            manager.setContentInfoCacheDuration(60000);
+            assertEquals(60000, manager.getContentInfoCacheDuration());
+            var cache = manager.getContentInfoCache();
+            assertEquals(0, cache.size());
+
+            // unknown locations are cached too
+            assertNull(manager.getContentInfo("/textcontent/mytext.html"));
+            assertEquals(1, cache.size());
+            assertNotNull(cache.get(ContentRepository.DEFAULT, "/textcontent/mytext.html"));
+            assertNull(manager.getContentInfo("/textcontent/mytext.html"));
+
+            // storing content invalidates its location and the names below it
+            var content_text1 = new Content(MimeType.APPLICATION_XHTML, "<p>some text</p>")
+                .fragment(true)
+                .attribute("attr1", "value1")
+                .name("mytext.html");
+            manager.storeContent("/textcontent", content_text1, null);
+            assertEquals(0, cache.size());
+
+            var info1a = manager.getContentInfo("/textcontent/mytext.html");
+            assertNotNull(info1a);
+            assertEquals(0, info1a.getVersion());
+            assertEquals(1, cache.size());
+
+            // every lookup receives its own instance
+            info1a.getAttributes().put("attr2", "value2");
+            var info1b = manager.getContentInfo("/textcontent/mytext.html");
+            assertNotSame(info1a, info1b);
+            assertEquals(info1a.getContentId(), info1b.getContentId());
+            assertEquals(1, info1b.getAttributes().size());
+
+            var content_text2 = new Content(MimeType.APPLICATION_XHTML, "<p>some other text</p>")
+                .fragment(true)
+                .name("mytext.html");
+            manager.storeContent("/textcontent", content_text2, null);
+            var info2 = manager.getContentInfo("/textcontent");
+            assertNotNull(info2);
+            assertEquals(1, info2.getVersion());
+
+            assertTrue(manager.deleteContent("/textcontent"));
+            assertNull(manager.getContentInfo("/textcontent"));
+
+            manager.setContentInfoCacheDuration(0);
+            assertEquals(0, cache.size());
+            assertNull(manager.getContentInfo("/textcontent"));
+            assertEquals(0, cache.size());
+        } finally {
+            manager.setContentInfoCacheDuration(0);
+            tearDown(datasource);
+        }
+    }
+
     @ParameterizedTest
     @ArgumentsSource(TestDatasources.class)
     void testGetContentInfoName(Datasource datasource) {
@@ -963,5 +1068,93 @@ public class TestContentManager {
             tearDown(datasource);
         }
     }
-}
 
+    @ParameterizedTest
+    @ArgumentsSource(TestDatasources.class)
+    void testGetContentForHtmlCached(Datasource datasource)
+    throws Exception {
+        setup(datasource);
+        var manager = DatabaseContentFactory.instance(datasource);
+        var directory = Files.createTempDirectory("rendercache").toFile();
+        try {
+            manager.setRenderCacheMaximumSize(10);
+            assertEquals(10, manager.getRenderCacheMaximumSize());
+            // cached representations don't look up their content info each time
+            assertEquals(DatabaseContent.DEFAULT_RENDER_CONTENT_INFO_CACHE_DURATION, manager.getContentInfoCacheDuration());
+            var cache = manager.getRenderCache();
+
+            manager.storeContent("/textcontent", new Content(MimeType.APPLICATION_XHTML, "<p>some text</p>").fragment(true), null);
+            assertEquals("<p>some text</p>", manager.getContentForHtml("/textcontent", null, null));
+            assertEquals(1, cache.size());
+            assertEquals(0, cache.getHitCount());
+            assertEquals("<p>some text</p>", manager.getContentForHtml("/textcontent", null, null));
+            assertEquals(1, cache.getHitCount());
+
+            // a new version is rendered again
+            manager.storeContent("/textcontent", new Content(MimeType.APPLICATION_XHTML, "<p>some other text</p>").fragment(true), null);
+            assertEquals(0, cache.size());
+            assertEquals("<p>some other text</p>", manager.getContentForHtml("/textcontent", null, null));
+            assertEquals(1, cache.size());
+
+            // the on-disk tier provides the representations that aren't
+            // in the heap anymore
+            manager.setRenderCacheDirectory(directory);
+            assertEquals(directory, manager.getRenderCacheDirectory());
+            manager.setRenderCacheMaximumSize(0);
+            assertEquals(0, cache.size());
+            assertEquals("<p>some other text</p>", manager.getContentForHtml("/textcontent", null, null));
+            var files = FileUtils.getFileList(directory);
+            // the representation and the index of its content
+            assertEquals(2, files.size());
+            var hits = cache.getHitCount();
+            assertEquals("<p>some other text</p>", manager.getContentForHtml("/textcontent", null, null));
+            assertEquals(hits + 1, cache.getHitCount());
+
+            // the entries of an earlier run are indexed and are still
+            // invalidated by the location of their content
+            manager.setRenderCacheDirectory(null);
+            manager.setRenderCacheDirectory(directory);
+            assertEquals(2, FileUtils.getFileList(directory).size());
+            assertTrue(manager.deleteContent("/textcontent"));
+            assertEquals(0, FileUtils.getFileList(directory).size());
+            assertEquals("", manager.getContentForHtml("/textcontent", null, null));
+
+            // files that weren't created by the cache are never removed
+            var unrelated_file = directory.toPath().resolve("unrelated.txt");
+            var unrelated_directory_file = directory.toPath().resolve("unrelated").resolve("file.txt");
+            var unrelated_numeric_file = directory.toPath().resolve("98765").resolve("file.txt");
+            Files.writeString(unrelated_file, "unrelated");
+            Files.createDirectories(unrelated_directory_file.getParent());
+            Files.writeString(unrelated_directory_file, "unrelated");
+            Files.createDirectories(unrelated_numeric_file.getParent());
+            Files.writeString(unrelated_numeric_file, "unrelated");
+            manager.setRenderCacheDirectory(null);
+            manager.setRenderCacheDirectory(directory);
+            assertEquals(3, FileUtils.getFileList(directory).size());
+            manager.storeContent("/textcontent", new Content(MimeType.APPLICATION_XHTML, "<p>some text</p>").fragment(true), null);
+            assertEquals("<p>some text</p>", manager.getContentForHtml("/textcontent", null, null));
+            assertEquals(5, FileUtils.getFileList(directory).size());
+            cache.clear();
+            assertEquals(3, FileUtils.getFileList(directory).size());
+            assertTrue(Files.exists(unrelated_file));
+            assertTrue(Files.exists(unrelated_directory_file));
+            assertTrue(Files.exists(unrelated_numeric_file));
+
+            // the content info cache is disabled again together with the render cache
+            manager.setRenderCacheDirectory(null);
+            assertEquals(0, manager.getContentInfoCacheDuration());
+
+            // unless its duration was set explicitly
+            manager.setRenderCacheMaximumSize(10);
+            manager.setContentInfoCacheDuration(60000);
+            manager.setRenderCacheMaximumSize(0);
+            assertEquals(60000, manager.getContentInfoCacheDuration());
+        } finally {
+            manager.setContentInfoCacheDuration(0);
+            manager.setRenderCacheMaximumSize(0);
+            manager.setRenderCacheDirectory(null);
+            FileUtils.deleteDirectory(directory);
+            tearDown(datasource);
+        }
+    }
+}
@@ -284,6 +284,73 @@ public class TestOrdinalManager {
         }
     }
 
+    @ParameterizedTest
+    @ArgumentsSource(TestDatasources.class)
+    void testTightenRanges(Datasource datasource) {
+        setup(datasource);
+        try {
+            var priorities = new int[]{0, 1, 2, 4, 5, 9, 10, 11, 12, 20};
+            var ids = new int[priorities.length];
+            for (var i = 0; i < priorities.length; i++) {
+                ids[i] = orderedManager_.save(new Ordered().name("ordered " + i).priority(priorities[i]));
+            }
+
+            assertTrue(ordinalManager_.tighten());
+            for (var i = 0; i < ids.length; i++) {
+                assertEquals(i, orderedManager_.restore(ids[i]).getPriority());
+            }
+
+            assertTrue(ordinalManager_.free(0));
+            assertEquals(1, orderedManager_.restore(ids[0]).getPriority());
+            assertEquals(10, orderedManager_.restore(ids[9]).getPriority());
+
+            assertTrue(ordinalManager_.tighten());
+            for (var i = 0; i < ids.length; i++) {
+                assertEquals(i, orderedManager_.restore(ids[i]).getPriority());
+            }
+        } finally {
+            tearDown();
+        }
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(TestDatasources.class)
+    void testUniqueOrdinals(Datasource datasource) {
+        var unique_manager = GenericQueryManagerFactory.instance(datasource, OrderedUnique.class);
+        var ordinal_manager = new OrdinalManager(datasource, unique_manager.getTable(), "priority");
+        unique_manager.install();
+        try {
+            var priorities = new int[]{0, 1, 2, 4, 5, 9, 10, 11, 12, 20};
+            var ids = new int[priorities.length];
+            for (var i = 0; i < priorities.length; i++) {
+                ids[i] = unique_manager.save(new OrderedUnique().name("ordered " + i).priority(priorities[i]));
+            }
+
+            assertTrue(ordinal_manager.tighten());
+            for (var i = 0; i < ids.length; i++) {
+                assertEquals(i, unique_manager.restore(ids[i]).getPriority());
+            }
+
+            assertTrue(ordinal_manager.free(0));
+            for (var i = 0; i < ids.length; i++) {
+                assertEquals(i + 1, unique_manager.restore(ids[i]).getPriority());
+            }
+
+            assertTrue(ordinal_manager.tighten());
+            assertTrue(ordinal_manager.move(OrdinalManager.DOWN, 3));
+            assertTrue(ordinal_manager.move(8, 1));
+            assertEquals(0, unique_manager.restore(ids[0]).getPriority());
+            assertEquals(1, unique_manager.restore(ids[8]).getPriority());
+            assertEquals(2, unique_manager.restore(ids[1]).getPriority());
+            assertEquals(3, unique_manager.restore(ids[2]).getPriority());
+            assertEquals(4, unique_manager.restore(ids[4]).getPriority());
+            assertEquals(5, unique_manager.restore(ids[3]).getPriority());
+            assertEquals(9, unique_manager.restore(ids[9]).getPriority());
+        } finally {
+            unique_manager.remove();
+        }
+    }
+
     @ParameterizedTest
     @ArgumentsSource(TestDatasources.class)
     void testTightenRestricted(Datasource datasource) {
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.cmf.dam.contentstores;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestByteRange {
+    @Test
+    void testParse() {
+        assertEquals(new ByteRange(0, 9), ByteRange.parse("bytes=0-9", 100));
+        assertEquals(new ByteRange(50, 99), ByteRange.parse("bytes=50-", 100));
+        assertEquals(new ByteRange(50, 99), ByteRange.parse("bytes=50-200", 100));
+        assertEquals(new ByteRange(90, 99), ByteRange.parse("bytes=-10", 100));
+        assertEquals(new ByteRange(0, 99), ByteRange.parse("bytes=-200", 100));
+        assertEquals(10, ByteRange.parse(" bytes= 10-19 ", 100).length());
+    }
+
+    @Test
+    void testParseUnsatisfiable() {
+        assertSame(ByteRange.UNSATISFIABLE, ByteRange.parse("bytes=100-", 100));
+        assertSame(ByteRange.UNSATISFIABLE, ByteRange.parse("bytes=-0", 100));
+        assertSame(ByteRange.UNSATISFIABLE, ByteRange.parse("bytes=-10", 0));
+    }
+
+    @Test
+    void testParseIgnored() {
+        assertNull(ByteRange.parse(null, 100));
+        assertNull(ByteRange.parse("items=0-9", 100));
+        assertNull(ByteRange.parse("bytes=0-9,20-29", 100));
+        assertNull(ByteRange.parse("bytes=9-0", 100));
+        assertNull(ByteRange.parse("bytes=-", 100));
+        assertNull(ByteRange.parse("bytes=a-b", 100));
+    }
+}
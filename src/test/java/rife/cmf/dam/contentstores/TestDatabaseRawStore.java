@@ -327,6 +327,83 @@ public class TestDatabaseRawStore {
         }
     }
 
+    @ParameterizedTest
+    @ArgumentsSource(TestDatasources.class)
+    void testStoreContentDataChunkBatches(Datasource datasource) {
+        setup(datasource);
+        var store = DatabaseRawStoreFactory.instance(datasource);
+        try {
+            final var id = new int[]{1};
+            final var manager = DatabaseContentFactory.instance(datasource);
+            final var insert = new Insert(datasource)
+                .into(RifeConfig.cmf().getTableContentInfo())
+                .fieldParameter("version")
+                .fieldParameter("repositoryId");
+            if ("org.apache.derby.jdbc.EmbeddedDriver".equals(datasource.getAliasedDriver())) {
+                insert.fieldsParametersExcluded(DatabaseContentInfo.class, new String[]{"contentId"});
+            } else {
+                insert.fieldsParameters(DatabaseContentInfo.class);
+            }
+            if ("com.mysql.cj.jdbc.Driver".equals(datasource.getAliasedDriver())) {
+                insert.fieldParameter("created");
+            }
+            manager.executeUpdate(insert, statement -> {
+                var content_info = new DatabaseContentInfo();
+                if (!"org.apache.derby.jdbc.EmbeddedDriver".equals(datasource.getAliasedDriver())) {
+                    content_info.setContentId(id[0]);
+                }
+                content_info.setFragment(false);
+                content_info.setPath("/testpath");
+                content_info.setMimeType(MimeType.RAW.toString());
+                content_info.setCreated(new Timestamp(new Date().getTime()));
+                statement
+                    .setInt("version", 1)
+                    .setInt("repositoryId", manager.executeGetFirstInt(new Select(datasource)
+                        .from(RifeConfig.cmf().getTableContentRepository())
+                        .field("repositoryId")
+                        .where("name", "=", ContentRepository.DEFAULT)))
+                    .setBean(content_info);
+            });
+
+            final var raw = getSmallRaw();
+
+            store.setChunkSize(1000);
+            store.setBatchSize(7);
+            assertEquals(1000, store.getChunkSize());
+            assertEquals(7, store.getBatchSize());
+
+            // the stream only returns a few bytes per read, which shouldn't
+            // influence the size of the stored chunks
+            var data = new ByteArrayInputStream(raw) {
+                public synchronized int read(byte[] b, int off, int len) {
+                    return super.read(b, off, Math.min(len, 100));
+                }
+            };
+            var content = new Content(MimeType.RAW, data);
+            assertTrue(store.storeContentData(id[0], content, null));
+            assertEquals(raw.length, store.getSize(id[0]));
+            assertEquals((raw.length + 999) / 1000, manager.executeGetFirstInt(new Select(datasource)
+                .from(RifeConfig.cmf().getTableContentStoreRawChunk())
+                .field("count(*)")
+                .where("contentId", "=", id[0])));
+
+            store.useContentData(id[0], new ContentDataUserWithoutResult() {
+                public void useContentData(Object contentData)
+                throws InnerClassException {
+                    try {
+                        assertArrayEquals(raw, FileUtils.readBytes((InputStream) contentData));
+                    } catch (FileUtilsErrorException e) {
+                        throwException(e);
+                    }
+                }
+            });
+        } finally {
+            store.setChunkSize(DatabaseRawStore.DEFAULT_CHUNK_SIZE);
+            store.setBatchSize(DatabaseRawStore.DEFAULT_BATCH_SIZE);
+            tearDown(datasource);
+        }
+    }
+
     @ParameterizedTest
     @ArgumentsSource(TestDatasources.class)
     void testStoreContentDataLargeBytes(Datasource datasource) {
@@ -28,10 +28,10 @@ import rife.tools.FileUtils;
 
 import java.io.ByteArrayInputStream;
 import java.net.URL;
+import java.util.Arrays;
 import java.util.Collections;
 
-import static org.junit.jupiter.api.Assertions.assertArrayEquals;
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 import static rife.cmf.format.ImageFormatter.ContentAttribute.HIDPI;
 
 public class TestElements {
@@ -387,4 +387,132 @@ public class TestElements {
             RifeConfig.engine().setPassThroughSuffixes(RifeConfig.EngineConfig.DEFAULT_PASS_THROUGH_SUFFIXES);
         }
     }
+
+    @ParameterizedTest
+    @ArgumentsSource(TestDatasources.class)
+    void testServeContentRange(Datasource datasource)
+    throws Exception {
+        setup(datasource);
+        try {
+            var size = (int) (65535 * 5.8);
+            var binary = new byte[size];
+            for (var i = 0; i < size; i++) {
+                binary[i] = (byte) (i % 255);
+            }
+
+            var manager = DatabaseContentFactory.instance(datasource);
+            var content = new Content(MimeType.RAW, new ByteArrayInputStream(binary)).name("mycoollib.so");
+            manager.storeContent("/rawdata", content, null);
+
+            try (final var server = new TestServerRunner(new Site() {
+                public void setup() {
+                    get("/serve", PathInfoHandling.CAPTURE, new ServeContent(datasource));
+                }
+            })) {
+                try (final var webClient = new WebClient()) {
+                    webClient.getOptions().setThrowExceptionOnFailingStatusCode(false);
+                    webClient.getOptions().setPrintContentOnFailingStatusCode(false);
+
+                    var response = webClient.getPage("http://localhost:8181/serve/rawdata").getWebResponse();
+                    assertEquals(200, response.getStatusCode());
+                    assertEquals("bytes", response.getResponseHeaderValue("Accept-Ranges"));
+                    var etag = response.getResponseHeaderValue("ETag");
+                    assertNotNull(etag);
+                    assertTrue(etag.startsWith("\""));
+
+                    // a range that spans several chunks
+                    var request = new WebRequest(new URL("http://localhost:8181/serve/rawdata"));
+                    request.setAdditionalHeader("Range", "bytes=65000-140000");
+                    response = webClient.getPage(request).getWebResponse();
+                    assertEquals(206, response.getStatusCode());
+                    assertEquals("bytes 65000-140000/" + size, response.getResponseHeaderValue("Content-Range"));
+                    assertEquals(140000 - 65000 + 1, response.getContentLength());
+                    assertArrayEquals(Arrays.copyOfRange(binary, 65000, 140001), FileUtils.readBytes(response.getContentAsStream()));
+
+                    // a suffix range
+                    request = new WebRequest(new URL("http://localhost:8181/serve/rawdata"));
+                    request.setAdditionalHeader("Range", "bytes=-100");
+                    response = webClient.getPage(request).getWebResponse();
+                    assertEquals(206, response.getStatusCode());
+                    assertEquals("bytes " + (size - 100) + "-" + (size - 1) + "/" + size, response.getResponseHeaderValue("Content-Range"));
+                    assertArrayEquals(Arrays.copyOfRange(binary, size - 100, size), FileUtils.readBytes(response.getContentAsStream()));
+
+                    // a range beyond the end of the content
+                    request = new WebRequest(new URL("http://localhost:8181/serve/rawdata"));
+                    request.setAdditionalHeader("Range", "bytes=" + size + "-");
+                    response = webClient.getPage(request).getWebResponse();
+                    assertEquals(416, response.getStatusCode());
+                    assertEquals("bytes */" + size, response.getResponseHeaderValue("Content-Range"));
+
+                    // the range is only honoured when If-Range matches
+                    request = new WebRequest(new URL("http://localhost:8181/serve/rawdata"));
+                    request.setAdditionalHeader("Range", "bytes=10-19");
+                    request.setAdditionalHeader("If-Range", etag);
+                    response = webClient.getPage(request).getWebResponse();
+                    assertEquals(206, response.getStatusCode());
+                    assertArrayEquals(Arrays.copyOfRange(binary, 10, 20), FileUtils.readBytes(response.getContentAsStream()));
+
+                    request = new WebRequest(new URL("http://localhost:8181/serve/rawdata"));
+                    request.setAdditionalHeader("Range", "bytes=10-19");
+                    request.setAdditionalHeader("If-Range", "\"0-0\"");
+                    response = webClient.getPage(request).getWebResponse();
+                    assertEquals(200, response.getStatusCode());
+                    assertNull(response.getResponseHeaderValue("Content-Range"));
+                    assertArrayEquals(binary, FileUtils.readBytes(response.getContentAsStream()));
+                }
+            }
+        } finally {
+            tearDown(datasource);
+        }
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(TestDatasources.class)
+    void testServeContentEntityTag(Datasource datasource)
+    throws Exception {
+        RifeConfig.engine().setPassThroughSuffixes(Collections.emptySet());
+        setup(datasource);
+        try {
+            var manager = DatabaseContentFactory.instance(datasource);
+
+            var data = "<i>cool beans</i><p>hot <a href=\"https://uwyn.com\">chili</a></p>";
+            var content = new Content(MimeType.APPLICATION_XHTML, data).fragment(true);
+            manager.storeContent("/textxhtml", content, null);
+
+            try (final var server = new TestServerRunner(new Site() {
+                public void setup() {
+                    get("/serve", PathInfoHandling.CAPTURE, new ServeContent(datasource));
+                }
+            })) {
+                try (final var webClient = new WebClient()) {
+                    webClient.getOptions().setThrowExceptionOnFailingStatusCode(false);
+                    webClient.getOptions().setPrintContentOnFailingStatusCode(false);
+
+                    var response = webClient.getPage("http://localhost:8181/serve/textxhtml").getWebResponse();
+                    assertEquals(200, response.getStatusCode());
+                    var etag = response.getResponseHeaderValue("ETag");
+                    assertNotNull(etag);
+
+                    var request = new WebRequest(new URL("http://localhost:8181/serve/textxhtml"));
+                    request.setAdditionalHeader("If-None-Match", etag);
+                    response = webClient.getPage(request).getWebResponse();
+                    assertEquals(304, response.getStatusCode());
+                    assertEquals(etag, response.getResponseHeaderValue("ETag"));
+
+                    request = new WebRequest(new URL("http://localhost:8181/serve/textxhtml"));
+                    request.setAdditionalHeader("If-None-Match", "\"0-0\", W/" + etag);
+                    assertEquals(304, webClient.getPage(request).getWebResponse().getStatusCode());
+
+                    // If-None-Match takes precedence over If-Modified-Since
+                    request = new WebRequest(new URL("http://localhost:8181/serve/textxhtml"));
+                    request.setAdditionalHeader("If-None-Match", "\"0-0\"");
+                    request.setAdditionalHeader("If-Modified-Since", "24 Aug 2204 15:14:06 GMT");
+                    assertEquals(200, webClient.getPage(request).getWebResponse().getStatusCode());
+                }
+            }
+        } finally {
+            tearDown(datasource);
+            RifeConfig.engine().setPassThroughSuffixes(RifeConfig.EngineConfig.DEFAULT_PASS_THROUGH_SUFFIXES);
+        }
+    }
 }
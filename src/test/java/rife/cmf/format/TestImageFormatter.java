@@ -20,6 +20,7 @@ import rife.tools.FileUtils;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -131,6 +132,92 @@ public class TestImageFormatter {
         assertArrayEquals(data_image_png, result);
     }
 
+    @Test
+    void testPrepareRenditions()
+    throws Exception {
+        var image_resource_gif = ResourceFinderClasspath.instance().getResource("uwyn.gif");
+        var data_image_gif = FileUtils.readBytes(image_resource_gif);
+
+        var content_resized = new Content(MimeType.IMAGE_PNG, data_image_gif)
+            .attribute("width", 20);
+        var content_original = new Content(MimeType.IMAGE_PNG, data_image_gif);
+        ImageFormatter.prepareRenditions(List.of(content_resized, content_original));
+        assertTrue(content_resized.hasCachedLoadedData());
+        assertTrue(content_original.hasCachedLoadedData());
+
+        var formatter = new ImageFormatter();
+        var result_resized = formatter.format(content_resized, null);
+        var data_image_resized = FileUtils.readBytes(ResourceFinderClasspath.instance().getResource("uwyn_resized-width_20.png"));
+        assertArrayEquals(data_image_resized, result_resized);
+        assertEquals("20", content_resized.getProperty(ImageFormatter.CmfProperty.WIDTH));
+
+        var result_original = formatter.format(content_original, null);
+        var data_image_png = FileUtils.readBytes(ResourceFinderClasspath.instance().getResource("uwyn.png"));
+        assertArrayEquals(data_image_png, result_original);
+    }
+
+    @Test
+    void testDecodedImageCache()
+    throws Exception {
+        var data_image_gif = FileUtils.readBytes(ResourceFinderClasspath.instance().getResource("uwyn.gif"));
+        var cache = ImageFormatter.getDecodedImageCache();
+        assertFalse(cache.isEnabled());
+
+        var formatter = new ImageFormatter();
+        try {
+            formatter.format(new Content(MimeType.IMAGE_PNG, data_image_gif), null);
+            assertEquals(0, cache.size());
+
+            // images that are larger than the cache are never cached
+            cache.setMaximumSize(data_image_gif.length);
+            formatter.format(new Content(MimeType.IMAGE_PNG, data_image_gif), null);
+            assertEquals(0, cache.size());
+
+            cache.setMaximumSize(16 * 1024 * 1024);
+            formatter.format(new Content(MimeType.IMAGE_PNG, data_image_gif), null);
+            assertEquals(1, cache.size());
+            assertTrue(cache.getSize() > data_image_gif.length);
+
+            cache.setMaximumSize(cache.getSize() - 1);
+            assertEquals(0, cache.size());
+            assertEquals(0, cache.getSize());
+        } finally {
+            cache.setMaximumSize(0);
+            cache.clear();
+        }
+    }
+
+    @Test
+    void testFormatTransformerCachedImage()
+    throws Exception {
+        var data_image_png = FileUtils.readBytes(ResourceFinderClasspath.instance().getResource("uwyn_small.png"));
+        var cache = ImageFormatter.getDecodedImageCache();
+        cache.setMaximumSize(16 * 1024 * 1024);
+
+        var formatter = new ImageFormatter();
+        try {
+            ImageContentTransformer identity = (data, attributes) -> data;
+            var expected = formatter.format(new Content(MimeType.IMAGE_PNG, data_image_png), identity);
+            assertEquals(1, cache.size());
+
+            // a transformer that modifies the image it receives can't
+            // change the cached image
+            ImageContentTransformer blackout = (data, attributes) -> {
+                var g2 = ((BufferedImage) data).createGraphics();
+                g2.setColor(Color.BLACK);
+                g2.fillRect(0, 0, data.getWidth(null), data.getHeight(null));
+                g2.dispose();
+                return data;
+            };
+            formatter.format(new Content(MimeType.IMAGE_PNG, data_image_png), blackout);
+
+            assertArrayEquals(expected, formatter.format(new Content(MimeType.IMAGE_PNG, data_image_png), identity));
+        } finally {
+            cache.setMaximumSize(0);
+            cache.clear();
+        }
+    }
+
     @Test
     void testFormatInvalidAttributeWidth()
     throws Exception {
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.continuations;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestContinuationManager {
+    private static class ManagerConfigRuntime extends ContinuationConfigRuntime {
+        private final ContinuationManager manager_;
+        private volatile long duration_ = super.getContinuationDuration();
+        private volatile int maximumCount_ = -1;
+
+        ManagerConfigRuntime() {
+            manager_ = new ContinuationManager(this);
+        }
+
+        public long getContinuationDuration() {
+            return duration_;
+        }
+
+        public int getContinuationMaximumCount() {
+            return maximumCount_;
+        }
+
+        public ContinuationManager getContinuationManager(Object executingInstance) {
+            return manager_;
+        }
+
+        public boolean cloneContinuations(Object executingContinuable) {
+            return false;
+        }
+    }
+
+    private ManagerConfigRuntime config_;
+
+    @BeforeEach
+    void setup() {
+        config_ = new ManagerConfigRuntime();
+        ContinuationConfigRuntime.setActiveConfigRuntime(config_);
+    }
+
+    @AfterEach
+    void tearDown() {
+        config_.manager_.shutdown();
+        ContinuationContext.clearActiveContext();
+        ContinuationConfigRuntime.clearActiveConfigRuntime();
+    }
+
+    private static ContinuationContext registerPausedContext() {
+        ContinuationContext.clearActiveContext();
+        var context = ContinuationContext.createOrResetContext(new Object());
+        context.setPaused(true);
+        context.registerContext();
+        return context;
+    }
+
+    @Test
+    void testExpiration()
+    throws Exception {
+        var manager = config_.manager_;
+        config_.duration_ = 100;
+        var context1 = registerPausedContext();
+        var context2 = registerPausedContext();
+        assertEquals(2, manager.getLiveCount());
+        assertFalse(manager.isExpired(context1));
+
+        Thread.sleep(150);
+        assertTrue(manager.isExpired(context1));
+
+        // expired contexts can't be retrieved anymore
+        assertNull(manager.getContext(context1.getId()));
+        assertEquals(1, manager.getExpiredCount());
+        assertEquals(1, manager.getLiveCount());
+
+        // the others are removed when purging, which stops at the first
+        // context that didn't expire yet
+        var context3 = registerPausedContext();
+        manager.purgeContinuations();
+        assertEquals(2, manager.getExpiredCount());
+        assertEquals(1, manager.getLiveCount());
+        assertNotNull(manager.getContext(context3.getId()));
+        assertNull(manager.getContext(context2.getId()));
+    }
+
+    @Test
+    void testMaximumCount() {
+        var manager = config_.manager_;
+        config_.maximumCount_ = 3;
+
+        var contexts = new ArrayList<ContinuationContext>();
+        for (var i = 0; i < 5; i++) {
+            contexts.add(registerPausedContext());
+        }
+
+        // without a store, the contexts that are the closest to expiring
+        // are evicted
+        assertEquals(3, manager.getLiveCount());
+        assertEquals(2, manager.getEvictedCount());
+        assertEquals(0, manager.getExpiredCount());
+        for (var context : contexts) {
+            var retrieved = manager.getContext(context.getId());
+            if (retrieved != null) {
+                assertSame(context, retrieved);
+            }
+        }
+        assertEquals(3, contexts.stream().filter(c -> manager.getContext(c.getId()) != null).count());
+    }
+
+    @Test
+    void testConcurrentAddRemove()
+    throws Exception {
+        var manager = config_.manager_;
+        var thread_count = 8;
+        var iterations = 1000;
+        var start = new CountDownLatch(1);
+        var kept = new ConcurrentLinkedQueue<ContinuationContext>();
+        var errors = new ConcurrentLinkedQueue<Throwable>();
+
+        var threads = new ArrayList<Thread>();
+        for (var t = 0; t < thread_count; t++) {
+            var thread = new Thread(() -> {
+                ContinuationConfigRuntime.setActiveConfigRuntime(config_);
+                try {
+                    start.await();
+                    for (var i = 0; i < iterations; i++) {
+                        var context = registerPausedContext();
+                        if (i % 2 == 0) {
+                            manager.removeContext(context.getId());
+                        } else {
+                            kept.add(context);
+                        }
+                    }
+                } catch (Throwable e) {
+                    errors.add(e);
+                } finally {
+                    ContinuationContext.clearActiveContext();
+                    ContinuationConfigRuntime.clearActiveConfigRuntime();
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        start.countDown();
+        for (var thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(errors.isEmpty(), errors.toString());
+        assertEquals(thread_count * iterations / 2, manager.getLiveCount());
+        for (var context : kept) {
+            assertSame(context, manager.getContext(context.getId()));
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.continuations;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestOffHeapContinuationStore {
+    public static class SerializableContinuable implements Serializable {
+        String value_ = "continuable";
+    }
+
+    private static class StoreConfigRuntime extends ContinuationConfigRuntime {
+        private final ContinuationManager manager_;
+        private final int maximumCount_;
+        private final OffHeapContinuationStore store_;
+        private volatile long duration_ = super.getContinuationDuration();
+
+        StoreConfigRuntime(int maximumCount) {
+            maximumCount_ = maximumCount;
+            store_ = new OffHeapContinuationStore();
+            manager_ = new ContinuationManager(this);
+        }
+
+        public long getContinuationDuration() {
+            return duration_;
+        }
+
+        public int getContinuationMaximumCount() {
+            return maximumCount_;
+        }
+
+        public ContinuationStore getContinuationStore() {
+            return store_;
+        }
+
+        public ContinuationManager getContinuationManager(Object executingInstance) {
+            return manager_;
+        }
+
+        public boolean cloneContinuations(Object executingContinuable) {
+            return false;
+        }
+    }
+
+    private StoreConfigRuntime config_;
+
+    @BeforeEach
+    void setup() {
+        config_ = new StoreConfigRuntime(1);
+        ContinuationConfigRuntime.setActiveConfigRuntime(config_);
+    }
+
+    @AfterEach
+    void tearDown() {
+        config_.manager_.shutdown();
+        ContinuationContext.clearActiveContext();
+        ContinuationConfigRuntime.clearActiveConfigRuntime();
+    }
+
+    private ContinuationContext createPausedContext(Object continuable) {
+        ContinuationContext.clearActiveContext();
+        var context = ContinuationContext.createOrResetContext(continuable);
+        context.setLabel(3);
+        context.setPaused(true);
+        context.getLocalVars().storeInt(0, 12);
+        context.getLocalVars().storeLong(1, 34L);
+        context.getLocalVars().storeDouble(2, 5.6d);
+        context.getLocalVars().storeReference(3, continuable);
+        context.getLocalVars().storeReference(4, new ArrayList<>(List.of("one", "two")));
+        context.getLocalStack().pushReference("stack");
+        context.setActiveCallState(new CallState("parent", "state"));
+        return context;
+    }
+
+    @Test
+    void testSerializeRoundTrip()
+    throws Exception {
+        var context = createPausedContext(new SerializableContinuable());
+
+        var bytes = ContinuationSerializer.serialize(context);
+        var restored = ContinuationSerializer.deserialize(config_.manager_, bytes, null);
+
+        assertEquals(context.getId(), restored.getId());
+        assertEquals(3, restored.getLabel());
+        assertTrue(restored.isPaused());
+        assertSame(config_.manager_, restored.getManager());
+        assertEquals("continuable", ((SerializableContinuable) restored.getContinuable()).value_);
+        assertEquals(12, restored.getLocalVars().getInt(0));
+        assertEquals(34L, restored.getLocalVars().getLong(1));
+        assertEquals(5.6d, restored.getLocalVars().getDouble(2));
+        assertSame(restored.getContinuable(), restored.getLocalVars().getReference(3));
+        assertEquals(List.of("one", "two"), restored.getLocalVars().getReference(4));
+        assertEquals("stack", restored.getLocalStack().popReference());
+        assertEquals("parent", restored.getActiveCallState().getContinuationId());
+        assertEquals("state", restored.getActiveCallState().getState());
+        assertNull(restored.getCreatedCallState());
+    }
+
+    @Test
+    void testSpillAndPageIn() {
+        var manager = config_.manager_;
+        var context1 = createPausedContext(new SerializableContinuable());
+        context1.registerContext();
+        var context2 = createPausedContext(new SerializableContinuable());
+        context2.registerContext();
+
+        assertEquals(1, manager.getSpilledCount());
+        assertEquals(2, manager.getLiveCount());
+        assertEquals(0, manager.getEvictedCount());
+
+        for (var context : new ContinuationContext[]{context1, context2}) {
+            var paged = manager.getContext(context.getId());
+            assertNotNull(paged);
+            assertEquals(12, paged.getLocalVars().getInt(0));
+        }
+        assertEquals(0, manager.getSpilledCount());
+        assertEquals(2, manager.getLiveCount());
+
+        manager.removeContext(context1.getId());
+        assertNull(manager.getContext(context1.getId()));
+    }
+
+    @Test
+    void testPurgeSpilledWhileHeapIsAlive()
+    throws Exception {
+        var manager = config_.manager_;
+        config_.duration_ = 100;
+        var context1 = createPausedContext(new SerializableContinuable());
+        context1.registerContext();
+        Thread.sleep(5);
+        var context2 = createPausedContext(new SerializableContinuable());
+        context2.registerContext();
+        assertEquals(1, manager.getSpilledCount());
+
+        // the context on the heap is extended, the spilled one expires
+        config_.duration_ = 60_000;
+        Thread.sleep(150);
+        manager.purgeContinuations();
+
+        assertEquals(0, manager.getSpilledCount());
+        assertEquals(1, manager.getExpiredCount());
+        assertEquals(1, manager.getLiveCount());
+        assertNotNull(manager.getContext(context2.getId()));
+    }
+
+    @Test
+    void testUnserializableIsEvicted() {
+        var manager = config_.manager_;
+        var context1 = createPausedContext(new Object());
+        context1.registerContext();
+        var context2 = createPausedContext(new Object());
+        context2.registerContext();
+
+        assertEquals(0, manager.getSpilledCount());
+        assertEquals(1, manager.getEvictedCount());
+        assertEquals(1, manager.getLiveCount());
+    }
+}
@@ -49,6 +49,44 @@ public class TestContinuations {
         }
     }
 
+    @Test
+    void testMaximumCount()
+    throws Exception {
+        var site = new Site() {
+            public void setup() {
+                continuationMaximumCount(2);
+                get("/simple", TestSimplePause::new);
+            }
+        };
+        try (final var server = new TestServerRunner(site)) {
+            try (final var webClient = new WebClient()) {
+                var ids = new String[3];
+                for (var i = 0; i < ids.length; i++) {
+                    HtmlPage page = webClient.getPage("http://localhost:8181/simple");
+                    var lines = StringUtils.splitToArray(page.getWebResponse().getContentAsString(), "\n");
+                    assertEquals("before simple pause", lines[0]);
+                    ids[i] = lines[1];
+
+                    // distinct expiration moments for each continuation
+                    Thread.sleep(10);
+                }
+
+                // the continuation that was the closest to expiring is
+                // evicted, resuming it starts the element anew
+                assertEquals(1, site.continuationManager_.getEvictedCount());
+                assertEquals(0, site.continuationManager_.getSpilledCount());
+                HtmlPage page = webClient.getPage("http://localhost:8181/simple?" + SpecialParameters.CONT_ID + "=" + ids[0]);
+                var lines = StringUtils.splitToArray(page.getWebResponse().getContentAsString(), "\n");
+                assertEquals(2, lines.length);
+                assertEquals("before simple pause", lines[0]);
+                assertNotEquals(ids[0], lines[1]);
+
+                page = webClient.getPage("http://localhost:8181/simple?" + SpecialParameters.CONT_ID + "=" + ids[2]);
+                assertEquals("after simple pause", page.getWebResponse().getContentAsString());
+            }
+        }
+    }
+
     @Test
     void testNull()
     throws Exception {
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestCopyOnWriteParameters {
+    private static Map<String, String[]> createShared() {
+        var parameters = new LinkedHashMap<String, String[]>();
+        parameters.put("one", new String[]{"1"});
+        parameters.put("two", new String[]{"2", "3"});
+        parameters.put("three", new String[]{"4"});
+        return Collections.unmodifiableMap(parameters);
+    }
+
+    @Test
+    void testRead() {
+        var shared = createShared();
+        var parameters = new CopyOnWriteParameters(shared);
+        assertEquals(3, parameters.size());
+        assertFalse(parameters.isEmpty());
+        assertTrue(parameters.containsKey("two"));
+        assertFalse(parameters.containsKey("four"));
+        assertArrayEquals(new String[]{"2", "3"}, parameters.get("two"));
+        assertEquals(new ArrayList<>(shared.keySet()), new ArrayList<>(parameters.keySet()));
+        assertEquals(shared, parameters);
+        assertFalse(parameters.isCopied());
+
+        // removing what doesn't exist isn't a modification
+        assertNull(parameters.remove("four"));
+        parameters.putAll(Map.of());
+        assertFalse(parameters.isCopied());
+    }
+
+    @Test
+    void testPut() {
+        var shared = createShared();
+        var parameters = new CopyOnWriteParameters(shared);
+        assertArrayEquals(new String[]{"1"}, parameters.put("one", new String[]{"5"}));
+        assertNull(parameters.put("four", new String[]{"6"}));
+        assertTrue(parameters.isCopied());
+        assertEquals(4, parameters.size());
+        assertArrayEquals(new String[]{"5"}, parameters.get("one"));
+        assertArrayEquals(new String[]{"6"}, parameters.get("four"));
+
+        // the shared parameters are left untouched
+        assertEquals(3, shared.size());
+        assertArrayEquals(new String[]{"1"}, shared.get("one"));
+    }
+
+    @Test
+    void testRemove() {
+        var shared = createShared();
+        var parameters = new CopyOnWriteParameters(shared);
+        assertArrayEquals(new String[]{"1"}, parameters.remove("one"));
+        assertFalse(parameters.containsKey("one"));
+        parameters.keySet().remove("two");
+        parameters.values().removeIf(v -> v[0].equals("4"));
+        assertTrue(parameters.isEmpty());
+        assertEquals(3, shared.size());
+    }
+
+    @Test
+    void testClear() {
+        var shared = createShared();
+        var parameters = new CopyOnWriteParameters(shared);
+        parameters.clear();
+        assertTrue(parameters.isEmpty());
+        assertEquals(3, shared.size());
+
+        parameters.put("one", new String[]{"7"});
+        assertEquals(1, parameters.size());
+    }
+
+    @Test
+    void testIteratorModifications() {
+        var shared = createShared();
+        var parameters = new CopyOnWriteParameters(shared);
+        var visited = new ArrayList<String>();
+        var iterator = parameters.entrySet().iterator();
+        assertThrows(IllegalStateException.class, iterator::remove);
+        while (iterator.hasNext()) {
+            var entry = iterator.next();
+            visited.add(entry.getKey());
+            if (entry.getKey().equals("one")) {
+                iterator.remove();
+            } else if (entry.getKey().equals("two")) {
+                entry.setValue(new String[]{"8"});
+            }
+        }
+
+        assertEquals(new ArrayList<>(shared.keySet()), visited);
+        assertEquals(2, parameters.size());
+        assertFalse(parameters.containsKey("one"));
+        assertArrayEquals(new String[]{"8"}, parameters.get("two"));
+        assertArrayEquals(new String[]{"2", "3"}, shared.get("two"));
+
+        // once copied, the iterator modifies the copy directly
+        for (var entry : parameters.entrySet()) {
+            entry.setValue(new String[]{"9"});
+        }
+        assertArrayEquals(new String[]{"9"}, parameters.get("two"));
+        assertArrayEquals(new String[]{"9"}, parameters.get("three"));
+    }
+}
@@ -5,25 +5,36 @@
 package rife.engine;
 
 import com.gargoylesoftware.htmlunit.FailingHttpStatusCodeException;
+import com.gargoylesoftware.htmlunit.HttpMethod;
 import com.gargoylesoftware.htmlunit.TextPage;
 import com.gargoylesoftware.htmlunit.UnexpectedPage;
 import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.WebRequest;
 import com.gargoylesoftware.htmlunit.html.HtmlPage;
 import org.junit.jupiter.api.Test;
 import rife.config.RifeConfig;
 import rife.engine.annotations.Parameter;
+import rife.engine.annotations.ParametersBean;
+import rife.engine.annotations.Reusable;
+import rife.engine.elements.PrometheusMetrics;
 import rife.engine.exceptions.AnnotatedElementInstanceFieldException;
 import rife.engine.exceptions.EngineException;
 import rife.template.TemplateFactory;
 import rife.tools.FileUtils;
 import rife.tools.IntegerUtils;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.TimeZone;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -66,6 +77,65 @@ public class TestEngine {
         }
     }
 
+    @Test
+    void testAsyncAwait()
+    throws Exception {
+        try (final var server = new TestServerRunner(new Site() {
+            public void setup() {
+                get("/async/await", c -> {
+                    var result = c.await(CompletableFuture.supplyAsync(() -> "awaited"));
+                    c.setContentType("text/plain");
+                    c.print("Result " + result);
+                });
+                get("/async/timeout", c -> c.await(new CompletableFuture<String>()));
+            }
+        }, true)) {
+            try (final var webClient = new WebClient()) {
+                final TextPage page = webClient.getPage("http://localhost:8181/async/await");
+                assertEquals("Result awaited", page.getContent());
+
+                try {
+                    webClient.getPage("http://localhost:8181/async/timeout");
+                    fail("expected timeout");
+                } catch (FailingHttpStatusCodeException e) {
+                    assertEquals(503, e.getStatusCode());
+                }
+            }
+        }
+    }
+
+    @Test
+    void testAsyncTimeoutIgnoringInterrupt()
+    throws Exception {
+        var released = new AtomicBoolean(false);
+        try (final var server = new TestServerRunner(new Site() {
+            public void setup() {
+                get("/async/busy", c -> {
+                    while (!released.get()) {
+                        try {
+                            Thread.sleep(10);
+                        } catch (InterruptedException e) {
+                            // ignore the interruption of the timeout
+                        }
+                    }
+                });
+            }
+        }, true)) {
+            try (final var webClient = new WebClient()) {
+                webClient.getOptions().setThrowExceptionOnFailingStatusCode(false);
+                webClient.getOptions().setTimeout(10000);
+
+                // the request is completed after the timeout and its grace
+                // period, even though the element is still running
+                var start = System.currentTimeMillis();
+                webClient.getPage("http://localhost:8181/async/busy");
+                assertTrue(System.currentTimeMillis() - start < 10000);
+            } finally {
+                released.set(true);
+            }
+        }
+    }
+
     @Test
     void testSimpleHtml()
     throws Exception {
@@ -266,6 +336,36 @@ public class TestEngine {
         }
     }
 
+    @Test
+    void testUrlBatchGeneration()
+    throws Exception {
+        try (final var server = new TestServerRunner(new Site() {
+            public void setup() {
+                var path_info = get("/pathinfo/map", PathInfoHandling.MAP(
+                    m -> m.t("text").s().p("param1").s().t("x").p("param2", "\\d+")
+                ), c -> c.print(c.parameter("param1") + ':' + c.parameter("param2")));
+                get("/", c -> {
+                    c.setContentType("text/plain");
+                    c.setParameter("param2", "412");
+                    var urls = c.urlBatch();
+                    for (var i = 1; i <= 3; i++) {
+                        c.print(urls.urlFor(path_info).param("param1", "v" + i).fragment("f" + i) + "\n");
+                    }
+                    c.print(urls.url(path_info));
+                });
+            }
+        })) {
+            try (final var webClient = new WebClient()) {
+                TextPage page = webClient.getPage("http://localhost:8181/");
+                assertEquals("""
+                    http://localhost:8181/pathinfo/map/text/v1/x412#f1
+                    http://localhost:8181/pathinfo/map/text/v2/x412#f2
+                    http://localhost:8181/pathinfo/map/text/v3/x412#f3
+                    http://localhost:8181/pathinfo/map?param2=412""", page.getContent());
+            }
+        }
+    }
+
     @Test
     void testFormUrlGeneration()
     throws Exception {
@@ -733,6 +833,235 @@ public class TestEngine {
         }
     }
 
+    public static class IgnoringMultipartElement implements Element {
+        public void process(Context c) {
+            c.setContentType("text/plain");
+            c.print("ignored");
+        }
+    }
+
+    static WebRequest createMultipartRequest(String url, int fileSize)
+    throws IOException {
+        var file_content = new byte[fileSize];
+        Arrays.fill(file_content, (byte) 'x');
+
+        var body = new ByteArrayOutputStream();
+        body.write(("--AaB03x\r\n" +
+                    "Content-Disposition: form-data; name=\"field1\"\r\n" +
+                    "\r\n" +
+                    "value1\r\n" +
+                    "--AaB03x\r\n" +
+                    "Content-Disposition: form-data; name=\"file1\"; filename=\"file1.txt\"\r\n" +
+                    "Content-Type: text/plain\r\n" +
+                    "\r\n").getBytes(StandardCharsets.UTF_8));
+        body.write(file_content);
+        body.write("\r\n--AaB03x--\r\n".getBytes(StandardCharsets.UTF_8));
+
+        var request = new WebRequest(new URL(url), HttpMethod.POST);
+        request.setAdditionalHeader("Content-Type", "multipart/form-data; boundary=AaB03x");
+        request.setRequestBody(body.toString(StandardCharsets.ISO_8859_1));
+        request.setCharset(StandardCharsets.ISO_8859_1);
+        return request;
+    }
+
+    static long countUploadedFiles() {
+        var files = new File(RifeConfig.engine().getFileUploadPath()).list();
+        if (null == files) {
+            return 0;
+        }
+        return files.length;
+    }
+
+    @Test
+    void testMultipartBodyNotConsumed()
+    throws Exception {
+        try (final var server = new TestServerRunner(new Site() {
+            public void setup() {
+                post("/ignoring", IgnoringMultipartElement.class);
+                after(c -> {
+                    // the body is still untouched once the element is done
+                    var parts = new StringBuilder();
+                    for (var part : c.request().getMultipartParts()) {
+                        parts.append(':').append(part.getName());
+                    }
+                    c.print(parts.toString());
+                });
+            }
+        })) {
+            try (final var webClient = new WebClient()) {
+                var uploaded = countUploadedFiles();
+                var page = webClient.getPage(createMultipartRequest("http://localhost:8181/ignoring", 4 * 1024 * 1024));
+                assertEquals("ignored:field1:file1", page.getWebResponse().getContentAsString());
+                assertEquals(uploaded, countUploadedFiles());
+            }
+        }
+    }
+
+    public static class StreamingMultipartElement implements Element {
+        public void process(Context c)
+        throws IOException {
+            c.setContentType("text/plain");
+            for (var part : c.request().getMultipartParts()) {
+                try (var in = part.getInputStream()) {
+                    c.print(part.getName() + "=" + in.transferTo(OutputStream.nullOutputStream()) + ";");
+                }
+            }
+
+            // once streamed, only the URL parameters remain
+            c.print(c.parameter("urlParam") + ";" + c.parameter("field1") + ";" + c.files().isEmpty());
+        }
+    }
+
+    @Test
+    void testMultipartParts()
+    throws Exception {
+        try (final var server = new TestServerRunner(new Site() {
+            public void setup() {
+                post("/streaming", StreamingMultipartElement.class);
+            }
+        })) {
+            try (final var webClient = new WebClient()) {
+                var uploaded = countUploadedFiles();
+                var page = webClient.getPage(createMultipartRequest("http://localhost:8181/streaming?urlParam=url", 4 * 1024 * 1024));
+                assertEquals("field1=6;file1=4194304;url;null;true", page.getWebResponse().getContentAsString());
+                assertEquals(uploaded, countUploadedFiles());
+            }
+        }
+    }
+
+    @Reusable
+    public static class ReusableElement implements Element {
+        @Parameter String name;
+        @Parameter int count = 5;
+
+        public void process(Context c) {
+            c.setContentType("text/plain");
+            c.print(name + ":" + count);
+        }
+    }
+
+    public static class ReusableBean {
+        private String value_;
+
+        public String getValue() {
+            return value_;
+        }
+
+        public void setValue(String value) {
+            value_ = value;
+        }
+    }
+
+    @Reusable
+    public static class ReusableBeanElement implements Element {
+        @ParametersBean ReusableBean bean = new ReusableBean();
+
+        public void process(Context c) {
+            c.setContentType("text/plain");
+            c.print(String.valueOf(bean.getValue()));
+        }
+    }
+
+    @Test
+    void testReusableElement()
+    throws Exception {
+        try (final var server = new TestServerRunner(new Site() {
+            public void setup() {
+                get("/reusable", ReusableElement.class);
+            }
+        })) {
+            try (final var webClient = new WebClient()) {
+                TextPage page = webClient.getPage("http://localhost:8181/reusable?name=one&count=2");
+                assertEquals("one:2", page.getContent());
+
+                // the fields of a reused instance are reset
+                for (var i = 0; i < 3; i++) {
+                    page = webClient.getPage("http://localhost:8181/reusable");
+                    assertEquals("null:5", page.getContent());
+                }
+            }
+        }
+    }
+
+    @Test
+    void testReusableElementMutableField()
+    throws Exception {
+        try (final var server = new TestServerRunner(new Site() {
+            public void setup() {
+                get("/reusable", ReusableBeanElement.class);
+            }
+        })) {
+            try (final var webClient = new WebClient()) {
+                TextPage page = webClient.getPage("http://localhost:8181/reusable?value=one");
+                assertEquals("one", page.getContent());
+
+                // the bean isn't shared with the following requests
+                for (var i = 0; i < 3; i++) {
+                    page = webClient.getPage("http://localhost:8181/reusable");
+                    assertEquals("null", page.getContent());
+                }
+            }
+        }
+    }
+
+    @Test
+    void testEngineMetrics()
+    throws Exception {
+        var metrics = new HistogramEngineMetrics();
+        try (final var server = new TestServerRunner(new Site() {
+            public void setup() {
+                metrics(metrics);
+                before(c -> {
+                    c.setContentType("text/plain");
+                    c.print("before ");
+                });
+                get("/metered", c -> c.print("metered"));
+                post("/metered", c -> c.print("posted"));
+                get("/responded", c -> {
+                    c.print("responded");
+                    c.respond();
+                });
+                get("/metrics", new PrometheusMetrics(metrics));
+            }
+        })) {
+            try (final var webClient = new WebClient()) {
+                webClient.getOptions().setThrowExceptionOnFailingStatusCode(false);
+
+                TextPage page = webClient.getPage("http://localhost:8181/metered");
+                assertEquals("before metered", page.getContent());
+                webClient.getPage("http://localhost:8181/metered");
+                webClient.getPage(new WebRequest(new URL("http://localhost:8181/metered"), HttpMethod.POST));
+                webClient.getPage("http://localhost:8181/unknown");
+
+                var route = metrics.getRoutes().keySet().stream().filter(r -> r.path().equals("/metered") && r.methods()[0] == RequestMethod.GET).findFirst().orElseThrow();
+                var route_metrics = metrics.getRoutes().get(route);
+                assertEquals(2, route_metrics.getPhase(EnginePhase.ROUTE_RESOLUTION).getCount());
+                assertEquals(2, route_metrics.getPhase(EnginePhase.BEFORE).getCount());
+                assertEquals(2, route_metrics.getPhase(EnginePhase.ELEMENT).getCount());
+                assertEquals(2, route_metrics.getPhase(EnginePhase.RESPONSE_FLUSH).getCount());
+                assertEquals(0, route_metrics.getPhase(EnginePhase.CONTINUATION_RESUME).getCount());
+                assertEquals(1, metrics.getNotFoundCount());
+
+                // a phase that ends by throwing is recorded too
+                page = webClient.getPage("http://localhost:8181/responded");
+                assertEquals("before responded", page.getContent());
+                var responded_route = metrics.getRoutes().keySet().stream().filter(r -> r.path().equals("/responded")).findFirst().orElseThrow();
+                var responded_metrics = metrics.getRoutes().get(responded_route);
+                assertEquals(1, responded_metrics.getPhase(EnginePhase.BEFORE).getCount());
+                assertEquals(1, responded_metrics.getPhase(EnginePhase.ELEMENT).getCount());
+                assertEquals(0, responded_metrics.getPhase(EnginePhase.AFTER).getCount());
+
+                page = webClient.getPage("http://localhost:8181/metrics");
+                assertTrue(page.getContent().contains("rife_engine_phase_seconds_count{route=\"/metered\",method=\"GET\",phase=\"element\"} 2"));
+                assertTrue(page.getContent().contains("rife_engine_phase_seconds_count{route=\"/metered\",method=\"POST\",phase=\"element\"} 1"));
+                assertTrue(page.getContent().contains("rife_engine_not_found_total 1"));
+                // the buckets are exported at every power of two, starting at nanoseconds
+                assertTrue(page.getContent().contains("rife_engine_phase_seconds_bucket{route=\"/metered\",method=\"GET\",phase=\"element\",le=\"7.0E-9\"} "));
+                assertTrue(page.getContent().contains("rife_engine_phase_seconds_bucket{route=\"/metered\",method=\"GET\",phase=\"element\",le=\"+Inf\"} 2"));
+            }
+        }
+    }
+
     static class Routes extends Router {
         final Route route = route("/route", c -> {
         });
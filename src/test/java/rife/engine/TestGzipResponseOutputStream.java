@@ -0,0 +1,154 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.engine;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rife.config.RifeConfig;
+import rife.test.MockConversation;
+import rife.test.MockRequest;
+import rife.test.MockResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestGzipResponseOutputStream {
+    private boolean gzipCompression_;
+
+    @BeforeEach
+    void setup() {
+        gzipCompression_ = RifeConfig.engine().getGzipCompression();
+        RifeConfig.engine().setGzipCompression(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RifeConfig.engine().setGzipCompression(gzipCompression_);
+    }
+
+    private static String createBody(int length) {
+        var body = new StringBuilder(length);
+        for (var i = 0; body.length() < length; i++) {
+            body.append("line ").append(i).append(" of the body\n");
+        }
+        body.setLength(length);
+        return body.toString();
+    }
+
+    private static MockResponse request(String body, int parts) {
+        var conversation = new MockConversation(new Site() {
+            public void setup() {
+                get("/body", c -> {
+                    c.setContentType("text/plain");
+                    var bytes = body.getBytes(StandardCharsets.UTF_8);
+                    var os = c.outputStream();
+                    var part_size = Math.max(1, bytes.length / parts);
+                    for (var offset = 0; offset < bytes.length; offset += part_size) {
+                        os.write(bytes, offset, Math.min(part_size, bytes.length - offset));
+                        os.flush();
+                    }
+                });
+            }
+        });
+
+        return conversation.doRequest("/body", new MockRequest().addHeader("Accept-Encoding", "gzip"));
+    }
+
+    private static String decompress(byte[] bytes)
+    throws IOException {
+        try (var gzip = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    void testBelowMinimumSize() {
+        var body = createBody(100);
+        var response = request(body, 10);
+        assertNull(response.getHeader("Content-Encoding"));
+        assertEquals(body.length(), response.getContentLength());
+        assertEquals(body, new String(response.getBytes(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testBelowFlushThreshold()
+    throws Exception {
+        var body = createBody(10000);
+        var response = request(body, 7);
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        assertEquals(response.getBytes().length, response.getContentLength());
+        assertTrue(response.getBytes().length < body.length());
+        assertEquals(body, decompress(response.getBytes()));
+    }
+
+    @Test
+    void testAboveFlushThreshold()
+    throws Exception {
+        // random content that doesn't compress below the threshold
+        var random = new Random(4839L);
+        var builder = new StringBuilder();
+        while (builder.length() < 200000) {
+            builder.append(Long.toString(random.nextLong(), 36));
+        }
+        var body = builder.toString();
+
+        var response = request(body, 50);
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        assertEquals(body, decompress(response.getBytes()));
+    }
+
+    @Test
+    void testConsecutiveResponses()
+    throws Exception {
+        // the pooled deflaters are reset between responses
+        for (var length : new int[]{5000, 100, 100000, 5000}) {
+            var body = createBody(length);
+            var response = request(body, 3);
+            if (length > 860) {
+                assertEquals(body, decompress(response.getBytes()));
+            } else {
+                assertEquals(body, new String(response.getBytes(), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    @Test
+    void testConcurrentResponses()
+    throws Exception {
+        // the deflaters are shared by all threads, the ones that don't fit
+        // in the bounded pool are discarded
+        var body = createBody(5000);
+        var failures = new AtomicInteger();
+        var threads = new ArrayList<Thread>();
+        for (var i = 0; i < GzipResponseOutputStream.DEFLATER_POOL_SIZE * 3; i++) {
+            var thread = new Thread(() -> {
+                try {
+                    if (!body.equals(decompress(request(body, 3).getBytes()))) {
+                        failures.incrementAndGet();
+                    }
+                } catch (IOException e) {
+                    failures.incrementAndGet();
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (var thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(0, failures.get());
+        assertTrue(GzipResponseOutputStream.getPooledDeflaterCount() > 0);
+        assertTrue(GzipResponseOutputStream.getPooledDeflaterCount() <= GzipResponseOutputStream.DEFLATER_POOL_SIZE);
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.engine;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rife.test.MockConversation;
+import rife.test.MockRequest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestRouteTable {
+    static class RouteTableSite extends Site {
+        Route get_;
+        Route post_;
+        Route any_;
+        Route capture_;
+        Route mappedNumber_;
+        Route mappedName_;
+        Route mappedPost_;
+        Route backReference_;
+        Route backReferenceOther_;
+        Route fallback_;
+        Route groupFallback_;
+        Route groupRoute_;
+
+        public void setup() {
+            get_ = get("/route", c -> c.print("get"));
+            post_ = post("/route", c -> c.print("post"));
+            any_ = route("/any", c -> c.print("any"));
+            capture_ = get("/capture", PathInfoHandling.CAPTURE, c -> c.print(c.pathInfo()));
+            mappedNumber_ = get("/mapped", PathInfoHandling.MAP(m -> m.t("id").s().p("id", "\\d+")), c -> c.print("number"));
+            mappedName_ = get("/mapped", PathInfoHandling.MAP(m -> m.t("id").s().p("name"), m -> m.t("name").s().p("name")), c -> c.print("name"));
+            mappedPost_ = post("/mapped", PathInfoHandling.MAP(m -> m.t("id").s().p("id", "\\d+")), c -> c.print("post"));
+            backReference_ = get("/pair", PathInfoHandling.MAP(m -> m.p("pair", "(?<c>\\w)\\k<c>")), c -> c.print("pair"));
+            backReferenceOther_ = get("/pair", PathInfoHandling.MAP(m -> m.t("other")), c -> c.print("other"));
+            fallback_ = fallback(c -> c.print("fallback"));
+            group("/group", new Router() {
+                public void setup() {
+                    groupRoute_ = get("/route", c -> c.print("group"));
+                    groupFallback_ = fallback(c -> c.print("group fallback"));
+                }
+            });
+        }
+    }
+
+    private RouteTableSite site_;
+
+    @BeforeEach
+    void setup() {
+        site_ = new RouteTableSite();
+        // the conversation deploys the site and compiles its routes
+        new MockConversation(site_);
+    }
+
+    private RouteMatch find(RequestMethod method, String url) {
+        return site_.findRouteForRequest(new MockRequest().method(method), url);
+    }
+
+    private void assertRoute(Route expected, String expectedPathInfo, RouteMatch match) {
+        assertNotNull(match);
+        assertSame(expected, match.route());
+        assertEquals(expectedPathInfo, match.pathInfo());
+    }
+
+    @Test
+    void testExact() {
+        assertRoute(site_.get_, "", find(RequestMethod.GET, "/route"));
+        assertRoute(site_.post_, "", find(RequestMethod.POST, "/route"));
+        assertRoute(site_.any_, "", find(RequestMethod.PUT, "/any"));
+        assertRoute(site_.any_, "", find(RequestMethod.DELETE, "/any"));
+        assertRoute(site_.groupRoute_, "", find(RequestMethod.GET, "/group/route"));
+    }
+
+    @Test
+    void testMethodNotHandled() {
+        // routes that don't handle the method are skipped, the request
+        // ends up with the fallback
+        assertRoute(site_.fallback_, "", find(RequestMethod.PUT, "/route"));
+    }
+
+    @Test
+    void testCapture() {
+        assertRoute(site_.capture_, "", find(RequestMethod.GET, "/capture"));
+        assertRoute(site_.capture_, "some/deeper/path", find(RequestMethod.GET, "/capture/some/deeper/path"));
+    }
+
+    @Test
+    void testMapped() {
+        // mappings are tried in their registration order
+        assertRoute(site_.mappedNumber_, "id/123", find(RequestMethod.GET, "/mapped/id/123"));
+        assertRoute(site_.mappedName_, "id/abc", find(RequestMethod.GET, "/mapped/id/abc"));
+        assertRoute(site_.mappedName_, "name/123", find(RequestMethod.GET, "/mapped/name/123"));
+        assertRoute(site_.mappedPost_, "id/123", find(RequestMethod.POST, "/mapped/id/123"));
+        assertRoute(site_.fallback_, "", find(RequestMethod.POST, "/mapped/id/abc"));
+        assertRoute(site_.fallback_, "", find(RequestMethod.GET, "/mapped/unknown"));
+    }
+
+    @Test
+    void testMappedBackReference() {
+        // mappings with back references aren't merged but are still
+        // matched in order
+        assertRoute(site_.backReference_, "aa", find(RequestMethod.GET, "/pair/aa"));
+        assertRoute(site_.backReferenceOther_, "other", find(RequestMethod.GET, "/pair/other"));
+        assertRoute(site_.fallback_, "", find(RequestMethod.GET, "/pair/ab"));
+    }
+
+    @Test
+    void testPathInfoNotAccepted() {
+        // routes without path info handling don't accept path info
+        assertRoute(site_.fallback_, "", find(RequestMethod.GET, "/route/extra"));
+    }
+
+    @Test
+    void testFallback() {
+        // the fallback with the longest path wins
+        assertRoute(site_.fallback_, "", find(RequestMethod.GET, "/unknown"));
+        assertRoute(site_.groupFallback_, "", find(RequestMethod.GET, "/group/unknown"));
+        assertRoute(site_.groupFallback_, "", find(RequestMethod.GET, "/group/route/extra"));
+    }
+
+    @Test
+    void testRecompiled() {
+        // the table is compiled again when a new one is requested, the
+        // lookups keep resolving the same routes
+        site_.compileRoutes();
+        assertRoute(site_.get_, "", find(RequestMethod.GET, "/route"));
+        assertRoute(site_.mappedNumber_, "id/123", find(RequestMethod.GET, "/mapped/id/123"));
+    }
+}
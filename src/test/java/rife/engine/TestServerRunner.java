@@ -14,8 +14,13 @@ public class TestServerRunner implements AutoCloseable {
         .maxThreads(4);
 
     public TestServerRunner(Site site) {
+        this(site, false);
+    }
+
+    public TestServerRunner(Site site, boolean asyncExecution) {
         System.setProperty("org.slf4j.simpleLogger.log.org.eclipse.jetty", "warn");
 
+        server_.asyncExecution(asyncExecution).asyncTimeout(2000);
         server_.start(site);
     }
 
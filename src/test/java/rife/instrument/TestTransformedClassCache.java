@@ -0,0 +1,79 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.instrument;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestTransformedClassCache {
+    @Test
+    void testStoreAndRetrieve(@TempDir File directory) {
+        var cache = new TransformedClassCache(directory);
+        var original = new byte[]{1, 2, 3};
+        var transformed = new byte[]{4, 5, 6, 7};
+
+        assertNull(cache.get("transformation", original));
+        cache.put("transformation", original, transformed);
+        assertArrayEquals(transformed, cache.get("transformation", original));
+        assertNull(cache.get("other", original));
+        assertNull(cache.get("transformation", new byte[]{1, 2, 4}));
+
+        assertEquals(1, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+    }
+
+    @Test
+    void testUnchanged(@TempDir File directory) {
+        var cache = new TransformedClassCache(directory);
+        var original = new byte[]{1, 2, 3};
+
+        cache.put("transformation", original, null);
+        assertSame(original, cache.get("transformation", original));
+
+        var other = new byte[]{3, 2, 1};
+        cache.put("transformation", other, other);
+        assertSame(other, cache.get("transformation", other));
+
+        // a new cache instance reads the existing entries
+        assertSame(original, new TransformedClassCache(directory).get("transformation", original));
+    }
+
+    @Test
+    void testDependencies(@TempDir File directory) {
+        var cache = new TransformedClassCache(directory);
+        var original = new byte[]{1, 2, 3};
+        var transformed = new byte[]{4, 5, 6, 7};
+        var hierarchy = new HashMap<String, String>();
+        hierarchy.put("a/B a/C", "a/A");
+
+        cache.put("transformation", original, transformed, Map.of("a/B a/C", "a/A"));
+        assertArrayEquals(transformed, cache.get("transformation", original, hierarchy::get));
+
+        // entries with dependencies can't be used without resolving them
+        assertNull(cache.get("transformation", original));
+
+        // a changed or missing dependency invalidates the entry
+        hierarchy.put("a/B a/C", "java/lang/Object");
+        assertNull(cache.get("transformation", original, hierarchy::get));
+        hierarchy.clear();
+        assertNull(cache.get("transformation", original, hierarchy::get));
+        assertNull(cache.get("transformation", original, d -> {
+            throw new TypeNotPresentException(d, null);
+        }));
+
+        // storing the entry again replaces it
+        cache.put("transformation", original, null, Map.of());
+        assertSame(original, cache.get("transformation", original, hierarchy::get));
+
+        assertEquals(2, cache.getHitCount());
+        assertEquals(4, cache.getMissCount());
+    }
+}
@@ -7,14 +7,20 @@ package rife.scheduler.schedulermanagers;
 import org.junit.jupiter.api.Test;
 import rife.scheduler.Executor;
 import rife.scheduler.Frequency;
+import rife.scheduler.Scheduler;
 import rife.scheduler.Task;
 import rife.scheduler.TestTasktypes;
+import rife.scheduler.exceptions.TaskManagerException;
+import rife.scheduler.taskmanagers.MemoryTasks;
+import rife.scheduler.taskoptionmanagers.MemoryTaskOptions;
 import rife.tools.ExceptionUtils;
 
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Date;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -191,6 +197,133 @@ public class TestMemoryScheduler {
         taskmanager.removeTask(task.getId());
     }
 
+    @Test
+    void testLimitedConcurrentTaskExecution()
+    throws Exception {
+        var scheduler = new MemoryScheduling().createScheduler();
+        var executor_service = Executors.newFixedThreadPool(4);
+        var executor = new LimitedExecutor();
+        var taskmanager = scheduler.getTaskManager();
+
+        scheduler.setExecutorService(executor_service);
+        scheduler.addExecutor(executor);
+        scheduler.start();
+        try {
+            // the default sleep time is much longer than this test, the tasks
+            // should be picked up because adding them wakes up the scheduler
+            for (var i = 0; i < 3; i++) {
+                taskmanager.addTask(executor.createTask().planned(System.currentTimeMillis()));
+            }
+
+            var start = System.currentTimeMillis();
+            while (executor.getExecutions() < 3 &&
+                   System.currentTimeMillis() - start < 5000) {
+                Thread.sleep(50);
+            }
+
+            assertEquals(3, executor.getExecutions());
+            assertEquals(1, executor.getMaximumObserved());
+        } finally {
+            synchronized (scheduler) {
+                scheduler.stop();
+                scheduler.wait();
+            }
+            executor_service.shutdown();
+        }
+    }
+
+    @Test
+    void testCoalescedWakeups()
+    throws Exception {
+        var scans = new AtomicInteger();
+        var taskmanager = new MemoryTasks() {
+            public Collection<Task> getTasksToProcess()
+            throws TaskManagerException {
+                scans.incrementAndGet();
+                return super.getTasksToProcess();
+            }
+        };
+        var scheduler = new Scheduler(taskmanager, new MemoryTaskOptions());
+        var executor = new LimitedExecutor();
+        // no regular scheduling steps happen during the test
+        scheduler.setSleepTime(Integer.MAX_VALUE);
+        scheduler.addExecutor(executor);
+        scheduler.start();
+        try {
+            var start = System.currentTimeMillis();
+            while (scans.get() < 1 &&
+                   System.currentTimeMillis() - start < 5000) {
+                Thread.sleep(10);
+            }
+            Thread.sleep(100);
+            assertEquals(1, scans.get());
+
+            // tasks that are planned after the next scheduling step
+            // don't wake up the scheduler
+            var later = System.currentTimeMillis() + 2L * Integer.MAX_VALUE;
+            for (var i = 0; i < 100; i++) {
+                var task = executor.createTask().planned(later + i);
+                taskmanager.addTask(task);
+                taskmanager.updateTask(task.planned(later + i + 1));
+            }
+            Thread.sleep(100);
+            assertEquals(1, scans.get());
+
+            // a task that is due wakes up the scheduler, finishing its
+            // execution doesn't since no tasks were held back
+            taskmanager.addTask(executor.createTask().planned(System.currentTimeMillis()));
+            start = System.currentTimeMillis();
+            while (executor.getExecutions() < 1 &&
+                   System.currentTimeMillis() - start < 5000) {
+                Thread.sleep(10);
+            }
+            Thread.sleep(100);
+            assertEquals(1, executor.getExecutions());
+            assertEquals(2, scans.get());
+        } finally {
+            synchronized (scheduler) {
+                scheduler.stop();
+                scheduler.wait();
+            }
+        }
+    }
+
+    static class LimitedExecutor extends Executor {
+        private final AtomicInteger running_ = new AtomicInteger();
+        private final AtomicInteger executions_ = new AtomicInteger();
+        private final AtomicInteger maximumObserved_ = new AtomicInteger();
+
+        public boolean executeTask(Task task) {
+            var running = running_.incrementAndGet();
+            maximumObserved_.accumulateAndGet(running, Math::max);
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                return false;
+            } finally {
+                running_.decrementAndGet();
+            }
+            executions_.incrementAndGet();
+            return true;
+        }
+
+        public int getMaximumConcurrentTasks() {
+            return 1;
+        }
+
+        public int getExecutions() {
+            return executions_.get();
+        }
+
+        public int getMaximumObserved() {
+            return maximumObserved_.get();
+        }
+
+        public String getHandledTaskType() {
+            return TestTasktypes.UPLOAD_GROUPS;
+        }
+    }
+
     static class TestExecutor extends Executor {
         private Calendar firstExecution_ = null;
         private ArrayList<Task> executedTasks_ = null;
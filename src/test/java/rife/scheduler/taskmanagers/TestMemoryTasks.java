@@ -13,6 +13,7 @@ import rife.scheduler.exceptions.FrequencyException;
 import rife.scheduler.exceptions.TaskManagerException;
 import rife.tools.ExceptionUtils;
 
+import java.util.ArrayList;
 import java.util.Calendar;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -269,6 +270,63 @@ public class TestMemoryTasks {
         }
     }
 
+    @Test
+    void testPlannedIndex() {
+        var one_hour = 1000 * 60 * 60;
+
+        TaskManager manager = new MemoryTasks();
+        try {
+            var now = System.currentTimeMillis();
+            var planned = new long[]{now - one_hour, now + one_hour, now - 3 * one_hour, now - 2 * one_hour};
+            var ids = new int[planned.length];
+            for (var i = 0; i < planned.length; i++) {
+                var task = new Task();
+                task.setType(TestTasktypes.UPLOAD_GROUPS);
+                task.setPlanned(planned[i]);
+                task.setFrequency(null);
+                task.setBusy(false);
+                ids[i] = manager.addTask(task);
+            }
+
+            // the due tasks are provided in the order of their planned time
+            var tasks_to_process = new ArrayList<>(manager.getTasksToProcess());
+            assertEquals(3, tasks_to_process.size());
+            assertEquals(ids[2], tasks_to_process.get(0).getId());
+            assertEquals(ids[3], tasks_to_process.get(1).getId());
+            assertEquals(ids[0], tasks_to_process.get(2).getId());
+            assertEquals(1, manager.getScheduledTasks().size());
+
+            // modifying the stored task instance and updating it moves it in the index
+            var task = manager.getTask(ids[2]);
+            task.setPlanned(now + 2 * one_hour);
+            assertTrue(manager.updateTask(task));
+            assertTrue(manager.rescheduleTask(manager.getTask(ids[1]), now - 4 * one_hour, null));
+
+            tasks_to_process = new ArrayList<>(manager.getTasksToProcess());
+            assertEquals(3, tasks_to_process.size());
+            assertEquals(ids[1], tasks_to_process.get(0).getId());
+            assertEquals(ids[3], tasks_to_process.get(1).getId());
+            assertEquals(ids[0], tasks_to_process.get(2).getId());
+            var scheduled_tasks = manager.getScheduledTasks();
+            assertEquals(1, scheduled_tasks.size());
+            assertEquals(ids[2], scheduled_tasks.iterator().next().getId());
+
+            // removed tasks leave the index
+            assertTrue(manager.removeTask(ids[1]));
+            assertTrue(manager.removeTask(ids[2]));
+            tasks_to_process = new ArrayList<>(manager.getTasksToProcess());
+            assertEquals(2, tasks_to_process.size());
+            assertEquals(ids[3], tasks_to_process.get(0).getId());
+            assertEquals(ids[0], tasks_to_process.get(1).getId());
+            assertTrue(manager.getScheduledTasks().isEmpty());
+
+            manager.removeTask(ids[0]);
+            manager.removeTask(ids[3]);
+        } catch (FrequencyException | TaskManagerException e) {
+            fail(ExceptionUtils.getExceptionStackTrace(e));
+        }
+    }
+
     @Test
     void testTaskConclusion() {
         var one_hour = 1000 * 60 * 60;
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2001-2023 Geert Bevin (gbevin[remove] at uwyn dot com)
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ */
+package rife.servlet;
+
+import org.junit.jupiter.api.Test;
+import rife.engine.exceptions.MultipartRequestTooBigException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestMultipartParser {
+    private static final String BOUNDARY = "--AaB03x";
+
+    private static class ChunkedInputStream extends InputStream {
+        private final InputStream input_;
+        private final int chunkSize_;
+
+        ChunkedInputStream(byte[] bytes, int chunkSize) {
+            input_ = new ByteArrayInputStream(bytes);
+            chunkSize_ = chunkSize;
+        }
+
+        public int read()
+        throws IOException {
+            return input_.read();
+        }
+
+        public int read(byte[] bytes, int offset, int length)
+        throws IOException {
+            return input_.read(bytes, offset, Math.min(length, chunkSize_));
+        }
+    }
+
+    private static byte[] createBody(String lineBreak, String fileContent) {
+        return (BOUNDARY + lineBreak +
+                "Content-Disposition: form-data; name=\"field1\"" + lineBreak +
+                lineBreak +
+                "value1" + lineBreak +
+                BOUNDARY + lineBreak +
+                "Content-Disposition: form-data; name=\"file1\"; filename=\"file1.txt\"" + lineBreak +
+                "Content-Type: text/plain" + lineBreak +
+                lineBreak +
+                fileContent + lineBreak +
+                BOUNDARY + lineBreak +
+                "Content-Disposition: form-data; name=\"field2\"" + lineBreak +
+                lineBreak +
+                lineBreak +
+                BOUNDARY + "--" + lineBreak).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, String> parse(InputStream input, long sizeLimit)
+    throws IOException {
+        var result = new LinkedHashMap<String, String>();
+        var parser = new MultipartParser(input, BOUNDARY, "UTF-8", sizeLimit);
+        for (var part = parser.nextPart(); part != null; part = parser.nextPart()) {
+            result.put(part.getName(), part.getString());
+        }
+        return result;
+    }
+
+    @Test
+    void testParse()
+    throws Exception {
+        var result = parse(new ByteArrayInputStream(createBody("\r\n", "some\r\nfile content")), -1);
+        assertEquals(Map.of("field1", "value1", "file1", "some\r\nfile content", "field2", ""), result);
+    }
+
+    @Test
+    void testBoundarySplitAcrossReads()
+    throws Exception {
+        var file_content = "line1\r\n--AaB03 is not the boundary\r\n-\r\n--";
+        var body = createBody("\r\n", file_content);
+        for (var chunk_size = 1; chunk_size <= BOUNDARY.length() + 4; chunk_size++) {
+            var result = parse(new ChunkedInputStream(body, chunk_size), -1);
+            assertEquals("value1", result.get("field1"), "chunk size " + chunk_size);
+            assertEquals(file_content, result.get("file1"), "chunk size " + chunk_size);
+            assertEquals("", result.get("field2"), "chunk size " + chunk_size);
+        }
+    }
+
+    @Test
+    void testContentLargerThanBuffer()
+    throws Exception {
+        var file_content = "0123456789abcdef".repeat(10000);
+        var body = createBody("\r\n", file_content);
+        for (var chunk_size : new int[]{7, 4096, 100000}) {
+            var result = parse(new ChunkedInputStream(body, chunk_size), -1);
+            assertEquals(file_content, result.get("file1"), "chunk size " + chunk_size);
+        }
+    }
+
+    @Test
+    void testLineFeedOnly()
+    throws Exception {
+        var body = createBody("\n", "some\nfile content");
+        for (var chunk_size : new int[]{1, 3, 1024}) {
+            var result = parse(new ChunkedInputStream(body, chunk_size), -1);
+            assertEquals(Map.of("field1", "value1", "file1", "some\nfile content", "field2", ""), result, "chunk size " + chunk_size);
+        }
+    }
+
+    @Test
+    void testSizeLimit()
+    throws Exception {
+        var body = createBody("\r\n", "x".repeat(1000));
+
+        var result = parse(new ChunkedInputStream(body, 100), body.length);
+        assertEquals("x".repeat(1000), result.get("file1"));
+
+        try {
+            parse(new ChunkedInputStream(body, 100), body.length / 2);
+            fail();
+        } catch (MultipartRequestTooBigException e) {
+            assertEquals(body.length / 2, e.getSizeLimit());
+        }
+    }
+}
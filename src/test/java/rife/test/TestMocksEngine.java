@@ -136,6 +136,44 @@ public class TestMocksEngine {
         assertEquals(404, response.getStatus());
     }
 
+    @Test
+    void testParameters() {
+        var conversation = new MockConversation(new Site() {
+            public void setup() {
+                get("/parameters", c -> {
+                    c.print(String.join(",", c.parameterNames()));
+                    c.print(":" + c.parameter("param1"));
+                    c.print(":" + String.join(",", c.parameterValues("param2")));
+                });
+                get("/parameters/modify", c -> {
+                    var parameters = c.parameters();
+                    parameters.put("param1", new String[]{"changed"});
+                    parameters.put("param3", new String[]{"added"});
+                    parameters.remove("param2");
+                    c.print(String.join(",", c.parameterNames()));
+                    c.print(":" + c.parameter("param1"));
+                    c.print(":" + c.parameter("param3"));
+                    c.print(":" + c.hasParameterValue("param2"));
+                });
+                get("/parameters/map", PathInfoHandling.MAP(m -> m.p("param2")), c -> {
+                    c.parameters().put("param1", new String[]{"changed"});
+                    c.print(c.parameter("param1") + ":" + c.parameter("param2"));
+                });
+            }
+        });
+
+        var request = new MockRequest()
+            .parameter("param1", "value1")
+            .parameter("param2", "value2", "value3");
+
+        assertEquals("param1,param2:value1:value2,value3", conversation.doRequest("/parameters", request).getText());
+        assertEquals("param1,param3:changed:added:false", conversation.doRequest("/parameters/modify", request).getText());
+        assertEquals("changed:mapped", conversation.doRequest("/parameters/map/mapped", request).getText());
+
+        // the modifications of a context don't affect the request
+        assertEquals("param1,param2:value1:value2,value3", conversation.doRequest("/parameters", request).getText());
+    }
+
     @Test
     void testPathInfoMappingUrlGeneration() {
         var conversation = new MockConversation(new Site() {